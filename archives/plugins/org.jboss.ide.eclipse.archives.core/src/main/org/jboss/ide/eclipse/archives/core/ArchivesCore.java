@@ -84,6 +84,15 @@ public abstract class ArchivesCore {
 
 	public abstract void preRegisterProject(IPath project);
 
+	/**
+	 * Get a folder where state may be kept across restarts
+	 * @return the folder, or null if there is none
+	 * @since 3.6
+	 */
+	public IPath getStateLocation() {
+		return null;
+	}
+
 	protected abstract String bind2(String message, Object[] bindings);
 
 
@@ -13,6 +13,9 @@ package org.jboss.ide.eclipse.archives.core;
 
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.Plugin;
+import org.jboss.ide.eclipse.archives.core.build.BuildMetricsRecorder;
+import org.jboss.ide.eclipse.archives.core.model.ArchivesModel;
+import org.jboss.ide.eclipse.archives.core.util.internal.FilesetScanCache;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.wiring.BundleWiring;
@@ -32,6 +35,7 @@ public class ArchivesCorePlugin extends Plugin {
 	// The shared instance
 	private static ArchivesCorePlugin plugin;
 	private static BundleContext context;
+	private BuildMetricsRecorder buildMetrics;
 	
 	/**
 	 * The constructor
@@ -51,6 +55,8 @@ public class ArchivesCorePlugin extends Plugin {
 		// Load the workspace version of ArchivesCore
 		new WorkspaceArchivesCore();
 		ResourcesPlugin.getWorkspace().addResourceChangeListener(new WorkspaceChangeListener());
+		buildMetrics = new BuildMetricsRecorder();
+		buildMetrics.register();
 		
 		// JBIDE-17700  workaround
 		ClassLoader bundleLoader = getBundleClassLoader();
@@ -76,6 +82,11 @@ public class ArchivesCorePlugin extends Plugin {
 	 * @see org.eclipse.core.runtime.Plugin#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext context) throws Exception {
+		FilesetScanCache.saveAll(ArchivesModel.instance());
+		if( buildMetrics != null ) {
+			buildMetrics.unregister();
+			buildMetrics = null;
+		}
 		plugin = null;
 		super.stop(context);
 	}
@@ -89,4 +100,13 @@ public class ArchivesCorePlugin extends Plugin {
 		return plugin;
 	}
 
+	/**
+	 * Returns the recorder of the metrics of workspace archive builds
+	 * @return
+	 * @since 3.6
+	 */
+	public BuildMetricsRecorder getBuildMetrics() {
+		return buildMetrics;
+	}
+
 }
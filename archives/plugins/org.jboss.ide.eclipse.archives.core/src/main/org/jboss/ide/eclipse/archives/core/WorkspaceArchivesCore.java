@@ -59,6 +59,11 @@ public class WorkspaceArchivesCore extends ArchivesCore {
 		ProjectUtils.addProjectNature(project);
 	}
 
+	public IPath getStateLocation() {
+		ArchivesCorePlugin plugin = ArchivesCorePlugin.getDefault();
+		return plugin == null ? null : plugin.getStateLocation();
+	}
+
 	protected IArchivesLogger createLogger() {
 		return new ArchivesWorkspaceLogger();
 	}
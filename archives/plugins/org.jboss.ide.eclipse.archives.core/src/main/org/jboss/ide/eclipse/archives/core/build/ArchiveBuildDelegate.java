@@ -13,19 +13,33 @@ package org.jboss.ide.eclipse.archives.core.build;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
 import org.jboss.ide.eclipse.archives.core.ArchivesCore;
 import org.jboss.ide.eclipse.archives.core.ArchivesCoreMessages;
+import org.jboss.ide.eclipse.archives.core.model.ArchiveBuildMetrics;
 import org.jboss.ide.eclipse.archives.core.model.ArchivesModel;
 import org.jboss.ide.eclipse.archives.core.model.DirectoryScannerFactory.DirectoryScannerExtension.FileWrapper;
 import org.jboss.ide.eclipse.archives.core.model.EventManager;
@@ -35,11 +49,14 @@ import org.jboss.ide.eclipse.archives.core.model.IArchiveFolder;
 import org.jboss.ide.eclipse.archives.core.model.IArchiveModelRootNode;
 import org.jboss.ide.eclipse.archives.core.model.IArchiveNode;
 import org.jboss.ide.eclipse.archives.core.model.IArchiveNodeVisitor;
+import org.jboss.ide.eclipse.archives.core.model.IPreferenceManager;
+import org.jboss.ide.eclipse.archives.core.model.IPreferenceManager2;
 import org.jboss.ide.eclipse.archives.core.util.ModelUtil;
 import org.jboss.ide.eclipse.archives.core.util.PathUtils;
 import org.jboss.ide.eclipse.archives.core.util.TrueZipUtil;
 import org.jboss.ide.eclipse.archives.core.util.internal.ModelTruezipBridge;
 import org.jboss.ide.eclipse.archives.core.util.internal.ModelTruezipBridge.FileWrapperStatusPair;
+import org.jboss.ide.eclipse.archives.core.util.internal.NestedArchiveUpdater;
 
 /**
  * This delegate will either build from the model completely
@@ -53,9 +70,47 @@ import org.jboss.ide.eclipse.archives.core.util.internal.ModelTruezipBridge.File
 public class ArchiveBuildDelegate {
 
 	public static int CANNOT_REGISTER_CODE = 31415;
+	
+	private int parallelism = -1;
+	
+	/*
+	 * Scans the filesets of one archive concurrently during a parallel build
+	 */
+	private ExecutorService scanExecutor;
+	
+	/*
+	 * The archives whose referencing archives are being rebuilt, 
+	 * so that a cycle of references does not recurse forever
+	 */
+	private Set<IArchive> referenceChain = new HashSet<IArchive>();
+	
+	/*
+	 * The metrics of archives built by a parallel build, 
+	 * completed once the archives have been written out
+	 */
+	private Map<IArchive, ArchiveBuildMetrics> unsyncedMetrics = new HashMap<IArchive, ArchiveBuildMetrics>();
+	
 	public ArchiveBuildDelegate() {
 	}
 
+	/**
+	 * Set the number of archives which may be built at the same time 
+	 * during a full project build, overriding the preference. 
+	 * @param threads
+	 */
+	public void setParallelism(int threads) {
+		this.parallelism = threads;
+	}
+	
+	protected int getParallelism(IPath project) {
+		if( parallelism > 0 )
+			return parallelism;
+		IPreferenceManager prefs = ArchivesCore.getInstance().getPreferenceManager();
+		if( prefs instanceof IPreferenceManager2 )
+			return Math.max(1, ((IPreferenceManager2)prefs).getBuildParallelism(project));
+		return 1;
+	}
+
 
 	/**
 	 * A full project build has been requested.
@@ -87,10 +142,17 @@ public class ArchiveBuildDelegate {
 					ArchivesCore.getInstance().getVFS().getProjectName(project));
 			SubMonitor progress = SubMonitor.convert(monitor, title, nodes.length * 1000);
 			
-			for( int i = 0; i < nodes.length; i++ ) {
-				errors.addAll(Arrays.asList(
-						fullArchiveBuild(
-								((IArchive)nodes[i]), progress.split(1000), false)));
+			int threads = getParallelism(project);
+			if( threads > 1 && nodes.length > 1 ) {
+				IArchive[] archives = new IArchive[nodes.length];
+				System.arraycopy(nodes, 0, archives, 0, nodes.length);
+				errors.addAll(parallelBuild(archives, threads, progress));
+			} else {
+				for( int i = 0; i < nodes.length; i++ ) {
+					errors.addAll(Arrays.asList(
+							fullArchiveBuild(
+									((IArchive)nodes[i]), progress.split(1000), false)));
+				}
 			}
 
 			EventManager.finishedBuild(project);
@@ -106,8 +168,179 @@ public class ArchiveBuildDelegate {
 		}
 	}
 
+	/**
+	 * Build the given archives, and every archive which references them,
+	 * on a bounded pool. An archive is only built once all archives
+	 * it references are finished, and each archive is built once.
+	 * Canceling the monitor stops every archive being built, and 
+	 * no further archive is started.
+	 * 
+	 * @param archives the top level archives to build
+	 * @param threads the maximum number of archives to build at once
+	 * @param progress 
+	 * @return the errors
+	 * @throws OperationCanceledException if the build was canceled, 
+	 * 		once no archive is being built
+	 */
+	protected List<IStatus> parallelBuild(IArchive[] archives, int threads, SubMonitor progress) {
+		List<List<IArchive>> levels = getBuildLevels(archives);
+		int count = 0;
+		for( int i = 0; i < levels.size(); i++ )
+			count += levels.get(i).size();
+		progress.setWorkRemaining(count * 1000);
+		
+		ArrayList<IStatus> errors = new ArrayList<IStatus>();
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new BuildThreadFactory());
+		scanExecutor = Executors.newFixedThreadPool(threads, new BuildThreadFactory());
+		// Progress monitors are not thread safe. Archives built on the pool only share cancellation
+		final IProgressMonitor cancelMonitor = progress;
+		try {
+			for( int i = 0; i < levels.size(); i++ ) {
+				ArrayList<Future<IStatus>> results = new ArrayList<Future<IStatus>>();
+				Iterator<IArchive> it = levels.get(i).iterator();
+				while(it.hasNext()) {
+					final IArchive next = it.next();
+					results.add(executor.submit(new Callable<IStatus>() {
+						public IStatus call() throws Exception {
+							IProgressMonitor buildMonitor = new BuildMonitor(cancelMonitor);
+							if( buildMonitor.isCanceled())
+								return Status.CANCEL_STATUS;
+							return fullArchiveBuild(next, buildMonitor, false, false, false);
+						}
+					}));
+				}
+				Iterator<Future<IStatus>> rit = results.iterator();
+				while(rit.hasNext()) {
+					IStatus result = waitFor(rit.next());
+					if( result != null && !result.isOK() && result.getSeverity() != IStatus.CANCEL)
+						errors.add(result);
+					progress.worked(1000);
+				}
+				// TrueZip locks each archive separately, so the archives of a level are 
+				// written concurrently. Referencing archives must see them on disk.
+				List<IArchive> level = levels.get(i);
+				for( int j = 0; j < level.size(); j++ ) {
+					IArchive archive = level.get(j);
+					long start = System.nanoTime();
+					ModelTruezipBridge.sync(archive);
+					ArchiveBuildMetrics metrics;
+					synchronized(unsyncedMetrics) {
+						metrics = unsyncedMetrics.remove(archive);
+					}
+					if( metrics != null ) {
+						metrics.addSyncTime(System.nanoTime() - start);
+						EventManager.archiveBuildMetrics(archive, metrics);
+					}
+				}
+				if( progress.isCanceled())
+					throw new OperationCanceledException();
+			}
+		} finally {
+			executor.shutdownNow();
+			scanExecutor.shutdownNow();
+			scanExecutor = null;
+		}
+		return errors;
+	}
+	
+	/*
+	 * Order the given archives, and all archives referencing them, 
+	 * into levels. An archive's level is after the levels of 
+	 * all the archives it references. Archives in a reference cycle 
+	 * are each placed in a level of their own.
+	 */
+	private List<List<IArchive>> getBuildLevels(IArchive[] archives) {
+		LinkedHashMap<IArchive, IArchive[]> referencedBy = new LinkedHashMap<IArchive, IArchive[]>();
+		ArrayList<IArchive> toVisit = new ArrayList<IArchive>(Arrays.asList(archives));
+		while(!toVisit.isEmpty()) {
+			IArchive next = toVisit.remove(0);
+			if( referencedBy.containsKey(next))
+				continue;
+			IArchive[] refs = findReferences(next);
+			referencedBy.put(next, refs);
+			toVisit.addAll(Arrays.asList(refs));
+		}
+		
+		HashMap<IArchive, Integer> pending = new HashMap<IArchive, Integer>();
+		Iterator<IArchive> it = referencedBy.keySet().iterator();
+		while(it.hasNext())
+			pending.put(it.next(), Integer.valueOf(0));
+		Iterator<Map.Entry<IArchive, IArchive[]>> eit = referencedBy.entrySet().iterator();
+		while(eit.hasNext()) {
+			Map.Entry<IArchive, IArchive[]> e = eit.next();
+			IArchive[] refs = e.getValue();
+			for( int i = 0; i < refs.length; i++ ) {
+				if( !refs[i].equals(e.getKey()))
+					pending.put(refs[i], Integer.valueOf(pending.get(refs[i]).intValue() + 1));
+			}
+		}
+		
+		List<List<IArchive>> levels = new ArrayList<List<IArchive>>();
+		List<IArchive> remaining = new ArrayList<IArchive>(referencedBy.keySet());
+		while( !remaining.isEmpty()) {
+			List<IArchive> level = new ArrayList<IArchive>();
+			Iterator<IArchive> rit = remaining.iterator();
+			while(rit.hasNext()) {
+				IArchive next = rit.next();
+				if( pending.get(next).intValue() == 0 )
+					level.add(next);
+			}
+			if( level.isEmpty()) {
+				// A reference cycle. Build one of them to break it
+				level.add(remaining.get(0));
+			}
+			remaining.removeAll(level);
+			for( int i = 0; i < level.size(); i++ ) {
+				IArchive[] refs = referencedBy.get(level.get(i));
+				for( int j = 0; j < refs.length; j++ ) {
+					if( remaining.contains(refs[j]))
+						pending.put(refs[j], Integer.valueOf(pending.get(refs[j]).intValue() - 1));
+				}
+			}
+			levels.add(level);
+		}
+		return levels;
+	}
+	
+	private IStatus waitFor(Future<IStatus> future) {
+		try {
+			return future.get();
+		} catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			return Status.CANCEL_STATUS;
+		} catch(ExecutionException ee) {
+			if( ee.getCause() instanceof OperationCanceledException )
+				return Status.CANCEL_STATUS;
+			return new Status(IStatus.ERROR, ArchivesCore.PLUGIN_ID, ArchivesCoreMessages.ErrorBuilding, ee.getCause());
+		}
+	}
+	
+	/*
+	 * A monitor for an archive built on the pool, which 
+	 * only shares cancellation with the build's monitor
+	 */
+	private static class BuildMonitor extends NullProgressMonitor {
+		private IProgressMonitor parent;
+		public BuildMonitor(IProgressMonitor parent) {
+			this.parent = parent;
+		}
+		public boolean isCanceled() {
+			return super.isCanceled() || parent.isCanceled();
+		}
+	}
+	
+	private static class BuildThreadFactory implements ThreadFactory {
+		private int count = 0;
+		public synchronized Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "Archives Build Worker " + (++count)); //$NON-NLS-1$
+			t.setDaemon(true);
+			return t;
+		}
+	}
+
 	protected IArchive[] findReferences(IArchive node2) {
-		final Set<IArchive> s = new TreeSet<IArchive>();
+		// Archive nodes are not comparable, so a sorted set cannot hold them
+		final Set<IArchive> s = new LinkedHashSet<IArchive>();
 		final IPath dest = node2.getArchiveFilePath();
 		ArchivesModel.instance().accept(new IArchiveNodeVisitor(){
 			public boolean visit(IArchiveNode node) {
@@ -131,6 +364,16 @@ public class ArchiveBuildDelegate {
 		return fullArchiveBuild(pkg, monitor, true);
 	}
 	protected IStatus fullArchiveBuild(IArchive pkg, IProgressMonitor monitor, boolean log) {
+		return fullArchiveBuild(pkg, monitor, log, true, true);
+	}
+	
+	/*
+	 * When run by a parallel build, referencing archives are 
+	 * scheduled by the caller, and the archive is synchronized by the caller
+	 * once every archive of its level is written
+	 */
+	private IStatus fullArchiveBuild(IArchive pkg, IProgressMonitor monitor, boolean log, 
+			boolean buildReferences, boolean sync) {
 		if( !pkg.canBuild() ) {
 			IStatus s = new Status(IStatus.ERROR, ArchivesCore.PLUGIN_ID,
 					ArchivesCore.bind(ArchivesCoreMessages.CannotBuildBadConfiguration, pkg.getName()), null);
@@ -182,7 +425,7 @@ public class ArchiveBuildDelegate {
 //		}
 
 
-		if( !ModelTruezipBridge.createFile(pkg) ) {
+		if( !ModelTruezipBridge.createFile(pkg, sync) ) {
 			IStatus e = new Status(IStatus.ERROR, ArchivesCore.PLUGIN_ID,
 					ArchivesCore.bind(ArchivesCoreMessages.ErrorCreatingOutputFile,
 							ModelTruezipBridge.getFilePath(pkg),
@@ -196,7 +439,7 @@ public class ArchiveBuildDelegate {
 		IProgressMonitor folderMonitor = progress.split(800);
 		folderMonitor.beginTask(ArchivesCoreMessages.CreatingFolders, folders.length * 100);
 		for( int i = 0; i < folders.length; i++ ) {
-			if( !ModelTruezipBridge.createFile(folders[i])) {
+			if( !ModelTruezipBridge.createFile(folders[i], sync)) {
 				IStatus e = new Status(IStatus.ERROR, ArchivesCore.PLUGIN_ID, 
 						ArchivesCore.bind(ArchivesCoreMessages.ErrorCreatingOutputFile,
 						ModelTruezipBridge.getFilePath(folders[i]),
@@ -211,9 +454,17 @@ public class ArchiveBuildDelegate {
 		IArchiveFileSet[] filesets = ModelUtil.findAllDescendentFilesets(pkg);
 		IProgressMonitor filesetMonitor = progress.split(6000);
 		filesetMonitor.beginTask(ArchivesCoreMessages.BuildingFilesets, filesets.length * 1000);
+		ArchiveBuildMetrics metrics = new ArchiveBuildMetrics(pkg);
+		ArchiveBuildMetrics[] filesetMetrics = new ArchiveBuildMetrics[filesets.length];
+		for( int i = 0; i < filesets.length; i++ )
+			filesetMetrics[i] = new ArchiveBuildMetrics(filesets[i]);
+		// Filesets write into the same archive, so only their scans run concurrently
+		boolean scanned = scanFilesets(filesets, filesetMetrics);
 		for( int i = 0; i < filesets.length; i++ ) {
-			IStatus[] errors2 = fullFilesetBuild(filesets[i], progress.split(1000), pkg);
+			IStatus[] errors2 = fullFilesetBuild(filesets[i], progress.split(1000), pkg, !scanned, sync, 
+					filesetMetrics[i]);
 			errors.addAll(Arrays.asList(errors2));
+			metrics.add(filesetMetrics[i]);
 		}
 		filesetMonitor.done();
 
@@ -226,14 +477,20 @@ public class ArchiveBuildDelegate {
 		
 		
 		ArrayList<IArchive> referencingArchives = new ArrayList<IArchive>();
-		referencingArchives.addAll(Arrays.asList(findReferences(pkg)));
+		if( buildReferences )
+			referencingArchives.addAll(Arrays.asList(findReferences(pkg)));
 		
 		SubMonitor referenceMon = SubMonitor.convert(progress.split(1000), ArchivesCoreMessages.BuildingArchive, 
 				referencingArchives.size() * 1000);
 		for( Iterator<IArchive> i = referencingArchives.iterator(); i.hasNext();) {
 			IArchive toBuild = i.next();
-			if( !toBuild.equals(pkg)) {
-				errors.add(fullArchiveBuild(toBuild, referenceMon.split(1000), log));
+			if( !toBuild.equals(pkg) && !referenceChain.contains(toBuild)) {
+				referenceChain.add(pkg);
+				try {
+					errors.add(fullArchiveBuild(toBuild, referenceMon.split(1000), log));
+				} finally {
+					referenceChain.remove(pkg);
+				}
 			} else {
 				// RECURSE ERROR
 			}
@@ -242,6 +499,13 @@ public class ArchiveBuildDelegate {
 		
 
 		EventManager.finishedBuildingArchive(pkg);
+		if( sync ) {
+			EventManager.archiveBuildMetrics(pkg, metrics);
+		} else {
+			synchronized(unsyncedMetrics) {
+				unsyncedMetrics.put(pkg, metrics);
+			}
+		}
 		IStatus[] errors2 = errors.toArray(new IStatus[errors.size()]);
 		if( log )
 			EventManager.error(pkg, errors2 );
@@ -261,19 +525,86 @@ public class ArchiveBuildDelegate {
 	 * @param topLevel The top level archive that the fileset belongs to
 	 */
 	protected IStatus[] fullFilesetBuild(IArchiveFileSet fileset, IProgressMonitor monitor, IArchive topLevel) {
+		return fullFilesetBuild(fileset, monitor, topLevel, true, true, new ArchiveBuildMetrics(fileset));
+	}
+	
+	private IStatus[] fullFilesetBuild(IArchiveFileSet fileset, IProgressMonitor monitor, IArchive topLevel, 
+			boolean rescan, boolean sync, ArchiveBuildMetrics metrics) {
 		EventManager.startedCollectingFileSet(fileset);
 
 		// reset the scanner. It *is* a full build afterall
-		fileset.resetScanner();
+		long start = System.nanoTime();
+		if( rescan )
+			fileset.resetScanner();
 		FileWrapper[] paths = fileset.findMatchingPaths();
-
-		FileWrapperStatusPair result = ModelTruezipBridge.fullFilesetBuild(fileset, monitor, true);
+		metrics.addScanTime(System.nanoTime() - start);
+		metrics.addFilesMatched(paths.length);
+		metrics.addSourceBytes(getLength(paths));
+
+		start = System.nanoTime();
+		FileWrapperStatusPair result = ModelTruezipBridge.fullFilesetBuild(fileset, monitor, false);
+		metrics.addCopyTime(System.nanoTime() - start);
+		if( sync ) {
+			start = System.nanoTime();
+			ModelTruezipBridge.sync(fileset);
+			metrics.addSyncTime(System.nanoTime() - start);
+		}
 
 		EventManager.filesUpdated(topLevel, fileset, paths);
+		EventManager.fileSetBuildMetrics(fileset, metrics);
 		EventManager.finishedCollectingFileSet(fileset);
 		return result.s;
 	}
 
+	private static long getLength(FileWrapper[] files) {
+		long length = 0;
+		for( int i = 0; i < files.length; i++ ) {
+			if( files[i].isFile())
+				length += files[i].length();
+		}
+		return length;
+	}
+
+	/*
+	 * Reset and scan the given filesets concurrently, if a parallel build is running.
+	 * Returns whether the filesets were scanned.
+	 */
+	private boolean scanFilesets(IArchiveFileSet[] filesets, ArchiveBuildMetrics[] metrics) {
+		ExecutorService executor = scanExecutor;
+		if( executor == null || filesets.length < 2 )
+			return false;
+		ArrayList<Future<Object>> scans = new ArrayList<Future<Object>>();
+		for( int i = 0; i < filesets.length; i++ ) {
+			final IArchiveFileSet fs = filesets[i];
+			final ArchiveBuildMetrics fsMetrics = metrics[i];
+			scans.add(executor.submit(new Callable<Object>() {
+				public Object call() throws Exception {
+					long start = System.nanoTime();
+					try {
+						fs.resetScanner();
+						return fs.findMatchingPaths();
+					} finally {
+						fsMetrics.addScanTime(System.nanoTime() - start);
+					}
+				}
+			}));
+		}
+		boolean scanned = true;
+		Iterator<Future<Object>> it = scans.iterator();
+		while(it.hasNext()) {
+			try {
+				it.next().get();
+			} catch(InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				scanned = false;
+			} catch(ExecutionException ee) {
+				// Let the fileset build rescan and report the problem
+				scanned = false;
+			}
+		}
+		return scanned;
+	}
+
 	/**
 	 * Incremental build.
 	 * Parameters are instance sof changed IPath objects
@@ -298,7 +629,9 @@ public class ArchiveBuildDelegate {
 		IPath path, globalPath;
 		IArchiveFileSet[] matchingFilesets;
 		ArrayList<IArchive> topPackagesChanged = new ArrayList<IArchive>();
-		ArrayList<IArchiveFileSet> seen = new ArrayList<IArchiveFileSet>();
+		Set<IArchiveFileSet> seen = new LinkedHashSet<IArchiveFileSet>();
+		Map<IArchive, ArchiveBuildMetrics> metrics = new HashMap<IArchive, ArchiveBuildMetrics>();
+		NestedArchiveUpdater updater = NestedArchiveUpdater.isEnabled() ? new NestedArchiveUpdater() : null;
 
 		// Handle the removed files first. Hopefully the fileset hasn't been reset yet
 		// or it could make this block of code fail.
@@ -311,13 +644,16 @@ public class ArchiveBuildDelegate {
 			matchingFilesets = ModelUtil.getMatchingFilesets(archive, path, workspaceRelative);
 			localFireAffectedTopLevelPackages(topPackagesChanged, matchingFilesets);
 			for( int j = 0; j < matchingFilesets.length; j++ ) {
+				ArchiveBuildMetrics m = getMetrics(metrics, matchingFilesets[j].getRootArchive());
+				long start = System.nanoTime();
+				FileWrapper[] matches = matchingFilesets[j].getMatches(globalPath);
+				m.addScanTime(System.nanoTime() - start);
+				start = System.nanoTime();
 				IStatus[] errors2 = ModelTruezipBridge.deleteFiles(
-						matchingFilesets[j], matchingFilesets[j].getMatches(globalPath),
-						new NullProgressMonitor(), false);
+						matchingFilesets[j], matches, updater, new NullProgressMonitor(), false);
+				m.addCopyTime(System.nanoTime() - start);
 				errors.addAll(Arrays.asList(errors2));
-				if( !seen.contains(matchingFilesets[j])) {
-					seen.add(matchingFilesets[j]);
-				}
+				seen.add(matchingFilesets[j]);
 			}
 			EventManager.fileRemoved(path, matchingFilesets);
 			progress.split(100);
@@ -336,13 +672,18 @@ public class ArchiveBuildDelegate {
 			matchingFilesets = ModelUtil.getMatchingFilesets(archive, path, workspaceRelative);
 			localFireAffectedTopLevelPackages(topPackagesChanged, matchingFilesets);
 			for( int j = 0; j < matchingFilesets.length; j++ ) {
-				if( !seen.contains(matchingFilesets[j])) {
-					seen.add(matchingFilesets[j]);
+				ArchiveBuildMetrics m = getMetrics(metrics, matchingFilesets[j].getRootArchive());
+				long start = System.nanoTime();
+				if( seen.add(matchingFilesets[j]))
 					matchingFilesets[j].resetScanner();
-				}
+				FileWrapper[] matches = matchingFilesets[j].getMatches(globalPath);
+				m.addScanTime(System.nanoTime() - start);
+				m.addFilesMatched(matches.length);
+				m.addSourceBytes(getLength(matches));
+				start = System.nanoTime();
 				IStatus[] errors2 = ModelTruezipBridge.copyFiles(matchingFilesets[j],
-						matchingFilesets[j].getMatches(globalPath),
-						new NullProgressMonitor(), true, false);
+						matches, updater, new NullProgressMonitor(), true, false);
+				m.addCopyTime(System.nanoTime() - start);
 				errors.addAll(Arrays.asList(errors2));
 			}
 			EventManager.fileUpdated(path, matchingFilesets);
@@ -350,8 +691,26 @@ public class ArchiveBuildDelegate {
 		}
 
 
-		// NOW do the synch
-		TrueZipUtil.sync();
+		// NOW do the synch, of only the archives which were written to,
+		// and patch the nested archives which were not
+		Iterator<IArchive> ait = topPackagesChanged.iterator();
+		while(ait.hasNext()) {
+			IArchive changed = ait.next();
+			ArrayList<IArchiveNode> written = new ArrayList<IArchiveNode>();
+			fit = seen.iterator();
+			while(fit.hasNext()) {
+				IArchiveFileSet fs = fit.next();
+				if( changed.equals(fs.getRootArchive()))
+					written.add(fs);
+			}
+			long start = System.nanoTime();
+			ModelTruezipBridge.sync(written.toArray(new IArchiveNode[written.size()]));
+			if( updater != null )
+				errors.addAll(Arrays.asList(updater.apply(changed.getArchiveFilePath())));
+			getMetrics(metrics, changed).addSyncTime(System.nanoTime() - start);
+		}
+		if( updater != null )
+			errors.addAll(Arrays.asList(updater.apply()));
 		Comparator<IPath> c = new Comparator<IPath>() {
 			public int compare(IPath o1, IPath o2) {
 				return o1.toOSString().compareTo(o2.toOSString());
@@ -366,6 +725,7 @@ public class ArchiveBuildDelegate {
 				if( !addedChanged.contains(changed.getArchiveFilePath()))
 					changedPaths.add(changed.getArchiveFilePath());
 				EventManager.finishedBuildingArchive(changed);
+				EventManager.archiveBuildMetrics(changed, getMetrics(metrics, changed));
 			} catch( ClassCastException cce ) {
 				cce.printStackTrace();  
 			}
@@ -381,6 +741,15 @@ public class ArchiveBuildDelegate {
 		progress.done();
 	}
 
+	private static ArchiveBuildMetrics getMetrics(Map<IArchive, ArchiveBuildMetrics> metrics, IArchive archive) {
+		ArchiveBuildMetrics m = metrics.get(archive);
+		if( m == null ) {
+			m = new ArchiveBuildMetrics(archive);
+			metrics.put(archive, m);
+		}
+		return m;
+	}
+
 	private void localFireAffectedTopLevelPackages(ArrayList<IArchive> affected, IArchiveFileSet[] filesets) {
 		for( int i = 0; i < filesets.length; i++ ) {
 			if( !affected.contains(filesets[i].getRootArchive())) {
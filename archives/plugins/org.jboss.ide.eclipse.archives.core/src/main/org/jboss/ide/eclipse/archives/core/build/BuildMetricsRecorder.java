@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.archives.core.build;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.core.runtime.IStatus;
+import org.jboss.ide.eclipse.archives.core.ArchivesCore;
+import org.jboss.ide.eclipse.archives.core.model.AbstractBuildListener;
+import org.jboss.ide.eclipse.archives.core.model.ArchiveBuildMetrics;
+import org.jboss.ide.eclipse.archives.core.model.ArchivesModel;
+import org.jboss.ide.eclipse.archives.core.model.IArchive;
+import org.jboss.ide.eclipse.archives.core.model.IArchiveFileSet;
+
+/**
+ * Records the metrics of archive builds, and publishes them
+ * through JMX under {@link #OBJECT_NAME}.
+ *
+ * @since 3.6
+ */
+public class BuildMetricsRecorder extends AbstractBuildListener implements BuildMetricsRecorderMBean {
+	public static final String OBJECT_NAME = "org.jboss.ide.eclipse.archives.core:type=BuildMetrics"; //$NON-NLS-1$
+
+	private ArchiveBuildMetrics total;
+	private int archivesBuilt;
+	/* The last metrics of each archive and fileset, by their output */
+	private LinkedHashMap<String, ArchiveBuildMetrics> archives;
+	private LinkedHashMap<String, ArchiveBuildMetrics> filesets;
+	private ObjectName name;
+
+	public BuildMetricsRecorder() {
+		reset();
+	}
+
+	/**
+	 * Start recording the builds of the workspace model,
+	 * and register with the platform MBean server
+	 */
+	public void register() {
+		ArchivesModel.instance().addBuildListener(this);
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName on = new ObjectName(OBJECT_NAME);
+			if( !server.isRegistered(on)) {
+				server.registerMBean(this, on);
+				name = on;
+			}
+		} catch(JMException jme) {
+			ArchivesCore.log(IStatus.WARNING, jme.getMessage(), jme);
+		}
+	}
+
+	public void unregister() {
+		ArchivesModel.instance().removeBuildListener(this);
+		if( name != null ) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+			} catch(JMException jme) {
+				// Already gone
+			}
+			name = null;
+		}
+	}
+
+	public synchronized void archiveBuildMetrics(IArchive pkg, ArchiveBuildMetrics metrics) {
+		archivesBuilt++;
+		total.add(metrics);
+		String key = pkg.getArchiveFilePath().toOSString();
+		// Keep the most recent last
+		archives.remove(key);
+		archives.put(key, metrics);
+	}
+
+	public synchronized void fileSetBuildMetrics(IArchiveFileSet fileset, ArchiveBuildMetrics metrics) {
+		String key = fileset.getRootArchive().getArchiveFilePath().toOSString() + "#" + fileset.getRootArchiveRelativePath() //$NON-NLS-1$
+				+ "#" + fileset.toString(); //$NON-NLS-1$
+		filesets.remove(key);
+		filesets.put(key, metrics);
+	}
+
+	public synchronized int getArchivesBuilt() {
+		return archivesBuilt;
+	}
+
+	public synchronized long getScanTime() {
+		return total.getScanTime();
+	}
+
+	public synchronized long getCopyTime() {
+		return total.getCopyTime();
+	}
+
+	public synchronized long getSyncTime() {
+		return total.getSyncTime();
+	}
+
+	public synchronized long getSourceBytes() {
+		return total.getSourceBytes();
+	}
+
+	public synchronized long getFilesMatched() {
+		return total.getFilesMatched();
+	}
+
+	public synchronized String[] getArchiveMetrics() {
+		return toStrings(archives.values());
+	}
+
+	public synchronized String[] getFileSetMetrics() {
+		return toStrings(filesets.values());
+	}
+
+	/**
+	 * @param archive the absolute path of an archive
+	 * @return the metrics of the last build of the archive, or null
+	 */
+	public synchronized ArchiveBuildMetrics getMetrics(String archive) {
+		return archives.get(archive);
+	}
+
+	public synchronized void reset() {
+		total = new ArchiveBuildMetrics(null);
+		archivesBuilt = 0;
+		archives = new LinkedHashMap<String, ArchiveBuildMetrics>();
+		filesets = new LinkedHashMap<String, ArchiveBuildMetrics>();
+	}
+
+	private static String[] toStrings(Collection<ArchiveBuildMetrics> metrics) {
+		String[] s = new String[metrics.size()];
+		Iterator<ArchiveBuildMetrics> it = metrics.iterator();
+		for( int i = 0; it.hasNext(); i++ )
+			s[i] = it.next().toString();
+		return s;
+	}
+}
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.archives.core.build;
+
+/**
+ * The management interface of {@link BuildMetricsRecorder}.
+ * Times are in milliseconds, and totals are since the last reset.
+ *
+ * @since 3.6
+ */
+public interface BuildMetricsRecorderMBean {
+	/**
+	 * @return the number of archive builds recorded
+	 */
+	public int getArchivesBuilt();
+
+	public long getScanTime();
+
+	public long getCopyTime();
+
+	public long getSyncTime();
+
+	public long getSourceBytes();
+
+	public long getFilesMatched();
+
+	/**
+	 * @return the metrics of the last build of each archive
+	 */
+	public String[] getArchiveMetrics();
+
+	/**
+	 * @return the metrics of the last full build of each fileset
+	 */
+	public String[] getFileSetMetrics();
+
+	/**
+	 * Discard everything recorded so far
+	 */
+	public void reset();
+}
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.archives.core.build;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.jboss.ide.eclipse.archives.core.ArchivesCoreMessages;
+
+/**
+ * Coalesces the incremental builds of bursts of workspace changes,
+ * such as a checkout or a refresh touching thousands of files.
+ *
+ * Changed workspace paths are gathered until none have arrived for
+ * the quiet window, and are then built by a single incremental build,
+ * so that each affected archive is built and written out once rather
+ * than once per resource delta. A path removed after it was added or
+ * changed is only removed, and a path added again after it was removed
+ * is only added.
+ *
+ * While waiting, the job sleeps, and is woken by each new change to wait
+ * out the rest of the window. Anyone who must see the build's result, rather
+ * than wait for the workspace to be idle, joins the queue. The build itself
+ * holds the workspace build rule, as the builder does, so it never runs
+ * alongside another archives build.
+ *
+ * The queue is only used when a quiet window is set, see
+ * {@link org.jboss.ide.eclipse.archives.core.model.IPreferenceManager2#getBuildQuietWindow()}.
+ *
+ * @since 3.6
+ */
+public class IncrementalBuildQueue extends Job {
+	private static IncrementalBuildQueue instance;
+
+	public static synchronized IncrementalBuildQueue getDefault() {
+		if( instance == null )
+			instance = new IncrementalBuildQueue();
+		return instance;
+	}
+
+	private Set<IPath> addedChanged = new LinkedHashSet<IPath>();
+	private Set<IPath> removed = new LinkedHashSet<IPath>();
+	private long lastChange;
+	private long quietWindow;
+
+	protected IncrementalBuildQueue() {
+		super(ArchivesCoreMessages.ProjectArchivesIncrementalBuild);
+		setPriority(Job.BUILD);
+	}
+
+	/**
+	 * Add the workspace paths changed by one build delta,
+	 * and build them once the quiet window has passed
+	 * without further changes.
+	 *
+	 * @param addedChanged  workspace paths added or changed
+	 * @param removed       workspace paths removed
+	 * @param quietWindow   milliseconds to wait for further changes
+	 */
+	public void enqueue(Set<IPath> addedChanged, Set<IPath> removed, long quietWindow) {
+		synchronized(this) {
+			Iterator<IPath> i = removed.iterator();
+			while(i.hasNext()) {
+				IPath p = i.next();
+				this.addedChanged.remove(p);
+				this.removed.add(p);
+			}
+			i = addedChanged.iterator();
+			while(i.hasNext()) {
+				IPath p = i.next();
+				this.removed.remove(p);
+				this.addedChanged.add(p);
+			}
+			this.lastChange = System.currentTimeMillis();
+			this.quietWindow = quietWindow;
+		}
+		// Wakes the job if sleeping, and runs it again when finished if running
+		schedule(quietWindow);
+	}
+
+	/**
+	 * Whether there are changes waiting to be built
+	 * @return
+	 */
+	public synchronized boolean hasPendingChanges() {
+		return addedChanged.size() > 0 || removed.size() > 0;
+	}
+
+	protected IStatus run(IProgressMonitor monitor) {
+		long wait = 0;
+		Set<IPath> addedChanged2 = null, removed2 = null;
+		synchronized(this) {
+			wait = lastChange + quietWindow - System.currentTimeMillis();
+			if( wait <= 0 ) {
+				addedChanged2 = addedChanged;
+				removed2 = removed;
+				addedChanged = new LinkedHashSet<IPath>();
+				removed = new LinkedHashSet<IPath>();
+			}
+		}
+		if( wait > 0 ) {
+			// Changes arrived since the job was scheduled, so sleep out the rest of the window
+			schedule(wait);
+			return Status.OK_STATUS;
+		}
+		if( addedChanged2.size() == 0 && removed2.size() == 0 )
+			return Status.OK_STATUS;
+
+		try {
+			build(addedChanged2, removed2, monitor);
+		} catch(OperationCanceledException oce) {
+			// Keep the changes for the next build
+			requeue(addedChanged2, removed2);
+			return Status.CANCEL_STATUS;
+		}
+		return Status.OK_STATUS;
+	}
+
+	/**
+	 * Build the changes which were gathered
+	 *
+	 * @param addedChanged  workspace paths added or changed
+	 * @param removed       workspace paths removed
+	 * @param monitor
+	 * @throws OperationCanceledException if the build is canceled,
+	 * 		in which case the changes are kept for the next build
+	 */
+	protected void build(Set<IPath> addedChanged, Set<IPath> removed, IProgressMonitor monitor) {
+		ISchedulingRule rule = ResourcesPlugin.getWorkspace().getRuleFactory().buildRule();
+		try {
+			Job.getJobManager().beginRule(rule, monitor);
+			new ArchiveBuildDelegate().incrementalBuild(null, addedChanged, removed, true, monitor);
+		} finally {
+			Job.getJobManager().endRule(rule);
+		}
+	}
+
+	/* Add back changes taken for a build, unless superseded since */
+	private synchronized void requeue(Set<IPath> addedChanged2, Set<IPath> removed2) {
+		Iterator<IPath> i = removed2.iterator();
+		while(i.hasNext()) {
+			IPath p = i.next();
+			if( !addedChanged.contains(p))
+				removed.add(p);
+		}
+		i = addedChanged2.iterator();
+		while(i.hasNext()) {
+			IPath p = i.next();
+			if( !removed.contains(p))
+				addedChanged.add(p);
+		}
+	}
+}
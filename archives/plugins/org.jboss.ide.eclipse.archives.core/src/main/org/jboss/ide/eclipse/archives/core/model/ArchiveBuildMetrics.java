@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.archives.core.model;
+
+/**
+ * Where the time of building one archive or fileset went.
+ *
+ * Scan time is spent finding the files a fileset matches,
+ * copy time copying them into the archive, and sync time writing
+ * the archive out to disk. Source bytes are the sizes of the
+ * files copied, as read, rather than what is written to the archive.
+ *
+ * The metrics of an archive are the sums of the metrics of
+ * all filesets beneath it, nested archives included.
+ *
+ * @since 3.6
+ */
+public class ArchiveBuildMetrics {
+	private IArchiveNode node;
+	private long scanTime;
+	private long copyTime;
+	private long syncTime;
+	private long sourceBytes;
+	private int filesMatched;
+
+	public ArchiveBuildMetrics(IArchiveNode node) {
+		this.node = node;
+	}
+
+	/**
+	 * The archive or fileset measured
+	 * @return
+	 */
+	public IArchiveNode getNode() {
+		return node;
+	}
+
+	/**
+	 * @return the time spent scanning, in milliseconds
+	 */
+	public synchronized long getScanTime() {
+		return scanTime / 1000000;
+	}
+
+	/**
+	 * @return the time spent copying files, in milliseconds
+	 */
+	public synchronized long getCopyTime() {
+		return copyTime / 1000000;
+	}
+
+	/**
+	 * @return the time spent writing archives to disk, in milliseconds
+	 */
+	public synchronized long getSyncTime() {
+		return syncTime / 1000000;
+	}
+
+	/**
+	 * @return the total size of the source files copied, before compression
+	 */
+	public synchronized long getSourceBytes() {
+		return sourceBytes;
+	}
+
+	/**
+	 * @return the number of files matched
+	 */
+	public synchronized int getFilesMatched() {
+		return filesMatched;
+	}
+
+	/**
+	 * @param nanos the time spent scanning, as from {@link System#nanoTime()}
+	 */
+	public synchronized void addScanTime(long nanos) {
+		scanTime += nanos;
+	}
+
+	/**
+	 * @param nanos the time spent copying, as from {@link System#nanoTime()}
+	 */
+	public synchronized void addCopyTime(long nanos) {
+		copyTime += nanos;
+	}
+
+	/**
+	 * @param nanos the time spent writing out, as from {@link System#nanoTime()}
+	 */
+	public synchronized void addSyncTime(long nanos) {
+		syncTime += nanos;
+	}
+
+	public synchronized void addSourceBytes(long bytes) {
+		sourceBytes += bytes;
+	}
+
+	public synchronized void addFilesMatched(int count) {
+		filesMatched += count;
+	}
+
+	/**
+	 * Add the metrics of a fileset or archive beneath this one
+	 * @param other
+	 */
+	public void add(ArchiveBuildMetrics other) {
+		long scan, copy, sync, bytes;
+		int files;
+		synchronized(other) {
+			scan = other.scanTime;
+			copy = other.copyTime;
+			sync = other.syncTime;
+			bytes = other.sourceBytes;
+			files = other.filesMatched;
+		}
+		synchronized(this) {
+			scanTime += scan;
+			copyTime += copy;
+			syncTime += sync;
+			sourceBytes += bytes;
+			filesMatched += files;
+		}
+	}
+
+	public synchronized String toString() {
+		return node + ": scan " + getScanTime() + "ms, copy " + getCopyTime() //$NON-NLS-1$ //$NON-NLS-2$
+				+ "ms, sync " + getSyncTime() + "ms, " + filesMatched + " files, " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ sourceBytes + " source bytes"; //$NON-NLS-1$
+	}
+}
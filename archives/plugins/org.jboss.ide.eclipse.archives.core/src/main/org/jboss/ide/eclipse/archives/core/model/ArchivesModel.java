@@ -26,6 +26,8 @@ import org.jboss.ide.eclipse.archives.core.model.internal.xb.XMLBinding;
 import org.jboss.ide.eclipse.archives.core.model.internal.xb.XMLBinding.XbException;
 import org.jboss.ide.eclipse.archives.core.model.internal.xb.XbPackages;
 import org.jboss.ide.eclipse.archives.core.util.ModelUtil;
+import org.jboss.ide.eclipse.archives.core.util.internal.FilesetIndex;
+import org.jboss.ide.eclipse.archives.core.util.internal.FilesetScanCache;
 
 /**
  * The root model which keeps track of registered projects
@@ -61,8 +63,10 @@ public class ArchivesModel implements IArchiveModel {
 	 * @see org.jboss.ide.eclipse.archives.core.model.IArchiveModel#addBuildListener(org.jboss.ide.eclipse.archives.core.model.IArchiveBuildListener)
 	 */
 	public void addBuildListener(IArchiveBuildListener listener) {
-		if( !buildListeners.contains(listener))
-			buildListeners.add(listener);
+		synchronized(buildListeners) {
+			if( !buildListeners.contains(listener))
+				buildListeners.add(listener);
+		}
 	}
 
 	/*
@@ -70,7 +74,9 @@ public class ArchivesModel implements IArchiveModel {
 	 * @see org.jboss.ide.eclipse.archives.core.model.IArchiveModel#removeBuildListener(org.jboss.ide.eclipse.archives.core.model.IArchiveBuildListener)
 	 */
 	public void removeBuildListener(IArchiveBuildListener listener) {
-		buildListeners.remove(listener);
+		synchronized(buildListeners) {
+			buildListeners.remove(listener);
+		}
 	}
 
 	/*
@@ -78,7 +84,10 @@ public class ArchivesModel implements IArchiveModel {
 	 * @see org.jboss.ide.eclipse.archives.core.model.IArchiveModel#getBuildListeners()
 	 */
 	public IArchiveBuildListener[] getBuildListeners() {
-		return buildListeners.toArray(new IArchiveBuildListener[buildListeners.size()]);
+		// Builds on several threads read the listeners while they may change
+		synchronized(buildListeners) {
+			return buildListeners.toArray(new IArchiveBuildListener[buildListeners.size()]);
+		}
 	}
 
 	/*
@@ -86,8 +95,10 @@ public class ArchivesModel implements IArchiveModel {
 	 * @see org.jboss.ide.eclipse.archives.core.model.IArchiveModel#addModelListener(org.jboss.ide.eclipse.archives.core.model.IArchiveModelListener)
 	 */
 	public void addModelListener(IArchiveModelListener listener) {
-		if( !modelListeners.contains(listener))
-			modelListeners.add(listener);
+		synchronized(modelListeners) {
+			if( !modelListeners.contains(listener))
+				modelListeners.add(listener);
+		}
 	}
 
 	/*
@@ -95,8 +106,10 @@ public class ArchivesModel implements IArchiveModel {
 	 * @see org.jboss.ide.eclipse.archives.core.model.IArchiveModel#removeModelListener(org.jboss.ide.eclipse.archives.core.model.IArchiveModelListener)
 	 */
 	public void removeModelListener(IArchiveModelListener listener) {
-		if( modelListeners.contains(listener))
-			modelListeners.remove(listener);
+		synchronized(modelListeners) {
+			if( modelListeners.contains(listener))
+				modelListeners.remove(listener);
+		}
 	}
 
 	/*
@@ -104,7 +117,9 @@ public class ArchivesModel implements IArchiveModel {
 	 * @see org.jboss.ide.eclipse.archives.core.model.IArchiveModel#getModelListeners()
 	 */
 	public IArchiveModelListener[] getModelListeners() {
-		return modelListeners.toArray(new IArchiveModelListener[modelListeners.size()]);
+		synchronized(modelListeners) {
+			return modelListeners.toArray(new IArchiveModelListener[modelListeners.size()]);
+		}
 	}
 
 	/*
@@ -161,6 +176,25 @@ public class ArchivesModel implements IArchiveModel {
 	}
 
 	public IArchiveModelRootNode registerProject(IPath projectPath, String file, IProgressMonitor monitor) throws ArchivesModelException {
+		ArchiveModelNode modelNode = loadProject(projectPath, file, monitor);
+		if( modelNode != null )
+			registerProject(modelNode, monitor);
+		return modelNode;
+	}
+
+	/**
+	 * Read a project's archives descriptor into a model node,
+	 * without registering it. Projects may be loaded concurrently,
+	 * and then registered with {@link #registerProject(IArchiveModelRootNode, IProgressMonitor)}
+	 * 
+	 * @param projectPath
+	 * @param file
+	 * @param monitor
+	 * @return the model node, or null if projectPath is null
+	 * @throws ArchivesModelException
+	 * @since 3.6
+	 */
+	public ArchiveModelNode loadProject(IPath projectPath, String file, IProgressMonitor monitor) throws ArchivesModelException {
 		XbPackages packages;
 		ArchiveModelNode modelNode;
 		if( projectPath == null )
@@ -184,8 +218,6 @@ public class ArchivesModel implements IArchiveModel {
 		modelNode = new ArchiveModelNode(projectPath, projectPath.append(file), packages, this);
 		ModelUtil.fillArchiveModel(packages, modelNode);
 		modelNode.clearDelta();
-
-		registerProject(modelNode, monitor);
 		return modelNode;
 	}
 
@@ -202,12 +234,14 @@ public class ArchivesModel implements IArchiveModel {
 
 	public void unregisterProject(IPath projectPath, IProgressMonitor monitor) {
 		IArchiveModelRootNode root = getRoot(projectPath);
+		FilesetScanCache.saveAll(root);
 		xbPackages.remove(projectPath);
 		archivesRoot.remove(projectPath);
 		fireUnregisterProjectEvent(root);
 	}
 
 	public void unregisterProject(IArchiveModelRootNode model, IProgressMonitor monitor) {
+		FilesetScanCache.saveAll(model);
 		xbPackages.remove(model.getProjectPath());
 		archivesRoot.remove(model.getProjectPath());
 		fireUnregisterProjectEvent((ArchiveModelNode)model);
@@ -222,6 +256,7 @@ public class ArchivesModel implements IArchiveModel {
 	}
 
 	protected void fireRegistrationEvent(final IArchiveModelRootNode oldRoot, final IArchiveModelRootNode newRoot, final int type) {
+		FilesetIndex.modelChanged();
 		IArchiveNodeDelta delta = new IArchiveNodeDelta() {
 			public IArchiveNodeDelta[] getAddedChildrenDeltas() {return null;}
 			public IArchiveNodeDelta[] getAllAffectedChildren() {return null;}
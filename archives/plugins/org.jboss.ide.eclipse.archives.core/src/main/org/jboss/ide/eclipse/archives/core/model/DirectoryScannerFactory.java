@@ -10,9 +10,15 @@
  ******************************************************************************/
 package org.jboss.ide.eclipse.archives.core.model;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -115,6 +121,13 @@ public class DirectoryScannerFactory {
 		protected HashMap<String, ArrayList<FileWrapper>> requiredFolders;
 		private IProgressMonitor monitor;
 		
+		/* The folders listed by the last scan, and their modification times */
+		private LinkedHashMap<String, Long> scannedFolders = new LinkedHashMap<String, Long>();
+		private long scanStarted;
+		
+		/* Folders modified this close to the start of a scan may have changed unnoticed */
+		private static final long MODIFICATION_RESOLUTION = 2000;
+		
 		public DirectoryScannerExtension(ScannableFileSet fs) {
 			this.fs = fs;
 			String includes = fs.includes == null ? "" : fs.includes; //$NON-NLS-1$
@@ -140,6 +153,13 @@ public class DirectoryScannerFactory {
 	    	super.scan();
 	    }
 	    
+	    @Override
+	    protected void scanPrepare() throws IllegalStateException {
+	    	scanStarted = System.currentTimeMillis();
+	    	scannedFolders.clear();
+	    	super.scanPrepare();
+	    }
+	    
 		public void setBasedir2(String path) {
 			String s = PathUtils.getAbsoluteLocation(path, fs.projectName, fs.inWorkspace, fs.version);
 			if( s == null )
@@ -182,6 +202,7 @@ public class DirectoryScannerFactory {
 	    	if( monitor != null && monitor.isCanceled() )
 	    		throw new RuntimeException();
 	    	
+	    	scannedFolders.put(file.getAbsolutePath(), new Long(file.lastModified()));
 	    	if( fs.inWorkspace )
 	    		return listWorkspace(file);
 	    	else
@@ -336,6 +357,92 @@ public class DirectoryScannerFactory {
 	    	return requiredFolders;
 	    }
 
+	    /**
+	     * Write the results of the last scan, and the modification
+	     * times of the folders it listed, so that they can be restored
+	     * with {@link #readResults(DataInput)} while the folders are unchanged.
+	     * 
+	     * @param out
+	     * @throws IOException
+	     * @since 3.6
+	     */
+	    public void writeResults(DataOutput out) throws IOException {
+	    	out.writeLong(scanStarted);
+	    	out.writeInt(scannedFolders.size());
+	    	Iterator<Map.Entry<String, Long>> i = scannedFolders.entrySet().iterator();
+	    	while(i.hasNext()) {
+	    		Map.Entry<String, Long> e = i.next();
+	    		out.writeUTF(e.getKey());
+	    		out.writeLong(e.getValue().longValue());
+	    	}
+	    	out.writeInt(matches.size());
+	    	for( FileWrapper f : matches ) {
+	    		out.writeUTF(f.f.getAbsolutePath());
+	    		out.writeUTF(f.path.toPortableString());
+	    		writeNullable(out, f.rootArchiveRelativePath == null ? null : f.rootArchiveRelativePath.toPortableString());
+	    		writeNullable(out, f.fsRelative);
+	    	}
+	    }
+
+	    /**
+	     * Restore results written by {@link #writeResults(DataOutput)},
+	     * as if this scanner had scanned. Nothing is restored if any of the
+	     * folders listed by the scan have since been modified, or were modified
+	     * too close to the scan to tell.
+	     * 
+	     * @param in
+	     * @return whether the results were restored
+	     * @throws IOException
+	     * @throws IllegalStateException if the base folder is invalid
+	     * @since 3.6
+	     */
+	    public boolean readResults(DataInput in) throws IOException {
+	    	long started = in.readLong();
+	    	LinkedHashMap<String, Long> folders = new LinkedHashMap<String, Long>();
+	    	int count = in.readInt();
+	    	for( int i = 0; i < count; i++ ) {
+	    		String folder = in.readUTF();
+	    		long modified = in.readLong();
+	    		if( modified == 0 || modified > started - MODIFICATION_RESOLUTION
+	    				|| new File(folder).lastModified() != modified)
+	    			return false;
+	    		folders.put(folder, new Long(modified));
+	    	}
+	    	
+	    	ArrayList<FileWrapper> restored = new ArrayList<FileWrapper>();
+	    	count = in.readInt();
+	    	for( int i = 0; i < count; i++ ) {
+	    		File f = new File(in.readUTF());
+	    		IPath path = Path.fromPortableString(in.readUTF());
+	    		String root = readNullable(in);
+	    		FileWrapper wrapper = new FileWrapper(f, path, root == null ? null : Path.fromPortableString(root));
+	    		wrapper.setFilesetRelative(readNullable(in));
+	    		restored.add(wrapper);
+	    	}
+	    	
+	    	// Prepare the patterns used to match single paths, without scanning
+	    	scanPrepare();
+	    	scanStarted = started;
+	    	scannedFolders = folders;
+	    	for( FileWrapper f2 : restored ) {
+	    		matches.add(f2);
+	    		addMatchToMap(f2, matchesMap);
+	    		if( fs.inWorkspace ) 
+	    			ensureRequiredFoldersIncluded(f2);
+	    	}
+	    	return true;
+	    }
+	    
+	    private static void writeNullable(DataOutput out, String s) throws IOException {
+	    	out.writeBoolean(s != null);
+	    	if( s != null )
+	    		out.writeUTF(s);
+	    }
+
+	    private static String readNullable(DataInput in) throws IOException {
+	    	return in.readBoolean() ? in.readUTF() : null;
+	    }
+
 	    /**
 	     * This class should really be broken out 
 		 * @since 3.4
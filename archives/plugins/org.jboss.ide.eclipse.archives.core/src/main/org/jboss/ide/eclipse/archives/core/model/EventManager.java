@@ -19,6 +19,11 @@ import org.jboss.ide.eclipse.archives.core.model.DirectoryScannerFactory.Directo
 
 /**
  * The event manager to fire events
+ * 
+ * Archives may be built on several threads at once, so build
+ * events may be fired from several threads. Each event is delivered 
+ * to the listeners registered when it was fired.
+ * 
  * @author <a href="rob.stryker@redhat.com">Rob Stryker</a>
  */
 public class EventManager {
@@ -96,6 +101,26 @@ public class EventManager {
 		}
 	}
 
+	public static void archiveBuildMetrics(IArchive archive, ArchiveBuildMetrics metrics) {
+		IArchiveBuildListener[] listeners = getBuildListeners(archive);
+		for( int i = 0; i < listeners.length; i++ ) {
+			try {
+				if( listeners[i] instanceof IArchiveBuildListener2 )
+					((IArchiveBuildListener2)listeners[i]).archiveBuildMetrics(archive, metrics);
+			} catch(Exception e ) {logError(e);}
+		}
+	}
+
+	public static void fileSetBuildMetrics(IArchiveFileSet fileset, ArchiveBuildMetrics metrics) {
+		IArchiveBuildListener[] listeners = getBuildListeners(fileset);
+		for( int i = 0; i < listeners.length; i++ ) {
+			try {
+				if( listeners[i] instanceof IArchiveBuildListener2 )
+					((IArchiveBuildListener2)listeners[i]).fileSetBuildMetrics(fileset, metrics);
+			} catch(Exception e ) {logError(e);}
+		}
+	}
+
 	// Bulk events
 	public static void filesUpdated(IArchive topLevelArchive, IArchiveFileSet fileset, FileWrapper[] filePath) {
 		for( int i = 0; i < filePath.length; i++ ) {
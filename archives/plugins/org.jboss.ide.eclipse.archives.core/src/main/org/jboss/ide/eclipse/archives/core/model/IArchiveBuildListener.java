@@ -17,6 +17,9 @@ import org.eclipse.core.runtime.IStatus;
  * This interface is inteded to be implemented by classes who are
  * interested in receiving callbacks for various IArchive build events
  *
+ * When a project's archives are built in parallel, the events of 
+ * different archives may be received on several threads at once.
+ *
  * @author Marshall
  */
 public interface IArchiveBuildListener {
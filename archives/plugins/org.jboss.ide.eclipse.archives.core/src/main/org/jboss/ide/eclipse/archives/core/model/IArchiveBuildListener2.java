@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.archives.core.model;
+
+/**
+ * Build events added after {@link IArchiveBuildListener}
+ *
+ * @since 3.6
+ */
+public interface IArchiveBuildListener2 extends IArchiveBuildListener {
+
+	/**
+	 * An archive has been built and written out.
+	 * This can be called from a full build, or from the incremental build.
+	 * During a parallel build it is called once the archives being built
+	 * alongside are finished too, after {@link #finishedBuildingArchive(IArchive)}.
+	 *
+	 * @param pkg the Archive built
+	 * @param metrics the metrics of the build of the archive
+	 */
+	public void archiveBuildMetrics(IArchive pkg, ArchiveBuildMetrics metrics);
+
+	/**
+	 * A fileset has been collected and copied into its Archive,
+	 * just before {@link #finishedCollectingFileSet(IArchiveFileSet)}.
+	 * This is *only* used during a FULL BUILD
+	 *
+	 * @param fileset the fileset collected
+	 * @param metrics the metrics of the build of the fileset
+	 */
+	public void fileSetBuildMetrics(IArchiveFileSet fileset, ArchiveBuildMetrics metrics);
+}
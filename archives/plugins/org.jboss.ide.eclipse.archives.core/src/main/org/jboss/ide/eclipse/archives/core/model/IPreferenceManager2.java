@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.archives.core.model;
+
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Build preferences added after {@link IPreferenceManager}
+ */
+public interface IPreferenceManager2 extends IPreferenceManager {
+	/**
+	 * Get the number of archives which may be built at the same time
+	 * during a full build of the given project. 1 builds serially.
+	 * 
+	 * @param path the project location
+	 * @return
+	 */
+	public int getBuildParallelism(IPath path);
+
+	/**
+	 * Whether the scan results of filesets may be saved
+	 * and restored across restarts
+	 * 
+	 * @return
+	 */
+	public boolean isScanCacheEnabled();
+
+	/**
+	 * Whether incremental builds may patch archives nested inside
+	 * packed archives in place, rather than repacking every
+	 * enclosing archive. Patched archives keep the replaced
+	 * entries as unreferenced space until they are next rebuilt.
+	 * Off by default.
+	 * 
+	 * @return
+	 */
+	public boolean isInPlaceArchiveUpdateEnabled();
+
+	/**
+	 * Get the number of milliseconds automatic builds wait for
+	 * further workspace changes, so that bursts of changes are
+	 * built together. 0, the default, builds each change as it is made.
+	 * 
+	 * @return
+	 */
+	public int getBuildQuietWindow();
+}
@@ -24,6 +24,7 @@ import org.jboss.ide.eclipse.archives.core.model.DirectoryScannerFactory.Directo
 import org.jboss.ide.eclipse.archives.core.model.IArchiveStandardFileSet;
 import org.jboss.ide.eclipse.archives.core.model.internal.xb.XbFileSet;
 import org.jboss.ide.eclipse.archives.core.util.PathUtils;
+import org.jboss.ide.eclipse.archives.core.util.internal.FilesetScanCache;
 import org.jboss.ide.eclipse.archives.core.xpl.AntNLS;
 
 /**
@@ -38,6 +39,8 @@ public class ArchiveFileSetImpl extends ArchiveNodeImpl implements
 	private FileWrapper[] matchingPaths;
 	private HashMap<String, ArrayList<FileWrapper>> matchingMap;
 	private boolean rescanRequired = true;
+	/* Whether the scanner holds results not yet in the scan cache */
+	private boolean scanUnsaved = false;
 
 	public ArchiveFileSetImpl() {
 		this(new XbFileSet());
@@ -133,10 +136,14 @@ public class ArchiveFileSetImpl extends ArchiveNodeImpl implements
 	
 	public synchronized DirectoryScannerExtension getScanner(boolean logError, boolean rethrow) throws IllegalStateException {
 		if( scanner == null || rescanRequired) {
+			// The first scan of this fileset may be restored from the cache
+			DirectoryScannerExtension restored = scanner == null ? FilesetScanCache.restore(this) : null;
 			rescanRequired = false;
+			scanUnsaved = false;
 
 			try {
-				scanner = DirectoryScannerFactory.createDirectoryScanner(this, true);
+				scanner = restored != null ? restored : DirectoryScannerFactory.createDirectoryScanner(this, true);
+				scanUnsaved = restored == null;
 				if( scanner != null ) {
 					matchingPaths = scanner.getMatchedArray();
 					matchingMap = scanner.getMatchedMap();
@@ -155,6 +162,18 @@ public class ArchiveFileSetImpl extends ArchiveNodeImpl implements
 		return scanner;
 	}
 
+	/**
+	 * Save the results of the last scan to the scan cache,
+	 * if they are current and not already saved
+	 * @since 3.6
+	 */
+	public synchronized void saveScanResults() {
+		if( scanner != null && !rescanRequired && scanUnsaved ) {
+			scanUnsaved = false;
+			FilesetScanCache.save(this, scanner);
+		}
+	}
+
 	/*
 	 * @see IArchiveNode#getNodeType()
 	 */
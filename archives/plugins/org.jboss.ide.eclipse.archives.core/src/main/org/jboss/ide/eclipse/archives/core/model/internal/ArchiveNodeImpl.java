@@ -28,6 +28,7 @@ import org.jboss.ide.eclipse.archives.core.model.IArchiveNodeVisitor;
 import org.jboss.ide.eclipse.archives.core.model.internal.ArchiveNodeDeltaImpl.NodeDelta;
 import org.jboss.ide.eclipse.archives.core.model.internal.xb.XbPackageNode;
 import org.jboss.ide.eclipse.archives.core.model.internal.xb.XbPackageNodeWithProperties;
+import org.jboss.ide.eclipse.archives.core.util.internal.FilesetIndex;
 
 /**
  * Abstract superclass implementation for archive node types
@@ -340,6 +341,7 @@ public abstract class ArchiveNodeImpl implements IArchiveNode {
 
 		// short circuit if no change has REALLY occurred
 		if( beforeValue != null && beforeValue.equals(afterValue)) return;
+		FilesetIndex.modelChanged();
 
 		if( attributeChanges.containsKey(key)) {
 			Object original = attributeChanges.get(key).getBefore();
@@ -400,6 +402,7 @@ public abstract class ArchiveNodeImpl implements IArchiveNode {
 	 * @param changeType
 	 */
 	protected synchronized void childChanges(IArchiveNode node, int changeType) {
+		FilesetIndex.modelChanged();
 		if( childChanges.containsKey(node)) {
 			int lastChange = childChanges.get(node).intValue();
 			if( lastChange == IArchiveNodeDelta.CHILD_ADDED && changeType == IArchiveNodeDelta.CHILD_REMOVED) {
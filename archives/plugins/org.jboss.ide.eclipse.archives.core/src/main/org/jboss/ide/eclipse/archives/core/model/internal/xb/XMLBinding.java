@@ -10,6 +10,7 @@
  ******************************************************************************/
 package org.jboss.ide.eclipse.archives.core.model.internal.xb;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -21,19 +22,26 @@ import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.jboss.ide.eclipse.archives.core.model.IArchive;
 import org.jboss.ide.eclipse.archives.core.model.IArchiveModelRootNode;
 import org.jboss.ide.eclipse.archives.core.model.internal.ArchiveImpl;
 import org.jboss.ide.eclipse.archives.core.model.internal.xb.XbProperties.PropertiesExt;
-import org.jboss.tools.foundation.core.xml.IMemento;
 import org.jboss.tools.foundation.core.xml.XMLMemento;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
 
 
 /**
@@ -222,25 +230,29 @@ public class XMLBinding {
 	}
 
 	public static XbPackages unmarshal(File file, IProgressMonitor monitor) throws XbException {
+		FileInputStream fis = null;
 		try {
-			FileInputStream fis = new FileInputStream(file);
-			return unmarshal(fis, monitor);
+			fis = new FileInputStream(file);
+			return unmarshal(new BufferedInputStream(fis), monitor);
 		} catch( FileNotFoundException fnfe ) {
 			throw new XbException(fnfe);
 		} catch( XbException xbe) {
 			throw new XbException("Unable to parse project archives file: " +  //$NON-NLS-1$
 					(file == null ? null : file.getAbsolutePath()), xbe);
+		} finally {
+			try {
+				if( fis != null ) fis.close();
+			} catch( IOException ioe) {}
 		}
 	}
 
 	public static XbPackages unmarshal (final InputStream in,
 			final IProgressMonitor monitor) throws XbException {
-		XMLMemento root = XMLMemento.createReadRoot(in);
+		XbElement root = parse(in);
 		if( root == null ) {
 			throw new XbException(new Exception("Unable to parse xml string")); //$NON-NLS-1$
 		}
 		String versionString = root.getString("version"); //$NON-NLS-1$
-		System.out.println("unmarshalling: " + versionString); //$NON-NLS-1$
 		XbPackages packs = new XbPackages();
 		Double d = IArchiveModelRootNode.DESCRIPTOR_VERSION_1_0;
 		if( versionString != null ) {
@@ -252,15 +264,93 @@ public class XMLBinding {
 		}
 		packs.setVersion(d);
 
-		IMemento[] packageChildren = root.getChildren("package"); //$NON-NLS-1$
+		XbElement[] packageChildren = root.getChildren("package"); //$NON-NLS-1$
 		unmarshallPackageList(packs, packageChildren);
-		IMemento[] propertiesChild = root.getChildren("properties"); //$NON-NLS-1$
+		XbElement[] propertiesChild = root.getChildren("properties"); //$NON-NLS-1$
 		if( propertiesChild != null && propertiesChild.length == 1)
 			unmarshallProperties(packs, propertiesChild[0]);
 		return packs;
 	}
 
-	private static void unmarshallPackageList(XbPackageNodeWithProperties packs, IMemento[] packageChildren) throws XbException {
+	/*
+	 * A parsed element, holding only what the unmarshaller reads:
+	 * its attributes and child elements. Text is dropped.
+	 */
+	private static class XbElement {
+		private String name;
+		private HashMap<String, String> attributes = new HashMap<String, String>();
+		private ArrayList<XbElement> children = new ArrayList<XbElement>();
+
+		public String getString(String key) {
+			return attributes.get(key);
+		}
+		public int getAttributeCount() {
+			return attributes.size();
+		}
+		public XbElement[] getChildren(String type) {
+			ArrayList<XbElement> ret = new ArrayList<XbElement>();
+			Iterator<XbElement> i = children.iterator();
+			while(i.hasNext()) {
+				XbElement e = i.next();
+				if( e.name.equals(type))
+					ret.add(e);
+			}
+			return ret.toArray(new XbElement[ret.size()]);
+		}
+		public String[] getChildNames() {
+			String[] names = new String[children.size()];
+			for( int i = 0; i < names.length; i++ )
+				names[i] = children.get(i).name;
+			return names;
+		}
+	}
+
+	private static SAXParserFactory parserFactory;
+
+	private static synchronized SAXParser newParser() throws ParserConfigurationException, SAXException {
+		// Looking up a factory is costly, so it is done once rather than per file
+		if( parserFactory == null )
+			parserFactory = SAXParserFactory.newInstance();
+		return parserFactory.newSAXParser();
+	}
+
+	/*
+	 * Parse a descriptor with SAX into a tree of elements,
+	 * rather than building a DOM document
+	 * @return the root element, or null if the stream could not be parsed
+	 */
+	private static XbElement parse(InputStream in) {
+		final XbElement[] root = new XbElement[1];
+		DefaultHandler handler = new DefaultHandler() {
+			private ArrayList<XbElement> stack = new ArrayList<XbElement>();
+			public void startElement(String uri, String localName, String qName, Attributes attributes) {
+				XbElement e = new XbElement();
+				e.name = qName;
+				for( int i = 0; i < attributes.getLength(); i++ )
+					e.attributes.put(attributes.getQName(i), attributes.getValue(i));
+				if( stack.isEmpty())
+					root[0] = e;
+				else
+					stack.get(stack.size()-1).children.add(e);
+				stack.add(e);
+			}
+			public void endElement(String uri, String localName, String qName) {
+				stack.remove(stack.size()-1);
+			}
+		};
+		try {
+			newParser().parse(in, handler);
+			return root[0];
+		} catch(ParserConfigurationException pce) {
+			return null;
+		} catch(SAXException saxe) {
+			return null;
+		} catch(IOException ioe) {
+			return null;
+		}
+	}
+
+	private static void unmarshallPackageList(XbPackageNodeWithProperties packs, XbElement[] packageChildren) throws XbException {
 		for( int i = 0; i < packageChildren.length; i++ ) {
 			XbPackage pack = new XbPackage();
 			// name, type, toDir, exploded, inWorkspace, id
@@ -287,34 +377,34 @@ public class XMLBinding {
 				throw new XbException(new Exception("Element 'package' missing required attribute 'name'")); //$NON-NLS-1$
 
 			// package
-			IMemento[] inner = packageChildren[i].getChildren("package"); //$NON-NLS-1$
+			XbElement[] inner = packageChildren[i].getChildren("package"); //$NON-NLS-1$
 			if( inner != null && inner.length > 0)
 				unmarshallPackageList(pack, inner);
 
 			// fileset
-			IMemento[] fsets = packageChildren[i].getChildren("fileset"); //$NON-NLS-1$
+			XbElement[] fsets = packageChildren[i].getChildren("fileset"); //$NON-NLS-1$
 			if( fsets != null && fsets.length > 0)
 				unmarshallFilesets(pack, fsets);
 
 			// lib-fileset
-			IMemento[] libfsets = packageChildren[i].getChildren("lib-fileset"); //$NON-NLS-1$
+			XbElement[] libfsets = packageChildren[i].getChildren("lib-fileset"); //$NON-NLS-1$
 			if( libfsets != null && libfsets.length > 0)
 				unmarshallLibFilesets(pack, libfsets);
 
 			// folder
-			IMemento[] folders = packageChildren[i].getChildren("folder"); //$NON-NLS-1$
+			XbElement[] folders = packageChildren[i].getChildren("folder"); //$NON-NLS-1$
 			if( folders != null && folders.length > 0)
 				unmarshallFolders(pack, folders);
 
 			// properties
-			IMemento[] propertiesChild = packageChildren[i].getChildren("properties"); //$NON-NLS-1$
+			XbElement[] propertiesChild = packageChildren[i].getChildren("properties"); //$NON-NLS-1$
 			if( propertiesChild != null && propertiesChild.length == 1)
 				unmarshallProperties(pack, propertiesChild[0]);
 
 			packs.addChild(pack);
 		}
 	}
-	private static void unmarshallFolders(XbPackageNodeWithProperties node, IMemento[] folders) throws XbException {
+	private static void unmarshallFolders(XbPackageNodeWithProperties node, XbElement[] folders) throws XbException {
 		for( int i = 0; i < folders.length; i++ ) {
 			XbFolder folder = new XbFolder();
 			// name, type, toDir, exploded, inWorkspace, id
@@ -324,34 +414,34 @@ public class XMLBinding {
 				throw new XbException(new Exception("Element 'folder' missing required attribute 'name'")); //$NON-NLS-1$
 
 			// package
-			IMemento[] inner = folders[i].getChildren("package"); //$NON-NLS-1$
+			XbElement[] inner = folders[i].getChildren("package"); //$NON-NLS-1$
 			if( inner != null && inner.length > 0)
 				unmarshallPackageList(folder, inner);
 
 			// fileset
-			IMemento[] fsets = folders[i].getChildren("fileset"); //$NON-NLS-1$
+			XbElement[] fsets = folders[i].getChildren("fileset"); //$NON-NLS-1$
 			if( fsets != null && fsets.length > 0)
 				unmarshallFilesets(folder, fsets);
 
 			// lib-fileset
-			IMemento[] libfsets = folders[i].getChildren("lib-fileset"); //$NON-NLS-1$
+			XbElement[] libfsets = folders[i].getChildren("lib-fileset"); //$NON-NLS-1$
 			if( libfsets != null && libfsets.length > 0)
 				unmarshallLibFilesets(folder, libfsets);
 
 			// folder
-			IMemento[] folders2 = folders[i].getChildren("folder"); //$NON-NLS-1$
+			XbElement[] folders2 = folders[i].getChildren("folder"); //$NON-NLS-1$
 			if( folders2 != null && folders2.length > 0)
 				unmarshallFolders(folder, folders2);
 
 			// properties
-			IMemento[] propertiesChild = folders[i].getChildren("properties"); //$NON-NLS-1$
+			XbElement[] propertiesChild = folders[i].getChildren("properties"); //$NON-NLS-1$
 			if( propertiesChild != null && propertiesChild.length == 1)
 				unmarshallProperties(folder, propertiesChild[0]);
 
 			node.addChild(folder);
 		}
 	}
-	private static void unmarshallFilesets(XbPackageNodeWithProperties node, IMemento[] fs) throws XbException {
+	private static void unmarshallFilesets(XbPackageNodeWithProperties node, XbElement[] fs) throws XbException {
 		for( int i = 0; i < fs.length; i++ ) {
 			XbFileSet fileset = new XbFileSet();
 			// name, type, toDir, exploded, inWorkspace, id
@@ -381,7 +471,7 @@ public class XMLBinding {
 			node.addChild(fileset);
 		}
 	}
-	private static void unmarshallLibFilesets(XbPackageNodeWithProperties node, IMemento[] fs) {
+	private static void unmarshallLibFilesets(XbPackageNodeWithProperties node, XbElement[] fs) {
 		for( int i = 0; i < fs.length; i++ ) {
 			XbLibFileSet fileset = new XbLibFileSet();
 			String id = fs[i].getString("name"); //$NON-NLS-1$
@@ -390,17 +480,17 @@ public class XMLBinding {
 		}
 
 	}
-	private static void unmarshallProperties(XbPackageNodeWithProperties node, IMemento propNode) throws XbException {
+	private static void unmarshallProperties(XbPackageNodeWithProperties node, XbElement propNode) throws XbException {
 		XbProperties propsWrapper = new XbProperties();
 		node.setProperties(propsWrapper);
-		String[] names = ((XMLMemento)propNode).getChildNames();
+		String[] names = propNode.getChildNames();
 		Set<String> set = new TreeSet<String>();
 		set.addAll(Arrays.asList(names));
 		if( set.size() == 0 )
 			return;  // no error, no props set
 		if( set.size() > 1 || !set.iterator().next().equals("property")) //$NON-NLS-1$
 			throw new XbException(new Exception("Element 'property' contains unknown attribute " + set.iterator().next())); //$NON-NLS-1$
-		IMemento[] allProps = propNode.getChildren("property"); //$NON-NLS-1$
+		XbElement[] allProps = propNode.getChildren("property"); //$NON-NLS-1$
 		for( int i = 0; i < allProps.length; i++ ) {
 			XbProperty p = new XbProperty();
 			String name = allProps[i].getString("name"); //$NON-NLS-1$
@@ -409,7 +499,7 @@ public class XMLBinding {
 				throw new XbException(new Exception("Element 'property' missing required attribute 'name'")); //$NON-NLS-1$
 			if( val == null )
 				throw new XbException(new Exception("Element 'property' missing required attribute 'value'")); //$NON-NLS-1$
-			if( allProps[i].getNames().size() > 2 )
+			if( allProps[i].getAttributeCount() > 2 )
 				throw new XbException(new Exception("Element 'property' contains unknown attribute key")); //$NON-NLS-1$
 			p.setName(name);
 			p.setValue(val);
@@ -24,7 +24,7 @@ import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.InstanceScope;
 import org.jboss.ide.eclipse.archives.core.ArchivesCore;
 import org.jboss.ide.eclipse.archives.core.ArchivesCorePlugin;
-import org.jboss.ide.eclipse.archives.core.model.IPreferenceManager;
+import org.jboss.ide.eclipse.archives.core.model.IPreferenceManager2;
 import org.osgi.service.prefs.BackingStoreException;
 
 
@@ -35,9 +35,13 @@ import org.osgi.service.prefs.BackingStoreException;
  * @author rstryker
  *
  */
-public class WorkspacePreferenceManager extends AbstractPreferenceInitializer implements IPreferenceManager {
+public class WorkspacePreferenceManager extends AbstractPreferenceInitializer implements IPreferenceManager2 {
 	public static final String AUTOMATIC_BUILDER_ENABLED = "org.jboss.ide.eclipse.archives.core.automaticBuilderEnabled"; //$NON-NLS-1$
 	public static final String PROJECT_SPECIFIC_PREFS = "org.jboss.ide.eclipse.archives.core.projectSpecificPreferencesEnabled"; //$NON-NLS-1$
+	public static final String BUILD_PARALLELISM = "org.jboss.ide.eclipse.archives.core.buildParallelism"; //$NON-NLS-1$
+	public static final String SCAN_CACHE_ENABLED = "org.jboss.ide.eclipse.archives.core.scanCacheEnabled"; //$NON-NLS-1$
+	public static final String IN_PLACE_UPDATE_ENABLED = "org.jboss.ide.eclipse.archives.core.inPlaceArchiveUpdateEnabled"; //$NON-NLS-1$
+	public static final String BUILD_QUIET_WINDOW = "org.jboss.ide.eclipse.archives.core.buildQuietWindow"; //$NON-NLS-1$
 
 	private static IWorkspaceRoot workspaceRoot = ResourcesPlugin.getWorkspace().getRoot();
 	public static IResource getResource(IPath path) {
@@ -92,6 +96,22 @@ public class WorkspacePreferenceManager extends AbstractPreferenceInitializer im
 		}
 	}
 
+	public int getBuildParallelism(IPath path) {
+		return InstanceScope.INSTANCE.getNode(ArchivesCorePlugin.PLUGIN_ID).getInt(BUILD_PARALLELISM, 1);
+	}
+
+	public boolean isScanCacheEnabled() {
+		return InstanceScope.INSTANCE.getNode(ArchivesCorePlugin.PLUGIN_ID).getBoolean(SCAN_CACHE_ENABLED, true);
+	}
+
+	public boolean isInPlaceArchiveUpdateEnabled() {
+		return InstanceScope.INSTANCE.getNode(ArchivesCorePlugin.PLUGIN_ID).getBoolean(IN_PLACE_UPDATE_ENABLED, false);
+	}
+
+	public int getBuildQuietWindow() {
+		return InstanceScope.INSTANCE.getNode(ArchivesCorePlugin.PLUGIN_ID).getInt(BUILD_QUIET_WINDOW, 0);
+	}
+
 	public void initializeDefaultPreferences() {
 		IEclipsePreferences prefs = DefaultScope.INSTANCE.getNode(ArchivesCorePlugin.PLUGIN_ID);
 		prefs.putBoolean(AUTOMATIC_BUILDER_ENABLED, true);
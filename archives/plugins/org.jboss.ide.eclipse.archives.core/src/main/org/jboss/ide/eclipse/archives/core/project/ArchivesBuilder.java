@@ -28,6 +28,7 @@ import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.jboss.ide.eclipse.archives.core.ArchivesCore;
 import org.jboss.ide.eclipse.archives.core.build.ArchiveBuildDelegate;
+import org.jboss.ide.eclipse.archives.core.build.IncrementalBuildQueue;
 import org.jboss.ide.eclipse.archives.core.model.ArchivesModel;
 import org.jboss.ide.eclipse.archives.core.model.IArchive;
 import org.jboss.ide.eclipse.archives.core.model.IArchiveFileSet;
@@ -35,6 +36,8 @@ import org.jboss.ide.eclipse.archives.core.model.IArchiveModel;
 import org.jboss.ide.eclipse.archives.core.model.IArchiveModelRootNode;
 import org.jboss.ide.eclipse.archives.core.model.IArchiveNode;
 import org.jboss.ide.eclipse.archives.core.model.IArchiveNodeVisitor;
+import org.jboss.ide.eclipse.archives.core.model.IPreferenceManager;
+import org.jboss.ide.eclipse.archives.core.model.IPreferenceManager2;
 import org.jboss.ide.eclipse.archives.core.util.PathUtils;
 import org.jboss.ide.eclipse.archives.core.util.TrueZipUtil;
 
@@ -67,7 +70,14 @@ public class ArchivesBuilder extends IncrementalProjectBuilder {
 		ArchiveBuildDelegate delegate = new ArchiveBuildDelegate();
 		if (kind == IncrementalProjectBuilder.INCREMENTAL_BUILD || kind == IncrementalProjectBuilder.AUTO_BUILD) {
 			fillDeltas(interestingProjects, addedChanged, removed);
-			delegate.incrementalBuild(null,addedChanged, removed,true, monitor);
+			int quietWindow = getQuietWindow(kind);
+			if( quietWindow > 0 ) {
+				// coalesce bursts of auto builds into one
+				if( addedChanged.size() > 0 || removed.size() > 0 )
+					IncrementalBuildQueue.getDefault().enqueue(addedChanged, removed, quietWindow);
+			} else {
+				delegate.incrementalBuild(null,addedChanged, removed,true, monitor);
+			}
 		} else if (kind == IncrementalProjectBuilder.FULL_BUILD){
 			// build each package fully
 			IProject p = getProject();
@@ -77,6 +87,17 @@ public class ArchivesBuilder extends IncrementalProjectBuilder {
 		return interestingProjects;
 	}
 
+	/**
+	 * Explicitly requested builds are run at once, while 
+	 * automatic builds wait for further changes.
+	 */
+	private int getQuietWindow(int kind) {
+		IPreferenceManager prefs = ArchivesCore.getInstance().getPreferenceManager();
+		if( kind != IncrementalProjectBuilder.AUTO_BUILD || !(prefs instanceof IPreferenceManager2))
+			return 0;
+		return ((IPreferenceManager2)prefs).getBuildQuietWindow();
+	}
+
 	/**
 	 * Delete all archives that were created or represented by this
 	 * project's archive model.
@@ -37,6 +37,7 @@ import org.jboss.ide.eclipse.archives.core.model.internal.ArchiveModelNode;
 import org.jboss.ide.eclipse.archives.core.model.internal.ArchiveNodeImpl;
 import org.jboss.ide.eclipse.archives.core.model.internal.xb.XbPackageNode;
 import org.jboss.ide.eclipse.archives.core.model.internal.xb.XbPackages;
+import org.jboss.ide.eclipse.archives.core.util.internal.FilesetIndex;
 import org.jboss.ide.eclipse.archives.core.xpl.AntNLS;
 
 /**
@@ -59,30 +60,54 @@ public class ModelUtil {
 
 	public static IArchiveFileSet[] getMatchingFilesets(IArchiveNode node, final IPath path, final boolean inWorkspace) {
 		final ArrayList<IArchiveFileSet> rets = new ArrayList<IArchiveFileSet>();
-		IArchiveNodeVisitor visitor = new IArchiveNodeVisitor() {
+		if( node == null || isRegistered(node)) {
+			// Only check the filesets based in a parent of the path
+			IArchiveFileSet[] candidates = FilesetIndex.getCandidates(path, inWorkspace);
+			for( int i = 0; i < candidates.length; i++ ) {
+				if( (node == null || isAncestor(node, candidates[i])) && matchesPath(candidates[i], path, inWorkspace))
+					rets.add(candidates[i]);
+			}
+			return rets.toArray(new IArchiveFileSet[rets.size()]);
+		}
+
+		node.accept(new IArchiveNodeVisitor() {
 			public boolean visit(IArchiveNode node) {
-				if( node.getNodeType() == IArchiveNode.TYPE_ARCHIVE_FILESET ) {
-					boolean matches = false;
-					try {
-						matches = ((IArchiveFileSet)node).matchesPath(path, inWorkspace);
-					} catch(IllegalStateException ise) {
-						// The fileset is broken somehow, so do some raw checks. 
-						IArchiveStandardFileSet std = node instanceof IArchiveStandardFileSet ? (IArchiveStandardFileSet)node : null;
-						matches =  std != null && new Path(std.getRawSourcePath()).equals(path) && std.isInWorkspace() == inWorkspace;
-					}
-					if( matches ) 
-						rets.add((IArchiveFileSet)node);
-				}
+				if( node.getNodeType() == IArchiveNode.TYPE_ARCHIVE_FILESET
+						&& matchesPath((IArchiveFileSet)node, path, inWorkspace))
+					rets.add((IArchiveFileSet)node);
 				return true;
 			}
-		};
+		});
+		return rets.toArray(new IArchiveFileSet[rets.size()]);
+	}
 
-		if( node == null )
-			ArchivesModel.instance().accept(visitor);
-		else
-			node.accept(visitor);
+	private static boolean matchesPath(IArchiveFileSet fs, IPath path, boolean inWorkspace) {
+		try {
+			return fs.matchesPath(path, inWorkspace);
+		} catch(IllegalStateException ise) {
+			// The fileset is broken somehow, so do some raw checks. 
+			IArchiveStandardFileSet std = fs instanceof IArchiveStandardFileSet ? (IArchiveStandardFileSet)fs : null;
+			return std != null && new Path(std.getRawSourcePath()).equals(path) && std.isInWorkspace() == inWorkspace;
+		}
+	}
 
-		return rets.toArray(new IArchiveFileSet[rets.size()]);
+	/*
+	 * Whether the node is in a project registered with the model,
+	 * and therefore in the fileset index
+	 */
+	private static boolean isRegistered(IArchiveNode node) {
+		IArchiveModelRootNode root = node.getModelRootNode();
+		return root != null && root.getProjectPath() != null
+				&& ArchivesModel.instance().getRoot(root.getProjectPath()) == root;
+	}
+
+	private static boolean isAncestor(IArchiveNode ancestor, IArchiveNode node) {
+		while( node != null ) {
+			if( node == ancestor )
+				return true;
+			node = node.getParent();
+		}
+		return false;
 	}
 
 	/**
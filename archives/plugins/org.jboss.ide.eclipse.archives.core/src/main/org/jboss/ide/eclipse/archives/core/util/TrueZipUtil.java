@@ -10,16 +10,27 @@
  ******************************************************************************/
 package org.jboss.ide.eclipse.archives.core.util;
 
+import java.io.CharConversionException;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.jboss.ide.eclipse.archives.core.ArchivesCorePlugin;
 
 import de.schlichtherle.io.AbstractArchiveDetector;
 import de.schlichtherle.io.ArchiveDetector;
 import de.schlichtherle.io.ArchiveException;
+import de.schlichtherle.io.archive.Archive;
 import de.schlichtherle.io.archive.spi.ArchiveDriver;
+import de.schlichtherle.io.archive.spi.ArchiveEntry;
 import de.schlichtherle.io.archive.zip.JarDriver;
+import de.schlichtherle.io.archive.zip.Zip32Entry;
 import de.schlichtherle.key.KeyManager;
 
 /**
@@ -132,6 +143,57 @@ public class TrueZipUtil {
 		}
 	}
 
+	/**
+	 * Copies many files at once, such as all matches of a fileset.
+	 * Each destination folder is created once, and the timestamps
+	 * of the destination folders and their enclosing archives
+	 * are updated once at the end rather than after every file.
+	 * 
+	 * @param sources the absolute paths of the files to copy
+	 * @param files the destination of each source
+	 * @param updateTimestamps
+	 * @param monitor a monitor to report one unit of work per file to, or null
+	 * @return for each source, whether it was copied and, if asked,
+	 * 		the timestamps of its parents were updated
+	 * @since 3.6
+	 */
+	public static boolean[] copyFiles(String[] sources, de.schlichtherle.io.File[] files, 
+			boolean updateTimestamps, IProgressMonitor monitor) {
+		ClassLoader bundleLoader = ArchivesCorePlugin.getDefault().getBundleClassLoader();
+		ClassLoader originalTCCL = Thread.currentThread().getContextClassLoader();
+		try {
+			Thread.currentThread().setContextClassLoader(bundleLoader);
+			boolean[] copied = new boolean[sources.length];
+			Set<java.io.File> created = new HashSet<java.io.File>();
+			for( int i = 0; i < sources.length; i++ ) {
+				java.io.File parent = files[i].getParentFile();
+				if( created.add(parent))
+					parent.mkdirs();
+				de.schlichtherle.io.File source = new de.schlichtherle.io.File(sources[i], ArchiveDetector.NULL);
+				copied[i] = source.isDirectory() ? source.archiveCopyAllTo(files[i]) : source.archiveCopyTo(files[i]);
+				if( monitor != null )
+					monitor.worked(1);
+			}
+			if( updateTimestamps ) {
+				// Siblings share a parent, so update each parent once
+				Map<java.io.File, Boolean> parents = new HashMap<java.io.File, Boolean>();
+				for( int i = 0; i < files.length; i++ ) {
+					if( !copied[i] )
+						continue;
+					Boolean updated = parents.get(files[i].getParentFile());
+					if( updated == null ) {
+						updated = Boolean.valueOf(updateParentTimestamps(files[i]));
+						parents.put(files[i].getParentFile(), updated);
+					}
+					copied[i] = updated.booleanValue();
+				}
+			}
+			return copied;
+		} finally {
+			Thread.currentThread().setContextClassLoader(originalTCCL);
+		}
+	}
+
 	public static boolean touchFile(IPath path) {
 		ClassLoader bundleLoader = ArchivesCorePlugin.getDefault().getBundleClassLoader();
 		ClassLoader originalTCCL = Thread.currentThread().getContextClassLoader();
@@ -293,6 +355,50 @@ public class TrueZipUtil {
 		}
 	}
 
+	/**
+	 * Writes out and unmounts only the top level archive
+	 * containing the given file, and the archives nested inside it.
+	 * Archives elsewhere in the filesystem are left mounted.
+	 * Does nothing if the file is not inside an archive.
+	 *
+	 * @param file an archive, or a file inside an archive
+	 * @since 3.6
+	 */
+	public static void umount(java.io.File file) {
+		de.schlichtherle.io.File archive = getTopLevelArchive(file);
+		if( archive == null )
+			return;
+		ClassLoader bundleLoader = ArchivesCorePlugin.getDefault().getBundleClassLoader();
+		ClassLoader originalTCCL = Thread.currentThread().getContextClassLoader();
+		try {
+			Thread.currentThread().setContextClassLoader(bundleLoader);
+			try {
+				de.schlichtherle.io.File.umount(archive);
+			} catch( ArchiveException ae ) {
+			}
+		} finally {
+			Thread.currentThread().setContextClassLoader(originalTCCL);
+		}
+	}
+
+	/**
+	 * Get the top level archive containing the given file,
+	 * which may be the file itself.
+	 *
+	 * @param file
+	 * @return the archive, or null if the file is not in an archive
+	 * @since 3.6
+	 */
+	public static de.schlichtherle.io.File getTopLevelArchive(java.io.File file) {
+		if( !(file instanceof de.schlichtherle.io.File))
+			return null;
+		de.schlichtherle.io.File f = (de.schlichtherle.io.File)file;
+		de.schlichtherle.io.File archive = f.isArchive() ? f : f.getEnclArchive();
+		while( archive != null && archive.getEnclArchive() != null )
+			archive = archive.getEnclArchive();
+		return archive;
+	}
+
 	/**
 	 * Sync's with file system after executing a runnable
 	 * @param run Runnable or null
@@ -310,6 +416,15 @@ public class TrueZipUtil {
 		syncExec(null);
 	}
 
+	/**
+	 * Sync's only the archive containing the given file with the file system
+	 * @param file
+	 * @since 3.6
+	 */
+	public static void sync(java.io.File file) {
+		umount(file);
+	}
+
 	public static boolean updateParentTimestamps(IPath path) {
 		return updateParentTimestamps(getFile(path));
 	}
@@ -391,10 +506,48 @@ public class TrueZipUtil {
 	
 	private static class JarArchiveDetector extends AbstractArchiveDetector {
 		public ArchiveDriver getArchiveDriver(String arg0) {
-			return new JarDriver();
+			return new StoringJarDriver();
 		}
 
 	}
+
+	/*
+	 * File types whose contents are already compressed.
+	 * Deflating them again costs time and saves nothing.
+	 */
+	private static final Set<String> STORED_EXTENSIONS = new HashSet<String>(Arrays.asList(new String[] {
+			"jar", "war", "ear", "rar", "sar", "zip", "gz", "tgz", "bz2", "xz", "7z", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$
+			"png", "gif", "jpg", "jpeg", "mp3", "mp4", "ogg", "woff", "woff2" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$
+	}));
+
+	/**
+	 * A jar driver which stores new entries for already compressed
+	 * file types rather than deflating them. Entries copied from 
+	 * another archive keep their method. 
+	 */
+	private static class StoringJarDriver extends JarDriver {
+		public ArchiveEntry createArchiveEntry(Archive archive, String name, ArchiveEntry template) throws CharConversionException {
+			ArchiveEntry entry = super.createArchiveEntry(archive, name, template);
+			if( entry instanceof Zip32Entry && ((Zip32Entry)entry).getMethod() == Zip32Entry.UNKNOWN 
+					&& !entry.isDirectory() && isCompressedType(name))
+				((Zip32Entry)entry).setMethod(Zip32Entry.STORED);
+			return entry;
+		}
+	}
+
+	/**
+	 * Whether a file of this name is of a type whose contents
+	 * are already compressed, and so is stored in archives
+	 * rather than deflated.
+	 *
+	 * @param name
+	 * @return
+	 * @since 3.6
+	 */
+	public static boolean isCompressedType(String name) {
+		int dot = name.lastIndexOf('.');
+		return dot != -1 && STORED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ENGLISH));
+	}
 	
 	public static boolean javaIODeleteDir(java.io.File dir) {
 	    if (dir.isDirectory()) {
@@ -0,0 +1,746 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.archives.core.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Replaces, adds and removes the entries of an existing zip archive
+ * in place.
+ *
+ * The new entries are written over the old central directory, followed
+ * by a new central directory which lists them along with every unchanged
+ * entry. The data of unchanged entries is neither read nor moved, so the
+ * cost of an update depends on the size of the changed entries rather
+ * than the size of the archive. Replaced and removed entries are left
+ * behind as unreferenced space. Once more than half of the archive would
+ * be unreferenced, it is written in full instead, see {@link #write(File)},
+ * which copies the unchanged entries without inflating them. The full copy
+ * is written next to the archive and then takes its place, with the original
+ * kept as a backup until it has, so that a failure never loses the archive.
+ *
+ * Archives using zip64 extensions, encryption, or data before their
+ * first entry are not updated; {@link #apply()} returns false and
+ * leaves them as they were.
+ *
+ * @since 3.6
+ */
+public class ZipEntryPatcher {
+	private static final int LOCAL_HEADER = 0x04034b50;
+	private static final int CENTRAL_HEADER = 0x02014b50;
+	private static final int END_HEADER = 0x06054b50;
+	private static final int ZIP64_LOCATOR = 0x07064b50;
+	private static final int DESCRIPTOR = 0x08074b50;
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int CENTRAL_HEADER_SIZE = 46;
+	private static final int END_HEADER_SIZE = 22;
+	private static final int STORED = 0;
+	private static final int DEFLATED = 8;
+	private static final int FLAG_ENCRYPTED = 0x1;
+	private static final int FLAG_DESCRIPTOR = 0x8;
+	private static final int FLAG_UTF8 = 0x800;
+	private static final int VERSION = 20;
+	private static final int DIRECTORY_ATTRIBUTE = 0x10;
+	private static final long MAX_SIZE = 0xFFFFFFFFL;
+	private static final int MAX_ENTRIES = 0xFFFF;
+	private static final int BUFFER = 64 * 1024;
+
+	private static class Entry {
+		private String name;
+		/* The central directory record, as read or written */
+		private byte[] record;
+		private int flags;
+		private int method;
+		private long crc;
+		private long compressedSize;
+		private long offset;
+
+		/* The space the entry takes before the central directory */
+		private long getSpan() {
+			long span = LOCAL_HEADER_SIZE + getShort(record, 28) + getShort(record, 30) + compressedSize;
+			return (flags & FLAG_DESCRIPTOR) == 0 ? span : span + 16;
+		}
+	}
+
+	/* A content file to put, or null to remove the entry or add a folder */
+	private static class Change {
+		private String name;
+		private File content;
+		private boolean folder;
+		private Change(String name, File content, boolean folder) {
+			this.name = name;
+			this.content = content;
+			this.folder = folder;
+		}
+	}
+
+	private File zip;
+	private boolean read;
+	private boolean supported;
+	private long length;
+	private long centralOffset;
+	/* Everything from the central directory to the end of the file */
+	private byte[] tail;
+	private byte[] comment;
+	private LinkedHashMap<String, Entry> entries;
+	private long usedSpace;
+	private long plannedSpace;
+	private ArrayList<Change> changes = new ArrayList<Change>();
+
+	public ZipEntryPatcher(File zip) {
+		this.zip = zip;
+	}
+
+	/**
+	 * Replace the entry of the given name with the contents of a file,
+	 * or add it if there is none. Parent directory entries are added
+	 * if they are missing. Changes are only written by {@link #apply()}.
+	 *
+	 * @param name the entry name, with '/' separated segments
+	 * @param content the file holding the new contents
+	 */
+	public void put(String name, File content) {
+		changes.add(new Change(name, content, false));
+	}
+
+	/**
+	 * Add a directory entry of the given name, and any missing parent
+	 * directory entries, unless the archive already has it.
+	 * Changes are only written by {@link #apply()}.
+	 *
+	 * @param name the entry name, with or without a trailing '/'
+	 */
+	public void putFolder(String name) {
+		changes.add(new Change(name.endsWith("/") ? name : name + "/", null, true)); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Remove the entry of the given name, and if it is a directory,
+	 * every entry beneath it. Changes are only written by {@link #apply()}.
+	 *
+	 * @param name the entry name, with '/' separated segments
+	 */
+	public void remove(String name) {
+		changes.add(new Change(name, null, false));
+	}
+
+	/**
+	 * Whether this archive can be updated in place at all
+	 *
+	 * @return
+	 * @throws IOException if the archive cannot be read
+	 */
+	public boolean isSupported() throws IOException {
+		if( !read ) {
+			read = true;
+			supported = readCentralDirectory();
+		}
+		return supported;
+	}
+
+	/**
+	 * Extract the contents of an entry, as it is before any changes
+	 *
+	 * @param name the entry name
+	 * @param dest the file to write the contents to
+	 * @return false if the archive is not supported, or has no such entry
+	 * @throws IOException if the archive cannot be read, or the entry is corrupt
+	 */
+	public boolean extract(String name, File dest) throws IOException {
+		if( !isSupported())
+			return false;
+		Entry e = entries.get(name);
+		if( e == null || (e.method != STORED && e.method != DEFLATED))
+			return false;
+		RandomAccessFile raf = new RandomAccessFile(zip, "r"); //$NON-NLS-1$
+		try {
+			byte[] header = new byte[LOCAL_HEADER_SIZE];
+			raf.seek(e.offset);
+			raf.readFully(header);
+			if( getInt(header, 0) != LOCAL_HEADER )
+				throw new IOException(zip + ": invalid local header for " + name); //$NON-NLS-1$
+			long start = e.offset + LOCAL_HEADER_SIZE + getShort(header, 26) + getShort(header, 28);
+			InputStream in = new EntryInputStream(raf, start, e.compressedSize, e.method == DEFLATED);
+			Inflater inflater = null;
+			if( e.method == DEFLATED ) {
+				inflater = new Inflater(true);
+				in = new InflaterInputStream(in, inflater, BUFFER);
+			}
+			OutputStream out = new FileOutputStream(dest);
+			try {
+				CRC32 crc = new CRC32();
+				byte[] buf = new byte[BUFFER];
+				int n;
+				while( (n = in.read(buf)) != -1 ) {
+					crc.update(buf, 0, n);
+					out.write(buf, 0, n);
+				}
+				if( crc.getValue() != e.crc )
+					throw new IOException(zip + ": bad CRC for " + name); //$NON-NLS-1$
+			} finally {
+				out.close();
+				if( inflater != null )
+					inflater.end();
+			}
+		} finally {
+			raf.close();
+		}
+		return true;
+	}
+
+	/**
+	 * Write all changes to the archive. If writing fails, the
+	 * archive is restored to what it was before.
+	 *
+	 * @return true if the changes were written, false if the archive
+	 * 		cannot be updated and was left untouched
+	 * @throws IOException
+	 */
+	public boolean apply() throws IOException {
+		if( !isSupported() || zip.length() != length )
+			return false;
+		if( changes.isEmpty())
+			return true;
+		LinkedHashMap<String, Change> written = new LinkedHashMap<String, Change>();
+		LinkedHashMap<String, Entry> result = plan(written);
+		if( result == null )
+			return false;
+		if( centralOffset - plannedSpace > plannedSpace )
+			return compact();
+
+		RandomAccessFile raf = new RandomAccessFile(zip, "rw"); //$NON-NLS-1$
+		try {
+			raf.seek(centralOffset);
+			Iterator<Change> it = written.values().iterator();
+			while( it.hasNext()) {
+				Change c = it.next();
+				result.put(c.name, writeEntry(raf, c));
+			}
+			if( !writeCentralDirectory(raf, result)) {
+				restore(raf);
+				return false;
+			}
+		} catch(IOException ioe) {
+			restore(raf);
+			throw ioe;
+		} catch(RuntimeException re) {
+			restore(raf);
+			throw re;
+		} finally {
+			raf.close();
+		}
+		read = false;
+		changes.clear();
+		return true;
+	}
+
+	/**
+	 * Write a copy of the archive with all changes to another file,
+	 * leaving out any unreferenced space. The data of unchanged
+	 * entries is copied as it is, without being inflated.
+	 *
+	 * @param dest the file to write
+	 * @return false if the archive is not supported
+	 * @throws IOException
+	 */
+	public boolean write(File dest) throws IOException {
+		if( !isSupported())
+			return false;
+		LinkedHashMap<String, Change> written = new LinkedHashMap<String, Change>();
+		LinkedHashMap<String, Entry> result = plan(written);
+		if( result == null )
+			return false;
+
+		RandomAccessFile in = new RandomAccessFile(zip, "r"); //$NON-NLS-1$
+		try {
+			RandomAccessFile out = new RandomAccessFile(dest, "rw"); //$NON-NLS-1$
+			try {
+				out.setLength(0);
+				Iterator<Map.Entry<String, Entry>> it = result.entrySet().iterator();
+				while( it.hasNext()) {
+					Map.Entry<String, Entry> e = it.next();
+					if( e.getValue() == null )
+						e.setValue(writeEntry(out, written.get(e.getKey())));
+					else
+						e.setValue(copyEntry(in, out, e.getValue()));
+				}
+				return writeCentralDirectory(out, result);
+			} finally {
+				out.close();
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/*
+	 * Replace the archive with a changed copy. The original is only
+	 * deleted once the copy has taken its place, and is put back if
+	 * the copy cannot be moved.
+	 */
+	private boolean compact() throws IOException {
+		File tmp = new File(zip.getParentFile(), zip.getName() + ".tmp"); //$NON-NLS-1$
+		File backup = new File(zip.getParentFile(), zip.getName() + ".bak"); //$NON-NLS-1$
+		try {
+			if( backup.exists() || !write(tmp) || !zip.renameTo(backup))
+				return false;
+			if( !tmp.renameTo(zip)) {
+				if( !backup.renameTo(zip))
+					throw new IOException(zip + " could not be replaced. The original archive is kept as " + backup); //$NON-NLS-1$
+				return false;
+			}
+			backup.delete();
+		} finally {
+			tmp.delete();
+		}
+		read = false;
+		changes.clear();
+		return true;
+	}
+
+	/*
+	 * Resolve the changes in order into the entries of the result,
+	 * with a null entry for each name to be written, and set the
+	 * space the result would use. Returns null if it cannot be written.
+	 */
+	private LinkedHashMap<String, Entry> plan(LinkedHashMap<String, Change> written) {
+		LinkedHashMap<String, Entry> result = new LinkedHashMap<String, Entry>(entries);
+		long used = usedSpace;
+		for( int i = 0; i < changes.size(); i++ ) {
+			Change c = changes.get(i);
+			if( c.folder ) {
+				addFolders(result, written, getParents(c.name));
+				addFolders(result, written, new String[] { c.name });
+				continue;
+			}
+			if( c.content == null ) {
+				used -= removeAll(result, c.name);
+				removeAll(written, c.name);
+				continue;
+			}
+			if( !c.content.isFile() || c.content.length() >= MAX_SIZE )
+				return null;
+			addFolders(result, written, getParents(c.name));
+			// A replacement is assumed to take as much space as the old entry
+			Entry old = result.put(c.name, null);
+			if( old == null )
+				used += c.content.length();
+			written.remove(c.name);
+			written.put(c.name, c);
+		}
+		plannedSpace = used;
+		return result.size() < MAX_ENTRIES ? result : null;
+	}
+
+	/* Plan a directory entry for each of the given names the result lacks */
+	private static void addFolders(LinkedHashMap<String, Entry> result,
+			LinkedHashMap<String, Change> written, String[] names) {
+		for( int i = 0; i < names.length; i++ ) {
+			if( !result.containsKey(names[i])) {
+				result.put(names[i], null);
+				written.put(names[i], new Change(names[i], null, true));
+			}
+		}
+	}
+
+	private boolean writeCentralDirectory(RandomAccessFile raf, LinkedHashMap<String, Entry> result) throws IOException {
+		ByteArrayOutputStream central = new ByteArrayOutputStream();
+		Iterator<Entry> it = result.values().iterator();
+		while( it.hasNext())
+			central.write(it.next().record);
+		long offset = raf.getFilePointer();
+		if( offset + central.size() + END_HEADER_SIZE + comment.length >= MAX_SIZE )
+			return false;
+		byte[] end = new byte[END_HEADER_SIZE];
+		putInt(end, 0, END_HEADER);
+		putShort(end, 8, result.size());
+		putShort(end, 10, result.size());
+		putInt(end, 12, central.size());
+		putInt(end, 16, offset);
+		putShort(end, 20, comment.length);
+		central.write(end);
+		central.write(comment);
+		raf.write(central.toByteArray());
+		raf.setLength(raf.getFilePointer());
+		return true;
+	}
+
+	/* Copy an entry's local header, data and data descriptor as they are */
+	private static Entry copyEntry(RandomAccessFile in, RandomAccessFile out, Entry e) throws IOException {
+		byte[] header = new byte[LOCAL_HEADER_SIZE];
+		in.seek(e.offset);
+		in.readFully(header);
+		if( getInt(header, 0) != LOCAL_HEADER )
+			throw new IOException("Invalid local header for " + e.name); //$NON-NLS-1$
+		long size = LOCAL_HEADER_SIZE + getShort(header, 26) + getShort(header, 28) + e.compressedSize;
+		if( (e.flags & FLAG_DESCRIPTOR) != 0 ) {
+			byte[] sig = new byte[4];
+			in.seek(e.offset + size);
+			in.readFully(sig);
+			size += getInt(sig, 0) == DESCRIPTOR ? 16 : 12;
+		}
+		Entry copy = new Entry();
+		copy.name = e.name;
+		copy.record = (byte[])e.record.clone();
+		copy.flags = e.flags;
+		copy.method = e.method;
+		copy.crc = e.crc;
+		copy.compressedSize = e.compressedSize;
+		copy.offset = out.getFilePointer();
+		putInt(copy.record, 42, copy.offset);
+
+		byte[] buf = new byte[BUFFER];
+		in.seek(e.offset);
+		while( size > 0 ) {
+			int n = (int)Math.min(buf.length, size);
+			in.readFully(buf, 0, n);
+			out.write(buf, 0, n);
+			size -= n;
+		}
+		return copy;
+	}
+
+	private static Entry writeEntry(RandomAccessFile raf, Change c) throws IOException {
+		return c.content == null ? writeDirectory(raf, c.name) : writeFile(raf, c.name, c.content);
+	}
+
+	private void restore(RandomAccessFile raf) throws IOException {
+		raf.seek(centralOffset);
+		raf.write(tail);
+		raf.setLength(length);
+	}
+
+	/* Remove an entry and all entries beneath it, returning their span */
+	private static long removeAll(LinkedHashMap<String, ?> map, String name) {
+		String dir = name.endsWith("/") ? name : name + "/"; //$NON-NLS-1$ //$NON-NLS-2$
+		long span = 0;
+		Iterator<String> it = map.keySet().iterator();
+		while( it.hasNext()) {
+			String key = it.next();
+			if( key.equals(name) || key.startsWith(dir)) {
+				Object o = map.get(key);
+				if( o instanceof Entry )
+					span += ((Entry)o).getSpan();
+				it.remove();
+			}
+		}
+		return span;
+	}
+
+	private static String[] getParents(String name) {
+		ArrayList<String> parents = new ArrayList<String>();
+		int slash = name.indexOf('/');
+		while( slash != -1 && slash < name.length() - 1 ) {
+			parents.add(name.substring(0, slash + 1));
+			slash = name.indexOf('/', slash + 1);
+		}
+		return parents.toArray(new String[parents.size()]);
+	}
+
+	private boolean readCentralDirectory() throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(zip, "r"); //$NON-NLS-1$
+		try {
+			length = raf.length();
+			if( length < END_HEADER_SIZE || length >= MAX_SIZE )
+				return false;
+			int scan = (int)Math.min(length, END_HEADER_SIZE + 0xFFFF);
+			byte[] buf = new byte[scan];
+			raf.seek(length - scan);
+			raf.readFully(buf);
+			int end = -1;
+			for( int i = scan - END_HEADER_SIZE; i >= 0 && end == -1; i-- ) {
+				if( getInt(buf, i) == END_HEADER && i + END_HEADER_SIZE + getShort(buf, i + 20) == scan )
+					end = i;
+			}
+			if( end == -1 || getShort(buf, end + 4) != 0 || getShort(buf, end + 6) != 0
+					|| (end >= 20 && getInt(buf, end - 20) == ZIP64_LOCATOR))
+				return false;
+			int count = getShort(buf, end + 10);
+			long centralSize = getUInt(buf, end + 12);
+			centralOffset = getUInt(buf, end + 16);
+			if( count != getShort(buf, end + 8) || count == MAX_ENTRIES
+					|| centralOffset + centralSize != length - scan + end )
+				return false;
+			comment = new byte[scan - end - END_HEADER_SIZE];
+			System.arraycopy(buf, end + END_HEADER_SIZE, comment, 0, comment.length);
+
+			tail = new byte[(int)(length - centralOffset)];
+			raf.seek(centralOffset);
+			raf.readFully(tail);
+			// Data before the first entry, as in self extracting archives
+			byte[] first = new byte[4];
+			raf.seek(0);
+			raf.readFully(first);
+			if( centralOffset > 0 && getInt(first, 0) != LOCAL_HEADER )
+				return false;
+		} finally {
+			raf.close();
+		}
+
+		entries = new LinkedHashMap<String, Entry>();
+		usedSpace = 0;
+		try {
+			return readEntries();
+		} catch(IndexOutOfBoundsException ioobe) {
+			// A record runs past the central directory
+			return false;
+		}
+	}
+
+	private boolean readEntries() throws IOException {
+		int p = 0;
+		while( getInt(tail, p) == CENTRAL_HEADER ) {
+			int size = CENTRAL_HEADER_SIZE + getShort(tail, p + 28) + getShort(tail, p + 30) + getShort(tail, p + 32);
+			Entry e = new Entry();
+			e.record = new byte[size];
+			System.arraycopy(tail, p, e.record, 0, size);
+			e.flags = getShort(tail, p + 8);
+			e.method = getShort(tail, p + 10);
+			e.crc = getUInt(tail, p + 16);
+			e.compressedSize = getUInt(tail, p + 20);
+			e.offset = getUInt(tail, p + 42);
+			e.name = decode(tail, p + CENTRAL_HEADER_SIZE, getShort(tail, p + 28));
+			if( (e.flags & FLAG_ENCRYPTED) != 0 || e.compressedSize == MAX_SIZE
+					|| getUInt(tail, p + 24) == MAX_SIZE || e.offset == MAX_SIZE
+					|| entries.put(e.name, e) != null )
+				return false;
+			usedSpace += e.getSpan();
+			p += size;
+		}
+		return getInt(tail, p) == END_HEADER && entries.size() == getShort(tail, p + 10);
+	}
+
+	private static Entry writeDirectory(RandomAccessFile raf, String name) throws IOException {
+		byte[] nameBytes = encode(name);
+		Entry e = newEntry(raf.getFilePointer(), STORED, nameBytes, System.currentTimeMillis());
+		putShort(e.record, 38, DIRECTORY_ATTRIBUTE);
+		raf.write(getLocalHeader(e, nameBytes));
+		return e;
+	}
+
+	private static Entry writeFile(RandomAccessFile raf, String name, File content) throws IOException {
+		byte[] nameBytes = encode(name);
+		int method = TrueZipUtil.isCompressedType(name) ? STORED : DEFLATED;
+		Entry e = newEntry(raf.getFilePointer(), method, nameBytes, content.lastModified());
+		byte[] buf = new byte[BUFFER];
+		long size = 0;
+		CRC32 crc = new CRC32();
+		InputStream in;
+		int n;
+		if( method == STORED ) {
+			in = new FileInputStream(content);
+			try {
+				while( (n = in.read(buf)) != -1 ) {
+					crc.update(buf, 0, n);
+					size += n;
+				}
+			} finally {
+				in.close();
+			}
+			setSizes(e, crc.getValue(), size, size);
+			raf.write(getLocalHeader(e, nameBytes));
+			in = new FileInputStream(content);
+			try {
+				long copied = 0;
+				while( copied < size && (n = in.read(buf, 0, (int)Math.min(buf.length, size - copied))) != -1 ) {
+					raf.write(buf, 0, n);
+					copied += n;
+				}
+				if( copied != size )
+					throw new IOException(content + " changed while being copied"); //$NON-NLS-1$
+			} finally {
+				in.close();
+			}
+			return e;
+		}
+
+		raf.write(getLocalHeader(e, nameBytes));
+		long start = raf.getFilePointer();
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		byte[] out = new byte[BUFFER];
+		in = new FileInputStream(content);
+		try {
+			while( (n = in.read(buf)) != -1 ) {
+				crc.update(buf, 0, n);
+				size += n;
+				deflater.setInput(buf, 0, n);
+				while( !deflater.needsInput())
+					raf.write(out, 0, deflater.deflate(out));
+			}
+			deflater.finish();
+			while( !deflater.finished())
+				raf.write(out, 0, deflater.deflate(out));
+		} finally {
+			in.close();
+			deflater.end();
+		}
+		long end = raf.getFilePointer();
+		if( size >= MAX_SIZE || end - start >= MAX_SIZE )
+			throw new IOException(content + " is too large"); //$NON-NLS-1$
+		setSizes(e, crc.getValue(), end - start, size);
+		raf.seek(e.offset);
+		raf.write(getLocalHeader(e, nameBytes));
+		raf.seek(end);
+		return e;
+	}
+
+	private static Entry newEntry(long offset, int method, byte[] nameBytes, long time) {
+		Entry e = new Entry();
+		e.record = new byte[CENTRAL_HEADER_SIZE + nameBytes.length];
+		e.flags = isAscii(nameBytes) ? 0 : FLAG_UTF8;
+		e.method = method;
+		e.offset = offset;
+		putInt(e.record, 0, CENTRAL_HEADER);
+		putShort(e.record, 4, VERSION);
+		putShort(e.record, 6, VERSION);
+		putShort(e.record, 8, e.flags);
+		putShort(e.record, 10, method);
+		putInt(e.record, 12, toDosTime(time));
+		putShort(e.record, 28, nameBytes.length);
+		putInt(e.record, 42, offset);
+		System.arraycopy(nameBytes, 0, e.record, CENTRAL_HEADER_SIZE, nameBytes.length);
+		return e;
+	}
+
+	private static void setSizes(Entry e, long crc, long compressedSize, long size) {
+		e.crc = crc;
+		e.compressedSize = compressedSize;
+		putInt(e.record, 16, crc);
+		putInt(e.record, 20, compressedSize);
+		putInt(e.record, 24, size);
+	}
+
+	private static byte[] getLocalHeader(Entry e, byte[] nameBytes) {
+		byte[] header = new byte[LOCAL_HEADER_SIZE + nameBytes.length];
+		putInt(header, 0, LOCAL_HEADER);
+		// version, flags, method, time, crc and sizes are as in the central record
+		System.arraycopy(e.record, 6, header, 4, 22);
+		putShort(header, 26, nameBytes.length);
+		System.arraycopy(nameBytes, 0, header, LOCAL_HEADER_SIZE, nameBytes.length);
+		return header;
+	}
+
+	private static long toDosTime(long time) {
+		Calendar cal = Calendar.getInstance();
+		cal.setTimeInMillis(time);
+		int year = cal.get(Calendar.YEAR);
+		if( year < 1980 )
+			return (1 << 21) | (1 << 16);
+		return ((year - 1980) << 25) | ((cal.get(Calendar.MONTH) + 1) << 21)
+				| (cal.get(Calendar.DAY_OF_MONTH) << 16) | (cal.get(Calendar.HOUR_OF_DAY) << 11)
+				| (cal.get(Calendar.MINUTE) << 5) | (cal.get(Calendar.SECOND) >> 1);
+	}
+
+	private static boolean isAscii(byte[] b) {
+		for( int i = 0; i < b.length; i++ )
+			if( b[i] < 0 )
+				return false;
+		return true;
+	}
+
+	/* Jar entry names are always UTF-8, whether flagged or not */
+	private static byte[] encode(String name) {
+		try {
+			return name.getBytes("UTF-8"); //$NON-NLS-1$
+		} catch(UnsupportedEncodingException uee) {
+			throw new IllegalStateException(uee);
+		}
+	}
+
+	private static String decode(byte[] b, int off, int len) {
+		try {
+			return new String(b, off, len, "UTF-8"); //$NON-NLS-1$
+		} catch(UnsupportedEncodingException uee) {
+			throw new IllegalStateException(uee);
+		}
+	}
+
+	private static int getShort(byte[] b, int off) {
+		return (b[off] & 0xFF) | ((b[off + 1] & 0xFF) << 8);
+	}
+
+	private static int getInt(byte[] b, int off) {
+		if( off + 4 > b.length )
+			return 0;
+		return (int)getUInt(b, off);
+	}
+
+	private static long getUInt(byte[] b, int off) {
+		return ((long)getShort(b, off)) | (((long)getShort(b, off + 2)) << 16);
+	}
+
+	private static void putShort(byte[] b, int off, int value) {
+		b[off] = (byte)value;
+		b[off + 1] = (byte)(value >> 8);
+	}
+
+	private static void putInt(byte[] b, int off, long value) {
+		putShort(b, off, (int)(value & 0xFFFF));
+		putShort(b, off + 2, (int)((value >> 16) & 0xFFFF));
+	}
+
+	/*
+	 * The data of an entry. Deflated data is followed by one extra
+	 * byte, which an inflater without a zlib header may need to finish.
+	 */
+	private static class EntryInputStream extends InputStream {
+		private RandomAccessFile raf;
+		private long pos;
+		private long remaining;
+		private boolean padded;
+
+		private EntryInputStream(RandomAccessFile raf, long start, long length, boolean pad) {
+			this.raf = raf;
+			this.pos = start;
+			this.remaining = length;
+			this.padded = !pad;
+		}
+
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException {
+			if( remaining == 0 ) {
+				if( padded || len == 0 )
+					return -1;
+				padded = true;
+				b[off] = 0;
+				return 1;
+			}
+			raf.seek(pos);
+			int n = raf.read(b, off, (int)Math.min(len, remaining));
+			if( n == -1 )
+				throw new IOException("Unexpected end of archive"); //$NON-NLS-1$
+			pos += n;
+			remaining -= n;
+			return n;
+		}
+	}
+}
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.archives.core.util.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.jboss.ide.eclipse.archives.core.ArchivesCore;
+import org.jboss.ide.eclipse.archives.core.model.ArchivesModel;
+import org.jboss.ide.eclipse.archives.core.model.IArchiveFileSet;
+import org.jboss.ide.eclipse.archives.core.model.IArchiveModel;
+import org.jboss.ide.eclipse.archives.core.model.IArchiveNode;
+import org.jboss.ide.eclipse.archives.core.model.IArchiveNodeVisitor;
+import org.jboss.ide.eclipse.archives.core.model.IArchiveStandardFileSet;
+import org.jboss.ide.eclipse.archives.core.util.PathUtils;
+
+/**
+ * An index of the filesets in the archives model by the folder
+ * they are based in, so that the filesets which may match a changed
+ * path can be found without visiting every fileset in the model.
+ *
+ * Workspace filesets are indexed by their workspace path, and
+ * all others by their absolute path. Filesets whose base folder
+ * cannot be resolved are candidates for every path.
+ *
+ * The index is rebuilt on first use after the model has changed.
+ *
+ * @since 3.6
+ */
+public class FilesetIndex {
+	private static final AtomicLong modelStamp = new AtomicLong();
+	private static FilesetIndex instance;
+
+	/**
+	 * Mark the index out of date. Called whenever a node is
+	 * added, removed, or changed, or a project is registered.
+	 */
+	public static void modelChanged() {
+		modelStamp.incrementAndGet();
+	}
+
+	/**
+	 * Get the filesets which may match the given path,
+	 * in the order they appear in the model
+	 *
+	 * @param path
+	 * @param inWorkspace whether the path is workspace relative
+	 * @return
+	 */
+	public static synchronized IArchiveFileSet[] getCandidates(IPath path, boolean inWorkspace) {
+		IArchiveModel model = ArchivesModel.instance();
+		long stamp = modelStamp.get();
+		if( instance == null || instance.model != model || instance.stamp != stamp )
+			instance = new FilesetIndex(model, stamp);
+		return instance.findCandidates(path, inWorkspace);
+	}
+
+	private IArchiveModel model;
+	private long stamp;
+	private PathTrie workspaceTrie = new PathTrie();
+	private PathTrie absoluteTrie = new PathTrie();
+	private ArrayList<IArchiveFileSet> unresolved = new ArrayList<IArchiveFileSet>();
+	private IdentityHashMap<IArchiveFileSet, Integer> order = new IdentityHashMap<IArchiveFileSet, Integer>();
+
+	private FilesetIndex(IArchiveModel model, long stamp) {
+		this.model = model;
+		this.stamp = stamp;
+		model.accept(new IArchiveNodeVisitor() {
+			public boolean visit(IArchiveNode node) {
+				if( node.getNodeType() == IArchiveNode.TYPE_ARCHIVE_FILESET )
+					add((IArchiveFileSet)node);
+				return true;
+			}
+		});
+	}
+
+	private void add(IArchiveFileSet fs) {
+		if( order.containsKey(fs))
+			return;
+		order.put(fs, new Integer(order.size()));
+		String base = null;
+		if( fs instanceof IArchiveStandardFileSet ) {
+			try {
+				base = PathUtils.getAbsoluteLocation(fs);
+			} catch(RuntimeException re) {
+				// Treated as unresolved
+			}
+		}
+		if( base == null ) {
+			unresolved.add(fs);
+		} else if( ((IArchiveStandardFileSet)fs).isInWorkspace()) {
+			workspaceTrie.add(new Path(base), fs);
+		} else {
+			absoluteTrie.add(new Path(base), fs);
+		}
+	}
+
+	private IArchiveFileSet[] findCandidates(IPath path, boolean inWorkspace) {
+		Set<IArchiveFileSet> results = new LinkedHashSet<IArchiveFileSet>(unresolved);
+		if( inWorkspace ) {
+			workspaceTrie.collect(path, results);
+			IPath absolute = ArchivesCore.getInstance().getVFS().workspacePathToAbsolutePath(path);
+			if( absolute != null )
+				absoluteTrie.collect(absolute, results);
+		} else {
+			absoluteTrie.collect(path, results);
+			IPath[] workspace = ArchivesCore.getInstance().getVFS().absolutePathToWorkspacePath(path);
+			for( int i = 0; workspace != null && i < workspace.length; i++ )
+				workspaceTrie.collect(workspace[i], results);
+		}
+		IArchiveFileSet[] ret = results.toArray(new IArchiveFileSet[results.size()]);
+		Arrays.sort(ret, new Comparator<IArchiveFileSet>() {
+			public int compare(IArchiveFileSet o1, IArchiveFileSet o2) {
+				return order.get(o1).compareTo(order.get(o2));
+			}
+		});
+		return ret;
+	}
+
+	/*
+	 * Filesets keyed by the segments of their base folder.
+	 * Collecting a path returns the filesets based in that path
+	 * or in any of its parent folders.
+	 */
+	private static class PathTrie {
+		private HashMap<String, PathTrie> children = new HashMap<String, PathTrie>();
+		private ArrayList<IArchiveFileSet> filesets = new ArrayList<IArchiveFileSet>();
+
+		public void add(IPath base, IArchiveFileSet fs) {
+			PathTrie node = child(getDevice(base), true);
+			for( int i = 0; i < base.segmentCount(); i++ )
+				node = node.child(base.segment(i), true);
+			node.filesets.add(fs);
+		}
+
+		public void collect(IPath path, Set<IArchiveFileSet> results) {
+			PathTrie node = child(getDevice(path), false);
+			for( int i = 0; node != null; i++ ) {
+				results.addAll(node.filesets);
+				node = i < path.segmentCount() ? node.child(path.segment(i), false) : null;
+			}
+		}
+
+		private PathTrie child(String segment, boolean create) {
+			PathTrie c = children.get(segment);
+			if( c == null && create ) {
+				c = new PathTrie();
+				children.put(segment, c);
+			}
+			return c;
+		}
+
+		private static String getDevice(IPath path) {
+			return path.getDevice() == null ? "" : path.getDevice(); //$NON-NLS-1$
+		}
+	}
+}
@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.archives.core.util.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.jboss.ide.eclipse.archives.core.ArchivesCore;
+import org.jboss.ide.eclipse.archives.core.model.DirectoryScannerFactory;
+import org.jboss.ide.eclipse.archives.core.model.DirectoryScannerFactory.DirectoryScannerExtension;
+import org.jboss.ide.eclipse.archives.core.model.IArchiveModel;
+import org.jboss.ide.eclipse.archives.core.model.IArchiveModelRootNode;
+import org.jboss.ide.eclipse.archives.core.model.IArchiveNode;
+import org.jboss.ide.eclipse.archives.core.model.IArchiveNodeVisitor;
+import org.jboss.ide.eclipse.archives.core.model.IArchiveStandardFileSet;
+import org.jboss.ide.eclipse.archives.core.model.IPreferenceManager;
+import org.jboss.ide.eclipse.archives.core.model.IPreferenceManager2;
+import org.jboss.ide.eclipse.archives.core.model.internal.ArchiveFileSetImpl;
+import org.jboss.ide.eclipse.archives.core.util.PathUtils;
+
+/**
+ * A cache of fileset scan results under the state location,
+ * so that the first use of a fileset after a restart, or after its
+ * project is registered again, need not scan its folders.
+ *
+ * Each fileset is cached in its own file, keyed by everything
+ * its scan depends on. Cached results are only used while none of
+ * the folders the scan listed have been modified since.
+ *
+ * @since 3.6
+ */
+public class FilesetScanCache {
+	private static final String CACHE_FOLDER = "filesetScans"; //$NON-NLS-1$
+	private static final String CACHE_EXTENSION = ".scan"; //$NON-NLS-1$
+	private static final int FORMAT_VERSION = 1;
+
+	/* Cache files not written for this long are removed */
+	private static final long EXPIRY = 30L * 24 * 60 * 60 * 1000;
+
+	/**
+	 * Restore the scan results of a fileset from the cache
+	 *
+	 * @param fs
+	 * @return a scanner holding the cached results, or null if
+	 * 		there are none, or they are out of date
+	 */
+	public static DirectoryScannerExtension restore(IArchiveStandardFileSet fs) {
+		File cacheFile = getCacheFile(fs);
+		if( cacheFile == null || !cacheFile.isFile())
+			return null;
+		String key = getKey(fs);
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+			if( in.readInt() != FORMAT_VERSION || !key.equals(in.readUTF()))
+				return null;
+			DirectoryScannerExtension scanner = DirectoryScannerFactory.createDirectoryScanner(fs, false);
+			return scanner.readResults(in) ? scanner : null;
+		} catch(IOException ioe) {
+			// A partial or corrupt cache; scan instead
+			return null;
+		} catch(IllegalStateException ise) {
+			// The base folder is invalid; the scan will report it
+			return null;
+		} finally {
+			close(in);
+		}
+	}
+
+	/**
+	 * Save the results of a completed scan of a fileset
+	 *
+	 * @param fs
+	 * @param scanner
+	 */
+	public static void save(IArchiveStandardFileSet fs, DirectoryScannerExtension scanner) {
+		File cacheFile = getCacheFile(fs);
+		if( cacheFile == null )
+			return;
+		File tmp = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp"); //$NON-NLS-1$
+		DataOutputStream out = null;
+		try {
+			cacheFile.getParentFile().mkdirs();
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(getKey(fs));
+			scanner.writeResults(out);
+			out.close();
+			out = null;
+			cacheFile.delete();
+			if( !tmp.renameTo(cacheFile))
+				tmp.delete();
+		} catch(IOException ioe) {
+			ArchivesCore.getInstance().getLogger().log(IStatus.WARNING, ioe.getMessage(), ioe);
+			close(out);
+			tmp.delete();
+		}
+	}
+
+	/**
+	 * Save the current scan results of all filesets beneath a node
+	 * which have not been saved yet, and remove expired cache files.
+	 *
+	 * @param node
+	 */
+	public static void saveAll(IArchiveNode node) {
+		if( node == null || getCacheFolder() == null )
+			return;
+		saveScanResults(node);
+		removeExpired();
+	}
+
+	/**
+	 * Save the current scan results of all filesets in every project
+	 * registered with the model which have not been saved yet,
+	 * and remove expired cache files.
+	 *
+	 * @param model
+	 */
+	public static void saveAll(IArchiveModel model) {
+		if( model == null || getCacheFolder() == null )
+			return;
+		IArchiveModelRootNode[] roots = model.getModelNodes();
+		for( int i = 0; i < roots.length; i++ )
+			saveScanResults(roots[i]);
+		removeExpired();
+	}
+
+	private static void saveScanResults(IArchiveNode node) {
+		node.accept(new IArchiveNodeVisitor() {
+			public boolean visit(IArchiveNode node) {
+				if( node instanceof ArchiveFileSetImpl )
+					((ArchiveFileSetImpl)node).saveScanResults();
+				return true;
+			}
+		});
+	}
+
+	private static void removeExpired() {
+		File[] files = getCacheFolder().listFiles();
+		long expired = System.currentTimeMillis() - EXPIRY;
+		for( int i = 0; files != null && i < files.length; i++ ) {
+			if( files[i].lastModified() < expired )
+				files[i].delete();
+		}
+	}
+
+	private static File getCacheFolder() {
+		IPreferenceManager prefs = ArchivesCore.getInstance().getPreferenceManager();
+		if( prefs instanceof IPreferenceManager2 && !((IPreferenceManager2)prefs).isScanCacheEnabled())
+			return null;
+		IPath state = ArchivesCore.getInstance().getStateLocation();
+		return state == null ? null : state.append(CACHE_FOLDER).toFile();
+	}
+
+	private static File getCacheFile(IArchiveStandardFileSet fs) {
+		File folder = getCacheFolder();
+		if( folder == null )
+			return null;
+		return new File(folder, Integer.toHexString(getKey(fs).hashCode()) + CACHE_EXTENSION);
+	}
+
+	/*
+	 * Everything the scan results depend on,
+	 * as passed to DirectoryScannerFactory
+	 */
+	private static String getKey(IArchiveStandardFileSet fs) {
+		String base = null;
+		try {
+			base = PathUtils.getAbsoluteLocation(fs);
+		} catch(RuntimeException re) {
+			// Keyed by the raw path alone
+		}
+		StringBuffer sb = new StringBuffer();
+		sb.append(fs.getProjectName()).append('\n');
+		sb.append(fs.getRawSourcePath()).append('\n');
+		sb.append(base).append('\n');
+		sb.append(fs.isInWorkspace()).append('\n');
+		sb.append(fs.getIncludesPattern()).append('\n');
+		sb.append(fs.getExcludesPattern()).append('\n');
+		if( fs.getRootArchive().isDestinationInWorkspace())
+			sb.append(fs.getRootArchive().getRawDestinationPath());
+		sb.append('\n');
+		sb.append(fs.getRootArchiveRelativePath()).append('\n');
+		sb.append(fs.getDescriptorVersion());
+		return sb.toString();
+	}
+
+	private static void close(Closeable c) {
+		if( c != null ) {
+			try {
+				c.close();
+			} catch(IOException ioe) {
+				// Ignore
+			}
+		}
+	}
+}
@@ -12,6 +12,9 @@ package org.jboss.ide.eclipse.archives.core.util.internal;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -62,7 +65,7 @@ public class ModelTruezipBridge {
 		FileWrapper[] files = fileset.findMatchingPaths();
 		IStatus[] s = copyFiles(fileset, files, monitor, false, false);
 		if( sync )
-			TrueZipUtil.sync();
+			sync(fileset);
 		return new FileWrapperStatusPair( files, s );
 	}
 
@@ -137,7 +140,7 @@ public class ModelTruezipBridge {
 		} );
 
 		if( sync )
-			TrueZipUtil.sync();
+			sync(fileset);
 		monitor.worked(250);
 		monitor.done();
 
@@ -147,22 +150,55 @@ public class ModelTruezipBridge {
 	}
 
 	public static IStatus[] copyFiles(IArchiveFileSet fileset, final FileWrapper[] files, IProgressMonitor monitor, boolean updateTimestamps, boolean sync) {
+		return copyFiles(fileset, files, null, monitor, updateTimestamps, sync);
+	}
+
+	/**
+	 * Copies files into the fileset's output location. Files whose
+	 * destination is inside a nested archive are left to the updater,
+	 * where it accepts them, to be copied when it is applied.
+	 * @param fileset
+	 * @param files
+	 * @param updater the updater, or null to copy all files through TrueZip
+	 * @param monitor
+	 * @param updateTimestamps
+	 * @param sync
+	 * @return
+	 * @since 3.6
+	 */
+	public static IStatus[] copyFiles(IArchiveFileSet fileset, final FileWrapper[] files, NestedArchiveUpdater updater,
+			IProgressMonitor monitor, boolean updateTimestamps, boolean sync) {
 		monitor.beginTask(ArchivesCore.bind(ArchivesCoreMessages.CopyingCountFiles,
-				new Integer(files.length).toString()), files.length * 100);
-		boolean b = true;
+				new Integer(files.length).toString()), files.length);
 		ArrayList<IStatus> list = new ArrayList<IStatus>();
-		final File[] destFiles = getFiles(files, fileset);
-		for( int i = 0; i < files.length; i++ ) {
-			b = TrueZipUtil.copyFile(files[i].getAbsolutePath(), destFiles[i], updateTimestamps);
-			if( b == false ) {
+		File[] destFiles = getFiles(files, fileset);
+		String[] sources = new String[destFiles.length];
+		for( int i = 0; i < sources.length; i++ )
+			sources[i] = files[i].getAbsolutePath();
+		if( updater != null ) {
+			ArrayList<String> sources2 = new ArrayList<String>();
+			ArrayList<File> destFiles2 = new ArrayList<File>();
+			for( int i = 0; i < sources.length; i++ ) {
+				if( updater.add(sources[i], destFiles[i])) {
+					monitor.worked(1);
+				} else {
+					sources2.add(sources[i]);
+					destFiles2.add(destFiles[i]);
+				}
+			}
+			sources = sources2.toArray(new String[sources2.size()]);
+			destFiles = destFiles2.toArray(new File[destFiles2.size()]);
+		}
+		boolean[] copied = TrueZipUtil.copyFiles(sources, destFiles, updateTimestamps, monitor);
+		for( int i = 0; i < copied.length; i++ ) {
+			if( !copied[i] ) {
 				list.add(new Status(IStatus.ERROR, ArchivesCore.PLUGIN_ID,
 						ArchivesCore.bind(ArchivesCoreMessages.FileCopyFailed,
-								files[i].getAbsolutePath(), destFiles[i].toString())));
+								sources[i], destFiles[i].toString())));
 			}
-			monitor.worked(100);
 		}
 		if( sync )
-			TrueZipUtil.sync();
+			sync(fileset);
 		monitor.done();
 		return list.toArray(new IStatus[list.size()]);
 	}
@@ -171,12 +207,31 @@ public class ModelTruezipBridge {
 	 * Deleting files
 	 */
 	public static IStatus[] deleteFiles(IArchiveFileSet fileset, final FileWrapper[] files, IProgressMonitor monitor, boolean sync ) {
+		return deleteFiles(fileset, files, null, monitor, sync);
+	}
+
+	/**
+	 * Deletes files from the fileset's output location. Files whose
+	 * destination is inside a nested archive are left to the updater,
+	 * where it accepts them, to be deleted when it is applied.
+	 * @param fileset
+	 * @param files
+	 * @param updater the updater, or null to delete all files through TrueZip
+	 * @param monitor
+	 * @param sync
+	 * @return
+	 * @since 3.6
+	 */
+	public static IStatus[] deleteFiles(IArchiveFileSet fileset, final FileWrapper[] files, NestedArchiveUpdater updater,
+			IProgressMonitor monitor, boolean sync ) {
 		monitor.beginTask(ArchivesCore.bind(ArchivesCoreMessages.DeletingCountFiles,
 				new Integer(files.length).toString()), files.length * 100);
 		final File[] destFiles = getFiles(files, fileset);
 		ArrayList<IStatus> list = new ArrayList<IStatus>();
-		for( int i = 0; i < files.length; i++ ) {
-			if( !TrueZipUtil.deleteAll(destFiles[i]) ) {
+		for( int i = 0; i < destFiles.length; i++ ) {
+			if( updater != null && updater.remove(destFiles[i])) {
+				// removed when the updater is applied
+			} else if( !TrueZipUtil.deleteAll(destFiles[i]) ) {
 				IStatus e = new Status(IStatus.ERROR, ArchivesCore.PLUGIN_ID,
 						ArchivesCore.bind(ArchivesCoreMessages.FileDeleteFailed, destFiles[i].toString()));
 				list.add(e);
@@ -184,11 +239,51 @@ public class ModelTruezipBridge {
 			monitor.worked(100);
 		}
 		if( sync )
-			TrueZipUtil.sync();
+			sync(fileset);
 		monitor.done();
 		return list.toArray(new IStatus[list.size()]);
 	}
 
+	/**
+	 * Writes out only the archive the given node's output is in.
+	 * Other archives mounted by TrueZip are not touched.
+	 * @param node
+	 * @since 3.6
+	 */
+	public static void sync(IArchiveNode node) {
+		sync(new IArchiveNode[]{node});
+	}
+
+	/**
+	 * Writes out each archive that the given nodes' outputs are in, once.
+	 * Nodes which are not inside an archive, such as exploded archives,
+	 * write out the packed archives beneath them instead.
+	 * @param nodes
+	 * @since 3.6
+	 */
+	public static void sync(IArchiveNode[] nodes) {
+		final Set<File> archives = new LinkedHashSet<File>();
+		for( int i = 0; i < nodes.length; i++ ) {
+			File archive = TrueZipUtil.getTopLevelArchive(getFile(nodes[i]));
+			if( archive != null ) {
+				archives.add(archive);
+			} else if( nodes[i].getNodeType() != IArchiveNode.TYPE_ARCHIVE_FILESET ) {
+				nodes[i].accept(new IArchiveNodeVisitor() {
+					public boolean visit(IArchiveNode node) {
+						if( node.getNodeType() == IArchiveNode.TYPE_ARCHIVE ) {
+							File archive = TrueZipUtil.getTopLevelArchive(getFile(node));
+							if( archive != null )
+								archives.add(archive);
+						}
+						return true;
+					}
+				});
+			}
+		}
+		Iterator<File> it = archives.iterator();
+		while(it.hasNext())
+			TrueZipUtil.sync(it.next());
+	}
 
 	public static boolean deleteArchive(IArchive archive) {
 		final File file = getFile(archive);
@@ -222,7 +317,7 @@ public class ModelTruezipBridge {
 		if( f.exists() ) return true;
 		boolean b = f.mkdirs();
 		if( sync )
-			TrueZipUtil.sync();
+			TrueZipUtil.sync(f);
 		return b;
 	}
 
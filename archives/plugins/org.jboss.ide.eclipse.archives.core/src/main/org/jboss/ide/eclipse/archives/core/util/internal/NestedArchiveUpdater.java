@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.archives.core.util.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.jboss.ide.eclipse.archives.core.ArchivesCore;
+import org.jboss.ide.eclipse.archives.core.ArchivesCoreMessages;
+import org.jboss.ide.eclipse.archives.core.model.IPreferenceManager;
+import org.jboss.ide.eclipse.archives.core.model.IPreferenceManager2;
+import org.jboss.ide.eclipse.archives.core.util.TrueZipUtil;
+import org.jboss.ide.eclipse.archives.core.util.ZipEntryPatcher;
+
+import de.schlichtherle.io.File;
+
+/**
+ * Collects changes to files inside archives which are themselves
+ * nested in a packed archive, such as a war inside an ear, and
+ * applies them without repacking every enclosing archive.
+ *
+ * Written through TrueZip, a change to one file rewrites the archive
+ * it is in and then each archive enclosing that one, in full. Instead,
+ * each nested archive on the way is extracted to a temporary file and
+ * its changed copy written with {@link ZipEntryPatcher}, innermost
+ * first, and the top level archive is patched in place, so that it
+ * only has the changed entry appended and its central directory
+ * rewritten.
+ *
+ * The changes to an archive which cannot be patched are made through
+ * TrueZip instead, which also reclaims the unreferenced space patches
+ * leave behind.
+ *
+ * @since 3.6
+ */
+public class NestedArchiveUpdater {
+
+	/* The changes to the entries of one archive */
+	private static class Level {
+		/* Entry names, and the files to put or null to remove, in order */
+		private ArrayList<String[]> changes = new ArrayList<String[]>();
+		/* The nested archives with changes, by entry name */
+		private LinkedHashMap<String, Level> archives = new LinkedHashMap<String, Level>();
+
+		private Level getArchive(String name) {
+			Level l = archives.get(name);
+			if( l == null ) {
+				l = new Level();
+				archives.put(name, l);
+			}
+			return l;
+		}
+	}
+
+	/* The changes to one top level archive */
+	private static class Pending {
+		private File archive;
+		private Level root = new Level();
+		/* The changes as made, to be replayed through TrueZip if need be */
+		private ArrayList<String> sources = new ArrayList<String>();
+		private ArrayList<File> destinations = new ArrayList<File>();
+	}
+
+	private LinkedHashMap<java.io.File, Pending> pending = new LinkedHashMap<java.io.File, Pending>();
+
+	/**
+	 * Whether nested archives may be updated in place.
+	 * Only if the preference manager allows it.
+	 *
+	 * @return
+	 */
+	public static boolean isEnabled() {
+		IPreferenceManager prefs = ArchivesCore.getInstance().getPreferenceManager();
+		return prefs instanceof IPreferenceManager2 && ((IPreferenceManager2)prefs).isInPlaceArchiveUpdateEnabled();
+	}
+
+	/**
+	 * Record that a file is to be copied to the given destination
+	 *
+	 * @param source the absolute path of the file
+	 * @param dest the destination
+	 * @return false if the destination is not in a nested archive,
+	 * 		and the file must be copied through TrueZip instead
+	 */
+	public boolean add(String source, File dest) {
+		return new java.io.File(source).isFile() && record(source, dest);
+	}
+
+	/**
+	 * Record that the given file, or folder and its contents, is to be removed
+	 *
+	 * @param dest the destination
+	 * @return false if the destination is not in a nested archive,
+	 * 		and the file must be removed through TrueZip instead
+	 */
+	public boolean remove(File dest) {
+		return record(null, dest);
+	}
+
+	private boolean record(String source, File dest) {
+		File archive = dest.getEnclArchive();
+		if( archive == null || archive.getEnclArchive() == null )
+			return false;
+		ArrayList<String> names = new ArrayList<String>();
+		File top = archive;
+		while( top.getEnclArchive() != null ) {
+			names.add(0, top.getEnclEntryName());
+			top = top.getEnclArchive();
+		}
+		java.io.File topFile = new java.io.File(top.getPath());
+		if( !topFile.isFile())
+			return false;
+
+		Pending p = pending.get(topFile);
+		if( p == null ) {
+			p = new Pending();
+			p.archive = top;
+			pending.put(topFile, p);
+		}
+		Level level = p.root;
+		for( int i = 0; i < names.size(); i++ )
+			level = level.getArchive(names.get(i));
+		level.changes.add(new String[] { dest.getEnclEntryName(), source });
+		p.sources.add(source);
+		p.destinations.add(dest);
+		return true;
+	}
+
+	/**
+	 * Apply all recorded changes, in place where possible,
+	 * and through TrueZip otherwise. Every affected top level
+	 * archive is written out and unmounted.
+	 *
+	 * @return errors for files which could not be copied or removed
+	 */
+	public IStatus[] apply() {
+		return apply(null);
+	}
+
+	/**
+	 * Apply the recorded changes to the top level archives
+	 * at or beneath the given location only.
+	 *
+	 * @param location a file system location, or null for all archives
+	 * @return errors for files which could not be copied or removed
+	 */
+	public IStatus[] apply(IPath location) {
+		ArrayList<IStatus> errors = new ArrayList<IStatus>();
+		Iterator<Map.Entry<java.io.File, Pending>> it = pending.entrySet().iterator();
+		while( it.hasNext()) {
+			Map.Entry<java.io.File, Pending> e = it.next();
+			if( location != null && !location.isPrefixOf(new Path(e.getKey().getAbsolutePath())))
+				continue;
+			it.remove();
+			Pending p = e.getValue();
+			// Changes made to the archive through TrueZip must be on disk first
+			TrueZipUtil.umount(p.archive);
+			boolean patched = false;
+			try {
+				patched = patch(e.getKey(), p.root, null);
+			} catch(IOException ioe) {
+				ArchivesCore.getInstance().getLogger().log(IStatus.WARNING, ioe.getMessage(), ioe);
+			}
+			if( !patched )
+				replay(p, errors);
+		}
+		return errors.toArray(new IStatus[errors.size()]);
+	}
+
+	/*
+	 * Apply the changes to an archive, in place if copy is null,
+	 * or by writing the changed archive to copy otherwise.
+	 * Nested archives are copied out of their parent in any case,
+	 * so their changed copies are written in full, leaving out
+	 * any space unreferenced by earlier patches.
+	 */
+	private boolean patch(java.io.File zip, Level level, java.io.File copy) throws IOException {
+		ZipEntryPatcher patcher = new ZipEntryPatcher(zip);
+		ArrayList<java.io.File> temps = new ArrayList<java.io.File>();
+		try {
+			Iterator<Map.Entry<String, Level>> it = level.archives.entrySet().iterator();
+			while( it.hasNext()) {
+				Map.Entry<String, Level> e = it.next();
+				java.io.File extracted = java.io.File.createTempFile("nested", ".zip"); //$NON-NLS-1$ //$NON-NLS-2$
+				temps.add(extracted);
+				java.io.File changed = java.io.File.createTempFile("nested", ".zip"); //$NON-NLS-1$ //$NON-NLS-2$
+				temps.add(changed);
+				if( !patcher.extract(e.getKey(), extracted) || !patch(extracted, e.getValue(), changed))
+					return false;
+				patcher.put(e.getKey(), changed);
+			}
+			for( int i = 0; i < level.changes.size(); i++ ) {
+				String[] change = level.changes.get(i);
+				if( change[1] == null )
+					patcher.remove(change[0]);
+				else
+					patcher.put(change[0], new java.io.File(change[1]));
+			}
+			return copy == null ? patcher.apply() : patcher.write(copy);
+		} finally {
+			for( int i = 0; i < temps.size(); i++ )
+				temps.get(i).delete();
+		}
+	}
+
+	private void replay(Pending p, ArrayList<IStatus> errors) {
+		for( int i = 0; i < p.sources.size(); i++ ) {
+			String source = p.sources.get(i);
+			File dest = p.destinations.get(i);
+			if( source == null ) {
+				if( !TrueZipUtil.deleteAll(dest))
+					errors.add(new Status(IStatus.ERROR, ArchivesCore.PLUGIN_ID,
+							ArchivesCore.bind(ArchivesCoreMessages.FileDeleteFailed, dest.toString())));
+			} else {
+				boolean[] copied = TrueZipUtil.copyFiles(new String[] { source }, new File[] { dest },
+						true, new NullProgressMonitor());
+				if( !copied[0] )
+					errors.add(new Status(IStatus.ERROR, ArchivesCore.PLUGIN_ID,
+							ArchivesCore.bind(ArchivesCoreMessages.FileCopyFailed, source, dest.toString())));
+			}
+		}
+		TrueZipUtil.sync(p.archive);
+	}
+}
@@ -19,6 +19,7 @@ package org.jboss.tools.archives.scanner;
 
 import java.io.File;
 
+import org.jboss.tools.archives.scanner.internal.CompiledPatterns;
 import org.jboss.tools.archives.scanner.internal.MatchPatterns;
 import org.jboss.tools.archives.scanner.internal.SelectorUtils;
 
@@ -112,6 +113,10 @@ public abstract class AbstractScanner<T> implements Scanner <T> {
 
     private MatchPatterns excludesPatterns;
 
+    private CompiledPatterns includesMatcher;
+
+    private CompiledPatterns excludesMatcher;
+
     /**
      * Whether or not the file system should be treated as a case sensitive
      * one.
@@ -275,7 +280,7 @@ public abstract class AbstractScanner<T> implements Scanner <T> {
      */
     protected boolean couldHoldIncluded( String name )
     {
-        return includesPatterns.matchesPatternStart(name, isCaseSensitive);
+        return includesMatcher.matchesPatternStart( includesMatcher.getState( name, isCaseSensitive ) );
     }
 
     /**
@@ -296,6 +301,89 @@ public abstract class AbstractScanner<T> implements Scanner <T> {
         return excludesPatterns.matches( name, tokenizedName, isCaseSensitive );
     }
 
+    /**
+     * The include and exclude match state of a path. Scanners descending
+     * a tree keep the state of each directory, so that its entries are matched
+     * by their name alone, rather than by tokenizing and matching their full path.
+     * <p/>
+     * Most entries are never checked against the excludes, so the exclude
+     * state is only matched when it, or the state of a descendant, is needed.
+     */
+    final class PathState
+    {
+        final CompiledPatterns.State included;
+
+        private CompiledPatterns.State excluded;
+
+        private PathState parent;
+
+        private String name;
+
+        PathState( CompiledPatterns.State included, CompiledPatterns.State excluded )
+        {
+            this.included = included;
+            this.excluded = excluded;
+        }
+
+        PathState( CompiledPatterns.State included, PathState parent, String name )
+        {
+            this.included = included;
+            this.parent = parent;
+            this.name = name;
+        }
+
+        CompiledPatterns.State getExcluded()
+        {
+            if ( excluded == null )
+            {
+                excluded = excludesMatcher.getChildState( parent.getExcluded(), name, isCaseSensitive );
+                parent = null;
+                name = null;
+            }
+            return excluded;
+        }
+    }
+
+    /**
+     * Gets the match state of a path, matching all of its segments.
+     *
+     * @param name The path. Must not be <code>null</code>.
+     * @return the match state of the path
+     */
+    PathState getPathState( String name )
+    {
+        return new PathState( includesMatcher.getState( name, isCaseSensitive ),
+                              excludesMatcher.getState( name, isCaseSensitive ) );
+    }
+
+    /**
+     * Gets the match state of a child path, matching only its last segment.
+     *
+     * @param parent The match state of the parent path
+     * @param childName The last segment of the child path
+     * @return the match state of the child path
+     */
+    PathState getChildPathState( PathState parent, String childName )
+    {
+        return new PathState( includesMatcher.getChildState( parent.included, childName, isCaseSensitive ),
+                              parent, childName );
+    }
+
+    boolean isIncluded( String name, PathState state )
+    {
+        return includesMatcher.matches( state.included, name );
+    }
+
+    boolean isExcluded( String name, PathState state )
+    {
+        return excludesMatcher.matches( state.getExcluded(), name );
+    }
+
+    boolean couldHoldIncluded( PathState state )
+    {
+        return includesMatcher.matchesPatternStart( state.included );
+    }
+
     /**
      * Adds default exclusions to the current exclusions set.
      */
@@ -333,5 +421,7 @@ public abstract class AbstractScanner<T> implements Scanner <T> {
     {
         includesPatterns = MatchPatterns.from( includes );
         excludesPatterns = MatchPatterns.from( excludes );
+        includesMatcher = CompiledPatterns.from( includes );
+        excludesMatcher = CompiledPatterns.from( excludes );
     }
 }
@@ -51,9 +51,9 @@ public class FilesystemDirectoryScanner extends VirtualDirectoryScanner<TreeNode
                     String name = vpath + newfile;
                     ITreeNode file = newfile;
                     if ( isDirectory(file)) {
-                        dirsExcluded.addElement( name );
+                        dirsExcluded.add( name );
                     } else {
-                        filesExcluded.addElement( name );
+                        filesExcluded.add( name );
                     }
                 } else {
                 	// This is a legitimate file we should track
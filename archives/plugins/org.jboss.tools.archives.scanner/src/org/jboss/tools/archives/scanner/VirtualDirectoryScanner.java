@@ -56,11 +56,10 @@ package org.jboss.tools.archives.scanner;
 
 import java.io.File;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Vector;
 
-import org.jboss.tools.archives.scanner.internal.MatchPattern;
-
 /**
  * Class for scanning a directory for any virtual / heirarchical 
  * tree path model which match certain criteria.
@@ -250,7 +249,18 @@ public class VirtualDirectoryScanner<T extends ITreeNode> extends AbstractScanne
      */
     protected boolean everythingIncluded = true;
 
-    private final String[] tokenizedEmpty = MatchPattern.tokenizePathToString( "", File.separator ); //$NON-NLS-1$
+    /**
+     * The names which have already been sorted into the included,
+     * excluded, or deselected files and directories.
+     */
+    private HashSet<String> processedNames;
+
+    /**
+     * The name being accounted for, and its match state, so that
+     * processIncluded does not need to match the name again.
+     */
+    private String accountedName;
+    private PathState accountedState;
     
     protected IDirectoryScannerIterator<T> iterator = null;
 
@@ -395,9 +405,11 @@ public class VirtualDirectoryScanner<T extends ITreeNode> extends AbstractScanne
         dirsNotIncluded = new Vector<String>();
         dirsExcluded = new Vector<String>();
         dirsDeselected = new Vector<String>();
+        processedNames = new HashSet<String>();
 
-        if ( isIncluded( "", tokenizedEmpty ) ) { //$NON-NLS-1$ 
-            if ( !isExcluded( "", tokenizedEmpty ) ) { //$NON-NLS-1$ 
+        PathState rootState = getPathState( "" ); //$NON-NLS-1$
+        if ( isIncluded( "", rootState ) ) { //$NON-NLS-1$ 
+            if ( !isExcluded( "", rootState ) ) { //$NON-NLS-1$ 
                 if ( isSelected( "", basedir ) ) { //$NON-NLS-1$
                     dirsIncluded.addElement( "" );//$NON-NLS-1$
                 } else {
@@ -465,6 +477,14 @@ public class VirtualDirectoryScanner<T extends ITreeNode> extends AbstractScanne
      * @see #slowScan
      */
     protected void scandir( ITreeNode dir, String vpath, boolean fast ) {
+        scandir( dir, vpath, getPathState( vpath ), fast );
+    }
+
+    /**
+     * Scans the given directory, matching each entry by its name
+     * against the match state of the directory.
+     */
+    private void scandir( ITreeNode dir, String vpath, PathState dirState, boolean fast ) {
     	 // LINE MODIFIED FOR JBOSS TOOLS;  was  dir.list();
     	ITreeNode[] newfiles = listChildren(dir);
         
@@ -499,27 +519,28 @@ public class VirtualDirectoryScanner<T extends ITreeNode> extends AbstractScanne
 
         // Run scanner on files to track (excluding symlinks if we are ignoring symlinks)
         for ( ITreeNode newfile : newfiles ) {
-            String name = vpath + getName(newfile);
-            String[] tokenizedName =  MatchPattern.tokenizePathToString( name, File.separator );
+            String childName = getName(newfile);
+            String name = vpath + childName;
+            PathState state = getChildPathState( dirState, childName );
             ITreeNode file = newfile;
             if ( isDirectory(file) ) {
-                if ( isIncluded( name, tokenizedName ) ) {
-                	accountForIncludedDir(name, (T)file, fast);
+                if ( isIncluded( name, state ) ) {
+                	accountForIncludedDir(name, (T)file, state, fast);
                 } else {
                     everythingIncluded = false;
                     dirsNotIncluded.addElement( name );
-                    if ( fast && couldHoldIncluded( name ) ) {
-                        scandirWrap( (T)file, name + File.separator, fast );
+                    if ( fast && couldHoldIncluded( state ) ) {
+                        scandirWrap( (T)file, name + File.separator, state, fast );
                     }
                 }
                 
                 if ( !fast ) {
-                    scandirWrap( (T)file, name + File.separator, fast );
+                    scandirWrap( (T)file, name + File.separator, state, fast );
                 }
                 
             } else { // assumed to be a file   
-                if ( isIncluded( name, tokenizedName ) ) {
-                    accountForIncludedFile(name, (T)file);
+                if ( isIncluded( name, state ) ) {
+                    accountForIncludedFile(name, (T)file, state);
                 } else {
                     everythingIncluded = false;
                     filesNotIncluded.addElement( name );
@@ -738,6 +759,18 @@ public class VirtualDirectoryScanner<T extends ITreeNode> extends AbstractScanne
     	else
     		iterator.addElementToScanList(dir, vpath);
     }
+
+    /*
+     * As above, but passing along the match state of the directory
+     * for when it is scanned immediately. Slow scans are never
+     * iterated, so are always scanned immediately.
+     */
+    private void scandirWrap(T dir, String vpath, PathState dirState, boolean fast) {
+    	if( iterator == null || !fast )
+    		scandir(dir, vpath, dirState, fast);
+    	else
+    		iterator.addElementToScanList(dir, vpath);
+    }
     
     
     /**
@@ -745,12 +778,14 @@ public class VirtualDirectoryScanner<T extends ITreeNode> extends AbstractScanne
      * @param name path of the directory relative to the directory of
      *             the FileSet.
      * @param file directory as File.
+     * @param state match state of the directory.
      * @param fast whether to perform fast scans.
      */
-    private void accountForIncludedDir(String name, T file, boolean fast) {
+    private void accountForIncludedDir(String name, T file, PathState state, boolean fast) {
+        accountFor(name, state);
         processIncluded(name, file, dirsIncluded, dirsExcluded, dirsDeselected);
-        if (couldHoldIncluded(name)) {
-            scandirWrap(file, name + File.separator, fast);
+        if (couldHoldIncluded(state)) {
+            scandirWrap(file, name + File.separator, state, fast);
         }
     }
     
@@ -758,10 +793,17 @@ public class VirtualDirectoryScanner<T extends ITreeNode> extends AbstractScanne
      * Process included file.
      * @param name  path of the file relative to the directory of the FileSet.
      * @param file  included File.
+     * @param state match state of the file.
      */
-    private void accountForIncludedFile(String name, T file) {
+    private void accountForIncludedFile(String name, T file, PathState state) {
+        accountFor(name, state);
         processIncluded(name, file, filesIncluded, filesExcluded, filesDeselected);
     }
+
+    private void accountFor(String name, PathState state) {
+        accountedName = name;
+        accountedState = state;
+    }
     
     /**
      * Check the inclusion state for the given file, 
@@ -777,9 +819,10 @@ public class VirtualDirectoryScanner<T extends ITreeNode> extends AbstractScanne
      * @param des
      */
     protected void processIncluded(String name, T file, Vector<String> inc, Vector<String> exc, Vector<String> des) {
-        if (inc.contains(name) || exc.contains(name) || des.contains(name)) { return; }
+        if (!processedNames.add(name)) { return; }
+        PathState state = name.equals(accountedName) ? accountedState : getPathState(name);
         boolean included = false;
-        if (isExcluded(name)) {
+        if (isExcluded(name, state)) {
             exc.add(name);
             postExclude(file, name);
         } else if (isSelected(name, file)) {
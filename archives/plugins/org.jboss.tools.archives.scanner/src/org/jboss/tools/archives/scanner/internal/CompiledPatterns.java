@@ -0,0 +1,302 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.archives.scanner.internal;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A list of patterns compiled into a single automaton over path segments.
+ * <p/>
+ * Matches the same paths as {@link MatchPatterns}, but a path is matched
+ * one segment at a time: the {@link State} of a directory is computed once,
+ * and the state of each of its children is derived from it by matching
+ * only the child's name. Scanners descending a tree therefore never
+ * re-tokenize or re-match the parent path of an entry.
+ * <p/>
+ * Each position in an ant pattern is a state of the automaton. A state
+ * at a '**' segment stays alive for any segment, and also continues
+ * to the next position without consuming one. Regex patterns cannot be
+ * matched incrementally, and are matched against the full path, with
+ * the expression compiled once.
+ * <p/>
+ * Instances and states are immutable.
+ */
+public class CompiledPatterns
+{
+    /* The segments of all ant patterns, with a null entry ending each pattern */
+    private final String[] segments;
+
+    private final char[][] segmentChars;
+
+    /* The kind of each segment; one of the constants below */
+    private final byte[] kinds;
+
+    private final Pattern[] regexPatterns;
+
+    private final State root;
+
+    private static final byte END = 0;
+
+    private static final byte LITERAL = 1;
+
+    private static final byte WILDCARD = 2;
+
+    private static final byte DOUBLE_STAR = 3;
+
+    /**
+     * The match state of one path. Get the state of a child
+     * path with {@link CompiledPatterns#getChildState(State, String, boolean)}
+     */
+    public static final class State
+    {
+        private final int[] positions;
+
+        private State( int[] positions )
+        {
+            this.positions = positions;
+        }
+    }
+
+    private CompiledPatterns( String[] sources )
+    {
+        List<String> segs = new ArrayList<String>();
+        List<Pattern> regexes = new ArrayList<Pattern>();
+        List<Integer> starts = new ArrayList<Integer>();
+        for ( String source : sources )
+        {
+            if ( SelectorUtils.isRegexPrefixedPattern( source ) )
+            {
+                regexes.add( Pattern.compile( source.substring( SelectorUtils.REGEX_HANDLER_PREFIX.length(),
+                    source.length() - SelectorUtils.PATTERN_HANDLER_SUFFIX.length() ) ) );
+                continue;
+            }
+            if ( SelectorUtils.isAntPrefixedPattern( source ) )
+            {
+                source = source.substring( SelectorUtils.ANT_HANDLER_PREFIX.length(),
+                    source.length() - SelectorUtils.PATTERN_HANDLER_SUFFIX.length() );
+            }
+            starts.add( new Integer( segs.size() ) );
+            String[] tokenized = MatchPattern.tokenizePathToString( source, File.separator );
+            for ( String token : tokenized )
+            {
+                segs.add( token );
+            }
+            segs.add( null );
+        }
+
+        segments = segs.toArray( new String[segs.size()] );
+        segmentChars = new char[segments.length][];
+        kinds = new byte[segments.length];
+        for ( int i = 0; i < segments.length; i++ )
+        {
+            kinds[i] = kindOf( segments[i] );
+            segmentChars[i] = segments[i] == null ? null : segments[i].toCharArray();
+        }
+        regexPatterns = regexes.toArray( new Pattern[regexes.size()] );
+
+        int[] rootPositions = new int[segments.length];
+        boolean[] seen = new boolean[segments.length];
+        int count = 0;
+        for ( Integer start : starts )
+        {
+            count = addClosure( rootPositions, count, seen, start.intValue() );
+        }
+        int[] positions = new int[count];
+        System.arraycopy( rootPositions, 0, positions, 0, count );
+        root = new State( positions );
+    }
+
+    private static byte kindOf( String segment )
+    {
+        if ( segment == null )
+        {
+            return END;
+        }
+        if ( segment.equals( "**" ) ) //$NON-NLS-1$
+        {
+            return DOUBLE_STAR;
+        }
+        if ( segment.indexOf( '*' ) != -1 || segment.indexOf( '?' ) != -1 )
+        {
+            return WILDCARD;
+        }
+        return LITERAL;
+    }
+
+    /**
+     * Get the state of the empty path, which is the starting
+     * point for all other paths.
+     *
+     * @return the state of the empty path
+     */
+    public State getRootState()
+    {
+        return root;
+    }
+
+    /**
+     * Get the state of a path by matching all of its segments.
+     *
+     * @param path            The path, with segments separated by <code>File.separator</code>
+     * @param isCaseSensitive If the comparison is case sensitive
+     * @return the state of the path
+     */
+    public State getState( String path, boolean isCaseSensitive )
+    {
+        State state = root;
+        String[] tokenized = MatchPattern.tokenizePathToString( path, File.separator );
+        for ( int i = 0; i < tokenized.length; i++ )
+        {
+            state = getChildState( state, tokenized[i], isCaseSensitive );
+        }
+        return state;
+    }
+
+    /**
+     * Get the state of a child path from the state of its parent.
+     *
+     * @param parent          The state of the parent path
+     * @param name            The last segment of the child path
+     * @param isCaseSensitive If the comparison is case sensitive
+     * @return the state of the child path
+     */
+    public State getChildState( State parent, String name, boolean isCaseSensitive )
+    {
+        int[] current = parent.positions;
+        if ( current.length == 0 )
+        {
+            return parent;
+        }
+        int[] next = new int[segments.length];
+        boolean[] seen = new boolean[segments.length];
+        int count = 0;
+        char[] nameChars = null;
+        for ( int i = 0; i < current.length; i++ )
+        {
+            int pos = current[i];
+            switch ( kinds[pos] )
+            {
+                case DOUBLE_STAR:
+                    count = addClosure( next, count, seen, pos );
+                    break;
+                case LITERAL:
+                    if ( isCaseSensitive ? segments[pos].equals( name ) : segments[pos].equalsIgnoreCase( name ) )
+                    {
+                        count = addClosure( next, count, seen, pos + 1 );
+                    }
+                    break;
+                case WILDCARD:
+                    if ( nameChars == null )
+                    {
+                        nameChars = name.toCharArray();
+                    }
+                    if ( SelectorUtils.match( segmentChars[pos], nameChars, isCaseSensitive ) )
+                    {
+                        count = addClosure( next, count, seen, pos + 1 );
+                    }
+                    break;
+                default:
+                    // The pattern is exhausted, but the path is not
+                    break;
+            }
+        }
+        if ( count == current.length && containsAll( seen, current ) )
+        {
+            // Typical below a '**', where the name matched nothing further
+            return parent;
+        }
+        int[] positions = new int[count];
+        System.arraycopy( next, 0, positions, 0, count );
+        return new State( positions );
+    }
+
+    /**
+     * Checks whether any of the patterns match a path.
+     *
+     * @param state The state of the path
+     * @param path  The full path, only used by regex patterns
+     * @return true if any of the patterns match
+     */
+    public boolean matches( State state, String path )
+    {
+        int[] positions = state.positions;
+        for ( int i = 0; i < positions.length; i++ )
+        {
+            if ( kinds[positions[i]] == END )
+            {
+                return true;
+            }
+        }
+        for ( int i = 0; i < regexPatterns.length; i++ )
+        {
+            if ( regexPatterns[i].matcher( path ).matches() )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether any of the patterns could match a directory or
+     * its descendants. Regex patterns cannot be matched partially,
+     * so if there are any, a descendant always could match.
+     *
+     * @param state The state of the directory
+     * @return true if the directory or a descendant could match
+     */
+    public boolean matchesPatternStart( State state )
+    {
+        return regexPatterns.length > 0 || state.positions.length > 0;
+    }
+
+    /*
+     * Add a position and every position reachable from it through '**'
+     * segments matching nothing, skipping those already seen.
+     * Returns the new count of positions.
+     */
+    private int addClosure( int[] positions, int count, boolean[] seen, int pos )
+    {
+        while ( true )
+        {
+            if ( !seen[pos] )
+            {
+                seen[pos] = true;
+                positions[count++] = pos;
+            }
+            if ( kinds[pos] != DOUBLE_STAR )
+            {
+                return count;
+            }
+            pos++;
+        }
+    }
+
+    private static boolean containsAll( boolean[] seen, int[] positions )
+    {
+        for ( int i = 0; i < positions.length; i++ )
+        {
+            if ( !seen[positions[i]] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static CompiledPatterns from( String... sources )
+    {
+        return new CompiledPatterns( sources );
+    }
+}
@@ -13,6 +13,10 @@ package org.jboss.ide.eclipse.archives.test;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
+import org.jboss.ide.eclipse.archives.test.build.BuildMetricsTest;
+import org.jboss.ide.eclipse.archives.test.build.IncrementalBuildQueueTest;
+import org.jboss.ide.eclipse.archives.test.build.NestedArchiveBuildTest;
+import org.jboss.ide.eclipse.archives.test.build.ParallelBuildTest;
 import org.jboss.ide.eclipse.archives.test.model.DirectoryScannerModelTest;
 import org.jboss.ide.eclipse.archives.test.model.DirectoryScannerRegexTest;
 import org.jboss.ide.eclipse.archives.test.model.DirectoryScannerTest;
@@ -22,6 +26,7 @@ import org.jboss.ide.eclipse.archives.test.model.ModelTruezipBridgeTest;
 import org.jboss.ide.eclipse.archives.test.model.ModelUtilTest;
 import org.jboss.ide.eclipse.archives.test.model.ReadWriteTest;
 import org.jboss.ide.eclipse.archives.test.model.XBMarshallTest;
+import org.jboss.ide.eclipse.archives.test.model.XBParserParityTest;
 import org.jboss.ide.eclipse.archives.test.model.XBUnmarshallTest;
 import org.jboss.ide.eclipse.archives.test.projects.InnerZipResourceTimestampTest;
 import org.jboss.ide.eclipse.archives.test.projects.JBIDE1406Test;
@@ -32,14 +37,17 @@ import org.jboss.ide.eclipse.archives.test.projects.JBIDE2315Test;
 import org.jboss.ide.eclipse.archives.test.projects.JBIDE2439Test;
 import org.jboss.ide.eclipse.archives.test.ui.BuildActionTest;
 import org.jboss.ide.eclipse.archives.test.util.TruezipUtilTest;
+import org.jboss.ide.eclipse.archives.test.util.ZipEntryPatcherTest;
 
 public class ArchivesTestSuite extends TestSuite {
     public static Test suite() { 
         TestSuite suite = new TestSuite("Archives Tests");
         suite.addTestSuite(XBMarshallTest.class);
         suite.addTestSuite(XBUnmarshallTest.class);
+        suite.addTestSuite(XBParserParityTest.class);
         suite.addTestSuite(ReadWriteTest.class);
         suite.addTestSuite(TruezipUtilTest.class);
+        suite.addTestSuite(ZipEntryPatcherTest.class);
         suite.addTestSuite(ModelUtilTest.class);
         suite.addTestSuite(DirectoryScannerRegexTest.class);
         suite.addTestSuite(DirectoryScannerModelTest.class);
@@ -47,6 +55,10 @@ public class ArchivesTestSuite extends TestSuite {
         suite.addTestSuite(ModelCreationTest.class);
         suite.addTestSuite(ModelTruezipBridgeTest.class);
         suite.addTestSuite(FilesetMatchesPathTest.class);
+        suite.addTestSuite(ParallelBuildTest.class);
+        suite.addTestSuite(IncrementalBuildQueueTest.class);
+        suite.addTestSuite(NestedArchiveBuildTest.class);
+        suite.addTestSuite(BuildMetricsTest.class);
         
         // jiras
         suite.addTestSuite(JBIDE1406Test.class);
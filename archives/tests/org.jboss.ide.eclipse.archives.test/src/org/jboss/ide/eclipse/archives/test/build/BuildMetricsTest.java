@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.archives.test.build;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.jboss.ide.eclipse.archives.core.build.ArchiveBuildDelegate;
+import org.jboss.ide.eclipse.archives.core.model.AbstractBuildListener;
+import org.jboss.ide.eclipse.archives.core.model.ArchiveBuildMetrics;
+import org.jboss.ide.eclipse.archives.core.model.ArchivesModel;
+import org.jboss.ide.eclipse.archives.core.model.IArchive;
+import org.jboss.ide.eclipse.archives.core.model.IArchiveFileSet;
+import org.jboss.ide.eclipse.archives.core.model.IArchiveStandardFileSet;
+import org.jboss.tools.test.util.JobUtils;
+import org.jboss.tools.test.util.ResourcesUtils;
+
+/**
+ * The build metrics reported to an IArchiveBuildListener2 for each
+ * archive and each fileset, by full and incremental builds.
+ */
+public class BuildMetricsTest extends TestCase {
+	private static final String PROJECT = "BuildMetricsTest";
+	private static final String JAR = "metrics.jar";
+	private static final String OTHER_JAR = "other.jar";
+
+	private IProject project;
+	private MetricsListener listener = new MetricsListener();
+
+	private static class MetricsListener extends AbstractBuildListener {
+		private HashMap<String, ArchiveBuildMetrics> archives = new HashMap<String, ArchiveBuildMetrics>();
+		private HashMap<String, ArchiveBuildMetrics> filesets = new HashMap<String, ArchiveBuildMetrics>();
+		private int reports = 0;
+		private boolean wrongNode = false;
+		public synchronized void archiveBuildMetrics(IArchive pkg, ArchiveBuildMetrics metrics) {
+			reports++;
+			wrongNode |= pkg != metrics.getNode();
+			archives.put(pkg.getName(), metrics);
+		}
+		public synchronized void fileSetBuildMetrics(IArchiveFileSet fileset, ArchiveBuildMetrics metrics) {
+			reports++;
+			wrongNode |= fileset != metrics.getNode();
+			filesets.put(((IArchiveStandardFileSet)fileset).getRawSourcePath(), metrics);
+		}
+		public synchronized void clear() {
+			archives.clear();
+			filesets.clear();
+			reports = 0;
+		}
+		/*
+		 * Each node reported once, with its own metrics
+		 */
+		public synchronized void assertReports() {
+			assertFalse(wrongNode);
+			assertEquals(archives.size() + filesets.size(), reports);
+		}
+	}
+
+	protected void setUp() throws Exception {
+		JobUtils.waitForIdle();
+		project = ResourcesPlugin.getWorkspace().getRoot().getProject(PROJECT);
+		project.create(new NullProgressMonitor());
+		project.open(new NullProgressMonitor());
+		createProject(project.getLocation().toFile());
+		project.refreshLocal(IResource.DEPTH_INFINITE, new NullProgressMonitor());
+		ArchivesModel.instance().registerProject(project.getLocation(), new NullProgressMonitor());
+		ArchivesModel.instance().addBuildListener(listener);
+		new ArchiveBuildDelegate().fullProjectBuild(project.getLocation(), new NullProgressMonitor());
+	}
+
+	protected void tearDown() throws Exception {
+		ArchivesModel.instance().removeBuildListener(listener);
+		ArchivesModel.instance().unregisterProject(project.getLocation(), new NullProgressMonitor());
+		ResourcesUtils.deleteProject(PROJECT);
+	}
+
+	public void testFullBuildFilesets() {
+		listener.assertReports();
+		assertEquals(3, listener.filesets.size());
+		assertMetrics(fileset("classes"), 2, 300);
+		assertMetrics(fileset("lib"), 1, 50);
+		assertMetrics(fileset("other"), 1, 10);
+	}
+
+	public void testFullBuildArchives() {
+		// Only the top level archives are reported, each with all of its filesets
+		listener.assertReports();
+		assertEquals(2, listener.archives.size());
+		ArchiveBuildMetrics jar = listener.archives.get(JAR);
+		assertMetrics(jar, 3, 350);
+		assertSumOf(jar, fileset("classes"), fileset("lib"));
+		ArchiveBuildMetrics other = listener.archives.get(OTHER_JAR);
+		assertMetrics(other, 1, 10);
+		assertSumOf(other, fileset("other"));
+	}
+
+	public void testIncrementalBuild() throws IOException {
+		listener.clear();
+		writeFile("lib/C.txt", 70);
+		new ArchiveBuildDelegate().incrementalBuild(null, paths("lib/C.txt"), paths(), true, new NullProgressMonitor());
+
+		// Only the archive written to is reported, and no fileset
+		listener.assertReports();
+		assertEquals(0, listener.filesets.size());
+		assertEquals(1, listener.archives.size());
+		assertMetrics(listener.archives.get(JAR), 1, 70);
+	}
+
+	public void testIncrementalRemove() {
+		listener.clear();
+		new File(project.getLocation().toFile(), "other/D.txt").delete();
+		new ArchiveBuildDelegate().incrementalBuild(null, paths(), paths("other/D.txt"), true, new NullProgressMonitor());
+
+		listener.assertReports();
+		assertEquals(1, listener.archives.size());
+		assertMetrics(listener.archives.get(OTHER_JAR), 0, 0);
+	}
+
+	private ArchiveBuildMetrics fileset(String dir) {
+		ArchiveBuildMetrics metrics = listener.filesets.get("/" + PROJECT + "/" + dir);
+		assertNotNull(dir, metrics);
+		return metrics;
+	}
+
+	private void assertMetrics(ArchiveBuildMetrics metrics, int files, long bytes) {
+		assertNotNull(metrics);
+		assertEquals(metrics.toString(), files, metrics.getFilesMatched());
+		assertEquals(metrics.toString(), bytes, metrics.getSourceBytes());
+		assertTrue(metrics.toString(), metrics.getScanTime() >= 0);
+		assertTrue(metrics.toString(), metrics.getCopyTime() >= 0);
+		assertTrue(metrics.toString(), metrics.getSyncTime() >= 0);
+	}
+
+	/*
+	 * The archive holds at least the times of its filesets, as it may
+	 * also be synced once they are all written.
+	 */
+	private void assertSumOf(ArchiveBuildMetrics archive, ArchiveBuildMetrics... filesets) {
+		int files = 0;
+		long bytes = 0, scan = 0, copy = 0, sync = 0;
+		for( int i = 0; i < filesets.length; i++ ) {
+			files += filesets[i].getFilesMatched();
+			bytes += filesets[i].getSourceBytes();
+			scan += filesets[i].getScanTime();
+			copy += filesets[i].getCopyTime();
+			sync += filesets[i].getSyncTime();
+		}
+		assertEquals(files, archive.getFilesMatched());
+		assertEquals(bytes, archive.getSourceBytes());
+		assertTrue(archive.toString(), archive.getScanTime() >= scan);
+		assertTrue(archive.toString(), archive.getCopyTime() >= copy);
+		assertTrue(archive.toString(), archive.getSyncTime() >= sync);
+	}
+
+	private Set<IPath> paths(String... paths) {
+		Set<IPath> ret = new HashSet<IPath>();
+		for( int i = 0; i < paths.length; i++ )
+			ret.add(project.getFullPath().append(paths[i]));
+		return ret;
+	}
+
+	/*
+	 * A jar holding two files and a nested jar holding one,
+	 * and a second jar holding one file, each file of a known size.
+	 */
+	private void createProject(File root) throws IOException {
+		writeFile("classes/A.txt", 100);
+		writeFile("classes/B.txt", 200);
+		writeFile("lib/C.txt", 50);
+		writeFile("other/D.txt", 10);
+		new File(root, "outputs").mkdirs();
+
+		StringBuffer sb = new StringBuffer();
+		sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n\n<packages>\n");
+		sb.append("   <package name=\"" + JAR + "\" type=\"jar\" todir=\"/" + PROJECT
+				+ "/outputs\" exploded=\"false\" inWorkspace=\"true\">\n");
+		appendFileset(sb, "classes", "      ");
+		sb.append("      <package name=\"inner.jar\" type=\"jar\" exploded=\"false\" inWorkspace=\"true\">\n");
+		appendFileset(sb, "lib", "         ");
+		sb.append("         <properties></properties>\n      </package>\n");
+		sb.append("      <properties></properties>\n   </package>\n");
+		sb.append("   <package name=\"" + OTHER_JAR + "\" type=\"jar\" todir=\"/" + PROJECT
+				+ "/outputs\" exploded=\"false\" inWorkspace=\"true\">\n");
+		appendFileset(sb, "other", "      ");
+		sb.append("      <properties></properties>\n   </package>\n");
+		sb.append("   <properties></properties>\n</packages>\n");
+		FileOutputStream out = new FileOutputStream(new File(root, ".packages"));
+		try {
+			out.write(sb.toString().getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+
+	private void appendFileset(StringBuffer sb, String dir, String indent) {
+		sb.append(indent + "<fileset dir=\"/" + PROJECT + "/" + dir
+				+ "\" includes=\"**\" inWorkspace=\"true\" flatten=\"false\">\n");
+		sb.append(indent + "   <properties></properties>\n" + indent + "</fileset>\n");
+	}
+
+	private void writeFile(String path, int length) throws IOException {
+		File f = new File(project.getLocation().toFile(), path);
+		f.getParentFile().mkdirs();
+		FileOutputStream out = new FileOutputStream(f);
+		try {
+			out.write(new byte[length]);
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.archives.test.build;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.jobs.Job;
+import org.jboss.ide.eclipse.archives.core.build.IncrementalBuildQueue;
+
+/**
+ * Verifies how an {@link IncrementalBuildQueue} merges the changes it
+ * is given, waits for them to stop, and keeps them when a build is canceled.
+ */
+public class IncrementalBuildQueueTest extends TestCase {
+	private static final long TIMEOUT = 10000;
+
+	private static class Build {
+		private Set<IPath> addedChanged;
+		private Set<IPath> removed;
+		private long time;
+	}
+
+	/* Records its builds rather than building */
+	private static class RecordingQueue extends IncrementalBuildQueue {
+		private List<Build> builds = new ArrayList<Build>();
+		private int cancelBuilds;
+		private Runnable duringCanceledBuild;
+
+		protected void build(Set<IPath> addedChanged, Set<IPath> removed, IProgressMonitor monitor) {
+			Build b = new Build();
+			b.addedChanged = new LinkedHashSet<IPath>(addedChanged);
+			b.removed = new LinkedHashSet<IPath>(removed);
+			b.time = System.currentTimeMillis();
+			synchronized(builds) {
+				builds.add(b);
+			}
+			if( cancelBuilds > 0 ) {
+				cancelBuilds--;
+				if( duringCanceledBuild != null )
+					duringCanceledBuild.run();
+				throw new OperationCanceledException();
+			}
+		}
+
+		private Build waitForBuild(int index) throws InterruptedException {
+			long end = System.currentTimeMillis() + TIMEOUT;
+			while( System.currentTimeMillis() < end ) {
+				synchronized(builds) {
+					if( builds.size() > index )
+						return builds.get(index);
+				}
+				Thread.sleep(10);
+			}
+			fail("Build " + index + " did not happen");
+			return null;
+		}
+
+		private int getBuildCount() {
+			synchronized(builds) {
+				return builds.size();
+			}
+		}
+	}
+
+	private RecordingQueue queue = new RecordingQueue();
+
+	protected void tearDown() {
+		queue.cancel();
+	}
+
+	public void testBuildWaitsForQuietWindow() throws Exception {
+		queue.enqueue(paths("/p/a"), paths(), 300);
+		Thread.sleep(100);
+		// The job sleeps while waiting, rather than running
+		assertEquals(Job.SLEEPING, queue.getState());
+		assertEquals(0, queue.getBuildCount());
+		queue.enqueue(paths("/p/b"), paths(), 300);
+		long lastChange = System.currentTimeMillis();
+
+		Build b = queue.waitForBuild(0);
+		assertTrue(b.time - lastChange >= 250);
+		assertEquals(paths("/p/a", "/p/b"), b.addedChanged);
+		assertEquals(paths(), b.removed);
+		Thread.sleep(100);
+		assertEquals(1, queue.getBuildCount());
+		assertFalse(queue.hasPendingChanges());
+	}
+
+	public void testMergeChanges() throws Exception {
+		queue.enqueue(paths("/p/a", "/p/b"), paths("/p/c"), TIMEOUT);
+		// A later remove supersedes an add, and a later add supersedes a remove
+		queue.enqueue(paths("/p/c"), paths("/p/a"), TIMEOUT);
+		assertTrue(queue.hasPendingChanges());
+		assertEquals(0, queue.getBuildCount());
+		queue.enqueue(paths(), paths(), 0);
+
+		Build b = queue.waitForBuild(0);
+		assertEquals(paths("/p/b", "/p/c"), b.addedChanged);
+		assertEquals(paths("/p/a"), b.removed);
+		assertFalse(queue.hasPendingChanges());
+	}
+
+	public void testCanceledBuildRequeued() throws Exception {
+		queue.cancelBuilds = 1;
+		queue.duringCanceledBuild = new Runnable() {
+			public void run() {
+				// Removed while the build was running
+				queue.enqueue(paths(), paths("/p/a"), 0);
+			}
+		};
+		queue.enqueue(paths("/p/a", "/p/b"), paths("/p/c"), 0);
+
+		Build canceled = queue.waitForBuild(0);
+		assertEquals(paths("/p/a", "/p/b"), canceled.addedChanged);
+		Build b = queue.waitForBuild(1);
+		// The changes of the canceled build are kept, unless superseded
+		assertEquals(paths("/p/b"), b.addedChanged);
+		assertEquals(paths("/p/a", "/p/c"), b.removed);
+		assertFalse(queue.hasPendingChanges());
+	}
+
+	private static Set<IPath> paths(String... paths) {
+		Set<IPath> ret = new LinkedHashSet<IPath>();
+		for( int i = 0; i < paths.length; i++ )
+			ret.add(new Path(paths[i]));
+		return ret;
+	}
+}
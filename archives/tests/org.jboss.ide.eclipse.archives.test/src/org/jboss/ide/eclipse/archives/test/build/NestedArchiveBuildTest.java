@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.archives.test.build;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.jboss.ide.eclipse.archives.core.ArchivesCore;
+import org.jboss.ide.eclipse.archives.core.build.ArchiveBuildDelegate;
+import org.jboss.ide.eclipse.archives.core.model.AbstractBuildListener;
+import org.jboss.ide.eclipse.archives.core.model.ArchivesModel;
+import org.jboss.ide.eclipse.archives.core.model.IArchiveNode;
+import org.jboss.ide.eclipse.archives.core.model.other.internal.WorkspacePreferenceManager;
+import org.jboss.tools.test.util.JobUtils;
+import org.jboss.tools.test.util.ResourcesUtils;
+
+/**
+ * Incremental builds of a jar inside a war inside an ear, with the
+ * nested archives patched in place rather than repacked.
+ */
+public class NestedArchiveBuildTest extends TestCase {
+	private static final String PROJECT = "NestedArchiveBuildTest";
+	private static final String EAR = "app.ear";
+	private static final String WAR = "web.war";
+	private static final String JAR = "WEB-INF/lib/lib.jar";
+
+	private IProject project;
+	private ErrorListener listener = new ErrorListener();
+	private byte[] big;
+
+	private static class ErrorListener extends AbstractBuildListener {
+		private ArrayList<IStatus> errors = new ArrayList<IStatus>();
+		public synchronized void error(IArchiveNode node, IStatus[] multi) {
+			for( int i = 0; i < multi.length; i++ )
+				errors.add(multi[i]);
+		}
+	}
+
+	protected void setUp() throws Exception {
+		JobUtils.waitForIdle();
+		InstanceScope.INSTANCE.getNode(ArchivesCore.PLUGIN_ID)
+				.putBoolean(WorkspacePreferenceManager.IN_PLACE_UPDATE_ENABLED, true);
+		project = ResourcesPlugin.getWorkspace().getRoot().getProject(PROJECT);
+		project.create(new NullProgressMonitor());
+		project.open(new NullProgressMonitor());
+		createProject(project.getLocation().toFile());
+		project.refreshLocal(IResource.DEPTH_INFINITE, new NullProgressMonitor());
+		ArchivesModel.instance().registerProject(project.getLocation(), new NullProgressMonitor());
+		ArchivesModel.instance().addBuildListener(listener);
+		new ArchiveBuildDelegate().fullProjectBuild(project.getLocation(), new NullProgressMonitor());
+	}
+
+	protected void tearDown() throws Exception {
+		InstanceScope.INSTANCE.getNode(ArchivesCore.PLUGIN_ID)
+				.remove(WorkspacePreferenceManager.IN_PLACE_UPDATE_ENABLED);
+		ArchivesModel.instance().removeBuildListener(listener);
+		ArchivesModel.instance().unregisterProject(project.getLocation(), new NullProgressMonitor());
+		ResourcesUtils.deleteProject(PROJECT);
+	}
+
+	public void testFullBuild() throws IOException {
+		TreeMap<String, String> jar = readJar();
+		assertEquals("a", jar.get("pkg/A.txt"));
+		assertEquals("b", jar.get("pkg/B.txt"));
+		assertEquals(0, listener.errors.size());
+	}
+
+	public void testChangeAndAddInInnerJar() throws IOException {
+		writeFile("lib/pkg/A.txt", "a, changed");
+		writeFile("lib/pkg/C.txt", "c");
+		build(paths("lib/pkg/A.txt", "lib/pkg/C.txt"), paths());
+
+		TreeMap<String, String> jar = readJar();
+		assertEquals(3, jar.size());
+		assertEquals("a, changed", jar.get("pkg/A.txt"));
+		assertEquals("b", jar.get("pkg/B.txt"));
+		assertEquals("c", jar.get("pkg/C.txt"));
+		assertUnchangedOuterEntries();
+		// The ear was patched, leaving the replaced war behind its new copy
+		assertEquals(2, countLocalEntries(getEar(), WAR));
+	}
+
+	public void testRemoveFromInnerJar() throws IOException {
+		new File(project.getLocation().toFile(), "lib/pkg/B.txt").delete();
+		build(paths(), paths("lib/pkg/B.txt"));
+
+		TreeMap<String, String> jar = readJar();
+		assertEquals(1, jar.size());
+		assertEquals("a", jar.get("pkg/A.txt"));
+		assertUnchangedOuterEntries();
+	}
+
+	public void testRepeatedChanges() throws IOException {
+		for( int i = 0; i < 5; i++ ) {
+			writeFile("lib/pkg/A.txt", "a" + i);
+			build(paths("lib/pkg/A.txt"), paths());
+			assertEquals("a" + i, readJar().get("pkg/A.txt"));
+		}
+		assertUnchangedOuterEntries();
+	}
+
+	private void build(Set<IPath> addedChanged, Set<IPath> removed) {
+		new ArchiveBuildDelegate().incrementalBuild(null, addedChanged, removed, true, new NullProgressMonitor());
+		assertEquals(0, listener.errors.size());
+	}
+
+	private void assertUnchangedOuterEntries() throws IOException {
+		TreeMap<String, byte[]> ear = readEntries(getEar());
+		assertEquals("<application/>", new String(ear.get("META-INF/application.xml"), "UTF-8"));
+		assertTrue(Arrays.equals(big, ear.get("big.bin")));
+		TreeMap<String, byte[]> war = readEntries(extract(getEar(), WAR));
+		assertEquals("<html/>", new String(war.get("index.html"), "UTF-8"));
+	}
+
+	/*
+	 * The files of the jar in the war in the ear
+	 */
+	private TreeMap<String, String> readJar() throws IOException {
+		File war = extract(getEar(), WAR);
+		TreeMap<String, byte[]> entries = readEntries(extract(war, JAR));
+		TreeMap<String, String> ret = new TreeMap<String, String>();
+		while( !entries.isEmpty()) {
+			String name = entries.firstKey();
+			ret.put(name, new String(entries.remove(name), "UTF-8"));
+		}
+		return ret;
+	}
+
+	private File getEar() {
+		return project.getLocation().append("outputs").append(EAR).toFile();
+	}
+
+	/*
+	 * The number of local entries of the given name, as seen by a streaming reader
+	 */
+	private int countLocalEntries(File zip, String name) throws IOException {
+		int count = 0;
+		ZipInputStream in = new ZipInputStream(new FileInputStream(zip));
+		try {
+			ZipEntry e = in.getNextEntry();
+			while( e != null ) {
+				if( e.getName().equals(name))
+					count++;
+				e = in.getNextEntry();
+			}
+		} finally {
+			in.close();
+		}
+		return count;
+	}
+
+	private File extract(File zip, String name) throws IOException {
+		ZipFile zf = new ZipFile(zip);
+		try {
+			ZipEntry e = zf.getEntry(name);
+			assertNotNull(name, e);
+			File f = File.createTempFile("nested", ".zip");
+			f.deleteOnExit();
+			FileOutputStream out = new FileOutputStream(f);
+			try {
+				out.write(read(zf.getInputStream(e)));
+			} finally {
+				out.close();
+			}
+			return f;
+		} finally {
+			zf.close();
+		}
+	}
+
+	private TreeMap<String, byte[]> readEntries(File zip) throws IOException {
+		TreeMap<String, byte[]> ret = new TreeMap<String, byte[]>();
+		ZipFile zf = new ZipFile(zip);
+		try {
+			Enumeration<? extends ZipEntry> en = zf.entries();
+			while( en.hasMoreElements()) {
+				ZipEntry e = en.nextElement();
+				if( !e.isDirectory())
+					ret.put(e.getName(), read(zf.getInputStream(e)));
+			}
+		} finally {
+			zf.close();
+		}
+		return ret;
+	}
+
+	private byte[] read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			byte[] buf = new byte[8192];
+			int n;
+			while( (n = in.read(buf)) != -1 )
+				out.write(buf, 0, n);
+		} finally {
+			in.close();
+		}
+		return out.toByteArray();
+	}
+
+	private Set<IPath> paths(String... paths) {
+		Set<IPath> ret = new HashSet<IPath>();
+		for( int i = 0; i < paths.length; i++ )
+			ret.add(project.getFullPath().append(paths[i]));
+		return ret;
+	}
+
+	/*
+	 * An ear holding a war holding a jar, each packed, and each
+	 * with its own source folder. The ear also holds a large file,
+	 * so that replacing the war does not cause it to be compacted.
+	 */
+	private void createProject(File root) throws IOException {
+		big = new byte[64 * 1024];
+		new Random(1).nextBytes(big);
+		writeFile("app/META-INF/application.xml", "<application/>");
+		FileOutputStream bigOut = new FileOutputStream(new File(root, "app/big.bin"));
+		try {
+			bigOut.write(big);
+		} finally {
+			bigOut.close();
+		}
+		writeFile("web/index.html", "<html/>");
+		writeFile("lib/pkg/A.txt", "a");
+		writeFile("lib/pkg/B.txt", "b");
+		new File(root, "outputs").mkdirs();
+
+		StringBuffer sb = new StringBuffer();
+		sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n\n<packages>\n");
+		sb.append("   <package name=\"" + EAR + "\" type=\"jar\" todir=\"/" + PROJECT
+				+ "/outputs\" exploded=\"false\" inWorkspace=\"true\">\n");
+		appendFileset(sb, "app", "      ");
+		sb.append("      <package name=\"" + WAR + "\" type=\"jar\" exploded=\"false\" inWorkspace=\"true\">\n");
+		appendFileset(sb, "web", "         ");
+		sb.append("         <folder name=\"WEB-INF\">\n            <folder name=\"lib\">\n");
+		sb.append("               <package name=\"lib.jar\" type=\"jar\" exploded=\"false\" inWorkspace=\"true\">\n");
+		appendFileset(sb, "lib", "                  ");
+		sb.append("                  <properties></properties>\n               </package>\n");
+		sb.append("               <properties></properties>\n            </folder>\n");
+		sb.append("            <properties></properties>\n         </folder>\n");
+		sb.append("         <properties></properties>\n      </package>\n");
+		sb.append("      <properties></properties>\n   </package>\n");
+		sb.append("   <properties></properties>\n</packages>\n");
+		writeFile(".packages", sb.toString());
+	}
+
+	private void appendFileset(StringBuffer sb, String dir, String indent) {
+		sb.append(indent + "<fileset dir=\"/" + PROJECT + "/" + dir
+				+ "\" includes=\"**\" inWorkspace=\"true\" flatten=\"false\">\n");
+		sb.append(indent + "   <properties></properties>\n" + indent + "</fileset>\n");
+	}
+
+	private void writeFile(String path, String contents) throws IOException {
+		File f = new File(project.getLocation().toFile(), path);
+		f.getParentFile().mkdirs();
+		FileOutputStream out = new FileOutputStream(f);
+		try {
+			out.write(contents.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.archives.test.build;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.jboss.ide.eclipse.archives.core.build.ArchiveBuildDelegate;
+import org.jboss.ide.eclipse.archives.core.model.AbstractBuildListener;
+import org.jboss.ide.eclipse.archives.core.model.ArchivesModel;
+import org.jboss.ide.eclipse.archives.core.model.IArchive;
+import org.jboss.ide.eclipse.archives.core.model.IArchiveNode;
+import org.jboss.tools.test.util.JobUtils;
+import org.jboss.tools.test.util.ResourcesUtils;
+
+/**
+ * Builds a project whose archives are built in parallel, one of which
+ * packages the output of another.
+ */
+public class ParallelBuildTest extends TestCase {
+	private static final String PROJECT = "ParallelBuildTest";
+	private static final int LIBS = 4;
+	private static final String ALL = "all.jar";
+
+	private IProject project;
+	private OrderListener listener = new OrderListener();
+
+	private static class OrderListener extends AbstractBuildListener {
+		private ArrayList<String> events = new ArrayList<String>();
+		private ArrayList<IStatus> errors = new ArrayList<IStatus>();
+		private NullProgressMonitor cancelOnFinish;
+
+		public synchronized void startedBuildingArchive(IArchive pkg) {
+			events.add("start " + pkg.getName());
+		}
+		public synchronized void finishedBuildingArchive(IArchive pkg) {
+			events.add("finish " + pkg.getName());
+			if( cancelOnFinish != null )
+				cancelOnFinish.setCanceled(true);
+		}
+		public synchronized void error(IArchiveNode node, IStatus[] multi) {
+			for( int i = 0; i < multi.length; i++ )
+				errors.add(multi[i]);
+		}
+		public synchronized List<String> getEvents() {
+			return new ArrayList<String>(events);
+		}
+	}
+
+	protected void setUp() throws Exception {
+		JobUtils.waitForIdle();
+		project = ResourcesPlugin.getWorkspace().getRoot().getProject(PROJECT);
+		project.create(new NullProgressMonitor());
+		project.open(new NullProgressMonitor());
+		createProject(project.getLocation().toFile());
+		project.refreshLocal(IResource.DEPTH_INFINITE, new NullProgressMonitor());
+		ArchivesModel.instance().registerProject(project.getLocation(), new NullProgressMonitor());
+		ArchivesModel.instance().addBuildListener(listener);
+	}
+
+	protected void tearDown() throws Exception {
+		ArchivesModel.instance().removeBuildListener(listener);
+		ArchivesModel.instance().unregisterProject(project.getLocation(), new NullProgressMonitor());
+		ResourcesUtils.deleteProject(PROJECT);
+	}
+
+	public void testReferencingArchiveBuiltLast() {
+		ArchiveBuildDelegate delegate = new ArchiveBuildDelegate();
+		delegate.setParallelism(3);
+		IStatus result = delegate.fullProjectBuild(project.getLocation(), new NullProgressMonitor());
+
+		assertTrue(result.isOK());
+		assertEquals(0, listener.errors.size());
+		List<String> events = listener.getEvents();
+		// Each archive is built once, even when referenced
+		assertEquals(2 * (LIBS + 1), events.size());
+		for( int i = 0; i < LIBS; i++ ) {
+			assertTrue(events.contains("start " + getLibName(i)));
+			assertTrue(getOutput(getLibName(i)).isFile());
+		}
+		assertTrue(events.indexOf("finish " + getLibName(0)) < events.indexOf("start " + ALL));
+		assertTrue(getOutput(ALL).isFile());
+	}
+
+	public void testCancelStopsLaterArchives() {
+		ArchiveBuildDelegate delegate = new ArchiveBuildDelegate();
+		delegate.setParallelism(2);
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		listener.cancelOnFinish = monitor;
+		try {
+			delegate.fullProjectBuild(project.getLocation(), monitor);
+			fail("The build was not canceled");
+		} catch(OperationCanceledException oce) {
+			// expected
+		}
+		// The referencing archive is only started once its level is reached
+		assertFalse(listener.getEvents().contains("start " + ALL));
+	}
+
+	/*
+	 * Several libraries, and one archive packaging the first of them
+	 */
+	private void createProject(File root) throws IOException {
+		StringBuffer sb = new StringBuffer();
+		sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n\n<packages>\n");
+		for( int i = 0; i < LIBS; i++ ) {
+			appendArchive(sb, getLibName(i), "/" + PROJECT + "/outputs/libs", "/" + PROJECT + "/src" + i, "**");
+			for( int j = 0; j < 10; j++ )
+				writeFile(new File(root, "src" + i + "/pkg/File" + j + ".txt"));
+		}
+		appendArchive(sb, ALL, "/" + PROJECT + "/outputs", "/" + PROJECT + "/outputs/libs", getLibName(0));
+		sb.append("   <properties></properties>\n</packages>\n");
+		new File(root, "outputs/libs").mkdirs();
+		FileOutputStream out = new FileOutputStream(new File(root, ".packages"));
+		try {
+			out.write(sb.toString().getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+
+	private void appendArchive(StringBuffer sb, String name, String todir, String dir, String includes) {
+		sb.append("   <package name=\"" + name + "\" type=\"jar\" todir=\"" + todir
+				+ "\" exploded=\"false\" inWorkspace=\"true\">\n");
+		sb.append("      <fileset dir=\"" + dir + "\" includes=\"" + includes
+				+ "\" inWorkspace=\"true\" flatten=\"false\">\n");
+		sb.append("         <properties></properties>\n      </fileset>\n");
+		sb.append("      <properties></properties>\n   </package>\n");
+	}
+
+	private String getLibName(int i) {
+		return "lib" + i + ".jar";
+	}
+
+	private File getOutput(String name) {
+		File outputs = project.getLocation().append("outputs").toFile();
+		return name.equals(ALL) ? new File(outputs, name) : new File(new File(outputs, "libs"), name);
+	}
+
+	private void writeFile(File f) throws IOException {
+		f.getParentFile().mkdirs();
+		FileOutputStream out = new FileOutputStream(f);
+		try {
+			out.write(f.getName().getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+}
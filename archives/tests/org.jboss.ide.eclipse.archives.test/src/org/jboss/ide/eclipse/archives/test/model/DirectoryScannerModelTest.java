@@ -10,6 +10,10 @@
  ******************************************************************************/
 package org.jboss.ide.eclipse.archives.test.model;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+
 import junit.framework.TestCase;
 
 import org.jboss.tools.archives.scanner.ITreeNode;
@@ -90,4 +94,78 @@ public class DirectoryScannerModelTest extends TestCase {
 		assertNotNull(results);
 		assertEquals(results.length, 2);
 	}
+	
+	/*
+	 * Exposes the per-path pattern matching, to check
+	 * the results of the scan against
+	 */
+	private class CustomScanner2 extends CustomScanner1 {
+		public boolean matches(String path) {
+			return isIncluded(path) && !isExcluded(path);
+		}
+	}
+	
+	/*
+	 * A tree with 10 folders at each of 4 levels,
+	 * each of the last holding 10 files; 100,000 files in all
+	 */
+	private TreeNode createLargeModel(String path, String name, int depth) {
+		TreeNode node = new TreeNode(path, name);
+		String childPath = path + "/" + name;
+		TreeNode[] children = new TreeNode[10];
+		for( int i = 0; i < children.length; i++ ) {
+			if( depth == 4 ) {
+				String suffix = i % 3 == 0 ? ".java" : i % 3 == 1 ? ".class" : ".txt";
+				children[i] = new TreeNode(childPath, "File" + i + suffix);
+			} else {
+				String childName = i == 0 ? "src" : i == 1 ? "CVS" : "dir" + i;
+				children[i] = createLargeModel(childPath, childName, depth + 1);
+			}
+		}
+		node.setChildren(children);
+		return node;
+	}
+	
+	private void collectFiles(TreeNode node, String path, ArrayList<String> files) {
+		ITreeNode[] children = node.listChildren();
+		for( int i = 0; i < children.length; i++ ) {
+			String childPath = path + children[i].getName();
+			if( children[i].isLeaf())
+				files.add(childPath);
+			else
+				collectFiles((TreeNode)children[i], childPath + File.separator, files);
+		}
+	}
+	
+	private void testLargeModel(TreeNode root, ArrayList<String> allFiles, String[] includes, String[] excludes) {
+		CustomScanner2 scanner = new CustomScanner2();
+		scanner.setBasedir(root);
+		scanner.setIncludes(includes);
+		scanner.setExcludes(excludes);
+		scanner.addDefaultExcludes();
+		scanner.scan();
+		String[] results = scanner.getIncludedFiles();
+		
+		ArrayList<String> expected = new ArrayList<String>();
+		for( String f : allFiles ) {
+			if( scanner.matches(f))
+				expected.add(f);
+		}
+		String[] expected2 = expected.toArray(new String[expected.size()]);
+		Arrays.sort(expected2);
+		assertTrue(expected2.length > 0);
+		assertTrue(Arrays.equals(expected2, results));
+	}
+	
+	public void testScannerLargeModel() {
+		TreeNode root = createLargeModel("", "root", 0);
+		ArrayList<String> allFiles = new ArrayList<String>();
+		collectFiles(root, "", allFiles);
+		assertEquals(100000, allFiles.size());
+		
+		testLargeModel(root, allFiles, new String[]{"**/*.java"}, null);
+		testLargeModel(root, allFiles, new String[]{"**/src/**/*.class", "dir2/**"}, new String[]{"**/dir3/**"});
+		testLargeModel(root, allFiles, new String[]{"dir?/src/*/dir9/File?.*"}, new String[]{"**/*.txt"});
+		testLargeModel(root, allFiles, new String[]{"%regex[.*File1.*]"}, new String[]{"src/**"});
+	}
 }
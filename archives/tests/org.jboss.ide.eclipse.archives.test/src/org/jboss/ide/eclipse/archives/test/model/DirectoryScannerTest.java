@@ -10,6 +10,11 @@
  ******************************************************************************/
 package org.jboss.ide.eclipse.archives.test.model;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
@@ -104,4 +109,52 @@ public class DirectoryScannerTest extends TestCase {
 		FileWrapper[] results2 = scanner2.getMatchedArray();
 		assertTrue(results2 != null && results2.length == 1);
 	}
+
+	public void testScanResultsRoundTrip() throws IOException {
+		// Folders modified just before a scan cannot be trusted, so age them
+		long old = System.currentTimeMillis() - 60000;
+		setFoldersModified(proj.getLocation().toFile(), old);
+
+		DirectoryScannerExtension scanner1 = 
+			DirectoryScannerFactory.createDirectoryScanner(
+					proj.getLocation().toOSString(), null, 
+					"**", "**/bin/**", null, 
+					false, 1.2, true);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		scanner1.writeResults(new DataOutputStream(bytes));
+
+		DirectoryScannerExtension scanner2 = 
+			DirectoryScannerFactory.createDirectoryScanner(
+					proj.getLocation().toOSString(), null, 
+					"**", "**/bin/**", null, 
+					false, 1.2, false);
+		assertTrue(scanner2.readResults(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+		FileWrapper[] results = scanner1.getMatchedArray();
+		FileWrapper[] restored = scanner2.getMatchedArray();
+		assertEquals(results.length, restored.length);
+		for( int i = 0; i < results.length; i++ ) {
+			assertEquals(results[i].getAbsolutePath(), restored[i].getAbsolutePath());
+			assertEquals(results[i].getRootArchiveRelative(), restored[i].getRootArchiveRelative());
+		}
+		assertTrue(scanner2.couldBeIncluded(results[0].getAbsolutePath(), false));
+
+		// A modified folder invalidates the results
+		proj.getLocation().append("Resources").toFile().setLastModified(System.currentTimeMillis());
+		DirectoryScannerExtension scanner3 = 
+			DirectoryScannerFactory.createDirectoryScanner(
+					proj.getLocation().toOSString(), null, 
+					"**", "**/bin/**", null, 
+					false, 1.2, false);
+		assertFalse(scanner3.readResults(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+		assertEquals(0, scanner3.getMatchedArray().length);
+	}
+
+	private void setFoldersModified(File folder, long time) {
+		File[] children = folder.listFiles();
+		for( int i = 0; children != null && i < children.length; i++ ) {
+			if( children[i].isDirectory())
+				setFoldersModified(children[i], time);
+		}
+		folder.setLastModified(time);
+	}
 }
@@ -17,8 +17,10 @@ import junit.framework.TestCase;
 
 import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.jboss.ide.eclipse.archives.core.ArchivesCore;
+import org.jboss.ide.eclipse.archives.core.model.ArchivesModel;
 import org.jboss.ide.eclipse.archives.core.model.ArchivesModelException;
 import org.jboss.ide.eclipse.archives.core.model.IArchive;
 import org.jboss.ide.eclipse.archives.core.model.IArchiveFileSet;
@@ -27,7 +29,9 @@ import org.jboss.ide.eclipse.archives.core.model.IArchiveFolder;
 import org.jboss.ide.eclipse.archives.core.model.IArchiveNode;
 import org.jboss.ide.eclipse.archives.core.model.IArchiveNodeFactory;
 import org.jboss.ide.eclipse.archives.core.model.DirectoryScannerFactory.DirectoryScannerExtension.FileWrapper;
+import org.jboss.ide.eclipse.archives.core.model.internal.ArchiveModelNode;
 import org.jboss.ide.eclipse.archives.core.model.internal.ArchiveNodeImpl;
+import org.jboss.ide.eclipse.archives.core.model.internal.xb.XbPackages;
 import org.jboss.ide.eclipse.archives.core.util.ModelUtil;
 import org.jboss.ide.eclipse.archives.test.ArchivesTest;
 import org.osgi.framework.Bundle;
@@ -142,6 +146,35 @@ public class ModelUtilTest extends TestCase {
 		
 	}
 	
+	public void testGetMatchingFileSetsRegistered() throws ArchivesModelException {
+		IPath misc = inputs.append("fileTrees").append("misc");
+		IPath xml = misc.append("rug.xml");
+		IPath project = new Path("test").append("modelUtilProject");
+		ArchiveModelNode modelNode = new ArchiveModelNode(project, new XbPackages(), ArchivesModel.instance());
+		modelNode.addChild(rootArchive);
+		ArchivesModel.instance().registerProject(modelNode, new NullProgressMonitor());
+		try {
+			assertEquals(2, ModelUtil.getMatchingFilesets(rootArchive, xml).length);
+			assertEquals(0, ModelUtil.getMatchingFilesets(rootArchive, inputs.append("rug.xml")).length);
+			
+			// a fileset based further up must be found once the model changes
+			IArchiveStandardFileSet treesFS = getFactory().createFileset();
+			treesFS.setInWorkspace(false);
+			treesFS.setRawSourcePath(inputs.append("fileTrees").toString());
+			treesFS.setIncludesPattern("**/*.xml");
+			rootArchive.addChild(treesFS);
+			IArchiveFileSet[] xmlFS = ModelUtil.getMatchingFilesets(rootArchive, xml);
+			assertEquals(3, xmlFS.length);
+			assertEquals(treesFS, xmlFS[2]);
+			
+			// and found no longer when its base moves away
+			treesFS.setRawSourcePath(inputs.append("fileTrees").append("other").toString());
+			assertEquals(2, ModelUtil.getMatchingFilesets(rootArchive, xml).length);
+		} finally {
+			ArchivesModel.instance().unregisterProject(modelNode, new NullProgressMonitor());
+		}
+	}
+	
 	public void testOtherFilesetMatchesPath() throws ArchivesModelException {
 		IPath xml = inputs.append("fileTrees").append("misc").append("rug.xml");
 		IArchiveFileSet[] xmlFS = ModelUtil.getMatchingFilesets(rootArchive, xml);
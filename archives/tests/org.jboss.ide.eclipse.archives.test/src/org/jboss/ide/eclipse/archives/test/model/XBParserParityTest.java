@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.archives.test.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.jboss.ide.eclipse.archives.core.model.internal.xb.XMLBinding;
+import org.jboss.ide.eclipse.archives.core.model.internal.xb.XMLBinding.XbException;
+import org.jboss.ide.eclipse.archives.core.model.internal.xb.XbFileSet;
+import org.jboss.ide.eclipse.archives.core.model.internal.xb.XbFolder;
+import org.jboss.ide.eclipse.archives.core.model.internal.xb.XbLibFileSet;
+import org.jboss.ide.eclipse.archives.core.model.internal.xb.XbPackage;
+import org.jboss.ide.eclipse.archives.core.model.internal.xb.XbPackageNodeWithProperties;
+import org.jboss.ide.eclipse.archives.core.model.internal.xb.XbPackages;
+import org.jboss.ide.eclipse.archives.test.ArchivesTest;
+import org.jboss.tools.foundation.core.xml.IMemento;
+import org.jboss.tools.foundation.core.xml.XMLMemento;
+
+/**
+ * Descriptors used to be read into an XMLMemento before being unmarshalled.
+ * They are now read with SAX. Verifies that for every descriptor in the
+ * test inputs, the unmarshalled model holds what the memento holds, and
+ * that a descriptor is rejected only when the memento breaks a rule of
+ * the schema.
+ */
+public class XBParserParityTest extends TestCase {
+	private IPath inputs;
+
+	protected void setUp() throws IOException {
+		URL bundleURL = FileLocator.toFileURL(ArchivesTest.getDefault().getBundle().getEntry(""));
+		inputs = new Path(bundleURL.getFile()).append("inputs");
+	}
+
+	public void testDescriptors() throws Exception {
+		File[] descriptors = inputs.append("archiveDescriptors").toFile().listFiles();
+		int count = 0;
+		for( int i = 0; i < descriptors.length; i++ ) {
+			if( descriptors[i].getName().endsWith(".xml")) {
+				assertParity(descriptors[i]);
+				count++;
+			}
+		}
+		assertTrue(count > 0);
+	}
+
+	public void testValidationDescriptors() throws Exception {
+		File[] descriptors = inputs.append("archiveDescriptors").append("validation").toFile().listFiles();
+		int failures = 0;
+		for( int i = 0; i < descriptors.length; i++ ) {
+			if( descriptors[i].getName().endsWith(".xml") && !assertParity(descriptors[i]))
+				failures++;
+		}
+		// Both readers must have seen the broken descriptors
+		assertTrue(failures > 0);
+	}
+
+	public void testProjectDescriptors() throws Exception {
+		File[] projects = inputs.append("projects").toFile().listFiles();
+		int count = 0;
+		for( int i = 0; i < projects.length; i++ ) {
+			File packages = new File(projects[i], ".packages");
+			if( packages.isFile()) {
+				assertTrue(packages.getPath(), assertParity(packages));
+				count++;
+			}
+		}
+		assertTrue(count > 0);
+	}
+
+	public void testMalformedDescriptor() throws Exception {
+		String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<packages><package name=\"a.jar\"></packages>";
+		assertNull(readMemento(new ByteArrayInputStream(xml.getBytes("UTF-8"))));
+		try {
+			XMLBinding.unmarshal(new ByteArrayInputStream(xml.getBytes("UTF-8")), new NullProgressMonitor());
+			fail("A malformed descriptor was unmarshalled");
+		} catch( XbException xbe ) {
+			// expected
+		}
+	}
+
+	/*
+	 * Unmarshal the file, and compare it to its memento.
+	 * @return whether the file was unmarshalled
+	 */
+	private boolean assertParity(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		IMemento memento;
+		try {
+			memento = readMemento(in);
+		} finally {
+			in.close();
+		}
+		XbPackages packs = null;
+		try {
+			packs = XMLBinding.unmarshal(file, new NullProgressMonitor());
+		} catch( XbException xbe ) {
+			assertTrue(file.getName() + " was rejected, but its memento is valid",
+					memento == null || !isValid(memento));
+			return false;
+		}
+		assertNotNull(file.getName() + " was unmarshalled, but its memento could not be read", memento);
+		assertTrue(file.getName() + " was unmarshalled, but its memento is not valid", isValid(memento));
+		assertNode(file.getName(), memento, packs);
+		return true;
+	}
+
+	private IMemento readMemento(InputStream in) {
+		try {
+			return XMLMemento.createReadRoot(in);
+		} catch( RuntimeException re ) {
+			return null;
+		}
+	}
+
+	/*
+	 * Compare the children of a model node with the elements of its memento
+	 */
+	private void assertNode(String file, IMemento memento, XbPackageNodeWithProperties node) {
+		IMemento[] packages = memento.getChildren("package");
+		List<?> xbPackages = node.getChildren(XbPackage.class);
+		assertEquals(file, packages.length, size(xbPackages));
+		for( int i = 0; i < packages.length; i++ ) {
+			XbPackage pack = (XbPackage)xbPackages.get(i);
+			assertEquals(file, packages[i].getString("name"), pack.getName());
+			assertEquals(file, packages[i].getString("type"), pack.getPackageType());
+			assertEquals(file, packages[i].getString("todir"), pack.getToDir());
+			assertEquals(file, packages[i].getString("id"), pack.getId());
+			assertEquals(file, getBoolean(packages[i], "exploded", false), pack.isExploded());
+			assertEquals(file, getBoolean(packages[i], "inWorkspace", true), pack.isInWorkspace());
+			assertNode(file, packages[i], pack);
+		}
+
+		IMemento[] folders = memento.getChildren("folder");
+		List<?> xbFolders = node.getChildren(XbFolder.class);
+		assertEquals(file, folders.length, size(xbFolders));
+		for( int i = 0; i < folders.length; i++ ) {
+			XbFolder folder = (XbFolder)xbFolders.get(i);
+			assertEquals(file, folders[i].getString("name"), folder.getName());
+			assertNode(file, folders[i], folder);
+		}
+
+		IMemento[] filesets = memento.getChildren("fileset");
+		List<?> xbFilesets = node.getChildren(XbFileSet.class);
+		assertEquals(file, filesets.length, size(xbFilesets));
+		for( int i = 0; i < filesets.length; i++ ) {
+			XbFileSet fs = (XbFileSet)xbFilesets.get(i);
+			assertEquals(file, filesets[i].getString("dir"), fs.getDir());
+			assertEquals(file, filesets[i].getString("includes"), fs.getIncludes());
+			String excludes = filesets[i].getString("excludes");
+			if( excludes != null && excludes.length() > 0 )
+				assertEquals(file, excludes, fs.getExcludes());
+			assertEquals(file, getBoolean(filesets[i], "inWorkspace", true), fs.isInWorkspace());
+		}
+
+		IMemento[] libFilesets = memento.getChildren("lib-fileset");
+		List<?> xbLibFilesets = node.getChildren(XbLibFileSet.class);
+		assertEquals(file, libFilesets.length, size(xbLibFilesets));
+		for( int i = 0; i < libFilesets.length; i++ ) {
+			assertEquals(file, libFilesets[i].getString("name"), ((XbLibFileSet)xbLibFilesets.get(i)).getId());
+		}
+
+		IMemento[] properties = memento.getChildren("properties");
+		if( properties.length == 1 ) {
+			IMemento[] props = properties[0].getChildren("property");
+			assertNotNull(file, node.getProperties());
+			assertEquals(file, props.length, node.getProperties().getProperties().size());
+			for( int i = 0; i < props.length; i++ ) {
+				assertEquals(file, props[i].getString("value"),
+						node.getProperties().getProperties().getProperty(props[i].getString("name")));
+			}
+		}
+	}
+
+	/*
+	 * The rules of the schema, as read from the memento
+	 */
+	private boolean isValid(IMemento memento) {
+		List<IMemento> nodes = new ArrayList<IMemento>();
+		collect(memento, nodes);
+		for( int i = 0; i < nodes.size(); i++ ) {
+			IMemento next = nodes.get(i);
+			IMemento[] packages = next.getChildren("package");
+			for( int j = 0; j < packages.length; j++ )
+				if( packages[j].getString("name") == null )
+					return false;
+			IMemento[] folders = next.getChildren("folder");
+			for( int j = 0; j < folders.length; j++ )
+				if( folders[j].getString("name") == null )
+					return false;
+			IMemento[] filesets = next.getChildren("fileset");
+			for( int j = 0; j < filesets.length; j++ )
+				if( filesets[j].getString("dir") == null || filesets[j].getString("includes") == null )
+					return false;
+			IMemento[] properties = next.getChildren("properties");
+			if( properties.length == 1 ) {
+				String[] names = ((XMLMemento)properties[0]).getChildNames();
+				for( int j = 0; j < names.length; j++ )
+					if( !names[j].equals("property"))
+						return false;
+				IMemento[] props = properties[0].getChildren("property");
+				for( int j = 0; j < props.length; j++ ) {
+					if( props[j].getString("name") == null || props[j].getString("value") == null
+							|| props[j].getNames().size() > 2 )
+						return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * The memento and every package or folder below it
+	 */
+	private void collect(IMemento memento, List<IMemento> nodes) {
+		nodes.add(memento);
+		IMemento[] packages = memento.getChildren("package");
+		for( int i = 0; i < packages.length; i++ )
+			collect(packages[i], nodes);
+		IMemento[] folders = memento.getChildren("folder");
+		for( int i = 0; i < folders.length; i++ )
+			collect(folders[i], nodes);
+	}
+
+	private boolean getBoolean(IMemento memento, String key, boolean defaultValue) {
+		String val = memento.getString(key);
+		if( "true".equalsIgnoreCase(val) || "false".equalsIgnoreCase(val))
+			return Boolean.parseBoolean(val);
+		return defaultValue;
+	}
+
+	private int size(List<?> list) {
+		return list == null ? 0 : list.size();
+	}
+}
@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.archives.test.perf;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.jboss.ide.eclipse.archives.core.ArchivesCore;
+import org.jboss.ide.eclipse.archives.core.build.ArchiveBuildDelegate;
+import org.jboss.ide.eclipse.archives.core.model.AbstractBuildListener;
+import org.jboss.ide.eclipse.archives.core.model.ArchiveBuildMetrics;
+import org.jboss.ide.eclipse.archives.core.model.ArchivesModel;
+import org.jboss.ide.eclipse.archives.core.model.IArchive;
+import org.jboss.ide.eclipse.archives.core.model.IArchiveFileSet;
+import org.jboss.ide.eclipse.archives.core.model.IArchiveNode;
+import org.jboss.ide.eclipse.archives.core.model.other.internal.WorkspacePreferenceManager;
+import org.jboss.tools.test.util.JobUtils;
+import org.jboss.tools.test.util.ResourcesUtils;
+
+/**
+ * Builds a synthetic project repeatedly and logs where the time
+ * of each build went, so that regressions in the build can be caught.
+ * Besides the archives, the project has an ear holding a war holding
+ * a jar, to measure incremental builds of nested archives with and
+ * without in-place updates.
+ * It is not part of the {@link org.jboss.ide.eclipse.archives.test.ArchivesTestSuite},
+ * and is run on its own.
+ *
+ * The size of the project can be set with system properties:
+ * <ul>
+ * <li>archives.benchmark.archives - the number of archives, besides the ear</li>
+ * <li>archives.benchmark.files - the number of files in each archive</li>
+ * <li>archives.benchmark.size - the size of each file, in bytes</li>
+ * <li>archives.benchmark.iterations - the number of builds measured</li>
+ * <li>archives.benchmark.parallelism - the archives built at once</li>
+ * </ul>
+ */
+public class ArchiveBuildBenchmark extends TestCase {
+	private static final String PROJECT = "ArchiveBuildBenchmark";
+	private static final int FILES_PER_FOLDER = 50;
+
+	private int archives = Integer.getInteger("archives.benchmark.archives", 4).intValue();
+	private int files = Integer.getInteger("archives.benchmark.files", 200).intValue();
+	private int size = Integer.getInteger("archives.benchmark.size", 1024).intValue();
+	private int iterations = Integer.getInteger("archives.benchmark.iterations", 3).intValue();
+	private int parallelism = Integer.getInteger("archives.benchmark.parallelism", 1).intValue();
+
+	private IProject project;
+	private MetricsListener listener = new MetricsListener();
+
+	private static class MetricsListener extends AbstractBuildListener {
+		private ArrayList<ArchiveBuildMetrics> archives = new ArrayList<ArchiveBuildMetrics>();
+		private ArrayList<ArchiveBuildMetrics> filesets = new ArrayList<ArchiveBuildMetrics>();
+		private ArrayList<IStatus> errors = new ArrayList<IStatus>();
+
+		public synchronized void archiveBuildMetrics(IArchive pkg, ArchiveBuildMetrics metrics) {
+			archives.add(metrics);
+		}
+		public synchronized void fileSetBuildMetrics(IArchiveFileSet fileset, ArchiveBuildMetrics metrics) {
+			filesets.add(metrics);
+		}
+		public synchronized void error(IArchiveNode node, IStatus[] multi) {
+			for( int i = 0; i < multi.length; i++ )
+				errors.add(multi[i]);
+		}
+		public synchronized void clear() {
+			archives.clear();
+			filesets.clear();
+			errors.clear();
+		}
+	}
+
+	protected void setUp() throws Exception {
+		JobUtils.waitForIdle();
+		project = ResourcesPlugin.getWorkspace().getRoot().getProject(PROJECT);
+		project.create(new NullProgressMonitor());
+		project.open(new NullProgressMonitor());
+		createProject(project.getLocation().toFile());
+		project.refreshLocal(IResource.DEPTH_INFINITE, new NullProgressMonitor());
+		ArchivesModel.instance().registerProject(project.getLocation(), new NullProgressMonitor());
+		ArchivesModel.instance().addBuildListener(listener);
+	}
+
+	protected void tearDown() throws Exception {
+		InstanceScope.INSTANCE.getNode(ArchivesCore.PLUGIN_ID)
+				.remove(WorkspacePreferenceManager.IN_PLACE_UPDATE_ENABLED);
+		ArchivesModel.instance().removeBuildListener(listener);
+		ArchivesModel.instance().unregisterProject(project.getLocation(), new NullProgressMonitor());
+		ResourcesUtils.deleteProject(PROJECT);
+	}
+
+	public void testFullBuild() {
+		ArchiveBuildDelegate delegate = new ArchiveBuildDelegate();
+		delegate.setParallelism(parallelism);
+		// warm up
+		delegate.fullProjectBuild(project.getLocation(), new NullProgressMonitor());
+		for( int i = 0; i < iterations; i++ ) {
+			listener.clear();
+			long start = System.currentTimeMillis();
+			delegate.fullProjectBuild(project.getLocation(), new NullProgressMonitor());
+			report("full build " + i, System.currentTimeMillis() - start);
+
+			assertEquals(0, listener.errors.size());
+			assertEquals(archives + 1, listener.archives.size());
+			assertEquals(archives + 1, listener.filesets.size());
+			for( int j = 0; j < listener.archives.size(); j++ ) {
+				ArchiveBuildMetrics m = listener.archives.get(j);
+				assertEquals(files, m.getFilesMatched());
+				assertEquals((long)files * size, m.getSourceBytes());
+			}
+		}
+		for( int i = 0; i <= archives; i++ )
+			assertTrue(getArchiveFile(i).isFile());
+	}
+
+	public void testIncrementalBuild() throws IOException {
+		ArchiveBuildDelegate delegate = new ArchiveBuildDelegate();
+		delegate.setParallelism(parallelism);
+		delegate.fullProjectBuild(project.getLocation(), new NullProgressMonitor());
+		for( int i = 0; i < iterations; i++ ) {
+			// change one file in each archive
+			Set<IPath> changed = new HashSet<IPath>();
+			for( int j = 0; j <= archives; j++ ) {
+				IPath path = getFilePath(j, i % files);
+				writeFile(project.getLocation().append(path).toFile(), i + 1);
+				changed.add(project.getFullPath().append(path));
+			}
+			listener.clear();
+			long start = System.currentTimeMillis();
+			delegate.incrementalBuild(null, changed, new HashSet<IPath>(), true, new NullProgressMonitor());
+			report("incremental build " + i, System.currentTimeMillis() - start);
+
+			assertEquals(0, listener.errors.size());
+			assertEquals(archives + 1, listener.archives.size());
+			for( int j = 0; j < listener.archives.size(); j++ ) {
+				ArchiveBuildMetrics m = listener.archives.get(j);
+				assertEquals(1, m.getFilesMatched());
+				assertEquals(size, m.getSourceBytes());
+			}
+		}
+	}
+
+	public void testNestedIncrementalBuild() throws IOException {
+		boolean[] inPlace = new boolean[] { false, true };
+		for( int k = 0; k < inPlace.length; k++ ) {
+			InstanceScope.INSTANCE.getNode(ArchivesCore.PLUGIN_ID)
+					.putBoolean(WorkspacePreferenceManager.IN_PLACE_UPDATE_ENABLED, inPlace[k]);
+			ArchiveBuildDelegate delegate = new ArchiveBuildDelegate();
+			delegate.fullProjectBuild(project.getLocation(), new NullProgressMonitor());
+			for( int i = 0; i < iterations; i++ ) {
+				// change one file of the jar in the war in the ear
+				IPath path = getFilePath(archives, i % files);
+				writeFile(project.getLocation().append(path).toFile(), i + 1);
+				Set<IPath> changed = new HashSet<IPath>();
+				changed.add(project.getFullPath().append(path));
+				listener.clear();
+				long start = System.currentTimeMillis();
+				delegate.incrementalBuild(null, changed, new HashSet<IPath>(), true, new NullProgressMonitor());
+				report("nested incremental build " + (inPlace[k] ? "in place " : "repacked ") + i,
+						System.currentTimeMillis() - start);
+
+				assertEquals(0, listener.errors.size());
+				assertEquals(1, listener.archives.size());
+				assertEquals(1, listener.archives.get(0).getFilesMatched());
+				assertEquals(size, listener.archives.get(0).getSourceBytes());
+			}
+		}
+	}
+
+	/*
+	 * Log the time of a build, where it went, and the size of the
+	 * sources read against the size of the archives written
+	 */
+	private void report(String build, long time) {
+		long scan = 0, copy = 0, sync = 0, read = 0, written = 0;
+		for( int i = 0; i < listener.archives.size(); i++ ) {
+			ArchiveBuildMetrics m = listener.archives.get(i);
+			scan += m.getScanTime();
+			copy += m.getCopyTime();
+			sync += m.getSyncTime();
+			read += m.getSourceBytes();
+		}
+		for( int i = 0; i <= archives; i++ )
+			written += getArchiveFile(i).length();
+		ArchivesCore.log(IStatus.INFO, getClass().getSimpleName() + " " + archives + "x" + files + "x" + size + ", "
+				+ build + ": " + time + "ms (scan " + scan + "ms, copy " + copy + "ms, sync " + sync
+				+ "ms, " + read + " source bytes, " + written + " bytes written)", null);
+	}
+
+	/*
+	 * One packed archive per source folder, each holding
+	 * files spread over folders of FILES_PER_FOLDER, and an ear
+	 * whose war holds a jar of the last source folder
+	 */
+	private void createProject(File root) throws IOException {
+		StringBuffer sb = new StringBuffer();
+		sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n\n<packages>\n");
+		for( int i = 0; i < archives; i++ ) {
+			sb.append("   <package name=\"bench" + i + ".jar\" type=\"jar\" todir=\"/" + PROJECT
+					+ "/outputs\" exploded=\"false\" inWorkspace=\"true\">\n");
+			sb.append("      <fileset dir=\"/" + PROJECT + "/src" + i
+					+ "\" includes=\"**\" inWorkspace=\"true\" flatten=\"false\">\n");
+			sb.append("         <properties></properties>\n      </fileset>\n");
+			sb.append("      <properties></properties>\n   </package>\n");
+			for( int j = 0; j < files; j++ )
+				writeFile(new File(root, getFilePath(i, j).toOSString()), 0);
+		}
+		sb.append("   <package name=\"nested.ear\" type=\"jar\" todir=\"/" + PROJECT
+				+ "/outputs\" exploded=\"false\" inWorkspace=\"true\">\n");
+		sb.append("      <package name=\"web.war\" type=\"jar\" exploded=\"false\" inWorkspace=\"true\">\n");
+		sb.append("         <folder name=\"WEB-INF\">\n            <folder name=\"lib\">\n");
+		sb.append("               <package name=\"lib.jar\" type=\"jar\" exploded=\"false\" inWorkspace=\"true\">\n");
+		sb.append("                  <fileset dir=\"/" + PROJECT + "/src" + archives
+				+ "\" includes=\"**\" inWorkspace=\"true\" flatten=\"false\">\n");
+		sb.append("                     <properties></properties>\n                  </fileset>\n");
+		sb.append("                  <properties></properties>\n               </package>\n");
+		sb.append("               <properties></properties>\n            </folder>\n");
+		sb.append("            <properties></properties>\n         </folder>\n");
+		sb.append("         <properties></properties>\n      </package>\n");
+		sb.append("      <properties></properties>\n   </package>\n");
+		for( int j = 0; j < files; j++ )
+			writeFile(new File(root, getFilePath(archives, j).toOSString()), 0);
+		sb.append("   <properties></properties>\n</packages>\n");
+		new File(root, "outputs").mkdirs();
+		FileOutputStream out = new FileOutputStream(new File(root, ".packages"));
+		try {
+			out.write(sb.toString().getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+
+	private IPath getFilePath(int archive, int file) {
+		return new Path("src" + archive).append("pkg" + (file / FILES_PER_FOLDER))
+				.append("File" + file + ".txt");
+	}
+
+	private File getArchiveFile(int archive) {
+		String name = archive == archives ? "nested.ear" : "bench" + archive + ".jar";
+		return project.getLocation().append("outputs").append(name).toFile();
+	}
+
+	private void writeFile(File f, int version) throws IOException {
+		f.getParentFile().mkdirs();
+		byte[] b = new byte[size];
+		for( int i = 0; i < b.length; i++ )
+			b[i] = (byte)('a' + (i + version + f.getName().length()) % 26);
+		FileOutputStream out = new FileOutputStream(f);
+		try {
+			out.write(b);
+		} finally {
+			out.close();
+		}
+	}
+}
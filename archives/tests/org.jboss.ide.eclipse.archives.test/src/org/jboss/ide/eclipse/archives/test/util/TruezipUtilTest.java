@@ -10,8 +10,17 @@
  ******************************************************************************/
 package org.jboss.ide.eclipse.archives.test.util;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import junit.framework.TestCase;
 
@@ -162,6 +171,124 @@ public class TruezipUtilTest extends TestCase {
 		assertFalse(TrueZipUtil.pathExists(f2));
 	}
 	
+	public void testCompressedTypes() {
+		assertTrue(TrueZipUtil.isCompressedType("lib.jar"));
+		assertTrue(TrueZipUtil.isCompressedType("images/logo.PNG"));
+		assertTrue(TrueZipUtil.isCompressedType("data.tar.gz"));
+		assertFalse(TrueZipUtil.isCompressedType("readme.txt"));
+		assertFalse(TrueZipUtil.isCompressedType("web.xml"));
+		assertFalse(TrueZipUtil.isCompressedType("jar"));
+	}
+
+	public void testCompressedTypesStored() throws IOException {
+		IPath tmpDir = bundlePath.append("tmp");
+		String[] names = new String[] { "a.txt", "b.jar", "c.png", "d.gz", "e.xml" };
+		IPath archive = tmpDir.append("methods.jar");
+		de.schlichtherle.io.File root = TrueZipUtil.getFile(archive, TrueZipUtil.getJarArchiveDetector());
+		for( int i = 0; i < names.length; i++ ) {
+			String source = writeSource(tmpDir.append("sources").append(names[i]), i);
+			assertTrue(TrueZipUtil.copyFile(source, TrueZipUtil.getFileInArchive(root, new Path(names[i])), false));
+		}
+		try {de.schlichtherle.io.File.umount();} catch( Exception e ) {}
+
+		ZipFile zf = new ZipFile(archive.toFile());
+		try {
+			assertEquals(ZipEntry.DEFLATED, zf.getEntry("a.txt").getMethod());
+			assertEquals(ZipEntry.STORED, zf.getEntry("b.jar").getMethod());
+			assertEquals(ZipEntry.STORED, zf.getEntry("c.png").getMethod());
+			assertEquals(ZipEntry.STORED, zf.getEntry("d.gz").getMethod());
+			assertEquals(ZipEntry.DEFLATED, zf.getEntry("e.xml").getMethod());
+		} finally {
+			zf.close();
+		}
+	}
+
+	public void testCopyFilesMatchesCopyFile() throws IOException {
+		IPath tmpDir = bundlePath.append("tmp");
+		String[] names = new String[] { "a.txt", "pkg/b.txt", "pkg/c.png", "pkg/inner/d.jar", "e.gz" };
+		String[] sources = new String[names.length];
+		for( int i = 0; i < names.length; i++ )
+			sources[i] = writeSource(tmpDir.append("sources").append(names[i]), i);
+
+		IPath one = tmpDir.append("one.jar");
+		de.schlichtherle.io.File oneRoot = TrueZipUtil.getFile(one, TrueZipUtil.getJarArchiveDetector());
+		for( int i = 0; i < names.length; i++ )
+			assertTrue(TrueZipUtil.copyFile(sources[i], TrueZipUtil.getFileInArchive(oneRoot, new Path(names[i])), true));
+
+		IPath many = tmpDir.append("many.jar");
+		de.schlichtherle.io.File manyRoot = TrueZipUtil.getFile(many, TrueZipUtil.getJarArchiveDetector());
+		de.schlichtherle.io.File[] dests = new de.schlichtherle.io.File[names.length + 1];
+		String[] manySources = new String[names.length + 1];
+		for( int i = 0; i < names.length; i++ ) {
+			dests[i] = TrueZipUtil.getFileInArchive(manyRoot, new Path(names[i]));
+			manySources[i] = sources[i];
+		}
+		// a missing source fails alone
+		manySources[names.length] = tmpDir.append("sources").append("missing.txt").toOSString();
+		dests[names.length] = TrueZipUtil.getFileInArchive(manyRoot, new Path("missing.txt"));
+		boolean[] copied = TrueZipUtil.copyFiles(manySources, dests, true, null);
+		for( int i = 0; i < names.length; i++ )
+			assertTrue(names[i], copied[i]);
+		assertFalse(copied[names.length]);
+		try {de.schlichtherle.io.File.umount();} catch( Exception e ) {}
+
+		TreeMap<String, ZipEntry> oneEntries = new TreeMap<String, ZipEntry>();
+		TreeMap<String, byte[]> oneContents = readArchive(one.toFile(), oneEntries);
+		TreeMap<String, ZipEntry> manyEntries = new TreeMap<String, ZipEntry>();
+		TreeMap<String, byte[]> manyContents = readArchive(many.toFile(), manyEntries);
+		assertEquals(oneEntries.keySet(), manyEntries.keySet());
+		for( int i = 0; i < names.length; i++ ) {
+			assertEquals(names[i], oneEntries.get(names[i]).getMethod(), manyEntries.get(names[i]).getMethod());
+			assertTrue(names[i], Arrays.equals(oneContents.get(names[i]), manyContents.get(names[i])));
+		}
+	}
+
+	/*
+	 * Write a compressible file, different for each index
+	 */
+	private String writeSource(IPath path, int index) throws IOException {
+		File f = path.toFile();
+		f.getParentFile().mkdirs();
+		StringBuffer sb = new StringBuffer();
+		for( int i = 0; i < 200; i++ )
+			sb.append("line " + i + " of source " + index + "\n");
+		FileOutputStream out = new FileOutputStream(f);
+		try {
+			out.write(sb.toString().getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+		return f.getAbsolutePath();
+	}
+
+	private TreeMap<String, byte[]> readArchive(File archive, TreeMap<String, ZipEntry> entries) throws IOException {
+		TreeMap<String, byte[]> contents = new TreeMap<String, byte[]>();
+		ZipFile zf = new ZipFile(archive);
+		try {
+			Enumeration<? extends ZipEntry> en = zf.entries();
+			while( en.hasMoreElements()) {
+				ZipEntry e = en.nextElement();
+				entries.put(e.getName(), e);
+				if( !e.isDirectory()) {
+					ByteArrayOutputStream out = new ByteArrayOutputStream();
+					InputStream in = zf.getInputStream(e);
+					try {
+						byte[] buf = new byte[4096];
+						int n;
+						while( (n = in.read(buf)) != -1 )
+							out.write(buf, 0, n);
+					} finally {
+						in.close();
+					}
+					contents.put(e.getName(), out.toByteArray());
+				}
+			}
+		} finally {
+			zf.close();
+		}
+		return contents;
+	}
+
 	protected IPath bundleEntryToGlobalPath(String entry) {
 		try {
 			return new Path(FileLocator.toFileURL(bundle.getEntry(entry)).getFile());
@@ -0,0 +1,324 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.archives.test.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import junit.framework.TestCase;
+
+import org.jboss.ide.eclipse.archives.core.util.ZipEntryPatcher;
+
+public class ZipEntryPatcherTest extends TestCase {
+	private ArrayList<File> files = new ArrayList<File>();
+
+	protected void tearDown() {
+		for( int i = 0; i < files.size(); i++ )
+			files.get(i).delete();
+	}
+
+	public void testReplaceAndAdd() throws IOException {
+		File zip = createZip(new String[] { "a/", "a/one.txt", "lib.jar" },
+				new String[] { null, "one", "not really a jar" });
+		ZipEntryPatcher patcher = new ZipEntryPatcher(zip);
+		patcher.put("a/one.txt", createFile("one, changed"));
+		patcher.put("b/c/two.txt", createFile("two"));
+		assertTrue(patcher.apply());
+
+		ZipFile zf = new ZipFile(zip);
+		try {
+			assertEquals(6, zf.size());
+			assertEquals("one, changed", read(zf, "a/one.txt"));
+			assertEquals("two", read(zf, "b/c/two.txt"));
+			assertEquals("not really a jar", read(zf, "lib.jar"));
+			assertTrue(zf.getEntry("b/").isDirectory());
+			assertTrue(zf.getEntry("b/c/").isDirectory());
+		} finally {
+			zf.close();
+		}
+	}
+
+	public void testRemoveFolder() throws IOException {
+		File zip = createZip(new String[] { "a/", "a/one.txt", "ab.txt" },
+				new String[] { null, "one", "ab" });
+		ZipEntryPatcher patcher = new ZipEntryPatcher(zip);
+		patcher.remove("a");
+		assertTrue(patcher.apply());
+
+		ZipFile zf = new ZipFile(zip);
+		try {
+			assertEquals(1, zf.size());
+			assertEquals("ab", read(zf, "ab.txt"));
+		} finally {
+			zf.close();
+		}
+	}
+
+	public void testPutFolder() throws IOException {
+		File zip = createZip(new String[] { "a/", "a/one.txt" }, new String[] { null, "one" });
+		ZipEntryPatcher patcher = new ZipEntryPatcher(zip);
+		patcher.putFolder("a");
+		patcher.putFolder("b/c");
+		assertTrue(patcher.apply());
+
+		ZipFile zf = new ZipFile(zip);
+		try {
+			assertEquals(4, zf.size());
+			assertEquals("one", read(zf, "a/one.txt"));
+			assertTrue(zf.getEntry("b/").isDirectory());
+			assertTrue(zf.getEntry("b/c/").isDirectory());
+		} finally {
+			zf.close();
+		}
+	}
+
+	public void testUnappliedChangesLeaveArchive() throws IOException {
+		File zip = createZip(new String[] { "one.txt" }, new String[] { "one" });
+		long length = zip.length();
+		ZipEntryPatcher patcher = new ZipEntryPatcher(zip);
+		patcher.put("two.txt", createFile("two"));
+		patcher.remove("one.txt");
+		assertTrue(patcher.isSupported());
+		assertEquals(length, zip.length());
+		assertEquals("one", readFiles(zip).get("one.txt"));
+	}
+
+	public void testNestedArchive() throws IOException {
+		File inner = createZip(new String[] { "one.txt", "two.txt" }, new String[] { "one", "two" });
+		File outer = createZip(new String[] { "readme.txt" }, new String[] { "outer" });
+		ZipEntryPatcher patcher = new ZipEntryPatcher(outer);
+		patcher.put("lib/inner.jar", inner);
+		assertTrue(patcher.apply());
+
+		// change the inner archive without inflating its other entries
+		patcher = new ZipEntryPatcher(outer);
+		File extracted = createFile("");
+		assertTrue(patcher.extract("lib/inner.jar", extracted));
+		ZipEntryPatcher innerPatcher = new ZipEntryPatcher(extracted);
+		innerPatcher.put("one.txt", createFile("one, changed"));
+		File changed = createFile("");
+		assertTrue(innerPatcher.write(changed));
+		patcher.put("lib/inner.jar", changed);
+		assertTrue(patcher.apply());
+
+		File result = createFile("");
+		assertTrue(new ZipEntryPatcher(outer).extract("lib/inner.jar", result));
+		ZipFile zf = new ZipFile(result);
+		try {
+			assertEquals(2, zf.size());
+			assertEquals("one, changed", read(zf, "one.txt"));
+			assertEquals("two", read(zf, "two.txt"));
+		} finally {
+			zf.close();
+		}
+	}
+
+	public void testUnreferencedSpaceIsReclaimed() throws IOException {
+		StringBuffer sb = new StringBuffer();
+		for( int i = 0; i < 10000; i++ )
+			sb.append(i);
+		String big = sb.toString();
+		File zip = createZip(new String[] { "big.txt", "small.txt" }, new String[] { big, "small" });
+		long length = zip.length();
+		for( int i = 0; i < 10; i++ ) {
+			ZipEntryPatcher patcher = new ZipEntryPatcher(zip);
+			patcher.put("big.txt", createFile(big + i));
+			assertTrue(patcher.apply());
+			assertTrue(zip.length() < length * 3);
+		}
+		ZipFile zf = new ZipFile(zip);
+		try {
+			assertEquals(big + 9, read(zf, "big.txt"));
+			assertEquals("small", read(zf, "small.txt"));
+		} finally {
+			zf.close();
+		}
+	}
+
+	public void testFailedCompactionKeepsArchive() throws IOException {
+		String big = createContent(new Random(1), 20000);
+		File zip = createZip(new String[] { "big.txt", "small.txt" }, new String[] { big, "small" });
+		long length = zip.length();
+		// The copy cannot be moved aside the archive
+		File backup = new File(zip.getParentFile(), zip.getName() + ".bak");
+		assertTrue(backup.mkdir());
+		files.add(backup);
+		ZipEntryPatcher patcher = new ZipEntryPatcher(zip);
+		patcher.remove("big.txt");
+		assertFalse(patcher.apply());
+		assertEquals(length, zip.length());
+		assertEquals(big, readFiles(zip).get("big.txt"));
+		assertTrue(backup.delete());
+
+		// The copy cannot be written
+		File tmp = new File(zip.getParentFile(), zip.getName() + ".tmp");
+		assertTrue(tmp.mkdir());
+		files.add(tmp);
+		patcher = new ZipEntryPatcher(zip);
+		patcher.remove("big.txt");
+		try {
+			patcher.apply();
+			fail("The copy was written over a folder");
+		} catch( IOException ioe ) {
+			// expected
+		}
+		assertEquals(length, zip.length());
+		assertEquals(big, readFiles(zip).get("big.txt"));
+		tmp.delete();
+
+		patcher = new ZipEntryPatcher(zip);
+		patcher.remove("big.txt");
+		assertTrue(patcher.apply());
+		assertTrue(zip.length() < length);
+		assertFalse(backup.exists());
+		assertEquals(1, readFiles(zip).size());
+	}
+
+	public void testRandomOperations() throws IOException {
+		Random random = new Random(20180101);
+		String[] names = new String[] { "a.txt", "b.txt", "d1/c.txt", "d1/d.txt", "d1/d2/e.txt", "d3/f.txt", "g.jar" };
+		TreeMap<String, String> expected = new TreeMap<String, String>();
+		expected.put("a.txt", "a");
+		File zip = createZip(new String[] { "a.txt" }, new String[] { "a" });
+		for( int round = 0; round < 40; round++ ) {
+			ZipEntryPatcher patcher = new ZipEntryPatcher(zip);
+			int ops = 1 + random.nextInt(5);
+			for( int i = 0; i < ops; i++ ) {
+				String name = names[random.nextInt(names.length)];
+				if( random.nextInt(4) == 0 ) {
+					patcher.remove(name);
+					expected.remove(name);
+				} else if( random.nextInt(6) == 0 ) {
+					String folder = name.indexOf('/') == -1 ? name : name.substring(0, name.indexOf('/'));
+					patcher.remove(folder);
+					removeAll(expected, folder);
+				} else {
+					String content = createContent(random, random.nextInt(4000));
+					patcher.put(name, createFile(content));
+					expected.put(name, content);
+				}
+			}
+			assertTrue("Round " + round, patcher.apply());
+			assertEquals("Round " + round, expected, readFiles(zip));
+		}
+	}
+
+	public void testUnsupportedArchive() throws IOException {
+		File notZip = createFile("not an archive at all");
+		ZipEntryPatcher patcher = new ZipEntryPatcher(notZip);
+		patcher.put("one.txt", createFile("one"));
+		assertFalse(patcher.apply());
+		assertEquals("not an archive at all", read(new FileInputStream(notZip)));
+	}
+
+	private static void removeAll(TreeMap<String, String> map, String folder) {
+		Iterator<String> it = map.keySet().iterator();
+		while( it.hasNext()) {
+			String key = it.next();
+			if( key.equals(folder) || key.startsWith(folder + "/"))
+				it.remove();
+		}
+	}
+
+	private static String createContent(Random random, int length) {
+		StringBuffer sb = new StringBuffer();
+		for( int i = 0; i < length; i++ )
+			sb.append((char)('a' + random.nextInt(random.nextBoolean() ? 3 : 26)));
+		return sb.toString();
+	}
+
+	private File createFile(String contents) throws IOException {
+		File f = File.createTempFile("patcher", ".tmp");
+		files.add(f);
+		FileOutputStream out = new FileOutputStream(f);
+		try {
+			out.write(contents.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+		return f;
+	}
+
+	private File createZip(String[] names, String[] contents) throws IOException {
+		File f = File.createTempFile("patcher", ".zip");
+		files.add(f);
+		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(f));
+		try {
+			for( int i = 0; i < names.length; i++ ) {
+				ZipEntry e = new ZipEntry(names[i]);
+				if( names[i].endsWith(".jar")) {
+					byte[] b = contents[i].getBytes("UTF-8");
+					CRC32 crc = new CRC32();
+					crc.update(b);
+					e.setMethod(ZipEntry.STORED);
+					e.setSize(b.length);
+					e.setCrc(crc.getValue());
+				}
+				out.putNextEntry(e);
+				if( contents[i] != null )
+					out.write(contents[i].getBytes("UTF-8"));
+				out.closeEntry();
+			}
+		} finally {
+			out.close();
+		}
+		return f;
+	}
+
+	/* The contents of every file in the archive, by name */
+	private TreeMap<String, String> readFiles(File zip) throws IOException {
+		TreeMap<String, String> ret = new TreeMap<String, String>();
+		ZipFile zf = new ZipFile(zip);
+		try {
+			Enumeration<? extends ZipEntry> en = zf.entries();
+			while( en.hasMoreElements()) {
+				ZipEntry e = en.nextElement();
+				if( !e.isDirectory())
+					ret.put(e.getName(), read(zf.getInputStream(e)));
+			}
+		} finally {
+			zf.close();
+		}
+		return ret;
+	}
+
+	private String read(ZipFile zf, String name) throws IOException {
+		ZipEntry e = zf.getEntry(name);
+		assertNotNull(name, e);
+		return read(zf.getInputStream(e));
+	}
+
+	private String read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			byte[] buf = new byte[1024];
+			int n;
+			while( (n = in.read(buf)) != -1 )
+				out.write(buf, 0, n);
+		} finally {
+			in.close();
+		}
+		return out.toString("UTF-8");
+	}
+}
@@ -13,6 +13,11 @@ package org.jboss.ide.eclipse.archives.webtools.modules;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -24,6 +29,8 @@ import org.eclipse.wst.server.core.IModule;
 import org.jboss.ide.eclipse.archives.core.model.ArchivesModel;
 import org.jboss.ide.eclipse.archives.core.model.ArchivesModelException;
 import org.jboss.ide.eclipse.archives.core.model.IArchive;
+import org.jboss.ide.eclipse.archives.core.model.IArchiveModel;
+import org.jboss.ide.eclipse.archives.core.model.IArchiveModelRootNode;
 import org.jboss.ide.eclipse.archives.core.util.ModelUtil;
 import org.jboss.ide.eclipse.archives.webtools.IntegrationPlugin;
 import org.jboss.ide.eclipse.archives.webtools.modules.PackageModuleFactory.PackagedModuleDelegate;
@@ -50,12 +57,15 @@ public class ArchivesModelModuleContributor {
 			modules = new ArrayList<IModule>();
 			IProject[] projects2 = ResourcesPlugin.getWorkspace().getRoot().getProjects();
 			int size = projects2.length;
+			Future<IArchiveModelRootNode>[] loaded = loadProjects(projects2);
 			for (int i = 0; i < size; i++) {
 				if (projects2[i].isAccessible()) {
 
 					if( !ArchivesModel.instance().isProjectRegistered(projects2[i].getLocation())) {
-						if( ArchivesModel.instance().canReregister(projects2[i].getLocation()))
+						if( loaded[i] != null )
 							// registration should also add this to the factory manually, so do not create the module
+							ArchivesModel.instance().registerProject(getLoaded(loaded[i]), new NullProgressMonitor());
+						else if( ArchivesModel.instance().canReregister(projects2[i].getLocation()))
 							ArchivesModel.instance().registerProject(projects2[i].getLocation(), new NullProgressMonitor());
 					} else {
 						try {
@@ -71,6 +81,61 @@ public class ArchivesModelModuleContributor {
 		}
 		return modules.toArray(new IModule[modules.size()]);
 	}
+
+	/*
+	 * Read the descriptors of the unregistered projects on a pool.
+	 * They are registered afterwards in workspace order, on this thread,
+	 * since registration fires model events. The future of a project
+	 * is null when it is not read here.
+	 */
+	@SuppressWarnings("unchecked")
+	private Future<IArchiveModelRootNode>[] loadProjects(IProject[] projects) {
+		Future<IArchiveModelRootNode>[] loaded = new Future[projects.length];
+		IArchiveModel model = ArchivesModel.instance();
+		if( !(model instanceof ArchivesModel))
+			return loaded;
+		final ArchivesModel archivesModel = (ArchivesModel)model;
+		ArrayList<Integer> toLoad = new ArrayList<Integer>();
+		for( int i = 0; i < projects.length; i++ ) {
+			IPath location = projects[i].isAccessible() ? projects[i].getLocation() : null;
+			if( location != null && !model.isProjectRegistered(location) && model.canReregister(location))
+				toLoad.add(i);
+		}
+		if( toLoad.size() < 2 )
+			return loaded;
+
+		int threads = Math.min(toLoad.size(), Runtime.getRuntime().availableProcessors());
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			for( int i = 0; i < toLoad.size(); i++ ) {
+				final IPath location = projects[toLoad.get(i)].getLocation();
+				loaded[toLoad.get(i)] = pool.submit(new Callable<IArchiveModelRootNode>() {
+					public IArchiveModelRootNode call() {
+						return archivesModel.loadProject(location, IArchiveModel.DEFAULT_PACKAGES_FILE,
+								new NullProgressMonitor());
+					}
+				});
+			}
+		} finally {
+			// running loads finish, and the threads end once they have
+			pool.shutdown();
+		}
+		return loaded;
+	}
+
+	private IArchiveModelRootNode getLoaded(Future<IArchiveModelRootNode> loaded) {
+		try {
+			return loaded.get();
+		} catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new ArchivesModelException(ie);
+		} catch(ExecutionException ee) {
+			// loading throws nothing checked
+			if( ee.getCause() instanceof Error )
+				throw (Error)ee.getCause();
+			throw (RuntimeException)ee.getCause();
+		}
+	}
 	
 	protected void createModules(IProject project) throws ArchivesModelException {
 		if( project == null )
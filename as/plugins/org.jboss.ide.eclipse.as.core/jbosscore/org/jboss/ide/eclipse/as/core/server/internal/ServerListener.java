@@ -17,6 +17,7 @@ import org.jboss.ide.eclipse.as.core.JBossServerCorePlugin;
 import org.jboss.ide.eclipse.as.core.server.UnitedServerListener;
 import org.jboss.ide.eclipse.as.core.util.FileUtil;
 import org.jboss.ide.eclipse.as.core.util.ServerUtil;
+import org.jboss.ide.eclipse.as.wtp.core.server.publish.PublishManifest;
 
 public class ServerListener extends UnitedServerListener {
 	private static ServerListener instance;
@@ -37,6 +38,7 @@ public class ServerListener extends UnitedServerListener {
 	public void serverRemoved(IServer server) {
 		// delete metadata area
 		File f = JBossServerCorePlugin.getServerStateLocation(server).toFile();
+		PublishManifest.removeManifest(new File(f, PublishManifest.MANIFEST_FILE));
 		FileUtil.safeDelete(f);
 	}
 }
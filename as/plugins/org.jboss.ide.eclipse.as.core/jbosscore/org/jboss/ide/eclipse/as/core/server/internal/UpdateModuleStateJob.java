@@ -10,8 +10,14 @@
  ******************************************************************************/
 package org.jboss.ide.eclipse.as.core.server.internal;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.core.runtime.jobs.Job;
@@ -19,6 +25,7 @@ import org.eclipse.wst.server.core.IModule;
 import org.eclipse.wst.server.core.IServer;
 import org.eclipse.wst.server.core.internal.Server;
 import org.jboss.ide.eclipse.as.core.server.IServerModuleStateVerifier;
+import org.jboss.ide.eclipse.as.core.server.IServerModuleStateVerifier2;
 import org.jboss.ide.eclipse.as.core.server.internal.extendedproperties.JBossExtendedProperties;
 import org.jboss.ide.eclipse.as.wtp.core.server.behavior.IModuleStateController;
 
@@ -80,49 +87,90 @@ public class UpdateModuleStateJob extends Job {
 		}
 	}
 
+	/*
+	 * The delay between checks of modules which have not yet started.
+	 * Checks begin quickly and back off, so a module which starts
+	 * promptly is reported promptly, without hammering a slow server.
+	 */
+	private static final int MIN_WAIT_INTERVAL = 100;
+	private static final int MAX_WAIT_INTERVAL = 1000;
+
 	private IStatus runWait(IProgressMonitor monitor) {
-		boolean allStarted = false;
 		long startTime = System.currentTimeMillis();
 		long endTime = startTime + maxWait;
 		IModule[] modules = server.getModules();
-		monitor.beginTask("Checking module states for " + server.getName(), maxWait * 1000); //$NON-NLS-1$
-		while( !allStarted && System.currentTimeMillis() < endTime) {
-			allStarted = true;
-			long thisLoopStart = System.currentTimeMillis();
-			for( int i = 0; i < modules.length; i++ ) {
-				IModule[] temp = new IModule[]{modules[i]};
-				int state = getModuleState(temp, new SubProgressMonitor(monitor, 1000));
-				boolean started = state == IServer.STATE_STARTED;
-				allStarted = allStarted && started;
+		monitor.beginTask("Checking module states for " + server.getName(), maxWait); //$NON-NLS-1$
+		
+		// Only modules which have not started need to be checked again
+		ArrayList<IModule> pending = new ArrayList<IModule>(Arrays.asList(modules));
+		int interval = MIN_WAIT_INTERVAL;
+		while( !pending.isEmpty() && !monitor.isCanceled()) {
+			Map<IModule, Integer> states = getModuleStates(
+					pending.toArray(new IModule[pending.size()]), new NullProgressMonitor());
+			Iterator<IModule> it = pending.iterator();
+			while(it.hasNext()) {
+				IModule[] temp = new IModule[]{it.next()};
+				int state = getState(states, temp, new NullProgressMonitor());
 				((Server)server).setModuleState(temp, state);
+				if( state == IServer.STATE_STARTED )
+					it.remove();
 			}
 			
-			// Sleep just a bit
+			long remaining = endTime - System.currentTimeMillis();
+			if( pending.isEmpty() || remaining <= 0 )
+				break;
+			long thisWait = Math.min(interval, remaining);
 			try {
-				Thread.sleep(500);
+				Thread.sleep(thisWait);
 			} catch(InterruptedException ie) {
-				// ignore
+				Thread.currentThread().interrupt();
+				break;
 			}
-			long timeDif = System.currentTimeMillis() - thisLoopStart;
-			monitor.worked((int)timeDif - (modules.length * 100));
+			monitor.worked((int)thisWait);
+			interval = Math.min(interval * 2, MAX_WAIT_INTERVAL);
 		}
+		monitor.done();
 		return Status.OK_STATUS;
 	}
 	
 	private IStatus runQuick(IProgressMonitor monitor) {
 		IModule[] modules = server.getModules();
-		monitor.beginTask("Verifying Module State", modules.length * 1000); //$NON-NLS-1$
+		monitor.beginTask("Verifying Module State", (modules.length + 1) * 1000); //$NON-NLS-1$
+		Map<IModule, Integer> states = getModuleStates(modules, new SubProgressMonitor(monitor, 1000));
 		for( int i = 0; i < modules.length; i++ ) {
 			IModule[] temp = new IModule[]{modules[i]};
 			
 			//boolean started = verifier.isModuleStarted(server, temp, new SubProgressMonitor(monitor, 1000));
 			//int state = started ? IServer.STATE_STARTED : IServer.STATE_STOPPED;
-			int state = getModuleState(temp, new SubProgressMonitor(monitor, 1000));
+			int state = getState(states, temp, new SubProgressMonitor(monitor, 1000));
 			((Server)server).setModuleState(temp, state);
 		}
 		return Status.OK_STATUS;
 	}
 	
+	/*
+	 * Fetch the state of all given modules at once, if the verifier supports it.
+	 * Returns null if the modules must be checked one at a time.
+	 */
+	private Map<IModule, Integer> getModuleStates(IModule[] modules, IProgressMonitor monitor) {
+		IServerModuleStateVerifier2 v2 = null;
+		if( verifier instanceof IServerModuleStateVerifier2 )
+			v2 = (IServerModuleStateVerifier2)verifier;
+		else if( verifier == null && controller instanceof IServerModuleStateVerifier2 )
+			v2 = (IServerModuleStateVerifier2)controller;
+		if( v2 == null || modules.length == 0 )
+			return null;
+		return v2.getModuleStates(server, modules, monitor);
+	}
+	
+	private int getState(Map<IModule, Integer> states, IModule[] temp, IProgressMonitor monitor) {
+		if( states != null ) {
+			Integer state = states.get(temp[0]);
+			return state == null ? IServer.STATE_UNKNOWN : state.intValue();
+		}
+		return getModuleState(temp, monitor);
+	}
+	
 	private int getModuleState(IModule[] temp, IProgressMonitor monitor) {
 		if( verifier != null )
 			return verifier.getModuleState(server, temp, new SubProgressMonitor(monitor, 1000));
@@ -11,6 +11,9 @@
  ******************************************************************************/ 
 package org.jboss.ide.eclipse.as.core.server.internal.v7;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -20,14 +23,14 @@ import org.eclipse.osgi.util.NLS;
 import org.eclipse.wst.server.core.IModule;
 import org.eclipse.wst.server.core.IServer;
 import org.jboss.ide.eclipse.as.core.JBossServerCorePlugin;
-import org.jboss.ide.eclipse.as.core.server.IServerModuleStateVerifier;
+import org.jboss.ide.eclipse.as.core.server.IServerModuleStateVerifier2;
 import org.jboss.ide.eclipse.as.core.util.JBossServerBehaviorUtils;
 import org.jboss.ide.eclipse.as.wtp.core.server.behavior.AbstractSubsystemController;
 import org.jboss.ide.eclipse.as.wtp.core.server.behavior.IControllableServerBehavior;
 import org.jboss.ide.eclipse.as.wtp.core.server.behavior.IModuleStateController;
 import org.jboss.tools.as.core.server.controllable.systems.IModuleDeployPathController;
 
-public abstract class AbstractJBoss7ModuleStateVerifier extends AbstractSubsystemController implements IModuleStateController, IServerModuleStateVerifier {
+public abstract class AbstractJBoss7ModuleStateVerifier extends AbstractSubsystemController implements IModuleStateController, IServerModuleStateVerifier2 {
 	public void waitModuleStarted(IServer server, IModule[] module, final int maxDelay) {
 		final NullProgressMonitor monitor = new NullProgressMonitor();
 		Thread t = new Thread(){
@@ -73,11 +76,24 @@ public abstract class AbstractJBoss7ModuleStateVerifier extends AbstractSubsyste
 		}
 	}
 	
+	/**
+	 * Get the state of each root module. Subclasses which
+	 * can fetch all states in one request should override this.
+	 */
+	public Map<IModule, Integer> getModuleStates(IServer server, IModule[] modules,
+			IProgressMonitor monitor) {
+		Map<IModule, Integer> ret = new HashMap<IModule, Integer>();
+		for( int i = 0; i < modules.length; i++ ) {
+			ret.put(modules[i], getModuleState(server, new IModule[]{modules[i]}, monitor));
+		}
+		return ret;
+	}
+	
 	private String getDeploymentName(IServer server, IModule module) throws Exception {
 		return getDeploymentOutputName(server, module);
 	}
 
-	private String getDeploymentOutputName(IServer server, IModule module) {
+	protected String getDeploymentOutputName(IServer server, IModule module) {
 		IControllableServerBehavior beh = JBossServerBehaviorUtils.getControllableBehavior(server);
 		if( beh != null ) {
 			try {
@@ -45,6 +45,14 @@ public class JBoss7ManagerServicePoller implements IServerStatePoller2 {
 	
 	private static final int SYNCHRONOUS_POLL_FAST_TIMEOUT = 800;
 	
+	/*
+	 * The delay between polls starts short, so a server which is
+	 * already up or down is noticed immediately, and backs off
+	 * during a long startup
+	 */
+	private static final int MIN_POLL_INTERVAL = 50;
+	private static final int MAX_POLL_INTERVAL = 500;
+	
 	
 	private IServer server;
 	private AS7ManagementDetails managementDetails;
@@ -170,6 +178,7 @@ public class JBoss7ManagerServicePoller implements IServerStatePoller2 {
 	
 	public void runLoop() {
 		try {
+			int interval = MIN_POLL_INTERVAL;
 			while( !getDone() && !getCanceled() )  {
 				if (expectedState == SERVER_DOWN) {
 					setDone(checkShutdown(service));
@@ -178,10 +187,11 @@ public class JBoss7ManagerServicePoller implements IServerStatePoller2 {
 				}
 				if( !getDone() ) {
 					try {
-						Thread.sleep(300);
+						Thread.sleep(interval);
 					} catch(InterruptedException ie) {
 						// Ignore
 					}
+					interval = Math.min(interval * 2, MAX_POLL_INTERVAL);
 				}
 			}
 		} catch (Exception e) {
@@ -11,10 +11,14 @@
  ******************************************************************************/ 
 package org.jboss.ide.eclipse.as.core.server.internal.v7;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.osgi.util.NLS;
 import org.eclipse.wst.server.core.IModule;
 import org.eclipse.wst.server.core.IServer;
 import org.jboss.ide.eclipse.as.core.JBossServerCorePlugin;
@@ -48,6 +52,42 @@ public class JBoss7ModuleStateVerifier extends AbstractJBoss7ModuleStateVerifier
 		return ret;
 	}
 	
+	/**
+	 * Fetch the state of every deployment with a single management request,
+	 * rather than several requests for each module. 
+	 */
+	public Map<IModule, Integer> getModuleStates(IServer server, IModule[] modules,
+			IProgressMonitor monitor) {
+		Map<IModule, Integer> ret = new HashMap<IModule, Integer>();
+		for( int i = 0; i < modules.length; i++ ) {
+			ret.put(modules[i], IServer.STATE_UNKNOWN);
+		}
+		if( modules.length == 0 )
+			return ret;
+		try {
+			IJBoss7ManagerService service = JBoss7ManagerUtil.getService(server);
+			AS7ManagementDetails details = new AS7ManagementDetails(server);
+			if (service == null || !service.isRunning(details)) // to avoid asking while server is starting up.
+				return ret;
+			Map<String, JBoss7DeploymentState> states = service.getDeploymentStates(details);
+			for( int i = 0; i < modules.length; i++ ) {
+				String deploymentName = getDeploymentOutputName(server, modules[i]);
+				JBoss7DeploymentState state = deploymentName == null ? null : states.get(deploymentName);
+				if( state == JBoss7DeploymentState.STARTED)
+					ret.put(modules[i], IServer.STATE_STARTED);
+				else if( state == JBoss7DeploymentState.STOPPED)
+					ret.put(modules[i], IServer.STATE_STOPPED);
+			}
+		} catch(Exception e ) {
+			String er = "Error occurred while checking module states on server {0}"; //$NON-NLS-1$
+			IStatus s = new Status(
+					IStatus.WARNING, JBossServerCorePlugin.PLUGIN_ID,
+					NLS.bind(er, server.getName()), e);
+			JBossServerCorePlugin.log(s);
+		}
+		return ret;
+	}
+	
 	public int changeModuleStateTo(IModule[] module, int state, IProgressMonitor monitor) throws CoreException {
 		AS7ManagementDetails details = new AS7ManagementDetails(getServer());
 		IControllableServerBehavior beh = JBossServerBehaviorUtils.getControllableBehavior(getServer());
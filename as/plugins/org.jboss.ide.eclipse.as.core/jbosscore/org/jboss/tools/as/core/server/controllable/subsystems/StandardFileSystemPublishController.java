@@ -12,9 +12,11 @@ package org.jboss.tools.as.core.server.controllable.subsystems;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
@@ -47,17 +49,21 @@ import org.jboss.ide.eclipse.as.core.util.ProgressMonitorUtil;
 import org.jboss.ide.eclipse.as.core.util.RemotePath;
 import org.jboss.ide.eclipse.as.wtp.core.modules.filter.patterns.ComponentModuleInclusionFilterUtility;
 import org.jboss.ide.eclipse.as.wtp.core.server.behavior.AbstractSubsystemController;
+import org.jboss.ide.eclipse.as.wtp.core.server.behavior.IBatchedFilesystemController;
+import org.jboss.ide.eclipse.as.wtp.core.server.behavior.IConcurrentPublishController;
 import org.jboss.ide.eclipse.as.wtp.core.server.behavior.IFilesystemController;
 import org.jboss.ide.eclipse.as.wtp.core.server.behavior.IModuleStateController;
 import org.jboss.ide.eclipse.as.wtp.core.server.behavior.IPrimaryPublishController;
 import org.jboss.ide.eclipse.as.wtp.core.server.behavior.IPublishController;
 import org.jboss.ide.eclipse.as.wtp.core.server.behavior.IPublishControllerDelegate;
+import org.jboss.ide.eclipse.as.wtp.core.server.behavior.LocalFilesystemController;
 import org.jboss.ide.eclipse.as.wtp.core.server.behavior.util.PublishControllerUtil;
 import org.jboss.ide.eclipse.as.wtp.core.server.launch.AbstractStartJavaServerLaunchDelegate;
 import org.jboss.ide.eclipse.as.wtp.core.server.publish.BinaryModulePublishRunner;
 import org.jboss.ide.eclipse.as.wtp.core.server.publish.LocalZippedModulePublishRunner;
 import org.jboss.ide.eclipse.as.wtp.core.server.publish.ModulePublishErrorCache;
 import org.jboss.ide.eclipse.as.wtp.core.server.publish.PublishModuleFullRunner;
+import org.jboss.ide.eclipse.as.wtp.core.server.publish.PublishManifest;
 import org.jboss.ide.eclipse.as.wtp.core.server.publish.PublishModuleIncrementalRunner;
 import org.jboss.ide.eclipse.as.wtp.core.util.ServerModelUtilities;
 import org.jboss.tools.as.core.server.controllable.systems.IDeploymentOptionsController;
@@ -73,7 +79,7 @@ import org.jboss.tools.as.core.server.controllable.systems.IModuleRestartBehavio
  * It has been demonstrated to work with legacy publishers. 
  */
 public class StandardFileSystemPublishController extends AbstractSubsystemController
-		implements IPublishController, IPrimaryPublishController {
+		implements IPublishController, IPrimaryPublishController, IConcurrentPublishController {
 
 	// Dependencies
 
@@ -127,10 +133,16 @@ public class StandardFileSystemPublishController extends AbstractSubsystemContro
 	/*
 	 * publishType and requiresRestart are used to cache deployment state 
 	 * until publishFinish is called, at which point we can 
-	 * touch descriptors or deploy markers appropriately
+	 * touch descriptors or deploy markers appropriately. 
+	 * They are updated by every module, which may be published concurrently. 
 	 */
-	private HashMap<IModule[], Integer> publishType = new HashMap<>();
-	private HashMap<IModule[], Boolean> requiresRestart = new HashMap<>();
+	private Map<IModule[], Integer> publishType = Collections.synchronizedMap(new HashMap<IModule[], Integer>());
+	
+	/*
+	 * The filesystem controller, if transfers are being batched for this publish cycle
+	 */
+	private IBatchedFilesystemController batchController;
+	private Map<IModule[], Boolean> requiresRestart = Collections.synchronizedMap(new HashMap<IModule[], Boolean>());
 	
 	
 	/**
@@ -202,6 +214,23 @@ public class StandardFileSystemPublishController extends AbstractSubsystemContro
 		return filesystemController;
 	}
 
+	/**
+	 * Get the manifest of files deployed by this server, 
+	 * used to skip copying files which have not changed. 
+	 * A manifest is only available when publishing to the local filesystem.
+	 * 
+	 * @return the manifest, or null if every file should be copied
+	 * @throws CoreException
+	 */
+	protected PublishManifest getPublishManifest() throws CoreException {
+		if( !(getFilesystemController() instanceof LocalFilesystemController))
+			return null;
+		if( !getServer().getAttribute(IJBossToolingConstants.PROPERTY_PUBLISH_SKIP_UNCHANGED, true))
+			return null;
+		return PublishManifest.getManifest(JBossServerCorePlugin.getServerStateLocation(getServer())
+				.append(PublishManifest.MANIFEST_FILE).toFile());
+	}
+
 	/**
 	 * Validate that all required dependencies load. 
 	 */
@@ -241,6 +270,25 @@ public class StandardFileSystemPublishController extends AbstractSubsystemContro
 		if( s != null && !s.isOK()) {
 			throw new CoreException(s);
 		}
+		batchController = null;
+		IFilesystemController fs = getFilesystemController();
+		if( fs instanceof IBatchedFilesystemController 
+				&& getServer().getAttribute(IJBossToolingConstants.PROPERTY_PUBLISH_BATCHED, false)) {
+			Trace.trace(Trace.STRING_FINER, "Batching file transfers for server " + getServer().getName()); //$NON-NLS-1$
+			batchController = (IBatchedFilesystemController)fs;
+			batchController.beginBatch();
+		}
+	}
+
+	/**
+	 * Top-level modules may be published concurrently,
+	 * unless transfers are batched for this publish. 
+	 * A batch is flushed after each module, and would carry 
+	 * the transfers of other modules along with it.
+	 */
+	@Override
+	public boolean supportsConcurrentPublish() {
+		return batchController == null;
 	}
 
 	@Override
@@ -248,11 +296,27 @@ public class StandardFileSystemPublishController extends AbstractSubsystemContro
 		Trace.trace(Trace.STRING_FINER, "publishFinish called on server " + getServer().getName()); //$NON-NLS-1$
 		validate();
 		IServer s = getServer();
+		
+		// Any remaining transfers must complete before markers are written
+		if( batchController != null ) {
+			IBatchedFilesystemController batch = batchController;
+			batchController = null;
+			IStatus ended = batch.endBatch(monitor);
+			if( ended != null && !ended.isOK() && ended.getSeverity() != IStatus.CANCEL)
+				ServerLogger.getDefault().log(s, ended);
+		}
+		
 		// handle markers / touch xml files depending on server version
 		ensureModulesRestarted();
 		
 		((Server)s).setServerPublishState(getUpdatedPublishState(s));
 		
+		PublishManifest manifest = getPublishManifest();
+		if( manifest != null ) {
+			IStatus saved = manifest.save();
+			if( !saved.isOK())
+				JBossServerCorePlugin.log(saved);
+		}
 
 		launchUpdateModuleStateJob();
 	}
@@ -298,6 +362,25 @@ public class StandardFileSystemPublishController extends AbstractSubsystemContro
 	public int publishModule(int kind,
 			int deltaKind, IModule[] module, IProgressMonitor monitor)
 			throws CoreException {
+		if( batchController == null )
+			return publishModuleInternal(kind, deltaKind, module, monitor);
+		
+		SubMonitor subMonitor = SubMonitor.convert(monitor, 10);
+		int result = publishModuleInternal(kind, deltaKind, module, subMonitor.split(5));
+		
+		// Transfers queued for this module are performed now, so failures are reported against it
+		IStatus flushed = batchController.flushBatch(subMonitor.split(5));
+		if( flushed != null && !flushed.isOK() && flushed.getSeverity() != IStatus.CANCEL) {
+			Integer type = publishType.get(module);
+			markModulePublished(module, type == null ? PublishControllerUtil.FULL_PUBLISH : type.intValue(), flushed, true);
+			return IServer.PUBLISH_STATE_FULL;
+		}
+		return result;
+	}
+	
+	private int publishModuleInternal(int kind,
+			int deltaKind, IModule[] module, IProgressMonitor monitor)
+			throws CoreException {
 		
 		Trace.trace(Trace.STRING_FINER, NLS.bind("publishModule called on server {0} with kind={1}, deltaKind={2}, module of size {3}: {4}",  //$NON-NLS-1$
 				new Object[]{getServer().getName(), Integer.valueOf(kind), Integer.valueOf(deltaKind), Integer.valueOf(module.length), moduleToString(module)})); 
@@ -384,6 +467,7 @@ public class StandardFileSystemPublishController extends AbstractSubsystemContro
 		} else if( publishType == PublishControllerUtil.INCREMENTAL_PUBLISH) {
 			Trace.trace(Trace.STRING_FINER, "   Executing incremental publish on module."); //$NON-NLS-1$
 			PublishModuleIncrementalRunner runner = new PublishModuleIncrementalRunner(getFilesystemController(), archiveDestination);
+			runner.setPublishManifest(getPublishManifest());
 			IModuleResourceDelta[] cleanDelta = filter != null ? filter.getFilteredDelta(getDeltaForModule(module)) : getDeltaForModule(module);
 			IModuleRestartBehaviorController moduleRestartController = getModuleRestartBehaviorController();
 			if( moduleRestartController != null ) 
@@ -450,6 +534,7 @@ public class StandardFileSystemPublishController extends AbstractSubsystemContro
 		IModuleResource[] all = ModuleResourceUtil.getMembers(module[module.length-1]);
 		IModuleResourceDelta[] delta = getDeltaForModule(module);
 		BinaryModulePublishRunner runner = new BinaryModulePublishRunner(module, deployFolder, archDestinationWithNameSegment, fc, all, delta);
+		runner.setPublishManifest(getPublishManifest());
 		if( PublishControllerUtil.REMOVE_PUBLISH == publishType) {
 			IStatus ms = null;
 			if( anyDeleted ) {
@@ -483,12 +568,17 @@ public class StandardFileSystemPublishController extends AbstractSubsystemContro
 		Server s = (Server)getServer();
 		ArrayList<IModule[]> kids = ServerModelUtilities.getDeepChildren(getServer(), module);
 		Iterator<IModule[]> it = kids.iterator();
-		while(it.hasNext()) {
-			s.setModulePublishState(it.next(), IServer.PUBLISH_STATE_FULL);
+		synchronized(s) {
+			// Other top-level modules may be publishing at the same time
+			while(it.hasNext()) {
+				s.setModulePublishState(it.next(), IServer.PUBLISH_STATE_FULL);
+			}
 		}
 		
 		
-		PublishModuleFullRunner runner = new PublishModuleFullRunner(getFilesystemController(), archiveDestination);
+		int workers = getServer().getAttribute(IJBossToolingConstants.PROPERTY_PUBLISH_WORKER_COUNT, 1);
+		PublishModuleFullRunner runner = new PublishModuleFullRunner(getFilesystemController(), archiveDestination, workers);
+		runner.setPublishManifest(getPublishManifest());
 		IModuleResource[] filtered = filter == null ? ModuleResourceUtil.getMembers(module[module.length-1]) : filter.getFilteredMembers();
 		IStatus[] ret = runner.fullPublish(filtered, monitor);
 		requiresRestart.put(module, true);
@@ -502,6 +592,9 @@ public class StandardFileSystemPublishController extends AbstractSubsystemContro
 		
 		Trace.trace(Trace.STRING_FINER, "Handling an unpublish"); //$NON-NLS-1$
 		IStatus results = getFilesystemController().deleteResource(remote, monitor);
+		PublishManifest manifest = getPublishManifest();
+		if( manifest != null )
+			manifest.removed(remote);
 		boolean error = results != null && !results.isOK();
 		if( error) {
 			MultiStatus ms = new MultiStatus(JBossServerCorePlugin.PLUGIN_ID, IEventCodes.JST_PUB_REMOVE_FAIL, 
@@ -540,6 +633,9 @@ public class StandardFileSystemPublishController extends AbstractSubsystemContro
 			LocalZippedModulePublishRunner runner = createZippedRunner(module, tmpArchive); 
 			monitor.beginTask("Packaging Module", 200); //$NON-NLS-1$
 			
+			// This may run while other top-level modules are packaged on other threads.
+			// TrueZip keeps every mounted archive in one registry, but locks each archive 
+			// on its own, and the runner only writes out its own temporary archive.
 			IStatus result = null;
 			boolean rebuiltFull = false;
 			boolean rebuiltInc = false;
@@ -562,6 +658,9 @@ public class StandardFileSystemPublishController extends AbstractSubsystemContro
 			if( (rebuiltFull || rebuiltInc) && (result == null || result.isOK())) {
 				if( tmpArchive.toFile().exists()) {
 					getFilesystemController().deleteResource(archiveDestination, ProgressMonitorUtil.submon(monitor, 10));
+					PublishManifest manifest = getPublishManifest();
+					if( manifest != null )
+						manifest.removed(archiveDestination);
 					result = getFilesystemController().copyFile(tmpArchive.toFile(), archiveDestination, ProgressMonitorUtil.submon(monitor, 90));
 				} else {
 					result = new Status(IStatus.ERROR, JBossServerCorePlugin.PLUGIN_ID, "Zipped archive not found"); //$NON-NLS-1$
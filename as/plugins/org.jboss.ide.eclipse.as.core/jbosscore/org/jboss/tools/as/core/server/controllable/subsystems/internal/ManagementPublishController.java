@@ -11,6 +11,8 @@
 package org.jboss.tools.as.core.server.controllable.subsystems.internal;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -23,6 +25,7 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.ProgressMonitorWrapper;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.debug.core.ILaunchManager;
@@ -33,6 +36,7 @@ import org.eclipse.wst.server.core.model.IModuleFile;
 import org.eclipse.wst.server.core.model.IModuleResource;
 import org.eclipse.wst.server.core.model.IModuleResourceDelta;
 import org.jboss.ide.eclipse.as.core.JBossServerCorePlugin;
+import org.jboss.ide.eclipse.as.core.Trace;
 import org.jboss.ide.eclipse.as.core.extensions.events.ServerLogger;
 import org.jboss.ide.eclipse.as.core.modules.ResourceModuleResourceUtil;
 import org.jboss.ide.eclipse.as.core.server.IModulePathFilter;
@@ -44,8 +48,10 @@ import org.jboss.ide.eclipse.as.core.util.IJBossToolingConstants;
 import org.jboss.ide.eclipse.as.core.util.JBossServerBehaviorUtils;
 import org.jboss.ide.eclipse.as.core.util.ModuleResourceUtil;
 import org.jboss.ide.eclipse.as.core.util.ProgressMonitorUtil;
+import org.jboss.ide.eclipse.as.management.core.IDeploymentContentWriter;
 import org.jboss.ide.eclipse.as.management.core.IJBoss7DeploymentResult;
 import org.jboss.ide.eclipse.as.management.core.IJBoss7ManagerService;
+import org.jboss.ide.eclipse.as.management.core.IStreamingDeploymentManagerService;
 import org.jboss.ide.eclipse.as.management.core.IncrementalDeploymentManagerService;
 import org.jboss.ide.eclipse.as.management.core.IncrementalManagementModel;
 import org.jboss.ide.eclipse.as.management.core.JBoss7DeploymentState;
@@ -62,6 +68,7 @@ import org.jboss.ide.eclipse.as.wtp.core.server.behavior.IPublishControllerDeleg
 import org.jboss.ide.eclipse.as.wtp.core.server.behavior.util.PublishControllerUtil;
 import org.jboss.ide.eclipse.as.wtp.core.server.launch.AbstractStartJavaServerLaunchDelegate;
 import org.jboss.ide.eclipse.as.wtp.core.server.publish.LocalZippedModulePublishRunner;
+import org.jboss.ide.eclipse.as.wtp.core.server.publish.StreamingZippedModulePublishRunner;
 import org.jboss.ide.eclipse.as.wtp.core.util.ServerModelUtilities;
 import org.jboss.tools.as.core.server.controllable.internal.DeployableServerBehavior;
 import org.jboss.tools.as.core.server.controllable.systems.IModuleDeployPathController;
@@ -288,6 +295,10 @@ public class ManagementPublishController extends AbstractSubsystemController
 		}
 		
 		
+		if( !isBinaryObject && shouldStreamFullPublish()) {
+			return streamedFullPublish(module, monitor);
+		}
+		
 		File toTransfer = getFullPublishFilesToTransfer(module, monitor);
 		
 		if( toTransfer != null ) {
@@ -336,6 +347,82 @@ public class ManagementPublishController extends AbstractSubsystemController
 	}
 
 	
+	/*
+	 * Streaming is opt-in, and requires a management service which supports it
+	 */
+	private boolean shouldStreamFullPublish() {
+		if( !getServer().getAttribute(IJBossToolingConstants.PROPERTY_PUBLISH_STREAMED, false))
+			return false;
+		IJBoss7ManagerService serv = getService();
+		return serv instanceof IStreamingDeploymentManagerService 
+				&& ((IStreamingDeploymentManagerService)serv).supportsStreamingDeployment();
+	}
+	
+	/*
+	 * Zip the module directly into the management upload, 
+	 * so no temporary archive is written to disk and read back
+	 */
+	private int streamedFullPublish(IModule[] module, IProgressMonitor monitor) throws CoreException {
+		String tName = getDeploymentOutputName(getServer(), module[0]);
+		MultiStatus ms = new MultiStatus(JBossServerCorePlugin.PLUGIN_ID, IEventCodes.JST_PUB_FAIL, "Deployment of module " + module[0].getName() + " has failed", null);  //$NON-NLS-1$//$NON-NLS-2$
+		IProgressMonitor transferMonitor = ProgressMonitorUtil.submon(monitor, 1000);
+		transferMonitor.beginTask("Transfering " + tName, 100); //$NON-NLS-1$
+		
+		JBoss7DeploymentState state = getService().getDeploymentState(managementDetails, tName);
+		if( state != JBoss7DeploymentState.NOT_FOUND) {
+			monitor.setTaskName("Undeploying: " + tName); //$NON-NLS-1$
+			IJBoss7DeploymentResult removeResult = getService().undeploySync(managementDetails, tName, true,  ProgressMonitorUtil.submon(transferMonitor, 5));
+			ms.add(removeResult.getStatus());
+		} else {
+			transferMonitor.worked(5);
+		}
+		
+		monitor.setTaskName("Zipping and transfering: " + tName); //$NON-NLS-1$
+		final StreamingZippedModulePublishRunner runner = createStreamingRunner(module[0]);
+		final IProgressMonitor zipMonitor = ProgressMonitorUtil.submon(transferMonitor, 45);
+		zipMonitor.beginTask("Zipping " + tName, WriterMonitor.TICKS); //$NON-NLS-1$
+		// The writer runs on its own thread, and must not touch the publish monitors
+		final WriterMonitor writerMonitor = new WriterMonitor(monitor);
+		final IStatus[] zipResult = new IStatus[1];
+		IDeploymentContentWriter writer = new IDeploymentContentWriter() {
+			public void write(OutputStream out) throws IOException {
+				zipResult[0] = runner.writeModule(out, writerMonitor);
+				if( !zipResult[0].isOK())
+					throw new IOException(zipResult[0].getMessage());
+			}
+		};
+		// The service checks this monitor for cancellation while it waits, on the publish thread
+		IProgressMonitor uploadMonitor = new ProgressMonitorWrapper(ProgressMonitorUtil.submon(transferMonitor, 50)) {
+			public boolean isCanceled() {
+				writerMonitor.reportTo(zipMonitor);
+				return super.isCanceled();
+			}
+		};
+		
+		long start = System.currentTimeMillis();
+		IStreamingDeploymentManagerService serv = (IStreamingDeploymentManagerService)getService();
+		try {
+			IJBoss7DeploymentResult result = serv.deploySync(managementDetails, tName, writer, 
+					true, getExplodePaths(module), uploadMonitor);
+			writerMonitor.reportTo(zipMonitor);
+			zipMonitor.done();
+			ms.add(result.getStatus());
+		} catch(JBoss7ManangerException j7me) {
+			if( zipResult[0] != null && !zipResult[0].isOK())
+				ms.add(zipResult[0]);
+			else
+				ms.add(new Status(IStatus.ERROR, JBossServerCorePlugin.PLUGIN_ID, j7me.getMessage(), j7me));
+		}
+		Trace.trace(Trace.STRING_FINER, "Streamed " + runner.getBytesRead() + " bytes of module " + tName  //$NON-NLS-1$ //$NON-NLS-2$
+				+ " to server " + getServer().getName() + " in " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		transferMonitor.done();
+		if( ms.isOK()) {
+			return IServer.PUBLISH_STATE_NONE;
+		}
+		JBossServerCorePlugin.log(ms);
+		return IServer.PUBLISH_STATE_FULL;
+	}
+	
 	private File getFullPublishFilesToTransfer(IModule[] module, IProgressMonitor monitor) throws CoreException {
 		monitor.setTaskName("Zipping module: " + module[0].getName()); //$NON-NLS-1$
 		IProgressMonitor submon = ProgressMonitorUtil.submon(monitor, 200);
@@ -455,6 +542,62 @@ public class ManagementPublishController extends AbstractSubsystemController
 		return new LocalZippedModulePublishRunner(getServer(), m,p, getModulePathFilterProvider());
 	}
 
+	private StreamingZippedModulePublishRunner createStreamingRunner(IModule m) {
+		return new StreamingZippedModulePublishRunner(getServer(), m, getModulePathFilterProvider());
+	}
+
+	/*
+	 * The monitor of a streamed zip, which is written on the upload's own thread.
+	 * Progress monitors may only be used by the thread which owns them, 
+	 * so this one only forwards cancellation from the publish monitor 
+	 * and records the work done. The publish thread reports that work. 
+	 */
+	private static class WriterMonitor extends NullProgressMonitor {
+		private static final int TICKS = 1000;
+		private IProgressMonitor publishMonitor;
+		private volatile double totalWork = 0;
+		private volatile double worked = 0;
+		private int reported = 0;
+
+		public WriterMonitor(IProgressMonitor publishMonitor) {
+			this.publishMonitor = publishMonitor;
+		}
+
+		public void beginTask(String name, int totalWork) {
+			// Nested tasks report to this monitor through sub-monitors, scaled to the first task
+			if( this.totalWork == 0 && totalWork > 0 )
+				this.totalWork = totalWork;
+		}
+
+		public void worked(int work) {
+			internalWorked(work);
+		}
+
+		public void internalWorked(double work) {
+			// Only the writer thread updates the work done
+			worked += work;
+		}
+
+		public boolean isCanceled() {
+			return super.isCanceled() || publishMonitor.isCanceled();
+		}
+
+		/*
+		 * Report the work done since the last call. 
+		 * Must be called from the thread which owns the given monitor.
+		 */
+		public void reportTo(IProgressMonitor zipMonitor) {
+			double total = totalWork;
+			if( total <= 0 )
+				return;
+			int done = (int)Math.min(TICKS, TICKS * worked / total);
+			if( done > reported ) {
+				zipMonitor.worked(done - reported);
+				reported = done;
+			}
+		}
+	}
+
 	@Override
 	public int transferBuiltModule(IModule[] module, IPath srcFile,
 			IProgressMonitor monitor) throws CoreException {
@@ -48,6 +48,7 @@ public class AS70xManagementActivator extends Plugin {
 	 * @see org.eclipse.ui.plugin.AbstractUIPlugin#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext context) throws Exception {
+		AS70xManager.disposeClients();
 		plugin = null;
 		super.stop(context);
 	}
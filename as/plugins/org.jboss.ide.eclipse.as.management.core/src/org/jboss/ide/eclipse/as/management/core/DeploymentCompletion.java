@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.as.management.core;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Utility methods for waiting on the futures returned by the management clients. 
+ * 
+ * Waiting threads block on the future itself and wake up as soon as
+ * the server answers, instead of sleeping for a fixed interval between checks. 
+ * 
+ * @since 3.6
+ */
+public class DeploymentCompletion {
+	
+	/*
+	 * The longest a waiting thread goes without checking for cancellation
+	 */
+	private static final long CANCEL_CHECK_INTERVAL = 250;
+	
+	private static ExecutorService waiters = Executors.newCachedThreadPool(new ThreadFactory() {
+		private int count = 0;
+		public synchronized Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "Management operation waiter " + (++count)); //$NON-NLS-1$
+			t.setDaemon(true);
+			return t;
+		}
+	});
+	
+	/**
+	 * Run the given action once the given future completes, 
+	 * whether it succeeds, fails or is canceled. 
+	 * The action runs immediately if the future has already completed.
+	 * 
+	 * @param future
+	 * @param action
+	 */
+	public static void whenDone(final Future<?> future, final Runnable action) {
+		if( future.isDone()) {
+			action.run();
+			return;
+		}
+		waiters.execute(new Runnable() {
+			public void run() {
+				try {
+					future.get();
+				} catch(InterruptedException ie) {
+					Thread.currentThread().interrupt();
+				} catch(Exception e) {
+					// Completed exceptionally or canceled
+				} finally {
+					action.run();
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Block until the given future completes or the monitor is canceled. 
+	 * 
+	 * @param future
+	 * @param monitor
+	 * @return true if the future completed, false if the monitor was canceled first
+	 */
+	public static boolean await(Future<?> future, IProgressMonitor monitor) {
+		while( !future.isDone()) {
+			if( monitor.isCanceled())
+				return false;
+			try {
+				future.get(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+			} catch(TimeoutException te) {
+				monitor.worked(1);
+			} catch(InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				return future.isDone();
+			} catch(Exception e) {
+				// Completed exceptionally. The caller will find out from the future
+				return true;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.as.management.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An input stream fed by an {@link IDeploymentContentWriter}
+ * running on its own thread. This allows a deployment to be uploaded
+ * by a management client while it is still being written,
+ * without the content ever being stored in a file.
+ *
+ * At most a small, fixed number of chunks are held in memory.
+ * A writer which gets ahead of the upload blocks until it catches up.
+ * A failure of the writer is reported to the reader of this stream,
+ * which aborts the upload. Closing this stream aborts the writer.
+ *
+ * {@link java.io.PipedInputStream} is not used because it fails
+ * whenever the thread which last read from it terminates,
+ * and the management client may read from any of its pool threads.
+ *
+ * @since 3.6
+ */
+public class DeploymentContentPipe extends InputStream {
+	private static final int CHUNK_SIZE = 65536;
+	private static final int MAX_CHUNKS = 16;
+	private static final long POLL_INTERVAL = 250;
+	private static final byte[] END = new byte[0];
+
+	/**
+	 * Begin running the given writer in the background,
+	 * and return a stream of its output.
+	 *
+	 * @param writer
+	 * @param name a name for the content, used to name the writer thread
+	 * @return
+	 */
+	public static DeploymentContentPipe open(IDeploymentContentWriter writer, String name) {
+		DeploymentContentPipe pipe = new DeploymentContentPipe(writer);
+		Thread t = new Thread(pipe.new WriterRunnable(), "Writing deployment " + name); //$NON-NLS-1$
+		t.setDaemon(true);
+		t.start();
+		return pipe;
+	}
+
+	private IDeploymentContentWriter writer;
+	private BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<byte[]>(MAX_CHUNKS);
+	private volatile boolean closed = false;
+	private volatile IOException writeFailure;
+	private volatile long transferred = 0;
+	private byte[] current;
+	private int position;
+	private boolean ended = false;
+
+	private DeploymentContentPipe(IDeploymentContentWriter writer) {
+		this.writer = writer;
+	}
+
+	/**
+	 * Get the failure of the writer, if any
+	 * @return
+	 */
+	public IOException getWriteFailure() {
+		return writeFailure;
+	}
+
+	/**
+	 * Get the number of bytes read from this stream so far
+	 * @return
+	 */
+	public long getBytesTransferred() {
+		return transferred;
+	}
+
+	public int read() throws IOException {
+		byte[] one = new byte[1];
+		int count = read(one, 0, 1);
+		return count == -1 ? -1 : one[0] & 0xFF;
+	}
+
+	public int read(byte[] b, int off, int len) throws IOException {
+		if( len == 0 )
+			return 0;
+		if( !fill())
+			return -1;
+		int count = Math.min(len, current.length - position);
+		System.arraycopy(current, position, b, off, count);
+		position += count;
+		transferred += count;
+		return count;
+	}
+
+	public int available() throws IOException {
+		return current == null ? 0 : current.length - position;
+	}
+
+	/*
+	 * Ensure a chunk with unread data is current.
+	 * Return false at the end of the content.
+	 */
+	private boolean fill() throws IOException {
+		if( closed )
+			throw new IOException("Stream closed"); //$NON-NLS-1$
+		while( !ended && (current == null || position >= current.length)) {
+			byte[] next = null;
+			try {
+				next = chunks.take();
+			} catch(InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+			if( next == END ) {
+				ended = true;
+			} else {
+				current = next;
+				position = 0;
+			}
+		}
+		if( ended ) {
+			if( writeFailure != null )
+				throw new IOException("Unable to write deployment content", writeFailure); //$NON-NLS-1$
+			return false;
+		}
+		return true;
+	}
+
+	public void close() {
+		closed = true;
+		// Unblock a writer waiting for room
+		chunks.clear();
+	}
+
+	/*
+	 * Hand a chunk to the reader, waiting while the queue is full
+	 */
+	private void put(byte[] chunk) throws IOException {
+		try {
+			while( !chunks.offer(chunk, POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+				if( closed )
+					throw new IOException("Deployment upload was closed"); //$NON-NLS-1$
+			}
+		} catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+	}
+
+	private class ChunkOutputStream extends OutputStream {
+		private byte[] buffer = new byte[CHUNK_SIZE];
+		private int count = 0;
+
+		public void write(int b) throws IOException {
+			if( count == buffer.length )
+				flushChunk();
+			buffer[count++] = (byte)b;
+		}
+
+		public void write(byte[] b, int off, int len) throws IOException {
+			while( len > 0 ) {
+				if( count == buffer.length )
+					flushChunk();
+				int toCopy = Math.min(len, buffer.length - count);
+				System.arraycopy(b, off, buffer, count, toCopy);
+				count += toCopy;
+				off += toCopy;
+				len -= toCopy;
+			}
+		}
+
+		public void flush() throws IOException {
+			if( count > 0 )
+				flushChunk();
+		}
+
+		private void flushChunk() throws IOException {
+			if( closed )
+				throw new IOException("Deployment upload was closed"); //$NON-NLS-1$
+			put(count == buffer.length ? buffer : Arrays.copyOf(buffer, count));
+			buffer = new byte[CHUNK_SIZE];
+			count = 0;
+		}
+
+		public void close() throws IOException {
+			// The writer does not own this stream
+		}
+	}
+
+	private class WriterRunnable implements Runnable {
+		public void run() {
+			ChunkOutputStream out = new ChunkOutputStream();
+			try {
+				writer.write(out);
+				out.flush();
+			} catch(IOException ioe) {
+				writeFailure = ioe;
+			} catch(RuntimeException re) {
+				writeFailure = new IOException(re);
+			} finally {
+				try {
+					put(END);
+				} catch(IOException ioe) {
+					// The reader is gone
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.as.management.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the content of a deployment, such as a zipped module,
+ * so that it can be uploaded while it is still being assembled.
+ *
+ * @since 3.6
+ */
+public interface IDeploymentContentWriter {
+	/**
+	 * Write the complete deployment content to the given stream.
+	 * The stream must not be closed by the writer.
+	 *
+	 * @param out
+	 * @throws IOException if the content could not be written, or writing was canceled
+	 */
+	public void write(OutputStream out) throws IOException;
+}
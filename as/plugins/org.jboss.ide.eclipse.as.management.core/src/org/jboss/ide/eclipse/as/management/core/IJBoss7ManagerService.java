@@ -11,6 +11,7 @@
 package org.jboss.ide.eclipse.as.management.core;
 
 import java.io.File;
+import java.util.Map;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 
@@ -135,6 +136,19 @@ public interface IJBoss7ManagerService {
 	 */
 	public JBoss7DeploymentState getDeploymentState(IAS7ManagementDetails details, String deploymentName) throws JBoss7ManangerException;
 
+	/**
+	 * Returns the state of every deployment on the server 
+	 * in a single management operation.
+	 * Deployments which are not present on the server are not included.
+	 * 
+	 * @param details     The IAs7ManagementDetails including things like credentials, host, port
+	 * @return a map of deployment name to deployment state
+	 * 
+	 * @throws JBoss7ManangerException
+	 * @since 3.6
+	 */
+	public Map<String, JBoss7DeploymentState> getDeploymentStates(IAS7ManagementDetails details) throws JBoss7ManangerException;
+
 	/**
 	 * Returns the state of the server 
 	 * 
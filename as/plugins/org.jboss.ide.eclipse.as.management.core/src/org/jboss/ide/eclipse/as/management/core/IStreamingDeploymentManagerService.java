@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.as.management.core;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * An optional extension to a management service for deploying
+ * content which is uploaded as it is written, rather than
+ * first being assembled in a file.
+ *
+ * @since 3.6
+ */
+public interface IStreamingDeploymentManagerService {
+
+	/**
+	 * Returns whether this service can deploy streamed content.
+	 * A proxy may implement this interface on behalf of a service which does not.
+	 *
+	 * @return
+	 */
+	public boolean supportsStreamingDeployment();
+
+	/**
+	 * Synchronously add and deploy content produced by the given writer.
+	 * The writer is run on a separate thread, and its output is
+	 * sent to the server as it is produced.
+	 *
+	 * @param details
+	 * @param deploymentName
+	 * @param content
+	 * @param add
+	 * @param explodePaths
+	 * @param monitor
+	 * @return
+	 * @throws JBoss7ManangerException if the content could not be written or the deployment failed
+	 */
+	public IJBoss7DeploymentResult deploySync(IAS7ManagementDetails details, String deploymentName,
+			IDeploymentContentWriter content, boolean add, String[] explodePaths,
+			IProgressMonitor monitor) throws JBoss7ManangerException;
+}
@@ -12,6 +12,7 @@ package org.jboss.ide.eclipse.as.management.core;
 
 import java.io.File;
 import java.text.MessageFormat;
+import java.util.Map;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.osgi.framework.BundleContext;
@@ -22,7 +23,7 @@ import org.osgi.util.tracker.ServiceTracker;
  * @author André Dietisheim
  */
 public class JBoss7ManagerServiceProxy extends ServiceTracker<IJBoss7ManagerService, IJBoss7ManagerService>
-		implements IJBoss7ManagerService, IncrementalDeploymentManagerService {
+		implements IJBoss7ManagerService, IncrementalDeploymentManagerService, IStreamingDeploymentManagerService {
 
 	private String serviceVersion;
 	public JBoss7ManagerServiceProxy(BundleContext context, String serviceVersion) throws InvalidSyntaxException {
@@ -67,6 +68,10 @@ public class JBoss7ManagerServiceProxy extends ServiceTracker<IJBoss7ManagerServ
 		return checkedGetService().getDeploymentState(details, deploymentName);
 	}
 
+	public Map<String, JBoss7DeploymentState> getDeploymentStates(IAS7ManagementDetails details) throws JBoss7ManangerException {
+		return checkedGetService().getDeploymentStates(details);
+	}
+
 	public JBoss7ServerState getServerState(IAS7ManagementDetails details) throws JBoss7ManangerException {
 		return checkedGetService().getServerState(details);
 	}
@@ -146,4 +151,22 @@ public class JBoss7ManagerServiceProxy extends ServiceTracker<IJBoss7ManagerServ
 		throw new UnsupportedOperationException();
 	}
 
+	@Override
+	public boolean supportsStreamingDeployment() {
+		IJBoss7ManagerService serv = checkedGetService();
+		return serv instanceof IStreamingDeploymentManagerService 
+				&& ((IStreamingDeploymentManagerService)serv).supportsStreamingDeployment();
+	}
+
+	@Override
+	public IJBoss7DeploymentResult deploySync(IAS7ManagementDetails details, String deploymentName,
+			IDeploymentContentWriter content, boolean add, String[] explodePaths, IProgressMonitor monitor)
+			throws JBoss7ManangerException {
+		IJBoss7ManagerService serv = checkedGetService();
+		if( serv instanceof IStreamingDeploymentManagerService) {
+			return ((IStreamingDeploymentManagerService)serv).deploySync(details, deploymentName, content, add, explodePaths, monitor);
+		}
+		throw new UnsupportedOperationException();
+	}
+
 }
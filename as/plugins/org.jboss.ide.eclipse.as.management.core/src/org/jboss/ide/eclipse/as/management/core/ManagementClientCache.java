@@ -0,0 +1,315 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.as.management.core;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A cache of long-lived management clients, so that repeated management
+ * requests against the same server reuse a single authenticated connection
+ * rather than opening and tearing down a new one for every request.
+ *
+ * Clients are keyed by host, port, protocol, timeout and credentials.
+ * Any number of callers may lease the same client at once.
+ * A client which has not been leased for some time is closed,
+ * and a client which has been idle for a shorter period is checked
+ * before being handed out again. A caller which finds its client broken
+ * should invalidate it, so the next caller receives a new connection.
+ *
+ * @since 3.6
+ */
+public class ManagementClientCache<T extends Closeable> {
+
+	/**
+	 * Creates and verifies the clients held by a cache
+	 */
+	public interface IClientFactory<T> {
+		/**
+		 * Create a new, unshared client for the given details
+		 */
+		public T createClient(IAS7ManagementDetails details) throws JBoss7ManangerException;
+
+		/**
+		 * Verify the given client can still reach the server.
+		 * This should make a single cheap request.
+		 */
+		public boolean isAlive(T client);
+	}
+
+	/**
+	 * Clients not leased for this long are closed
+	 */
+	public static final long IDLE_TIMEOUT = 120000;
+
+	/**
+	 * Clients not leased for this long are checked before reuse
+	 */
+	public static final long HEALTH_CHECK_INTERVAL = 15000;
+
+	/*
+	 * The maximum time to wait for a client to close
+	 */
+	private static final long CLOSE_TIMEOUT = 5000;
+
+	private static class Key {
+		private String host, protocol, user, pass;
+		private int port;
+		private Object timeout;
+
+		public Key(IAS7ManagementDetails details) {
+			this.host = details.getHost();
+			this.port = details.getManagementPort();
+			this.protocol = details.getProtocol();
+			this.user = details.getManagementUsername();
+			this.pass = details.getManagementPassword();
+			this.timeout = details.getProperty(IAS7ManagementDetails.PROPERTY_TIMEOUT);
+		}
+
+		public boolean equals(Object o) {
+			if( !(o instanceof Key))
+				return false;
+			Key k = (Key)o;
+			return port == k.port && Objects.equals(host, k.host) && Objects.equals(protocol, k.protocol)
+					&& Objects.equals(user, k.user) && Objects.equals(pass, k.pass)
+					&& Objects.equals(timeout, k.timeout);
+		}
+
+		public int hashCode() {
+			return Objects.hash(host, Integer.valueOf(port), protocol, user, pass, timeout);
+		}
+	}
+
+	private static class Entry<T> {
+		private Key key;
+		private T client;
+		private int leases = 0;
+		private long lastUsed;
+		private boolean invalid = false;
+		public Entry(Key key, T client) {
+			this.key = key;
+			this.client = client;
+			this.lastUsed = System.currentTimeMillis();
+		}
+	}
+
+	private String name;
+	private HashMap<Key, Entry<T>> entries = new HashMap<Key, Entry<T>>();
+	private IdentityHashMap<T, Entry<T>> leased = new IdentityHashMap<T, Entry<T>>();
+	private ScheduledExecutorService reaper;
+
+	/**
+	 * @param name a name for this cache, used to name its background thread
+	 */
+	public ManagementClientCache(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Lease a client for the given details, creating one if required.
+	 * Every client leased must be returned with {@link #release(Closeable)}
+	 *
+	 * @param details
+	 * @param factory
+	 * @return
+	 * @throws JBoss7ManangerException
+	 */
+	public T acquire(IAS7ManagementDetails details, IClientFactory<T> factory) throws JBoss7ManangerException {
+		Key key = new Key(details);
+		Entry<T> toCheck = null;
+		synchronized(this) {
+			Entry<T> e = entries.get(key);
+			if( e != null && !e.invalid ) {
+				if( e.leases > 0 || System.currentTimeMillis() - e.lastUsed < HEALTH_CHECK_INTERVAL) {
+					return lease(e);
+				}
+				// Idle for a while. Lease it now so it is not reaped during the check
+				toCheck = e;
+				lease(toCheck);
+			}
+		}
+
+		if( toCheck != null ) {
+			if( factory.isAlive(toCheck.client)) {
+				return toCheck.client;
+			}
+			invalidate(toCheck.client);
+			release(toCheck.client);
+		}
+
+		// Connect outside the lock; a slow server must not block other servers
+		T client = factory.createClient(details);
+		synchronized(this) {
+			Entry<T> e = entries.get(key);
+			if( e != null && !e.invalid ) {
+				// Someone else connected first. Use theirs
+				closeLater(client);
+				return lease(e);
+			}
+			e = new Entry<T>(key, client);
+			entries.put(key, e);
+			ensureReaper();
+			return lease(e);
+		}
+	}
+
+	private T lease(Entry<T> e) {
+		e.leases++;
+		e.lastUsed = System.currentTimeMillis();
+		leased.put(e.client, e);
+		return e.client;
+	}
+
+	/**
+	 * Return a leased client to the cache
+	 * @param client
+	 */
+	public synchronized void release(T client) {
+		Entry<T> e = leased.get(client);
+		if( e == null )
+			return;
+		e.leases--;
+		e.lastUsed = System.currentTimeMillis();
+		if( e.leases <= 0 ) {
+			leased.remove(client);
+			if( e.invalid )
+				closeLater(client);
+		}
+	}
+
+	/**
+	 * Mark a client as broken. It will not be leased again,
+	 * and will be closed once every current lease is released.
+	 *
+	 * @param client
+	 */
+	public synchronized void invalidate(T client) {
+		Entry<T> e = leased.get(client);
+		if( e == null || e.invalid )
+			return;
+		e.invalid = true;
+		if( entries.get(e.key) == e )
+			entries.remove(e.key);
+	}
+
+	/**
+	 * Close every client and stop the background thread.
+	 * The cache may still be used afterwards.
+	 */
+	public void dispose() {
+		List<T> toClose = new ArrayList<T>();
+		ScheduledExecutorService oldReaper = null;
+		synchronized(this) {
+			Iterator<Entry<T>> it = entries.values().iterator();
+			while(it.hasNext()) {
+				toClose.add(it.next().client);
+			}
+			entries.clear();
+			leased.clear();
+			oldReaper = reaper;
+			reaper = null;
+		}
+		if( oldReaper != null )
+			oldReaper.shutdownNow();
+		Iterator<T> it = toClose.iterator();
+		while(it.hasNext()) {
+			closeQuietly(it.next());
+		}
+	}
+
+	/*
+	 * Close every client which has not been leased within the idle timeout
+	 */
+	private void evictIdle() {
+		List<T> toClose = new ArrayList<T>();
+		synchronized(this) {
+			long now = System.currentTimeMillis();
+			Iterator<Entry<T>> it = entries.values().iterator();
+			while(it.hasNext()) {
+				Entry<T> e = it.next();
+				if( e.leases <= 0 && now - e.lastUsed > IDLE_TIMEOUT) {
+					it.remove();
+					toClose.add(e.client);
+				}
+			}
+		}
+		Iterator<T> it = toClose.iterator();
+		while(it.hasNext()) {
+			closeQuietly(it.next());
+		}
+	}
+
+	private synchronized void ensureReaper() {
+		if( reaper != null )
+			return;
+		ScheduledThreadPoolExecutor ex = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Management client cache: " + name); //$NON-NLS-1$
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		ex.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				evictIdle();
+			}
+		}, IDLE_TIMEOUT, IDLE_TIMEOUT / 4, TimeUnit.MILLISECONDS);
+		reaper = ex;
+	}
+
+	// Close on the background thread to ensure the caller returns immediately
+	private synchronized void closeLater(final T client) {
+		Runnable r = new Runnable() {
+			public void run() {
+				closeQuietly(client);
+			}
+		};
+		if( reaper == null ) {
+			Thread t = new Thread(r, "Closing client"); //$NON-NLS-1$
+			t.setDaemon(true);
+			t.start();
+		} else {
+			reaper.execute(r);
+		}
+	}
+
+	// Close a client, giving up after a maximum duration
+	private void closeQuietly(final T client) {
+		Runnable r = new Runnable() {
+			public void run() {
+				try {
+					client.close();
+				} catch (Exception e) {
+					// Ignore
+				}
+			}
+		};
+		Thread t = new Thread(r, "Closing client"); //$NON-NLS-1$
+		t.setDaemon(true);
+		try {
+			t.start();
+			t.join(CLOSE_TIMEOUT);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			t.interrupt();
+		}
+	}
+}
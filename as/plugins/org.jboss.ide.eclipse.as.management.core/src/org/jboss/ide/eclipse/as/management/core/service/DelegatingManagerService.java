@@ -11,6 +11,7 @@
 package org.jboss.ide.eclipse.as.management.core.service;
 
 import java.io.File;
+import java.util.Map;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -79,8 +80,8 @@ public abstract class DelegatingManagerService implements IJBoss7ManagerService
 
 	
 	/* 
-	 * This asynch method does not really work. 
-	 * They dispose the manager before the result has come through
+	 * The delegate disposes its manager only once the result has come through, 
+	 * so the shared connection it leased stays open until then
 	 */
 	public IJBoss7DeploymentResult deployAsync(IAS7ManagementDetails details, String deploymentName,
 			File file, boolean add, IProgressMonitor monitor) throws JBoss7ManangerException {
@@ -88,8 +89,8 @@ public abstract class DelegatingManagerService implements IJBoss7ManagerService
 		return getDelegateService().deployAsync(details, deploymentName, file, add, monitor);
 	}
 	/* 
-	 * This asynch method does not really work. 
-	 * They dispose the manager before the result has come through
+	 * The delegate disposes its manager only once the result has come through, 
+	 * so the shared connection it leased stays open until then
 	 */
 	public IJBoss7DeploymentResult undeployAsync(IAS7ManagementDetails details, String deploymentName,
 			boolean removeFile, IProgressMonitor monitor) throws JBoss7ManangerException {
@@ -114,6 +115,11 @@ public abstract class DelegatingManagerService implements IJBoss7ManagerService
 		return getDelegateService().getDeploymentState(details, deploymentName);
 	}
 	
+	public Map<String, JBoss7DeploymentState> getDeploymentStates(IAS7ManagementDetails details) throws JBoss7ManangerException {
+		checkDelegate();
+		return getDelegateService().getDeploymentStates(details);
+	}
+	
 	public JBoss7ServerState getServerState(IAS7ManagementDetails details) throws JBoss7ManangerException {
 		checkDelegate();
 		return getDelegateService().getServerState(details);
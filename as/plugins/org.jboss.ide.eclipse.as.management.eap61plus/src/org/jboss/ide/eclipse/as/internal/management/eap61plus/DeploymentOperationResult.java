@@ -14,12 +14,14 @@ import java.text.MessageFormat;
 import java.util.concurrent.Future;
 
 import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.osgi.util.NLS;
 import org.jboss.as.controller.client.helpers.standalone.DeploymentAction;
 import org.jboss.as.controller.client.helpers.standalone.ServerDeploymentActionResult;
 import org.jboss.as.controller.client.helpers.standalone.ServerDeploymentPlanResult;
+import org.jboss.ide.eclipse.as.management.core.DeploymentCompletion;
 import org.jboss.ide.eclipse.as.management.core.IJBoss7DeploymentResult;
 import org.jboss.ide.eclipse.as.management.core.JBoss7ManangerException;
 
@@ -55,6 +57,26 @@ public class DeploymentOperationResult implements IJBoss7DeploymentResult {
 		}
 	}
 
+	/**
+	 * Run the given action once the server has answered, 
+	 * or the operation has failed or been canceled
+	 * 
+	 * @param action
+	 */
+	void whenDone(Runnable action) {
+		DeploymentCompletion.whenDone(planResult, action);
+	}
+
+	/**
+	 * Block until the server answers or the monitor is canceled
+	 * 
+	 * @param monitor
+	 * @return true if the server answered
+	 */
+	boolean await(IProgressMonitor monitor) {
+		return DeploymentCompletion.await(planResult, monitor);
+	}
+
 	private IStatus createStatus(String deploymentName, String actionName, ServerDeploymentActionResult actionResult) {
 		if (actionResult == null) {
 			return null;
@@ -48,6 +48,7 @@ public class EAP61PlusManagementActivator extends Plugin {
 	 * @see org.eclipse.ui.plugin.AbstractUIPlugin#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext context) throws Exception {
+		EAP61PlusManager.disposeClients();
 		plugin = null;
 		super.stop(context);
 	}
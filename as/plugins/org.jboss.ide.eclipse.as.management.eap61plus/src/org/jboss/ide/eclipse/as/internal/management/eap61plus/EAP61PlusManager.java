@@ -20,6 +20,7 @@ import static org.jboss.ide.eclipse.as.management.core.ModelDescriptionConstants
 import static org.jboss.ide.eclipse.as.management.core.ModelDescriptionConstants.OP_ADDR;
 import static org.jboss.ide.eclipse.as.management.core.ModelDescriptionConstants.READ_ATTRIBUTE_OPERATION;
 import static org.jboss.ide.eclipse.as.management.core.ModelDescriptionConstants.READ_CHILDREN_NAMES_OPERATION;
+import static org.jboss.ide.eclipse.as.management.core.ModelDescriptionConstants.READ_CHILDREN_RESOURCES_OPERATION;
 import static org.jboss.ide.eclipse.as.management.core.ModelDescriptionConstants.READ_RESOURCE_OPERATION;
 import static org.jboss.ide.eclipse.as.management.core.ModelDescriptionConstants.RESULT;
 import static org.jboss.ide.eclipse.as.management.core.ModelDescriptionConstants.SERVER_STATE;
@@ -28,8 +29,10 @@ import static org.jboss.ide.eclipse.as.management.core.ModelDescriptionConstants
 import java.io.File;
 import java.io.IOException;
 import java.net.UnknownHostException;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Future;
 
@@ -50,36 +53,76 @@ import org.jboss.as.controller.client.helpers.standalone.DeploymentPlanBuilder;
 import org.jboss.as.controller.client.helpers.standalone.ServerDeploymentManager;
 import org.jboss.as.controller.client.helpers.standalone.ServerDeploymentPlanResult;
 import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.Property;
 import org.jboss.ide.eclipse.as.management.core.IAS7ManagementDetails;
 import org.jboss.ide.eclipse.as.management.core.IJBoss7DeploymentResult;
 import org.jboss.ide.eclipse.as.management.core.JBoss7DeploymentState;
 import org.jboss.ide.eclipse.as.management.core.JBoss7ManangerException;
 import org.jboss.ide.eclipse.as.management.core.JBoss7ServerState;
+import org.jboss.ide.eclipse.as.management.core.ManagementClientCache;
+import org.jboss.ide.eclipse.as.management.core.ManagementClientCache.IClientFactory;
 
 /**
  * @author André Dietisheim
  */
 public class EAP61PlusManager {
 	public static final int DEFAULT_REQUEST_TIMEOUT = 5000;
+	/*
+	 * Connections are shared by every manager for the same server and credentials
+	 */
+	private static final ManagementClientCache<ModelControllerClient> CLIENTS = 
+			new ManagementClientCache<ModelControllerClient>("EAP 6.1+"); //$NON-NLS-1$
+
 	private ModelControllerClient client;
 	private ServerDeploymentManager manager;
 	private IAS7ManagementDetails details;
 
 	public EAP61PlusManager(IAS7ManagementDetails details) throws JBoss7ManangerException {
+		this.details = details;
+		this.client = CLIENTS.acquire(details, new IClientFactory<ModelControllerClient>() {
+			public ModelControllerClient createClient(IAS7ManagementDetails details) throws JBoss7ManangerException {
+				return EAP61PlusManager.this.createClient();
+			}
+			public boolean isAlive(ModelControllerClient client) {
+				return EAP61PlusManager.this.isAlive(client);
+			}
+		});
+		this.manager = ServerDeploymentManager.Factory.create(client);
+	}
+
+	private ModelControllerClient createClient() throws JBoss7ManangerException {
 		try {
-			this.details = details;
 			Object timeout = details.getProperty(IAS7ManagementDetails.PROPERTY_TIMEOUT);
 			int timeout2 = !(timeout instanceof Integer) ? DEFAULT_REQUEST_TIMEOUT : 
 							((Integer)timeout).intValue();
-			this.client = ModelControllerClient.Factory.create(
+			return ModelControllerClient.Factory.create(
 					details.getHost(), details.getManagementPort(),
 					getCallbackHandler(), null, timeout2);
-			this.manager = ServerDeploymentManager.Factory.create(client);
 		} catch(UnknownHostException uhe) {
 			throw new JBoss7ManangerException(uhe);
 		}
 	}
 
+	// A cheap request to verify a cached connection is still usable
+	private boolean isAlive(ModelControllerClient client) {
+		ModelNode request = new ModelNode();
+		request.get(OP).set(READ_ATTRIBUTE_OPERATION);
+		request.get(NAME).set(SERVER_STATE);
+		try {
+			client.execute(request);
+			return true;
+		} catch(IOException ioe) {
+			return false;
+		}
+	}
+
+	/**
+	 * Close all cached connections
+	 */
+	public static void disposeClients() {
+		CLIENTS.dispose();
+	}
+
 	protected CallbackHandler getCallbackHandler() {
 		return new Tools71CallbackHandler();
 	}
@@ -128,21 +171,9 @@ public class EAP61PlusManager {
 	
 	private void waitFor(DeploymentOperationResult result, String task, IProgressMonitor monitor) throws JBoss7ManangerException {
 		SubMonitor progress = SubMonitor.convert(monitor);
-		while(!monitor.isCanceled() && !result.isDone()) {
-            // Regardless of the amount of progress reported so far,
-            // use 0.01% of the space remaining in the monitor to process the next node.
-            progress.setWorkRemaining(1000);
-            IProgressMonitor tmp = progress.newChild(1);
-            tmp.beginTask("Waiting for task to complete: " + task, 1);
-            tmp.worked(1);
-            tmp.done();
-			try {
-				Thread.sleep(100);
-			} catch(InterruptedException ie) {
-				// Ignore
-			}
-		}
-		if( monitor.isCanceled()) {
+		progress.beginTask("Waiting for task to complete: " + task, IProgressMonitor.UNKNOWN);
+		// Wakes as soon as the server answers
+		if( !result.await(progress)) {
 			result.cancel();
 			throw new JBoss7ManangerException("Operation canceled: " + task);
 		}
@@ -281,7 +312,12 @@ public class EAP61PlusManager {
 	public void stopServer() throws JBoss7ManangerException {
 		ModelNode request = new ModelNode();
 		request.get(OP).set(SHUTDOWN);
-		quietlyExecute(request);
+		try {
+			quietlyExecute(request);
+		} finally {
+			// The connection does not survive the server
+			CLIENTS.invalidate(client);
+		}
 	}
 
 	public JBoss7ServerState getServerState() throws JBoss7ManangerException {
@@ -310,40 +346,10 @@ public class EAP61PlusManager {
 
 	public void dispose() {
 		if( client != null ) {
-			closeClient(client);
+			CLIENTS.release(client);
+			client = null;
 		}
 	}
-	// Launch a thread to handle the close to ensure dispose() is immediate
-	private void closeClient(final ModelControllerClient client) {
-		Thread t = new Thread("Closing client") {
-			public void run() {
-				closeClientJoin(client);
-			}
-		};
-		t.start();
-	}
-	
-	// Launch a new thread with max duration 5s to handle the actual close
-	private void closeClientJoin(final ModelControllerClient client) {
-		Runnable r = new Runnable() {
-			  public void run() {
-			    try {
-			        client.close();
-			    } catch (Exception e) {
-			       // trace
-			    }
-			  }
-			};
-
-			Thread t = new Thread(r);
-			try {
-			  t.start();
-			  t.join(5000);
-			} catch (InterruptedException e) {
-			} finally {
-			  t.interrupt();
-			}
-	}
 
 	/*package*/ ModelNode execute(ModelNode node) throws JBoss7ManangerException {
 		try {
@@ -357,6 +363,10 @@ public class EAP61PlusManager {
 								));
 			}
 			return response.get(RESULT);
+		} catch (IOException e) {
+			// The connection is broken, the next manager should reconnect
+			CLIENTS.invalidate(client);
+			throw new JBoss7ManangerException(e);
 		} catch (Exception e) {
 			throw new JBoss7ManangerException(e);
 		}
@@ -409,6 +419,29 @@ public class EAP61PlusManager {
     	return getDeploymentNames().contains(name);
     }
     
+    /**
+     * Get the state of every deployment with a single request
+     * 
+     * @return a map of deployment name to state
+     * @throws JBoss7ManangerException
+     */
+    public Map<String, JBoss7DeploymentState> getDeploymentStates() throws JBoss7ManangerException {
+        final ModelNode op = getEmptyOperation(READ_CHILDREN_RESOURCES_OPERATION, new ModelNode());
+        op.get(CHILD_TYPE).set(DEPLOYMENT);
+        ModelNode result = execute(op);
+        Map<String, JBoss7DeploymentState> states = new HashMap<String, JBoss7DeploymentState>();
+        if (result.isDefined()) {
+            for (Property deployment : result.asPropertyList()) {
+                Boolean enabled = EAP61PlusManagerUtil.getBooleanProperty(ENABLED, deployment.getValue());
+                if (enabled != null) {
+                    states.put(deployment.getName(), 
+                            enabled ? JBoss7DeploymentState.STARTED : JBoss7DeploymentState.STOPPED);
+                }
+            }
+        }
+        return states;
+    }
+
     private Set<String> getDeploymentNames() throws JBoss7ManangerException {
         final ModelNode op = getEmptyOperation(READ_CHILDREN_NAMES_OPERATION, new ModelNode());
         op.get(CHILD_TYPE).set(DEPLOYMENT);
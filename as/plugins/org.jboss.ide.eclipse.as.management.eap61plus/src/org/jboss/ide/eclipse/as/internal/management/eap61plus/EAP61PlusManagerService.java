@@ -11,6 +11,7 @@
 package org.jboss.ide.eclipse.as.internal.management.eap61plus;
 
 import java.io.File;
+import java.util.Map;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.jboss.dmr.ModelNode;
@@ -76,35 +77,47 @@ public class EAP61PlusManagerService implements IJBoss7ManagerService {
 	}
 
 	
-	/* 
-	 * This asynch method does not really work. 
-	 * They dispose the manager before the result has come through
-	 */
 	public IJBoss7DeploymentResult deployAsync(IAS7ManagementDetails details, String deploymentName,
 			File file, boolean add, IProgressMonitor monitor) throws JBoss7ManangerException {
 		EAP61PlusManager manager = new EAP61PlusManager(details);
+		IJBoss7DeploymentResult result = null;
 		try {
-			IJBoss7DeploymentResult result = manager.deploy(deploymentName, file, add);
+			result = manager.deploy(deploymentName, file, add);
 			return result;
 		} finally {
-			manager.dispose();
+			disposeWhenDone(manager, result);
 		}
 	}
-	/* 
-	 * This asynch method does not really work. 
-	 * They dispose the manager before the result has come through
-	 */
+
 	public IJBoss7DeploymentResult undeployAsync(IAS7ManagementDetails details, String deploymentName,
 			boolean removeFile, IProgressMonitor monitor) throws JBoss7ManangerException {
 		EAP61PlusManager manager = new EAP61PlusManager(details);
+		IJBoss7DeploymentResult result = null;
 		try {
-			IJBoss7DeploymentResult result = manager.undeploy(deploymentName, removeFile);
+			result = manager.undeploy(deploymentName, removeFile);
 			return result;
 		} finally {
-			manager.dispose();
+			disposeWhenDone(manager, result);
 		}
 	}
 
+	/*
+	 * The result of an asynchronous operation comes through after the caller returns.
+	 * Keep the manager's lease on the shared connection until then, 
+	 * so the connection is not closed while the operation is still running.
+	 */
+	private void disposeWhenDone(final EAP61PlusManager manager, IJBoss7DeploymentResult result) {
+		Runnable dispose = new Runnable() {
+			public void run() {
+				manager.dispose();
+			}
+		};
+		if( result instanceof DeploymentOperationResult ) 
+			((DeploymentOperationResult)result).whenDone(dispose);
+		else
+			dispose.run();
+	}
+
 	public IJBoss7DeploymentResult deploySync(IAS7ManagementDetails details, String deploymentName,
 			File file, boolean add, IProgressMonitor monitor) throws JBoss7ManangerException {
 		EAP61PlusManager manager = new EAP61PlusManager(details);
@@ -137,6 +150,15 @@ public class EAP61PlusManagerService implements IJBoss7ManagerService {
 		}
 	}
 	
+	public Map<String, JBoss7DeploymentState> getDeploymentStates(IAS7ManagementDetails details) throws JBoss7ManangerException {
+		EAP61PlusManager manager = new EAP61PlusManager(details);
+		try {
+			return manager.getDeploymentStates();
+		} finally {
+			manager.dispose();
+		}
+	}
+	
 	public JBoss7ServerState getServerState(IAS7ManagementDetails details) throws JBoss7ManangerException {
 		EAP61PlusManager manager = new EAP61PlusManager(details);
 		try {
@@ -15,12 +15,14 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.osgi.util.NLS;
 import org.jboss.as.controller.client.helpers.standalone.DeploymentAction;
 import org.jboss.as.controller.client.helpers.standalone.ServerDeploymentActionResult;
 import org.jboss.as.controller.client.helpers.standalone.ServerDeploymentPlanResult;
+import org.jboss.ide.eclipse.as.management.core.DeploymentCompletion;
 import org.jboss.ide.eclipse.as.management.core.IJBoss7DeploymentResult;
 import org.jboss.ide.eclipse.as.management.core.JBoss7ManangerException;
 
@@ -69,6 +71,16 @@ public class DeploymentOperationResult implements IJBoss7DeploymentResult {
 		}
 	}
 
+	/**
+	 * Run the given action once the server has answered, 
+	 * or the operation has failed or been canceled
+	 * 
+	 * @param action
+	 */
+	void whenDone(Runnable action) {
+		DeploymentCompletion.whenDone(planResult, action);
+	}
+
 	private IStatus createStatus(String deploymentName, String actionName, ServerDeploymentActionResult actionResult) {
 		if (actionResult == null) {
 			return null;
@@ -108,6 +120,16 @@ public class DeploymentOperationResult implements IJBoss7DeploymentResult {
 				messagePattern, messageArguments));
 	}
 	
+	/**
+	 * Block until the server answers or the monitor is canceled
+	 * 
+	 * @param monitor
+	 * @return true if the server answered
+	 */
+	public boolean await(IProgressMonitor monitor) {
+		return DeploymentCompletion.await(planResult, monitor);
+	}
+	
 	/*
 	 * Candidate for API
 	 */
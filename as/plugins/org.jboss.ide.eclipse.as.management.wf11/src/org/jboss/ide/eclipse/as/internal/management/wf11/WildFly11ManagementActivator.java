@@ -48,6 +48,7 @@ public class WildFly11ManagementActivator extends Plugin {
 	 * @see org.eclipse.ui.plugin.AbstractUIPlugin#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext context) throws Exception {
+		WildFly11Manager.disposeClients();
 		plugin = null;
 		super.stop(context);
 	}
@@ -20,6 +20,7 @@ import static org.jboss.ide.eclipse.as.management.core.ModelDescriptionConstants
 import static org.jboss.ide.eclipse.as.management.core.ModelDescriptionConstants.OP_ADDR;
 import static org.jboss.ide.eclipse.as.management.core.ModelDescriptionConstants.READ_ATTRIBUTE_OPERATION;
 import static org.jboss.ide.eclipse.as.management.core.ModelDescriptionConstants.READ_CHILDREN_NAMES_OPERATION;
+import static org.jboss.ide.eclipse.as.management.core.ModelDescriptionConstants.READ_CHILDREN_RESOURCES_OPERATION;
 import static org.jboss.ide.eclipse.as.management.core.ModelDescriptionConstants.READ_RESOURCE_OPERATION;
 import static org.jboss.ide.eclipse.as.management.core.ModelDescriptionConstants.RESULT;
 import static org.jboss.ide.eclipse.as.management.core.ModelDescriptionConstants.SERVER_STATE;
@@ -27,6 +28,7 @@ import static org.jboss.ide.eclipse.as.management.core.ModelDescriptionConstants
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -60,12 +62,17 @@ import org.jboss.as.controller.client.helpers.standalone.ServerDeploymentManager
 import org.jboss.as.controller.client.helpers.standalone.ServerDeploymentPlanResult;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
+import org.jboss.dmr.Property;
+import org.jboss.ide.eclipse.as.management.core.DeploymentContentPipe;
 import org.jboss.ide.eclipse.as.management.core.IAS7ManagementDetails;
+import org.jboss.ide.eclipse.as.management.core.IDeploymentContentWriter;
 import org.jboss.ide.eclipse.as.management.core.IJBoss7DeploymentResult;
 import org.jboss.ide.eclipse.as.management.core.IncrementalManagementModel;
 import org.jboss.ide.eclipse.as.management.core.JBoss7DeploymentState;
 import org.jboss.ide.eclipse.as.management.core.JBoss7ManangerException;
 import org.jboss.ide.eclipse.as.management.core.JBoss7ServerState;
+import org.jboss.ide.eclipse.as.management.core.ManagementClientCache;
+import org.jboss.ide.eclipse.as.management.core.ManagementClientCache.IClientFactory;
 import org.wildfly.security.auth.callback.CallbackUtil;
 import org.wildfly.security.auth.callback.CredentialCallback;
 import org.wildfly.security.auth.callback.OptionalNameCallback;
@@ -79,13 +86,31 @@ import org.wildfly.security.util.CodePointIterator;
  */
 public class WildFly11Manager {
 	public static final int DEFAULT_REQUEST_TIMEOUT = 5000;
+	/*
+	 * Connections are shared by every manager for the same server and credentials
+	 */
+	private static final ManagementClientCache<ModelControllerClient> CLIENTS = 
+			new ManagementClientCache<ModelControllerClient>("WildFly 11"); //$NON-NLS-1$
+
 	private ModelControllerClient client;
 	private ServerDeploymentManager manager;
 	private IAS7ManagementDetails details;
 
 	public WildFly11Manager(IAS7ManagementDetails details) throws JBoss7ManangerException {
+		this.details = details;
+		this.client = CLIENTS.acquire(details, new IClientFactory<ModelControllerClient>() {
+			public ModelControllerClient createClient(IAS7ManagementDetails details) throws JBoss7ManangerException {
+				return WildFly11Manager.this.createClient();
+			}
+			public boolean isAlive(ModelControllerClient client) {
+				return WildFly11Manager.this.isAlive(client);
+			}
+		});
+		this.manager = ServerDeploymentManager.Factory.create(client);
+	}
+
+	private ModelControllerClient createClient() throws JBoss7ManangerException {
 		try {
-			this.details = details;
 			Object timeout = details.getProperty(IAS7ManagementDetails.PROPERTY_TIMEOUT);
 			int timeout2 = !(timeout instanceof Integer) ? DEFAULT_REQUEST_TIMEOUT : 
 							((Integer)timeout).intValue();
@@ -99,13 +124,32 @@ public class WildFly11Manager {
 					.setConnectionTimeout(timeout2)
 					.setSaslOptions(Collections.emptyMap());
 			ModelControllerClientConfiguration config = b.build();
-			this.client = ModelControllerClient.Factory.create(config);
-			this.manager = ServerDeploymentManager.Factory.create(client);
+			return ModelControllerClient.Factory.create(config);
 		} catch(RuntimeException uhe) {
 			throw new JBoss7ManangerException(uhe);
 		}
 	}
 
+	// A cheap request to verify a cached connection is still usable
+	private boolean isAlive(ModelControllerClient client) {
+		ModelNode request = new ModelNode();
+		request.get(OP).set(READ_ATTRIBUTE_OPERATION);
+		request.get(NAME).set(SERVER_STATE);
+		try {
+			client.execute(request);
+			return true;
+		} catch(IOException ioe) {
+			return false;
+		}
+	}
+
+	/**
+	 * Close all cached connections
+	 */
+	public static void disposeClients() {
+		CLIENTS.dispose();
+	}
+
 	protected CallbackHandler getCallbackHandler() {
 		return new ToolsWF11CallbackHandler();
 	}
@@ -205,15 +249,8 @@ public class WildFly11Manager {
 	private void waitFor(DeploymentOperationResult result, String task, IProgressMonitor monitor) throws JBoss7ManangerException {
 		SubMonitor progress = SubMonitor.convert(monitor);
 		progress.beginTask("Waiting for task to complete: " + task, IProgressMonitor.UNKNOWN);
-		while(!monitor.isCanceled() && !result.isDone()) {
-            progress.worked(1);
-			try {
-				Thread.sleep(100);
-			} catch(InterruptedException ie) {
-				// Ignore
-			}
-		}
-		if( monitor.isCanceled()) {
+		// Wakes as soon as the server answers
+		if( !result.await(progress)) {
 			result.cancel();
 			throw new JBoss7ManangerException("Operation canceled: " + task);
 		}
@@ -331,20 +368,61 @@ public class WildFly11Manager {
 			if( add ) {
 				b = b.add(name, file);
 			}
-			
-			for( int i = 0; i < explodedPaths.length; i++ ) {
-				if (name.equals(explodedPaths[i])) {
-					b = b.explodeDeployment(explodedPaths[i]);
-				} else {
-					b.explodeDeploymentContent(name, explodedPaths[i]);
-				}
-			}
-			return execute(b.deploy(name));
+			return explodeAndDeploy(b, name, explodedPaths);
 		} catch (IOException e) {
 			throw new JBoss7ManangerException(e);
 		}
 	}
 
+	/**
+	 * Add and deploy content read from the given stream.
+	 * The stream is read while the deployment plan is sent to the server.
+	 */
+	public IJBoss7DeploymentResult deploy(String name, InputStream content, String[] explodedPaths, boolean add) throws JBoss7ManangerException {
+		DeploymentPlanBuilder b = manager.newDeploymentPlan();
+		if( add ) {
+			b = b.add(name, content);
+		}
+		return explodeAndDeploy(b, name, explodedPaths);
+	}
+
+	public IJBoss7DeploymentResult deploySync(String name, IDeploymentContentWriter content, 
+			boolean add, String[] explodedPaths, IProgressMonitor monitor)
+			throws JBoss7ManangerException {
+		String task = "Deploy via management: " + name;
+		monitor.beginTask(task, 100);
+		DeploymentContentPipe pipe = DeploymentContentPipe.open(content, name);
+		try {
+			DeploymentOperationResult result = (DeploymentOperationResult)deploy(name, pipe, explodedPaths, add);
+			monitor.worked(5);
+			try {
+				waitFor(result, task, new SubProgressMonitor(monitor, 95));
+			} catch(JBoss7ManangerException j7me) {
+				// Report why the upload broke, rather than that it broke
+				if( pipe.getWriteFailure() != null )
+					throw new JBoss7ManangerException(pipe.getWriteFailure());
+				throw j7me;
+			}
+			if( pipe.getWriteFailure() != null )
+				throw new JBoss7ManangerException(pipe.getWriteFailure());
+			monitor.done();
+			return result;
+		} finally {
+			pipe.close();
+		}
+	}
+
+	private IJBoss7DeploymentResult explodeAndDeploy(DeploymentPlanBuilder b, String name, String[] explodedPaths) throws JBoss7ManangerException {
+		for( int i = 0; i < explodedPaths.length; i++ ) {
+			if (name.equals(explodedPaths[i])) {
+				b = b.explodeDeployment(explodedPaths[i]);
+			} else {
+				b.explodeDeploymentContent(name, explodedPaths[i]);
+			}
+		}
+		return execute(b.deploy(name));
+	}
+
 	public IJBoss7DeploymentResult replace(File file) throws JBoss7ManangerException {
 		return replace(file.getName(), file);
 	}
@@ -413,7 +491,12 @@ public class WildFly11Manager {
 	public void stopServer() throws JBoss7ManangerException {
 		ModelNode request = new ModelNode();
 		request.get(OP).set(SHUTDOWN);
-		quietlyExecute(request);
+		try {
+			quietlyExecute(request);
+		} finally {
+			// The connection does not survive the server
+			CLIENTS.invalidate(client);
+		}
 	}
 
 	public JBoss7ServerState getServerState() throws JBoss7ManangerException {
@@ -442,40 +525,10 @@ public class WildFly11Manager {
 
 	public void dispose() {
 		if( client != null ) {
-			closeClient(client);
+			CLIENTS.release(client);
+			client = null;
 		}
 	}
-	// Launch a thread to handle the close to ensure dispose() is immediate
-	private void closeClient(final ModelControllerClient client) {
-		Thread t = new Thread("Closing client") {
-			public void run() {
-				closeClientJoin(client);
-			}
-		};
-		t.start();
-	}
-	
-	// Launch a new thread with max duration 5s to handle the actual close
-	private void closeClientJoin(final ModelControllerClient client) {
-		Runnable r = new Runnable() {
-			  public void run() {
-			    try {
-			        client.close();
-			    } catch (Exception e) {
-			       // trace
-			    }
-			  }
-			};
-
-			Thread t = new Thread(r);
-			try {
-			  t.start();
-			  t.join(5000);
-			} catch (InterruptedException e) {
-			} finally {
-			  t.interrupt();
-			}
-	}
 
 	/*package*/ ModelNode execute(ModelNode node) throws JBoss7ManangerException {
 		try {
@@ -489,6 +542,10 @@ public class WildFly11Manager {
 								));
 			}
 			return response.get(RESULT);
+		} catch (IOException e) {
+			// The connection is broken, the next manager should reconnect
+			CLIENTS.invalidate(client);
+			throw new JBoss7ManangerException(e);
 		} catch (Exception e) {
 			throw new JBoss7ManangerException(e);
 		}
@@ -542,6 +599,29 @@ public class WildFly11Manager {
     	return getDeploymentNames().contains(name);
     }
     
+    /**
+     * Get the state of every deployment with a single request
+     * 
+     * @return a map of deployment name to state
+     * @throws JBoss7ManangerException
+     */
+    public Map<String, JBoss7DeploymentState> getDeploymentStates() throws JBoss7ManangerException {
+        final ModelNode op = getEmptyOperation(READ_CHILDREN_RESOURCES_OPERATION, new ModelNode());
+        op.get(CHILD_TYPE).set(DEPLOYMENT);
+        ModelNode result = execute(op);
+        Map<String, JBoss7DeploymentState> states = new HashMap<String, JBoss7DeploymentState>();
+        if (result.isDefined()) {
+            for (Property deployment : result.asPropertyList()) {
+                Boolean enabled = WildFly11ManagerUtil.getBooleanProperty(ENABLED, deployment.getValue());
+                if (enabled != null) {
+                    states.put(deployment.getName(), 
+                            enabled ? JBoss7DeploymentState.STARTED : JBoss7DeploymentState.STOPPED);
+                }
+            }
+        }
+        return states;
+    }
+
     private Set<String> getDeploymentNames() throws JBoss7ManangerException {
         final ModelNode op = getEmptyOperation(READ_CHILDREN_NAMES_OPERATION, new ModelNode());
         op.get(CHILD_TYPE).set(DEPLOYMENT);
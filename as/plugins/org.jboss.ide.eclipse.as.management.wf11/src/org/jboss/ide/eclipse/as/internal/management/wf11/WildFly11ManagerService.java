@@ -11,12 +11,15 @@
 package org.jboss.ide.eclipse.as.internal.management.wf11;
 
 import java.io.File;
+import java.util.Map;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.jboss.dmr.ModelNode;
 import org.jboss.ide.eclipse.as.management.core.IAS7ManagementDetails;
 import org.jboss.ide.eclipse.as.management.core.IJBoss7DeploymentResult;
+import org.jboss.ide.eclipse.as.management.core.IDeploymentContentWriter;
 import org.jboss.ide.eclipse.as.management.core.IJBoss7ManagerService;
+import org.jboss.ide.eclipse.as.management.core.IStreamingDeploymentManagerService;
 import org.jboss.ide.eclipse.as.management.core.IncrementalDeploymentManagerService;
 import org.jboss.ide.eclipse.as.management.core.IncrementalManagementModel;
 import org.jboss.ide.eclipse.as.management.core.JBoss7DeploymentState;
@@ -26,7 +29,8 @@ import org.jboss.ide.eclipse.as.management.core.JBoss7ServerState;
 /**
  * @author Rob Stryker
  */
-public class WildFly11ManagerService implements IJBoss7ManagerService, IncrementalDeploymentManagerService {
+public class WildFly11ManagerService implements IJBoss7ManagerService, IncrementalDeploymentManagerService,
+		IStreamingDeploymentManagerService {
 
 	public void init() throws JBoss7ManangerException {
 	}
@@ -77,35 +81,47 @@ public class WildFly11ManagerService implements IJBoss7ManagerService, Increment
 	}
 
 	
-	/* 
-	 * This asynch method does not really work. 
-	 * They dispose the manager before the result has come through
-	 */
 	public IJBoss7DeploymentResult deployAsync(IAS7ManagementDetails details, String deploymentName,
 			File file, boolean add, IProgressMonitor monitor) throws JBoss7ManangerException {
 		WildFly11Manager manager = new WildFly11Manager(details);
+		IJBoss7DeploymentResult result = null;
 		try {
-			IJBoss7DeploymentResult result = manager.deploy(deploymentName, file, new String[] {deploymentName}, add);
+			result = manager.deploy(deploymentName, file, new String[] {deploymentName}, add);
 			return result;
 		} finally {
-			manager.dispose();
+			disposeWhenDone(manager, result);
 		}
 	}
-	/* 
-	 * This asynch method does not really work. 
-	 * They dispose the manager before the result has come through
-	 */
+
 	public IJBoss7DeploymentResult undeployAsync(IAS7ManagementDetails details, String deploymentName,
 			boolean removeFile, IProgressMonitor monitor) throws JBoss7ManangerException {
 		WildFly11Manager manager = new WildFly11Manager(details);
+		IJBoss7DeploymentResult result = null;
 		try {
-			IJBoss7DeploymentResult result = manager.undeploy(deploymentName, removeFile);
+			result = manager.undeploy(deploymentName, removeFile);
 			return result;
 		} finally {
-			manager.dispose();
+			disposeWhenDone(manager, result);
 		}
 	}
 
+	/*
+	 * The result of an asynchronous operation comes through after the caller returns.
+	 * Keep the manager's lease on the shared connection until then, 
+	 * so the connection is not closed while the operation is still running.
+	 */
+	private void disposeWhenDone(final WildFly11Manager manager, IJBoss7DeploymentResult result) {
+		Runnable dispose = new Runnable() {
+			public void run() {
+				manager.dispose();
+			}
+		};
+		if( result instanceof DeploymentOperationResult ) 
+			((DeploymentOperationResult)result).whenDone(dispose);
+		else
+			dispose.run();
+	}
+
 	public IJBoss7DeploymentResult deploySync(IAS7ManagementDetails details, String deploymentName,
 			File file, boolean add, IProgressMonitor monitor) throws JBoss7ManangerException {
 		return deploySync(details, deploymentName, file, add, new String[] {deploymentName}, monitor);
@@ -126,6 +142,19 @@ public class WildFly11ManagerService implements IJBoss7ManagerService, Increment
 	}
 	
 
+	@Override
+	public IJBoss7DeploymentResult deploySync(IAS7ManagementDetails details, String deploymentName,
+			IDeploymentContentWriter content, boolean add, String[] explodePaths, IProgressMonitor monitor)
+			throws JBoss7ManangerException {
+		WildFly11Manager manager = new WildFly11Manager(details);
+		try {
+			IJBoss7DeploymentResult result = manager.deploySync(deploymentName, content, add, explodePaths, monitor);
+			return result;
+		} finally {
+			manager.dispose();
+		}
+	}
+
 	public IJBoss7DeploymentResult undeploySync(IAS7ManagementDetails details, String deploymentName,
 			boolean removeFile, IProgressMonitor monitor) throws JBoss7ManangerException {
 		WildFly11Manager manager = new WildFly11Manager(details);
@@ -147,6 +176,15 @@ public class WildFly11ManagerService implements IJBoss7ManagerService, Increment
 		}
 	}
 	
+	public Map<String, JBoss7DeploymentState> getDeploymentStates(IAS7ManagementDetails details) throws JBoss7ManangerException {
+		WildFly11Manager manager = new WildFly11Manager(details);
+		try {
+			return manager.getDeploymentStates();
+		} finally {
+			manager.dispose();
+		}
+	}
+	
 	public JBoss7ServerState getServerState(IAS7ManagementDetails details) throws JBoss7ManangerException {
 		WildFly11Manager manager = new WildFly11Manager(details);
 		try {
@@ -208,4 +246,9 @@ public class WildFly11ManagerService implements IJBoss7ManagerService, Increment
 		return this instanceof IncrementalDeploymentManagerService;
 	}
 
+	@Override
+	public boolean supportsStreamingDeployment() {
+		return true;
+	}
+
 }
@@ -48,6 +48,7 @@ public class Wildfly9ManagementActivator extends Plugin {
 	 * @see org.eclipse.ui.plugin.AbstractUIPlugin#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext context) throws Exception {
+		Wildfly9Manager.disposeClients();
 		plugin = null;
 		super.stop(context);
 	}
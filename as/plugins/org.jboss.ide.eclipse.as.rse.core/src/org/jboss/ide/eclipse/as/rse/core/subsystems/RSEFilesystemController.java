@@ -13,12 +13,22 @@ package org.jboss.ide.eclipse.as.rse.core.subsystems;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.rse.core.model.IHost;
@@ -27,22 +37,37 @@ import org.eclipse.rse.services.files.IFileService;
 import org.eclipse.rse.subsystems.files.core.servicesubsystem.IFileServiceSubSystem;
 import org.eclipse.rse.subsystems.files.core.subsystems.IRemoteFile;
 import org.jboss.ide.eclipse.as.core.Trace;
+import org.jboss.ide.eclipse.as.core.util.IEventCodes;
 import org.jboss.ide.eclipse.as.core.util.ProgressMonitorUtil;
 import org.jboss.ide.eclipse.as.rse.core.IFileServiceProvider;
+import org.jboss.ide.eclipse.as.rse.core.RSECorePlugin;
 import org.jboss.ide.eclipse.as.rse.core.RSEFrameworkUtils;
 import org.jboss.ide.eclipse.as.rse.core.RSEUtils;
 import org.jboss.ide.eclipse.as.rse.core.util.RemoteCallWrapperUtility;
 import org.jboss.ide.eclipse.as.rse.core.util.RemoteCallWrapperUtility.NamedRunnableWithProgress;
 import org.jboss.ide.eclipse.as.wtp.core.server.behavior.AbstractSubsystemController;
-import org.jboss.ide.eclipse.as.wtp.core.server.behavior.IFilesystemController;
+import org.jboss.ide.eclipse.as.wtp.core.server.behavior.IBatchedFilesystemController;
 
-public class RSEFilesystemController extends AbstractSubsystemController implements IFilesystemController, IFileServiceProvider  {
+public class RSEFilesystemController extends AbstractSubsystemController implements IBatchedFilesystemController, IFileServiceProvider  {
+	/*
+	 * The maximum number of files sent in a single upload request
+	 */
+	private static final int UPLOAD_BATCH_SIZE = 100;
+	
 	/**
 	 * This variable is here to help ensure that multiple remote requests to create
 	 * the same directory are not made. This ensures each folder is only
 	 * created once. 
 	 */
-	private ArrayList<IPath> createdFolders = new ArrayList<IPath>(); 
+	private Set<IPath> createdFolders = Collections.synchronizedSet(new HashSet<IPath>()); 
+	
+	/*
+	 * While a batch is open, file transfers and folder creation
+	 * are collected here until the batch is flushed
+	 */
+	private boolean batching = false;
+	private LinkedHashMap<IPath, File> pendingFiles = new LinkedHashMap<IPath, File>();
+	private LinkedHashSet<IPath> pendingFolders = new LinkedHashSet<IPath>();
 	
 	/**
 	 * A file subsystem for the given server
@@ -59,6 +84,13 @@ public class RSEFilesystemController extends AbstractSubsystemController impleme
 	 */
 	public IStatus copyFile(final File file, final IPath absolutePath,
 			final IProgressMonitor monitor) throws CoreException {
+		synchronized(this) {
+			if( batching ) {
+				pendingFiles.put(absolutePath, file);
+				pendingFolders.add(absolutePath.removeLastSegments(1));
+				return Status.OK_STATUS;
+			}
+		}
 		NamedRunnableWithProgress run = new NamedRunnableWithProgress("Copy file to remote location: " + absolutePath.toOSString()) {
 			public Object run(IProgressMonitor monitor) throws CoreException,
 					SystemMessageException, RuntimeException {
@@ -77,6 +109,14 @@ public class RSEFilesystemController extends AbstractSubsystemController impleme
 	 */
 	public IStatus deleteResource(final IPath remotePath, final IProgressMonitor monitor)
 			throws CoreException {
+		// Anything queued or cached beneath this path is no longer valid
+		synchronized(this) {
+			removeChildren(pendingFiles.keySet(), remotePath);
+			removeChildren(pendingFolders, remotePath);
+		}
+		synchronized(createdFolders) {
+			removeChildren(createdFolders, remotePath);
+		}
 		NamedRunnableWithProgress run = new NamedRunnableWithProgress("Delete remote file: " + remotePath.toOSString()) {
 			public Object run(IProgressMonitor monitor) throws CoreException,
 					SystemMessageException, RuntimeException {
@@ -98,6 +138,12 @@ public class RSEFilesystemController extends AbstractSubsystemController impleme
 		
 		if(createdFolders.contains(absolutePath)) 
 			return Status.OK_STATUS;
+		synchronized(this) {
+			if( batching ) {
+				pendingFolders.add(absolutePath);
+				return Status.OK_STATUS;
+			}
+		}
 		if(exists(absolutePath, monitor))
 			return Status.OK_STATUS;
 		if( absolutePath.segmentCount() > 0 )
@@ -148,6 +194,10 @@ public class RSEFilesystemController extends AbstractSubsystemController impleme
 	 */
 	public boolean isFile(final IPath absolutePath, final IProgressMonitor monitor)
 			throws CoreException {
+		synchronized(this) {
+			if( pendingFiles.containsKey(absolutePath))
+				return true;
+		}
 		
 		final Boolean[] boolRet = new Boolean[1];
 		boolRet[0] = null;
@@ -193,6 +243,10 @@ public class RSEFilesystemController extends AbstractSubsystemController impleme
 	@Override
 	public boolean exists(final IPath absolutePath, IProgressMonitor monitor)
 			throws CoreException {
+		synchronized(this) {
+			if( pendingFiles.containsKey(absolutePath) || pendingFolders.contains(absolutePath))
+				return true;
+		}
 		
 		final Boolean[] boolRet = new Boolean[1];
 		boolRet[0] = null;
@@ -209,5 +263,150 @@ public class RSEFilesystemController extends AbstractSubsystemController impleme
 		RemoteCallWrapperUtility.wrapRemoteCall(getServer(), run, absolutePath.toOSString(), "failed to verify the existence of {0} on host {1}", true, monitor);
 		return boolRet[0];
 	}
-}
 
+	@Override
+	public synchronized void beginBatch() {
+		batching = true;
+		pendingFiles.clear();
+		pendingFolders.clear();
+		createdFolders.clear();
+	}
+
+	@Override
+	public IStatus endBatch(IProgressMonitor monitor) throws CoreException {
+		try {
+			return flushBatch(monitor);
+		} finally {
+			synchronized(this) {
+				batching = false;
+				pendingFiles.clear();
+				pendingFolders.clear();
+			}
+			createdFolders.clear();
+		}
+	}
+
+	@Override
+	public IStatus flushBatch(IProgressMonitor monitor) throws CoreException {
+		final List<IPath> folders;
+		final List<Map.Entry<IPath, File>> files;
+		synchronized(this) {
+			folders = new ArrayList<IPath>(pendingFolders);
+			files = new ArrayList<Map.Entry<IPath, File>>(pendingFiles.entrySet());
+			pendingFolders.clear();
+			pendingFiles.clear();
+		}
+		if( folders.isEmpty() && files.isEmpty())
+			return Status.OK_STATUS;
+		
+		Trace.trace(Trace.STRING_FINER, "Flushing " + files.size() + " remote file transfers into " + folders.size() + " folders"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		monitor.beginTask("Transferring " + files.size() + " files", 10 + files.size()); //$NON-NLS-1$ //$NON-NLS-2$
+		IStatus folderStatus = createFolders(folders, ProgressMonitorUtil.submon(monitor, 10));
+		if( folderStatus != null && !folderStatus.isOK()) {
+			monitor.done();
+			return folderStatus;
+		}
+		
+		MultiStatus ms = new MultiStatus(RSECorePlugin.PLUGIN_ID, IEventCodes.JST_PUB_FAIL, 
+				"Errors while transferring files to the remote host", null); //$NON-NLS-1$
+		for( int i = 0; i < files.size(); i += UPLOAD_BATCH_SIZE ) {
+			if( monitor.isCanceled()) {
+				monitor.done();
+				return Status.CANCEL_STATUS;
+			}
+			List<Map.Entry<IPath, File>> chunk = files.subList(i, Math.min(files.size(), i + UPLOAD_BATCH_SIZE));
+			IStatus s = uploadFiles(chunk, ProgressMonitorUtil.submon(monitor, chunk.size()));
+			if( s != null && !s.isOK())
+				ms.add(s);
+		}
+		monitor.done();
+		return ms.isOK() ? Status.OK_STATUS : ms;
+	}
+	
+	/*
+	 * Create every required folder, and all their missing parents, 
+	 * top-down in a single remote call. Children of a folder created 
+	 * in this pass are known not to exist and are not checked. 
+	 */
+	private IStatus createFolders(List<IPath> folders, IProgressMonitor monitor) throws CoreException {
+		final List<IPath> required = new ArrayList<IPath>();
+		HashSet<IPath> seen = new HashSet<IPath>();
+		Iterator<IPath> it = folders.iterator();
+		while(it.hasNext()) {
+			IPath working = it.next();
+			while( working.segmentCount() > 0 && !createdFolders.contains(working) && seen.add(working)) {
+				required.add(working);
+				working = working.removeLastSegments(1);
+			}
+		}
+		if( required.isEmpty())
+			return Status.OK_STATUS;
+		Collections.sort(required, new Comparator<IPath>() {
+			public int compare(IPath o1, IPath o2) {
+				return o1.segmentCount() - o2.segmentCount();
+			}
+		});
+		
+		NamedRunnableWithProgress run = new NamedRunnableWithProgress("Create " + required.size() + " remote directories") { //$NON-NLS-1$ //$NON-NLS-2$
+			public Object run(IProgressMonitor monitor) throws CoreException,
+					SystemMessageException, RuntimeException {
+				HashSet<IPath> createdNow = new HashSet<IPath>();
+				Iterator<IPath> rit = required.iterator();
+				while(rit.hasNext()) {
+					IPath folder = rit.next();
+					IPath parent = folder.removeLastSegments(1);
+					boolean mustCreate = createdNow.contains(parent);
+					if( !mustCreate ) {
+						IRemoteFile rf = getFileServiceSubSystem().getRemoteFileObject(folder.toOSString(), new NullProgressMonitor());
+						mustCreate = !rf.exists();
+					}
+					if( mustCreate ) {
+						getFileService().createFolder(parent.toString(), folder.lastSegment(), monitor);
+						createdNow.add(folder);
+					}
+					createdFolders.add(folder);
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		return RemoteCallWrapperUtility.wrapRemoteCall(getServer(), run, required.get(0).toString(), "failed to create folder {0} on host {1}", false, monitor);
+	}
+	
+	/*
+	 * Upload a group of files in one request
+	 */
+	private IStatus uploadFiles(List<Map.Entry<IPath, File>> files, IProgressMonitor monitor) throws CoreException {
+		final int size = files.size();
+		final File[] locals = new File[size];
+		final String[] parents = new String[size];
+		final String[] names = new String[size];
+		final boolean[] binary = new boolean[size];
+		final String[] encodings = new String[size];
+		for( int i = 0; i < size; i++ ) {
+			Map.Entry<IPath, File> e = files.get(i);
+			locals[i] = e.getValue();
+			parents[i] = e.getKey().removeLastSegments(1).toOSString();
+			names[i] = e.getKey().lastSegment();
+			binary[i] = true;
+		}
+		NamedRunnableWithProgress run = new NamedRunnableWithProgress("Copy " + size + " files to remote location: " + parents[0]) { //$NON-NLS-1$ //$NON-NLS-2$
+			public Object run(IProgressMonitor monitor) throws CoreException,
+					SystemMessageException, RuntimeException {
+				getFileService().uploadMultiple(locals, parents, names, binary, encodings, encodings, monitor);
+				return Status.OK_STATUS;
+			}
+		};
+		return RemoteCallWrapperUtility.wrapRemoteCall(getServer(), run, parents[0], "failed to copy to {0} on host {1}", false, monitor);
+	}
+	
+	/*
+	 * Remove the given path and every path beneath it from the collection
+	 */
+	private static void removeChildren(Set<IPath> paths, IPath root) {
+		Iterator<IPath> it = paths.iterator();
+		while(it.hasNext()) {
+			if( root.isPrefixOf(it.next()))
+				it.remove();
+		}
+	}
+}
@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.as.core.server;
+
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.server.core.IServer;
+
+/**
+ * This interface is an addition to the IServerModuleStateVerifier
+ * for verifiers which can check the state of many modules
+ * with a single request to the server.
+ *
+ * @since 3.6
+ */
+public interface IServerModuleStateVerifier2 extends IServerModuleStateVerifier {
+	/**
+	 * Get the running state of each of the given root modules
+	 * @param server
+	 * @param modules
+	 * @param monitor
+	 * @return a map of each module to an IServer.STATE_XXX flag
+	 */
+	public Map<IModule, Integer> getModuleStates(IServer server, IModule[] modules, IProgressMonitor monitor);
+}
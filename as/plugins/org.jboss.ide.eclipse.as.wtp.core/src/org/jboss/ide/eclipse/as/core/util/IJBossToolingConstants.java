@@ -193,6 +193,57 @@ public interface IJBossToolingConstants {
 	 * @since 3.0
 	 */
 	public static final String PROPERTY_SCANNER_INTERVAL= "org.jboss.ide.eclipse.as.core.server.deploymentscanner.interval";
+	/**
+	 * The number of worker threads used to copy files during a full 
+	 * publish of an exploded module. A value of 1 publishes serially. 
+	 * @since 3.6
+	 */
+	public static final String PROPERTY_PUBLISH_WORKER_COUNT = "org.jboss.ide.eclipse.as.core.server.publishWorkerCount"; //$NON-NLS-1$
+	/**
+	 * Whether files published to a local filesystem may be hard links
+	 * to their source instead of copies, when both live on the same volume. 
+	 * Since a link shares its contents with the source, changes to a workspace
+	 * file will be visible in the deployment before the next publish. 
+	 * @since 3.6
+	 */
+	public static final String PROPERTY_PUBLISH_HARD_LINKS = "org.jboss.ide.eclipse.as.core.server.publishHardLinks"; //$NON-NLS-1$
+	/**
+	 * Whether publishing to a local filesystem should keep a manifest
+	 * of deployed files, and skip copying files whose deployed copy is unchanged.
+	 * Defaults to true.
+	 * @since 3.6
+	 */
+	public static final String PROPERTY_PUBLISH_SKIP_UNCHANGED = "org.jboss.ide.eclipse.as.core.server.publishSkipUnchanged"; //$NON-NLS-1$
+	/**
+	 * Whether file transfers to a remote host should be queued 
+	 * and sent together once each module has been processed, 
+	 * rather than with one remote request per file. Defaults to false.
+	 * @since 3.6
+	 */
+	public static final String PROPERTY_PUBLISH_BATCHED = "org.jboss.ide.eclipse.as.core.server.publishBatched"; //$NON-NLS-1$
+	/**
+	 * Whether a full publish over management should zip each module 
+	 * directly into the upload, rather than into a temporary file which 
+	 * is then uploaded. Defaults to false.
+	 * @since 3.6
+	 */
+	public static final String PROPERTY_PUBLISH_STREAMED = "org.jboss.ide.eclipse.as.core.server.publishStreamed"; //$NON-NLS-1$
+	/**
+	 * Whether an incremental publish of a zipped module may update the 
+	 * existing archive in place, appending changed entries and rewriting 
+	 * only its central directory, instead of rewriting the whole archive. 
+	 * Defaults to false.
+	 * @since 3.6
+	 */
+	public static final String PROPERTY_PUBLISH_ZIP_APPEND = "org.jboss.ide.eclipse.as.core.server.publishZipAppend"; //$NON-NLS-1$
+	/**
+	 * The number of top-level modules which may be published at the same time, 
+	 * when the server's publish controller supports it. Children of one 
+	 * top-level module are always published together, in order. 
+	 * A value of 1 publishes serially.
+	 * @since 3.6
+	 */
+	public static final String PROPERTY_PUBLISH_PARALLEL_MODULES = "org.jboss.ide.eclipse.as.core.server.publishParallelModules"; //$NON-NLS-1$
 	
 	
 	
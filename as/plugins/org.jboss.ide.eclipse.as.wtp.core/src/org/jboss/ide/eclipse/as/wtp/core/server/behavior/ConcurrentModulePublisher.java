@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.as.wtp.core.server.behavior;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.wst.server.core.IModule;
+import org.jboss.ide.eclipse.as.wtp.core.ASWTPToolsPlugin;
+
+/**
+ * Publishes a list of module trees on a bounded pool of threads.
+ * Module trees with the same top-level module, such as an ear and its children,
+ * are published on one thread, in the order given. Module trees with
+ * different top-level modules are published concurrently.
+ *
+ * Progress is only reported to the publish monitor on the calling thread.
+ * Each module is given a monitor which only shares cancellation with it.
+ * A failure in one group does not stop the others, and the statuses 
+ * of every group are returned. Canceling the publish monitor stops 
+ * every group before its next module.
+ *
+ * @since 3.6
+ */
+public class ConcurrentModulePublisher {
+
+	/**
+	 * The work reported for each module tree, the same as a serial publish
+	 */
+	public static final int WORK_PER_MODULE = 3000;
+
+	/**
+	 * Publishes a single module tree
+	 */
+	public interface IModuleTreePublisher {
+		/**
+		 * Publish the module tree at the given index of the list being published.
+		 * This is called from a pool thread.
+		 *
+		 * @param index
+		 * @param module
+		 * @param monitor a monitor which may only be used to check for cancellation
+		 * @return
+		 */
+		public IStatus publish(int index, IModule[] module, IProgressMonitor monitor);
+	}
+
+	private String name;
+	private int maxThreads;
+
+	/**
+	 * @param name a name for the publish, such as the server name, used to name threads
+	 * @param maxThreads the most module groups to publish at once
+	 */
+	public ConcurrentModulePublisher(String name, int maxThreads) {
+		this.name = name;
+		this.maxThreads = maxThreads;
+	}
+
+	/**
+	 * Get the indexes of the given module trees, grouped by their top-level module.
+	 * The groups are in the order their top-level module first appears.
+	 *
+	 * @param modules a list of IModule[]
+	 * @return
+	 */
+	public static List<List<Integer>> groupByTopLevelModule(List modules) {
+		LinkedHashMap<IModule, List<Integer>> groups = new LinkedHashMap<IModule, List<Integer>>();
+		int size = modules == null ? 0 : modules.size();
+		for( int i = 0; i < size; i++ ) {
+			IModule root = ((IModule[])modules.get(i))[0];
+			List<Integer> group = groups.get(root);
+			if( group == null ) {
+				group = new ArrayList<Integer>();
+				groups.put(root, group);
+			}
+			group.add(Integer.valueOf(i));
+		}
+		return new ArrayList<List<Integer>>(groups.values());
+	}
+
+	/**
+	 * Publish the given module trees, and wait for all of them to complete.
+	 *
+	 * @param modules a list of IModule[]
+	 * @param publisher
+	 * @param monitor
+	 * @return every status which is not OK
+	 */
+	public IStatus[] publish(List modules, IModuleTreePublisher publisher, IProgressMonitor monitor) {
+		List<List<Integer>> groups = groupByTopLevelModule(modules);
+		ArrayList<IStatus> ret = new ArrayList<IStatus>();
+		if( groups.isEmpty())
+			return new IStatus[0];
+
+		int threads = Math.max(1, Math.min(maxThreads, groups.size()));
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new PublishThreadFactory(name));
+		CompletionService<IStatus[]> completion = new ExecutorCompletionService<IStatus[]>(executor);
+		HashMap<Future<IStatus[]>, Integer> groupSizes = new HashMap<Future<IStatus[]>, Integer>();
+		try {
+			Iterator<List<Integer>> it = groups.iterator();
+			while(it.hasNext()) {
+				List<Integer> group = it.next();
+				Future<IStatus[]> f = completion.submit(new ModuleGroupPublisher(modules, group, publisher, monitor));
+				groupSizes.put(f, Integer.valueOf(group.size()));
+			}
+			while( !groupSizes.isEmpty()) {
+				// Groups are never interrupted. They see a cancellation through their monitors
+				Future<IStatus[]> done = completion.take();
+				monitor.worked(WORK_PER_MODULE * groupSizes.remove(done).intValue());
+				try {
+					IStatus[] statuses = done.get();
+					for( int i = 0; i < statuses.length; i++ ) {
+						ret.add(statuses[i]);
+					}
+				} catch(ExecutionException ee) {
+					// One group failing must not hide the results of the others
+					ret.add(new Status(IStatus.ERROR, ASWTPToolsPlugin.PLUGIN_ID,
+							"Error publishing to " + name, ee.getCause())); //$NON-NLS-1$
+				}
+			}
+		} catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			ret.add(Status.CANCEL_STATUS);
+			executor.shutdownNow();
+		} finally {
+			// Every module must be done before the caller continues
+			executor.shutdown();
+			try {
+				while( !executor.awaitTermination(1, TimeUnit.SECONDS)) {
+					// keep waiting
+				}
+			} catch(InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return (IStatus[]) ret.toArray(new IStatus[ret.size()]);
+	}
+
+	/*
+	 * Publish one top-level module and its children, in order
+	 */
+	private static class ModuleGroupPublisher implements Callable<IStatus[]> {
+		private List modules;
+		private List<Integer> indexes;
+		private IModuleTreePublisher publisher;
+		private IProgressMonitor parent;
+		public ModuleGroupPublisher(List modules, List<Integer> indexes, IModuleTreePublisher publisher, IProgressMonitor parent) {
+			this.modules = modules;
+			this.indexes = indexes;
+			this.publisher = publisher;
+			this.parent = parent;
+		}
+		public IStatus[] call() throws Exception {
+			ArrayList<IStatus> ret = new ArrayList<IStatus>();
+			Iterator<Integer> it = indexes.iterator();
+			while(it.hasNext()) {
+				if( parent.isCanceled())
+					break;
+				int i = it.next().intValue();
+				IStatus status = publisher.publish(i, (IModule[])modules.get(i), new ConcurrentProgressMonitor(parent));
+				if( status != null && !status.isOK())
+					ret.add(status);
+			}
+			return (IStatus[]) ret.toArray(new IStatus[ret.size()]);
+		}
+	}
+
+	/*
+	 * Progress monitors are not thread safe. A module published on a
+	 * pool thread only shares cancellation with the publish monitor.
+	 */
+	private static class ConcurrentProgressMonitor extends NullProgressMonitor {
+		private IProgressMonitor parent;
+		public ConcurrentProgressMonitor(IProgressMonitor parent) {
+			this.parent = parent;
+		}
+		public boolean isCanceled() {
+			return super.isCanceled() || parent.isCanceled();
+		}
+	}
+
+	private static class PublishThreadFactory implements ThreadFactory {
+		private String name;
+		private int count = 0;
+		public PublishThreadFactory(String name) {
+			this.name = name;
+		}
+		public synchronized Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "Publishing to " + name + " #" + (++count)); //$NON-NLS-1$ //$NON-NLS-2$
+			t.setDaemon(true);
+			return t;
+		}
+	}
+}
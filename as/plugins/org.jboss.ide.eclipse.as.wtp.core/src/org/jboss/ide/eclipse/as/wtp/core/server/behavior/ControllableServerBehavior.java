@@ -11,11 +11,13 @@
 package org.jboss.ide.eclipse.as.wtp.core.server.behavior;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
@@ -23,7 +25,9 @@ import org.eclipse.wst.server.core.IModule;
 import org.eclipse.wst.server.core.IServer;
 import org.eclipse.wst.server.core.IServerWorkingCopy;
 import org.eclipse.wst.server.core.model.ServerBehaviourDelegate;
+import org.jboss.ide.eclipse.as.core.util.IJBossToolingConstants;
 import org.jboss.ide.eclipse.as.wtp.core.ASWTPToolsPlugin;
+import org.jboss.ide.eclipse.as.wtp.core.Trace;
 
 /**
  * @since 3.0 
@@ -141,7 +145,50 @@ public class ControllableServerBehavior extends ServerBehaviourDelegate implemen
 	protected void publishModule(int kind, int deltaKind, IModule[] module, IProgressMonitor monitor) throws CoreException {
 		IPublishController controller = getPublishController();
 		int result = controller.publishModule( kind, deltaKind, module, monitor);
-		setModulePublishState(module, result);
+		// Modules may be published concurrently, see publishModules
+		synchronized(getServer()) {
+			setModulePublishState(module, result);
+		}
+	}
+	
+	/**
+	 * Publish the given modules. If the server allows it, and the publish
+	 * controller is an {@link IConcurrentPublishController} which supports it, 
+	 * module trees with different top-level modules are published concurrently 
+	 * by a {@link ConcurrentModulePublisher}. All module trees with the same 
+	 * top-level module are published on one thread, in the order given. 
+	 */
+	@Override
+	protected void publishModules(final int kind, List modules, final List deltaKind2, MultiStatus multi, IProgressMonitor monitor) {
+		int max = getServer().getAttribute(IJBossToolingConstants.PROPERTY_PUBLISH_PARALLEL_MODULES, 1);
+		int groups = ConcurrentModulePublisher.groupByTopLevelModule(modules).size();
+		if( max <= 1 || groups <= 1 || !supportsConcurrentPublish()) {
+			super.publishModules(kind, modules, deltaKind2, multi, monitor);
+			return;
+		}
+		
+		int threads = Math.min(max, groups);
+		Trace.trace(Trace.STRING_FINER, "Publishing " + groups + " top-level modules on " + threads + " threads for server " + getServer().getName()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		ConcurrentModulePublisher publisher = new ConcurrentModulePublisher(getServer().getName(), threads);
+		IStatus[] statuses = publisher.publish(modules, new ConcurrentModulePublisher.IModuleTreePublisher() {
+			public IStatus publish(int index, IModule[] module, IProgressMonitor monitor) {
+				int deltaKind = ((Integer)deltaKind2.get(index)).intValue();
+				return publishModule(kind, module, deltaKind, monitor);
+			}
+		}, monitor);
+		for( int i = 0; i < statuses.length; i++ ) {
+			multi.add(statuses[i]);
+		}
+	}
+	
+	private boolean supportsConcurrentPublish() {
+		try {
+			IPublishController controller = getPublishController();
+			return controller instanceof IConcurrentPublishController 
+					&& ((IConcurrentPublishController)controller).supportsConcurrentPublish();
+		} catch(CoreException ce) {
+			return false;
+		}
 	}
 
 	@Override
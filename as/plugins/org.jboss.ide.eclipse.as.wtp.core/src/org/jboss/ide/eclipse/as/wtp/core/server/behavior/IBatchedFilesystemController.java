@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.as.wtp.core.server.behavior;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+
+/**
+ * An optional extension to {@link IFilesystemController} for
+ * filesystems where every operation is expensive, such as remote hosts.
+ *
+ * While a batch is open, calls to copyFile and makeDirectoryIfRequired
+ * may be deferred and return an OK status immediately. Deferred operations
+ * are performed together, and any errors reported, when the batch is flushed.
+ * Deleting a resource while a batch is open discards any deferred
+ * operations beneath that resource.
+ *
+ * A batch is expected to span a whole publish cycle,
+ * and to be flushed after every module.
+ *
+ * @since 3.6
+ */
+public interface IBatchedFilesystemController extends IFilesystemController {
+
+	/**
+	 * Begin deferring file transfers and folder creation
+	 */
+	public void beginBatch();
+
+	/**
+	 * Perform all deferred operations. The batch remains open.
+	 *
+	 * @param monitor
+	 * @return a status, which may be a multi-status of all failed transfers
+	 * @throws CoreException
+	 */
+	public IStatus flushBatch(IProgressMonitor monitor) throws CoreException;
+
+	/**
+	 * Perform all deferred operations and close the batch.
+	 * Any state cached for the duration of the batch is discarded.
+	 *
+	 * @param monitor
+	 * @return a status, which may be a multi-status of all failed transfers
+	 * @throws CoreException
+	 */
+	public IStatus endBatch(IProgressMonitor monitor) throws CoreException;
+}
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.as.wtp.core.server.behavior;
+
+/**
+ * An optional extension to {@link IPublishController} for
+ * controllers which can publish independent module trees at the same time.
+ *
+ * When concurrent publishing is supported and enabled for a server,
+ * {@link IPublishController#publishModule(int, int, org.eclipse.wst.server.core.IModule[], org.eclipse.core.runtime.IProgressMonitor)}
+ * may be called from several threads between publishStart and publishFinish.
+ * Module trees with the same top-level module, such as an ear and its children,
+ * are always published on one thread, in their usual order.
+ * publishStart and publishFinish are called once, on the publishing thread,
+ * before and after all modules.
+ *
+ * @since 3.6
+ */
+public interface IConcurrentPublishController extends IPublishController {
+
+	/**
+	 * Return whether the current publish may publish
+	 * modules with different top-level modules concurrently.
+	 * This is checked after publishStart.
+	 *
+	 * @return
+	 */
+	public boolean supportsConcurrentPublish();
+}
@@ -15,7 +15,10 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -35,6 +38,7 @@ import org.eclipse.wst.server.core.internal.ServerPlugin;
 import org.jboss.ide.eclipse.as.core.server.IDeployableServer;
 import org.jboss.ide.eclipse.as.core.util.FileUtil;
 import org.jboss.ide.eclipse.as.core.util.IEventCodes;
+import org.jboss.ide.eclipse.as.core.util.IJBossToolingConstants;
 import org.jboss.ide.eclipse.as.core.util.ProgressMonitorUtil;
 import org.jboss.ide.eclipse.as.core.util.ServerConverter;
 import org.jboss.ide.eclipse.as.core.util.StreamUtils;
@@ -55,6 +59,17 @@ public class LocalFilesystemController extends AbstractSubsystemController imple
 	 */
 	public static final String ENV_TEMPORARY_DEPLOY_DIRECTORY = "ISubsystemController.TemporaryDeployFolder"; //$NON-NLS-1$
 
+	/**
+	 * A key for the environment of the subsystem.
+	 * This key should point to a Boolean indicating whether files may be 
+	 * published as hard links to their source rather than as copies. 
+	 * If no value is set, the server attribute 
+	 * {@link IJBossToolingConstants#PROPERTY_PUBLISH_HARD_LINKS} is used. 
+	 * Links are only possible when the source and the temporary folder share a volume; 
+	 * otherwise a regular copy is made.
+	 * @since 3.6
+	 */
+	public static final String ENV_ALLOW_HARD_LINKS = "ISubsystemController.AllowHardLinks"; //$NON-NLS-1$
 	
 	/*
 	 * By default, our temporary location will be our workspace's metadata folder
@@ -74,14 +89,7 @@ public class LocalFilesystemController extends AbstractSubsystemController imple
 				return new Status(IStatus.ERROR, ASWTPToolsPlugin.PLUGIN_ID, IEventCodes.JST_PUB_FAIL, 
 						NLS.bind(Messages.errorReading, file.getAbsolutePath()), null);
 			}
-			InputStream in = null;
-			try {
-				in = new FileInputStream(file);
-			} catch (IOException e) {
-				new Status(IStatus.ERROR, ASWTPToolsPlugin.PLUGIN_ID, IEventCodes.JST_PUB_FAIL, 
-						NLS.bind(Messages.errorReading, file.getAbsolutePath()), e);
-			}
-			IStatus ret = copyFile(in, absoluteRemotePath, file.lastModified());
+			IStatus ret = transferFile(file, absoluteRemotePath, file.lastModified());
 			monitor.worked(100);
 			monitor.done();
 			if( ret != null && !ret.isOK()) 
@@ -111,19 +119,29 @@ public class LocalFilesystemController extends AbstractSubsystemController imple
 
 	
 	/**
-	 * Copy a file from a to b. Closes the input stream after use.
+	 * Transfer a file from a to b without passing its contents through the heap. 
+	 * 
+	 * The file is first linked or copied into the temporary folder, 
+	 * and then atomically moved over the destination. 
+	 * If an atomic move is not possible, the legacy delete-and-rename is used.
 	 * 
-	 * @param in an input stream
-	 * @param to a path to copy to. the directory must already exist. This must be an absolute path
+	 * @param from the source file
+	 * @param to a path to copy to. This must be an absolute path
 	 * @param ts timestamp
 	 * @throws CoreException if anything goes wrong
 	 */
-	private IStatus copyFile(InputStream in, IPath to, long ts) throws CoreException {
+	private IStatus transferFile(File from, IPath to, long ts) throws CoreException {
 		File tempFile = null;
 		try {
 			File file = to.toFile();
-			tempFile = writeToTempFile(in, to);
-			moveTempFile(tempFile, file);
+			tempFile = File.createTempFile(TEMPFILE_PREFIX, "." + to.getFileExtension(), getTempFolder()); //$NON-NLS-1$
+			Path tempPath = tempFile.toPath();
+			if( !allowHardLinks() || !linkFile(from.toPath(), tempPath)) {
+				Files.copy(from.toPath(), tempPath, StandardCopyOption.REPLACE_EXISTING);
+			}
+			if( !atomicMove(tempPath, file.toPath())) {
+				moveTempFile(tempFile, file);
+			}
 			if (ts != IResource.NULL_STAMP && ts != 0)
 				file.setLastModified(ts);
 		} catch (CoreException e) {
@@ -134,15 +152,54 @@ public class LocalFilesystemController extends AbstractSubsystemController imple
 		} finally {
 			if (tempFile != null && tempFile.exists())
 				tempFile.deleteOnExit();
-			StreamUtils.safeClose(in);
 		}
 		return null;
 	}
 	
-	private File writeToTempFile(InputStream in, IPath filePath) throws IOException {			
-		File tempFile = File.createTempFile(TEMPFILE_PREFIX, "." + filePath.getFileExtension(), getTempFolder()); //$NON-NLS-1$
-		FileUtil.writeTo(in, tempFile);				
-		return tempFile;
+	/*
+	 * Replace the (empty) temporary file with a hard link to the source.
+	 * Returns false if the filesystem cannot link these two paths, 
+	 * for example because they live on different volumes. 
+	 */
+	private boolean linkFile(Path source, Path tempPath) {
+		try {
+			Files.deleteIfExists(tempPath);
+			Files.createLink(tempPath, source);
+			return true;
+		} catch(IOException | UnsupportedOperationException | SecurityException e) {
+			return false;
+		}
+	}
+	
+	/*
+	 * Move the temp file over the destination in one rename.
+	 * Returns false if the legacy delete-and-rename should be attempted instead, 
+	 * for example when the destination is locked on windows.
+	 */
+	private boolean atomicMove(Path tempPath, Path destination) {
+		Path dir = destination.getParent();
+		try {
+			if( dir != null )
+				Files.createDirectories(dir);
+			try {
+				Files.move(tempPath, destination, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch(AtomicMoveNotSupportedException amnse) {
+				// The temp folder is on a different filesystem than the deployment
+				Files.move(tempPath, destination, StandardCopyOption.REPLACE_EXISTING);
+			}
+			return true;
+		} catch(IOException ioe) {
+			return false;
+		}
+	}
+	
+	protected boolean allowHardLinks() {
+		Object o = getEnvironment().get(ENV_ALLOW_HARD_LINKS);
+		if( o instanceof Boolean )
+			return ((Boolean)o).booleanValue();
+		if( getServer() != null )
+			return getServer().getAttribute(IJBossToolingConstants.PROPERTY_PUBLISH_HARD_LINKS, false);
+		return false;
 	}
 	
 	/**
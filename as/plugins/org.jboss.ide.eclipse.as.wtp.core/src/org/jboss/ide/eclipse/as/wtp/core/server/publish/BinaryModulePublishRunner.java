@@ -38,6 +38,7 @@ public class BinaryModulePublishRunner {
 	private IFilesystemController fc;
 	private IModuleResource[] all;
 	private IModuleResourceDelta[] delta;
+	private PublishManifest manifest;
 	public BinaryModulePublishRunner(IModule[] module, 
 			IPath archiveDestination, 
 			IPath archiveDestinationWithName, 
@@ -51,6 +52,24 @@ public class BinaryModulePublishRunner {
 		this.all = all;
 		this.delta = delta;
 	}
+	
+	/**
+	 * Set a manifest of previously deployed files. 
+	 * Files whose deployed copy is still byte-identical 
+	 * to the source will not be copied again.
+	 * 
+	 * @param manifest the manifest, or null to always copy every file
+	 * @since 3.6
+	 */
+	public void setPublishManifest(PublishManifest manifest) {
+		this.manifest = manifest;
+	}
+	
+	private IStatus deleteResource(IPath published, IProgressMonitor monitor) throws CoreException {
+		if( manifest != null )
+			manifest.removed(published);
+		return fc.deleteResource(published, monitor);
+	}
 	/*
 	 * Use the delta to find all deleted resources. 
 	 * Then use the members to delete all those, too. 
@@ -78,7 +97,7 @@ public class BinaryModulePublishRunner {
 			}
 			IPath relative = all[i].getModuleRelativePath();
 			IPath published = archiveDestination.append(relative).append(all[i].getName());
-			IStatus s = fc.deleteResource(published, sub.split(1));
+			IStatus s = deleteResource(published, sub.split(1));
 			if( s != null && !s.isOK()) {
 				ms.add(s);
 			}
@@ -89,7 +108,7 @@ public class BinaryModulePublishRunner {
 	
 	private MultiStatus removeNestedSingleResourceBinary(MultiStatus ms, IProgressMonitor monitor) throws CoreException {
 		IPath published = archiveDestinationWithName;
-		IStatus s = fc.deleteResource(published, monitor);
+		IStatus s = deleteResource(published, monitor);
 		if( s != null && !s.isOK()) {
 			ms.add(s);
 		}
@@ -111,7 +130,7 @@ public class BinaryModulePublishRunner {
 		for( int i = 0; i < deleted.length; i++ ) {
 			IPath relative = deleted[i].getModuleRelativePath();
 			IPath published = archiveDestination.append(relative).append(deleted[i].getName());
-			IStatus s = fc.deleteResource(published, subMonitor.split(1));
+			IStatus s = deleteResource(published, subMonitor.split(1));
 			if( s != null && !s.isOK()) {
 				ms.add(s);
 			}
@@ -203,10 +222,15 @@ public class BinaryModulePublishRunner {
 		File f = ModuleResourceUtil.getFile(r);
 		IPath folder = archiveDestination.append(r.getModuleRelativePath());
 		IPath dest = folder.append(lastSegmentName);
+		if( manifest != null && manifest.isUnchanged(f, dest)) {
+			return;
+		}
 		SubMonitor subMonitor = SubMonitor.convert(monitor, 2);
 		IStatus result = fc.makeDirectoryIfRequired(folder, subMonitor.split(1));
 		if( result == null || result.isOK()) {
 			result = fc.copyFile(f, dest, subMonitor.split(1));
+			if( manifest != null && (result == null || result.isOK()))
+				manifest.published(f, dest, archiveDestinationWithName);
 		}
 		subMonitor.setWorkRemaining(0);
 		if( result != null ) {
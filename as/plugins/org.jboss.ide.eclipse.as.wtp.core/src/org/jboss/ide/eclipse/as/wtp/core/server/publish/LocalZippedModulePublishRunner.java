@@ -12,6 +12,7 @@
 package org.jboss.ide.eclipse.as.wtp.core.server.publish;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
@@ -34,14 +35,17 @@ import org.eclipse.wst.server.core.model.IModuleFolder;
 import org.eclipse.wst.server.core.model.IModuleResource;
 import org.eclipse.wst.server.core.model.IModuleResourceDelta;
 import org.jboss.ide.eclipse.archives.core.util.TrueZipUtil;
+import org.jboss.ide.eclipse.archives.core.util.ZipEntryPatcher;
 import org.jboss.ide.eclipse.as.core.server.IModulePathFilter;
 import org.jboss.ide.eclipse.as.core.server.IModulePathFilterProvider;
 import org.jboss.ide.eclipse.as.core.util.FileUtil;
 import org.jboss.ide.eclipse.as.core.util.IEventCodes;
+import org.jboss.ide.eclipse.as.core.util.IJBossToolingConstants;
 import org.jboss.ide.eclipse.as.core.util.ModuleResourceUtil;
 import org.jboss.ide.eclipse.as.core.util.ProgressMonitorUtil;
 import org.jboss.ide.eclipse.as.wtp.core.ASWTPToolsPlugin;
 import org.jboss.ide.eclipse.as.wtp.core.Messages;
+import org.jboss.ide.eclipse.as.wtp.core.Trace;
 import org.jboss.ide.eclipse.as.wtp.core.server.behavior.util.PublishControllerUtil;
 import org.jboss.ide.eclipse.as.wtp.core.util.ServerModelUtilities;
 
@@ -82,6 +86,7 @@ public class LocalZippedModulePublishRunner extends ModuleResourceUtil {
 	private IModule[] module;
 	private IPath destinationArchive;
 	private IModulePathFilterProvider filterProvider;
+	private boolean appendUpdates;
 	public LocalZippedModulePublishRunner(IServer server, IModule module, IPath destinationArchive, IModulePathFilterProvider filterProvider) {
 		this(server, new IModule[]{module}, destinationArchive, filterProvider);
 	}
@@ -91,12 +96,27 @@ public class LocalZippedModulePublishRunner extends ModuleResourceUtil {
 		this.module = module;
 		this.destinationArchive = destinationArchive;
 		this.filterProvider = filterProvider;
+		this.appendUpdates = server != null && server.getAttribute(IJBossToolingConstants.PROPERTY_PUBLISH_ZIP_APPEND, false);
+	}
+	
+	/**
+	 * Set whether an incremental publish may update the archive in place,
+	 * appending changed entries and rewriting only the central directory,
+	 * rather than rewriting the whole archive.
+	 * Structural changes, such as added or removed child modules,
+	 * always use the default behavior.
+	 * 
+	 * @param append
+	 * @since 3.6
+	 */
+	public void setAppendUpdates(boolean append) {
+		this.appendUpdates = append;
 	}
 	
 	
 	public IStatus fullPublishModule(IProgressMonitor monitor) throws CoreException {
 		IStatus[] status = fullPublish(monitor);
-		TrueZipUtil.umount();
+		syncDestination();
 		IStatus finalStatus = createModuleStatus(module, status);
 		return finalStatus;
 	}
@@ -111,6 +131,12 @@ public class LocalZippedModulePublishRunner extends ModuleResourceUtil {
 		}
 		
 		
+		if( appendUpdates ) {
+			IStatus appended = appendingIncrementalPublish(monitor);
+			if( appended != null )
+				return appended;
+		}
+		
 		String name = "Compressing " + lastModule().getName(); //$NON-NLS-1$
 		monitor.beginTask(name, 1000);
 		monitor.setTaskName(name);
@@ -147,7 +173,7 @@ public class LocalZippedModulePublishRunner extends ModuleResourceUtil {
 		removedMonitor.done();
 		
 		
-		TrueZipUtil.umount();
+		syncDestination();
 		
 		IStatus finalStatus = createModuleStatus(moduleAsArray, operationStatus);
 
@@ -155,6 +181,163 @@ public class LocalZippedModulePublishRunner extends ModuleResourceUtil {
 		return finalStatus;
 	}
 
+	/*
+	 * Apply the changes to the existing archive with a ZipEntryPatcher.
+	 * Returns null, without touching the archive, if the module structure
+	 * changed or the archive cannot be updated in place.
+	 */
+	private IStatus appendingIncrementalPublish(IProgressMonitor monitor) throws CoreException {
+		if( !getRemovedChildModules().isEmpty() || hasStructuralChanges(module))
+			return null;
+		ZipEntryPatcher patcher = new ZipEntryPatcher(destinationArchive.toFile());
+		try {
+			if( !patcher.isSupported())
+				return null;
+		} catch(IOException ioe) {
+			return null;
+		}
+		
+		String name = "Compressing " + lastModule().getName(); //$NON-NLS-1$
+		monitor.beginTask(name, 1000);
+		monitor.setTaskName(name);
+		ArrayList<IStatus> results = new ArrayList<IStatus>();
+		ArrayList<java.io.File> temporary = new ArrayList<java.io.File>();
+		try {
+			appendChanges(patcher, module, results, temporary, ProgressMonitorUtil.submon(monitor, 1000));
+			if( monitor.isCanceled()) {
+				// Nothing has been written yet
+				results.add(new Status(IStatus.CANCEL, ASWTPToolsPlugin.PLUGIN_ID, "Operation Canceled")); //$NON-NLS-1$
+			} else if( !patcher.apply()) {
+				// The archive was left untouched, but the changes do not fit in place
+				return fullPublishModule(monitor);
+			}
+		} catch(IOException ioe) {
+			// The archive may be damaged, so rebuild it
+			Trace.trace(Trace.STRING_FINER, "Unable to update archive in place, rebuilding " + destinationArchive.toOSString()); //$NON-NLS-1$
+			return fullPublishModule(monitor);
+		} finally {
+			Iterator<java.io.File> it = temporary.iterator();
+			while(it.hasNext()) {
+				it.next().delete();
+			}
+		}
+		monitor.done();
+		return createModuleStatus(module, (IStatus[]) results.toArray(new IStatus[results.size()]));
+	}
+	
+	private boolean hasStructuralChanges(IModule[] mod) {
+		IModule[] children = getChildModules(mod);
+		if( children == null )
+			return false;
+		for( int i = 0; i < children.length; i++ ) {
+			IModule[] combinedChild = combine(mod, children[i]);
+			if( !hasBeenPublished(combinedChild) || isRemoved(combinedChild) || hasStructuralChanges(combinedChild))
+				return true;
+		}
+		return false;
+	}
+	
+	private boolean hasChanges(IModule[] mod) {
+		IModuleResourceDelta[] delta = getDeltaForModule(mod);
+		if( delta != null && delta.length > 0 )
+			return true;
+		IModule[] children = getChildModules(mod);
+		for( int i = 0; children != null && i < children.length; i++ ) {
+			if( hasChanges(combine(mod, children[i])))
+				return true;
+		}
+		return false;
+	}
+	
+	/*
+	 * Queue the changes of the given module and its children in the patcher.
+	 * A changed child archive is extracted, updated in turn, and replaced as a whole.
+	 */
+	private void appendChanges(ZipEntryPatcher patcher, IModule[] mod, List<IStatus> results, 
+			List<java.io.File> temporary, IProgressMonitor monitor) throws IOException, CoreException {
+		IModule[] children = getChildModules(mod);
+		int childCount = children == null ? 0 : children.length;
+		monitor.beginTask("Copying changed resources", 100 + childCount * 100); //$NON-NLS-1$
+		IModulePathFilter filter = filterProvider == null ? null : filterProvider.getFilter(server, mod);
+		appendChanges(patcher, getDeltaForModule(mod), filter, results, ProgressMonitorUtil.submon(monitor, 100));
+		for( int i = 0; i < childCount && !monitor.isCanceled(); i++ ) {
+			IModule[] combinedChild = combine(mod, children[i]);
+			if( !hasChanges(combinedChild)) {
+				monitor.worked(100);
+				continue;
+			}
+			String path = new Path(ServerModelUtilities.getModuleParentRelativePath(combinedChild, combinedChild.length-1))
+					.makeRelative().removeTrailingSeparator().toString();
+			if( ServerModelUtilities.isBinaryModule(children[i])) {
+				IModuleResource[] resources = getResources(children[i], new NullProgressMonitor());
+				if( resources.length == 1 && resources[0] instanceof IModuleFile ) {
+					java.io.File source = getFile((IModuleFile)resources[0]);
+					if( source != null )
+						patcher.put(path, source);
+				} else {
+					patcher.remove(path);
+					appendResources(patcher, path + "/", resources); //$NON-NLS-1$
+				}
+				monitor.worked(100);
+			} else {
+				java.io.File parent = destinationArchive.toFile().getParentFile();
+				java.io.File nestedFile = java.io.File.createTempFile("nested", ".tmp", parent); //$NON-NLS-1$ //$NON-NLS-2$
+				temporary.add(nestedFile);
+				java.io.File changedFile = java.io.File.createTempFile("nested", ".tmp", parent); //$NON-NLS-1$ //$NON-NLS-2$
+				temporary.add(changedFile);
+				if( !patcher.extract(path, nestedFile))
+					throw new IOException("Unable to update nested archive " + path); //$NON-NLS-1$
+				ZipEntryPatcher nested = new ZipEntryPatcher(nestedFile);
+				appendChanges(nested, combinedChild, results, temporary, ProgressMonitorUtil.submon(monitor, 100));
+				// The nested archive is copied whole into its parent, so write it without unreferenced space
+				if( !nested.write(changedFile))
+					throw new IOException("Unable to update nested archive " + path); //$NON-NLS-1$
+				patcher.put(path, changedFile);
+			}
+		}
+		monitor.done();
+	}
+	
+	private void appendChanges(ZipEntryPatcher patcher, IModuleResourceDelta[] deltas, 
+			IModulePathFilter filter, List<IStatus> results, IProgressMonitor monitor) {
+		if( deltas == null )
+			return;
+		for( int i = 0; i < deltas.length && !monitor.isCanceled(); i++ ) {
+			int dKind = deltas[i].getKind();
+			IModuleResource resource = deltas[i].getModuleResource();
+			String name = resource.getModuleRelativePath().append(resource.getName()).makeRelative().toString();
+			if( dKind == IModuleResourceDelta.ADDED ) {
+				if( filter == null || filter.shouldInclude(resource)) {
+					appendResources(patcher, "", new IModuleResource[]{resource}); //$NON-NLS-1$
+				}
+			} else if( dKind == IModuleResourceDelta.CHANGED ) {
+				if( filter == null || filter.shouldInclude(resource)) {
+					if( resource instanceof IModuleFile ) 
+						appendResources(patcher, "", new IModuleResource[]{resource}); //$NON-NLS-1$
+					appendChanges(patcher, deltas[i].getAffectedChildren(), filter, results, monitor);
+				}
+			} else if( dKind == IModuleResourceDelta.REMOVED) {
+				patcher.remove(name);
+			} else if( dKind == IModuleResourceDelta.NO_CHANGE  ) {
+				appendChanges(patcher, deltas[i].getAffectedChildren(), filter, results, monitor);
+			}
+		}
+	}
+	
+	private void appendResources(ZipEntryPatcher patcher, String prefix, IModuleResource[] children) {
+		for( int i = 0; i < children.length; i++ ) {
+			String name = prefix + children[i].getModuleRelativePath().append(children[i].getName()).makeRelative().toString();
+			if( children[i] instanceof IModuleFile ) {
+				java.io.File source = getFile((IModuleFile)children[i]);
+				if( source != null )
+					patcher.put(name, source);
+			} else if( children[i] instanceof IModuleFolder ) {
+				patcher.putFolder(name);
+				appendResources(patcher, prefix, ((IModuleFolder)children[i]).members());
+			}
+		}
+	}
+
 	protected IModule[] getChildModules(IModule[] parent) {
 		return server.getChildModules(parent, new NullProgressMonitor());
 	}
@@ -175,7 +358,7 @@ public class LocalZippedModulePublishRunner extends ModuleResourceUtil {
 	private IStatus[] fullPublish(IProgressMonitor monitor) {
 		// Get rid of the old file during a full publish
 		FileUtil.safeDelete(destinationArchive.toFile(), null);
-		TrueZipUtil.umount();
+		syncDestination();
 		return fullPublish(module, null,ProgressMonitorUtil.getMonitorFor(monitor));
 	}
 	
@@ -219,12 +402,12 @@ public class LocalZippedModulePublishRunner extends ModuleResourceUtil {
 			results.addAll(Arrays.asList(copyResults));
 			copyMonitor.done();
 			
-			TrueZipUtil.umount();
+			syncDestination();
 			
 			IModule[] children = getChildModules(module);
 			if( children != null )
 				publishChildren(module, results, children, moduleRoot,  ProgressMonitorUtil.submon(monitor, 1000));
-			TrueZipUtil.umount();
+			syncDestination();
 		} catch( CoreException ce) {
 			results.add(generateCoreExceptionStatus(ce));
 		}
@@ -233,6 +416,14 @@ public class LocalZippedModulePublishRunner extends ModuleResourceUtil {
 	}
 
 	
+	/*
+	 * Write out only the destination archive, leaving archives
+	 * being written by other publishes or builds mounted
+	 */
+	private void syncDestination() {
+		TrueZipUtil.umount(TrueZipUtil.getFile(destinationArchive, TrueZipUtil.getJarArchiveDetector()));
+	}
+
 	private de.schlichtherle.io.File getFile(IModule[] tree) {
 
 		IPath tail = getRootModuleRelativePath(tree);
@@ -290,7 +481,7 @@ public class LocalZippedModulePublishRunner extends ModuleResourceUtil {
 				}
 			}
 			monitor.done();
-			TrueZipUtil.umount();
+			syncDestination();
 			return (IStatus[]) results.toArray(new IStatus[results.size()]);
 		} catch( CoreException ce) {
 			results.add(generateCoreExceptionStatus(ce));
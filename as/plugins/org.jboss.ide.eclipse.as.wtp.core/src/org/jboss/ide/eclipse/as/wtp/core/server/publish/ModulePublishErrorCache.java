@@ -25,7 +25,7 @@ public class ModulePublishErrorCache {
 	}
 	
 	private HashMap<String, ServerResults> model = new HashMap<String, ServerResults>();
-	public IStatus getPublishErrorStatus(IServer server, IModule[] module) {
+	public synchronized IStatus getPublishErrorStatus(IServer server, IModule[] module) {
 		ModuleContainer mc = new ModuleContainer(module);
 		ServerResults sr = model.get(server.getId());
 		IStatus s = null;
@@ -35,7 +35,8 @@ public class ModulePublishErrorCache {
 		return s == null ? Status.OK_STATUS : s;
 	}
 	
-	public void setPublishErrorState(IServer server, IModule[] module, int state, IStatus status) {
+	// Modules of one server may be published concurrently
+	public synchronized void setPublishErrorState(IServer server, IModule[] module, int state, IStatus status) {
 		ModuleContainer mc = new ModuleContainer(module);
 		ServerResults sr = model.get(server.getId());
 		if( sr == null ) {
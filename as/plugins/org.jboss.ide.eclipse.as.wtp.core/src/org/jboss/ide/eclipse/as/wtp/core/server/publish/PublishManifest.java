@@ -0,0 +1,376 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.as.wtp.core.server.publish;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.jboss.ide.eclipse.as.wtp.core.ASWTPToolsPlugin;
+import org.jboss.ide.eclipse.as.wtp.core.Trace;
+
+/**
+ * A persistent record of the files a server has had published to a local filesystem.
+ * For every deployed path, the size, timestamp, and (lazily) a content hash
+ * of the deployed copy is kept.
+ *
+ * The publish runners consult this manifest before copying a file,
+ * and skip any file whose deployed copy is still byte-identical to the source.
+ * This prevents a full publish of an unchanged module from rewriting
+ * every file and triggering a redeployment by the server's deployment scanner.
+ *
+ * The deployed file is always checked against the recorded size and timestamp,
+ * so any deployed file modified or removed outside of tooling will be copied again.
+ *
+ * Every entry also records the deploy root of the module which published it,
+ * so that the files of a nested child module, which live beneath its parent's
+ * deploy root, are never mistaken for stale files of the parent.
+ *
+ * @since 3.6
+ */
+public class PublishManifest {
+	/**
+	 * The name of the manifest file inside a server's metadata location
+	 */
+	public static final String MANIFEST_FILE = "publishManifest.txt"; //$NON-NLS-1$
+
+	private static final String SEPARATOR = "|"; //$NON-NLS-1$
+	private static final String NONE = "-"; //$NON-NLS-1$
+	private static final String FORMAT_HEADER = "#2"; //$NON-NLS-1$
+
+	private static HashMap<File, PublishManifest> manifests = new HashMap<File, PublishManifest>();
+
+	/**
+	 * Get the manifest stored in the given file, loading it if required.
+	 *
+	 * @param storage the file the manifest is persisted in
+	 * @return the manifest, never null
+	 */
+	public static synchronized PublishManifest getManifest(File storage) {
+		PublishManifest pm = manifests.get(storage);
+		if( pm == null ) {
+			pm = new PublishManifest(storage);
+			pm.load();
+			manifests.put(storage, pm);
+		}
+		return pm;
+	}
+
+	/**
+	 * Forget the manifest stored in the given file, 
+	 * for example because its server has been removed.
+	 *
+	 * @param storage the file the manifest is persisted in
+	 */
+	public static synchronized void removeManifest(File storage) {
+		manifests.remove(storage);
+	}
+
+	private static class Entry {
+		private long size;
+		private long timestamp;
+		private long sourceTimestamp;
+		private String hash;
+		private IPath owner;
+		public Entry(long size, long timestamp, long sourceTimestamp, String hash, IPath owner) {
+			this.size = size;
+			this.timestamp = timestamp;
+			this.sourceTimestamp = sourceTimestamp;
+			this.hash = hash;
+			this.owner = owner;
+		}
+	}
+
+	private File storage;
+	private Map<IPath, Entry> entries = new ConcurrentHashMap<IPath, Entry>();
+	private volatile boolean dirty = false;
+
+	public PublishManifest(File storage) {
+		this.storage = storage;
+	}
+
+	/**
+	 * Return true if the deployed file at the given path
+	 * is known to have the same contents as the source file.
+	 *
+	 * @param source the local source file
+	 * @param deployed the absolute deployed path
+	 * @return
+	 */
+	public boolean isUnchanged(File source, IPath deployed) {
+		IPath key = key(deployed);
+		Entry e = entries.get(key);
+		if( e == null || source == null )
+			return false;
+		File deployedFile = key.toFile();
+		if( !deployedFile.isFile() || deployedFile.length() != e.size || deployedFile.lastModified() != e.timestamp ) {
+			// The deployed copy was changed by someone else
+			return false;
+		}
+		if( source.length() != e.size )
+			return false;
+		long sourceTimestamp = source.lastModified();
+		if( sourceTimestamp == e.sourceTimestamp )
+			return true;
+
+		// Same size but touched since; compare the contents
+		try {
+			if( e.hash == null )
+				e.hash = hash(deployedFile);
+			dirty = true;
+			if( !e.hash.equals(hash(source)))
+				return false;
+			// Remember the new timestamp so the source is not hashed again next time
+			e.sourceTimestamp = sourceTimestamp;
+			return true;
+		} catch(IOException ioe) {
+			return false;
+		}
+	}
+
+	/**
+	 * Record that the given source file has just been copied to the deployed path
+	 *
+	 * @param source the local source file
+	 * @param deployed the absolute deployed path
+	 * @param moduleRoot the deploy root of the module the file belongs to
+	 */
+	public void published(File source, IPath deployed, IPath moduleRoot) {
+		IPath key = key(deployed);
+		File deployedFile = key.toFile();
+		if( deployedFile.isFile()) {
+			entries.put(key, new Entry(deployedFile.length(), deployedFile.lastModified(), 
+					source.lastModified(), null, key(moduleRoot)));
+		} else {
+			entries.remove(key);
+		}
+		dirty = true;
+	}
+
+	/**
+	 * Forget the given deployed path and any deployed path beneath it
+	 *
+	 * @param deployed an absolute deployed file or folder
+	 */
+	public void removed(IPath deployed) {
+		IPath key = key(deployed);
+		Iterator<IPath> it = entries.keySet().iterator();
+		while(it.hasNext()) {
+			if( key.isPrefixOf(it.next())) {
+				it.remove();
+				dirty = true;
+			}
+		}
+	}
+
+	/**
+	 * Return whether the module deployed to the given folder
+	 * has any deployed path recorded
+	 *
+	 * @param root the absolute deploy root of a module
+	 * @return
+	 */
+	public boolean hasPublished(IPath root) {
+		return !getStale(root, new ArrayList<IPath>()).isEmpty();
+	}
+
+	/**
+	 * Get all deployed paths recorded for the module deployed to the given folder
+	 * which are not part of the given collection of current paths.
+	 * 
+	 * Paths published by other modules, and any path beneath the deploy root
+	 * of a nested child module, are never returned.
+	 *
+	 * @param root the absolute deploy root of a module
+	 * @param current the absolute deployed paths which are still part of the module
+	 * @return
+	 */
+	public List<IPath> getStale(IPath root, Collection<IPath> current) {
+		IPath rootKey = key(root);
+		HashSet<IPath> currentKeys = new HashSet<IPath>();
+		Iterator<IPath> cit = current.iterator();
+		while(cit.hasNext()) {
+			currentKeys.add(key(cit.next()));
+		}
+		List<IPath> childRoots = getChildRoots(rootKey);
+		List<IPath> ret = new ArrayList<IPath>();
+		Iterator<Map.Entry<IPath, Entry>> it = entries.entrySet().iterator();
+		while(it.hasNext()) {
+			Map.Entry<IPath, Entry> next = it.next();
+			IPath p = next.getKey();
+			IPath owner = next.getValue().owner;
+			if( owner != null && !owner.equals(rootKey))
+				continue;
+			if( rootKey.isPrefixOf(p) && !currentKeys.contains(p) && !isBeneathAny(p, childRoots))
+				ret.add(p);
+		}
+		return ret;
+	}
+
+	/*
+	 * The deploy roots of all modules nested beneath the given root
+	 */
+	private List<IPath> getChildRoots(IPath rootKey) {
+		List<IPath> ret = new ArrayList<IPath>();
+		Iterator<Entry> it = entries.values().iterator();
+		while(it.hasNext()) {
+			IPath owner = it.next().owner;
+			if( owner != null && !owner.equals(rootKey) && rootKey.isPrefixOf(owner) && !ret.contains(owner))
+				ret.add(owner);
+		}
+		return ret;
+	}
+
+	private static boolean isBeneathAny(IPath p, List<IPath> roots) {
+		Iterator<IPath> it = roots.iterator();
+		while(it.hasNext()) {
+			if( it.next().isPrefixOf(p))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Persist the manifest if it has changed since it was loaded or last saved
+	 *
+	 * @return a status
+	 */
+	public synchronized IStatus save() {
+		if( !dirty )
+			return Status.OK_STATUS;
+		File tmp = new File(storage.getParentFile(), storage.getName() + ".tmp"); //$NON-NLS-1$
+		storage.getParentFile().mkdirs();
+		try( Writer w = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(tmp.toPath()), StandardCharsets.UTF_8))) {
+			w.write(FORMAT_HEADER);
+			w.write('\n');
+			Iterator<Map.Entry<IPath, Entry>> it = entries.entrySet().iterator();
+			while(it.hasNext()) {
+				Map.Entry<IPath, Entry> next = it.next();
+				Entry e = next.getValue();
+				w.write(Long.toString(e.size));
+				w.write(SEPARATOR);
+				w.write(Long.toString(e.timestamp));
+				w.write(SEPARATOR);
+				w.write(Long.toString(e.sourceTimestamp));
+				w.write(SEPARATOR);
+				w.write(e.hash == null ? NONE : e.hash);
+				w.write(SEPARATOR);
+				w.write(e.owner == null ? NONE : e.owner.toPortableString());
+				w.write(SEPARATOR);
+				w.write(next.getKey().toPortableString());
+				w.write('\n');
+			}
+		} catch(IOException ioe) {
+			return new Status(IStatus.ERROR, ASWTPToolsPlugin.PLUGIN_ID,
+					"Unable to save publish manifest " + storage.getAbsolutePath(), ioe); //$NON-NLS-1$
+		}
+		try {
+			Files.move(tmp.toPath(), storage.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			dirty = false;
+		} catch(IOException ioe) {
+			return new Status(IStatus.ERROR, ASWTPToolsPlugin.PLUGIN_ID,
+					"Unable to save publish manifest " + storage.getAbsolutePath(), ioe); //$NON-NLS-1$
+		}
+		return Status.OK_STATUS;
+	}
+
+	private void load() {
+		if( !storage.isFile())
+			return;
+		try( BufferedReader r = new BufferedReader(new InputStreamReader(new FileInputStream(storage), StandardCharsets.UTF_8))) {
+			String line = r.readLine();
+			boolean scoped = FORMAT_HEADER.equals(line);
+			if( scoped )
+				line = r.readLine();
+			while(line != null) {
+				if( scoped ) {
+					String[] parts = line.split("\\|", 6); //$NON-NLS-1$
+					if( parts.length == 6 ) {
+						String hash = NONE.equals(parts[3]) ? null : parts[3];
+						IPath owner = NONE.equals(parts[4]) ? null : Path.fromPortableString(parts[4]);
+						entries.put(Path.fromPortableString(parts[5]),
+								new Entry(Long.parseLong(parts[0]), Long.parseLong(parts[1]), 
+										Long.parseLong(parts[2]), hash, owner));
+					}
+				} else {
+					// Entries written before they were scoped to modules
+					String[] parts = line.split("\\|", 4); //$NON-NLS-1$
+					if( parts.length == 4 ) {
+						String hash = NONE.equals(parts[2]) ? null : parts[2];
+						long timestamp = Long.parseLong(parts[1]);
+						entries.put(Path.fromPortableString(parts[3]),
+								new Entry(Long.parseLong(parts[0]), timestamp, timestamp, hash, null));
+					}
+				}
+				line = r.readLine();
+			}
+		} catch(IOException | NumberFormatException e) {
+			// A corrupt manifest only means files will be copied again
+			Trace.trace(Trace.STRING_FINER, "Unable to load publish manifest " + storage.getAbsolutePath()); //$NON-NLS-1$
+			entries.clear();
+		}
+	}
+
+	/*
+	 * Deployed paths may be any IPath implementation, 
+	 * so normalize them to local filesystem paths for storage and lookup
+	 */
+	private static IPath key(IPath deployed) {
+		return Path.fromOSString(deployed.toOSString());
+	}
+
+	private static String hash(File f) throws IOException {
+		MessageDigest md = null;
+		try {
+			md = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+		} catch(NoSuchAlgorithmException nsae) {
+			throw new IOException(nsae);
+		}
+		try( InputStream is = new FileInputStream(f)) {
+			byte[] buf = new byte[65536];
+			int read = is.read(buf);
+			while( read != -1 ) {
+				md.update(buf, 0, read);
+				read = is.read(buf);
+			}
+		}
+		byte[] digest = md.digest();
+		StringBuilder sb = new StringBuilder(digest.length * 2);
+		for( int i = 0; i < digest.length; i++ ) {
+			sb.append(Character.forDigit((digest[i] >> 4) & 0xF, 16));
+			sb.append(Character.forDigit(digest[i] & 0xF, 16));
+		}
+		return sb.toString();
+	}
+}
@@ -13,12 +13,27 @@ package org.jboss.ide.eclipse.as.wtp.core.server.publish;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.wst.server.core.model.IModuleFile;
 import org.eclipse.wst.server.core.model.IModuleFolder;
@@ -64,6 +79,9 @@ public final class PublishModuleFullRunner {
 	
 	private IFilesystemController fsController;
 	private IPath rootDirectory;
+	private int workerCount;
+	private PublishManifest manifest;
+	private Set<IPath> publishedPaths;
 	
 	
 	/**
@@ -83,8 +101,42 @@ public final class PublishModuleFullRunner {
 	 * @param filter
 	 */
 	public PublishModuleFullRunner(IFilesystemController controller, IPath rootDirectory) {
+		this(controller, rootDirectory, 1);
+	}
+	
+	/**
+	 * Construct an instance of the PublishRunner which copies files 
+	 * on up to workerCount threads. 
+	 * 
+	 * When workerCount is greater than 1, the full directory skeleton 
+	 * is created in a single pass on the calling thread before any file is copied, 
+	 * and file copies are then spread across a bounded pool of workers. 
+	 * The filesystem controller must be safe to call from multiple threads
+	 * for copyFile operations. 
+	 * 
+	 * @param controller a fs controller for doing fs operations
+	 * @param rootDirectory
+	 * @param workerCount the maximum number of concurrent file copies
+	 * @since 3.6
+	 */
+	public PublishModuleFullRunner(IFilesystemController controller, IPath rootDirectory, int workerCount) {
 		this.fsController = controller;
 		this.rootDirectory = rootDirectory;
+		this.workerCount = Math.max(1, workerCount);
+	}
+	
+	/**
+	 * Set a manifest of previously deployed files. 
+	 * 
+	 * When a manifest is set, the root directory is not wiped before a full publish.
+	 * Files whose deployed copy is byte-identical to the source are skipped, 
+	 * and previously deployed files that are no longer part of the module are removed.
+	 * 
+	 * @param manifest the manifest, or null to always copy every file
+	 * @since 3.6
+	 */
+	public void setPublishManifest(PublishManifest manifest) {
+		this.manifest = manifest;
 	}
 	
 	/**
@@ -111,8 +163,18 @@ public final class PublishModuleFullRunner {
 		if( monitor.isCanceled())
 			return CANCEL_STATUS_ARR;
 		
-		Trace.trace(Trace.STRING_FINER, "      Deleting root directory: " + rootDirectory); //$NON-NLS-1$
-		fsController.deleteResource(rootDirectory, ProgressMonitorUtil.getSubMon(monitor, 100));
+		publishedPaths = Collections.synchronizedSet(new HashSet<IPath>());
+		if( manifest != null && manifest.hasPublished(rootDirectory) 
+				&& !fsController.isFile(rootDirectory, ProgressMonitorUtil.getSubMon(monitor, 10))) {
+			// Previously deployed files will be compared against the manifest instead
+			Trace.trace(Trace.STRING_FINER, "      Synchronizing root directory with publish manifest: " + rootDirectory); //$NON-NLS-1$
+			monitor.worked(90);
+		} else {
+			Trace.trace(Trace.STRING_FINER, "      Deleting root directory: " + rootDirectory); //$NON-NLS-1$
+			fsController.deleteResource(rootDirectory, ProgressMonitorUtil.getSubMon(monitor, 100));
+			if( manifest != null )
+				manifest.removed(rootDirectory);
+		}
 		
 		if( monitor.isCanceled())
 			return CANCEL_STATUS_ARR;
@@ -128,7 +190,15 @@ public final class PublishModuleFullRunner {
 		
 		// Begin to run through the resources
 		ArrayList<IStatus> all =new ArrayList<IStatus>();
-		IStatus[] results = traverseResources(resources, rootDirectory, monitor); //$NON-NLS-1$
+		IStatus[] results = null;
+		if( workerCount > 1 ) {
+			results = parallelPublish(resources, monitor);
+		} else {
+			results = traverseResources(resources, rootDirectory, monitor);
+		}
+		if( manifest != null && !monitor.isCanceled()) {
+			results = removeStaleFiles(results, monitor);
+		}
 		if( s != null )
 			all.add(s);
 		all.addAll(Arrays.asList(results));
@@ -187,8 +257,7 @@ public final class PublishModuleFullRunner {
 			
 			// Then copy the file
 			File file = ModuleResourceUtil.getFile(((IModuleFile)resource));
-			Trace.trace(Trace.STRING_FINER, "      Copying file: " + absoluteRemote); //$NON-NLS-1$
-			IStatus stats2 = fsController.copyFile(file, absoluteRemote, 
+			IStatus stats2 = copyFile(file, absoluteRemote, 
 					ProgressMonitorUtil.getSubMon(monitor, 90)); 
 			if( stats2 != null )
 				status.add(stats2);
@@ -196,6 +265,178 @@ public final class PublishModuleFullRunner {
 		return status.toArray(new IStatus[status.size()]);
 	}
 
+	/*
+	 * Copy the file unless the manifest knows the deployed copy to be identical
+	 */
+	private IStatus copyFile(File file, IPath absoluteRemote, IProgressMonitor monitor) throws CoreException {
+		if( manifest != null ) {
+			publishedPaths.add(absoluteRemote);
+			if( manifest.isUnchanged(file, absoluteRemote)) {
+				Trace.trace(Trace.STRING_FINER, "      Skipping unchanged file: " + absoluteRemote); //$NON-NLS-1$
+				monitor.done();
+				return null;
+			}
+		}
+		Trace.trace(Trace.STRING_FINER, "      Copying file: " + absoluteRemote); //$NON-NLS-1$
+		IStatus stat = fsController.copyFile(file, absoluteRemote, monitor);
+		if( manifest != null && (stat == null || stat.isOK()))
+			manifest.published(file, absoluteRemote, rootDirectory);
+		return stat;
+	}
+	
+	/*
+	 * Remove any file deployed by an earlier publish which is no longer in the module
+	 */
+	private IStatus[] removeStaleFiles(IStatus[] results, IProgressMonitor monitor) throws CoreException {
+		List<IPath> stale = manifest.getStale(rootDirectory, publishedPaths);
+		if( stale.isEmpty())
+			return results;
+		List<IStatus> status = new ArrayList<IStatus>(Arrays.asList(results));
+		Iterator<IPath> it = stale.iterator();
+		while(it.hasNext()) {
+			IPath p = it.next();
+			Trace.trace(Trace.STRING_FINER, "      Removing stale file: " + p); //$NON-NLS-1$
+			IStatus stat = fsController.deleteResource(p, new NullProgressMonitor());
+			if( stat != null && !stat.isOK())
+				status.add(stat);
+			manifest.removed(p);
+		}
+		return status.toArray(new IStatus[status.size()]);
+	}
+	
+	/*
+	 * Create the directory skeleton in one pass, and then 
+	 * copy all files across a bounded pool of worker threads. 
+	 */
+	private IStatus[] parallelPublish(IModuleResource[] resources, IProgressMonitor monitor) throws CoreException {
+		Set<IPath> folders = new LinkedHashSet<IPath>();
+		Map<IPath, File> files = new LinkedHashMap<IPath, File>();
+		collectResources(resources, rootDirectory, folders, files);
+		Trace.trace(Trace.STRING_FINER, "      Parallel publish of " + files.size() + " files to " //$NON-NLS-1$ //$NON-NLS-2$
+				+ folders.size() + " folders with " + workerCount + " workers"); //$NON-NLS-1$ //$NON-NLS-2$
+		
+		List<IStatus> status = new ArrayList<IStatus>(2);
+		Iterator<IPath> folderIt = folders.iterator();
+		while(folderIt.hasNext()) {
+			if( monitor.isCanceled())
+				return CANCEL_STATUS_ARR;
+			IPath folder = folderIt.next();
+			Trace.trace(Trace.STRING_FINER, "      Creating folder: " + folder); //$NON-NLS-1$
+			IStatus stats = fsController.makeDirectoryIfRequired(folder, 
+					ProgressMonitorUtil.getSubMon(monitor, 10));
+			if( stats != null )
+				status.add(stats);
+		}
+		
+		if( monitor.isCanceled())
+			return CANCEL_STATUS_ARR;
+		
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(workerCount, Math.max(1, files.size())), 
+				new PublishWorkerThreadFactory());
+		try {
+			List<Future<IStatus>> results = new ArrayList<Future<IStatus>>(files.size());
+			Iterator<Map.Entry<IPath, File>> fileIt = files.entrySet().iterator();
+			while(fileIt.hasNext()) {
+				Map.Entry<IPath, File> e = fileIt.next();
+				results.add(pool.submit(new CopyFileTask(e.getValue(), e.getKey(), monitor)));
+			}
+			
+			// Collect the results in submission order, reporting progress on the calling thread
+			Iterator<Future<IStatus>> resultIt = results.iterator();
+			while(resultIt.hasNext()) {
+				IStatus stats = resultIt.next().get();
+				if( stats == CANCEL_STATUS || monitor.isCanceled())
+					return CANCEL_STATUS_ARR;
+				if( stats != null )
+					status.add(stats);
+				monitor.worked(90);
+			}
+		} catch(InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			return CANCEL_STATUS_ARR;
+		} catch(ExecutionException ee) {
+			Throwable cause = ee.getCause();
+			if( cause instanceof CoreException )
+				throw (CoreException)cause;
+			throw new CoreException(new Status(IStatus.ERROR, ASWTPToolsPlugin.PLUGIN_ID, 
+					"Error copying files during publish", cause)); //$NON-NLS-1$
+		} finally {
+			pool.shutdownNow();
+		}
+		return status.toArray(new IStatus[status.size()]);
+	}
+	
+	/*
+	 * Walk the resource tree, collecting the folders which must exist 
+	 * and the absolute destination of every file to be copied. 
+	 */
+	private void collectResources(IModuleResource[] resources, IPath path, Set<IPath> folders, Map<IPath, File> files) {
+		if( resources == null )
+			return;
+		for( int i = 0; i < resources.length; i++ ) {
+			IModuleResource resource = resources[i];
+			IPath absoluteRemote = path.append(resource.getModuleRelativePath()).append(resource.getName());
+			if (resource instanceof IModuleFolder) {
+				IModuleResource[] children = ((IModuleFolder) resource).members();
+				if( children.length == 0 ) {
+					folders.add(absoluteRemote);
+				} else {
+					collectResources(children, path, folders, files);
+				}
+			} else {
+				folders.add(absoluteRemote.removeLastSegments(1));
+				files.put(absoluteRemote, ModuleResourceUtil.getFile(((IModuleFile)resource)));
+			}
+		}
+	}
+	
+	/*
+	 * Copies one file. The task checks the shared monitor for 
+	 * cancellation before doing any work, but progress is 
+	 * reported by the calling thread as tasks complete. 
+	 */
+	private class CopyFileTask implements Callable<IStatus> {
+		private File file;
+		private IPath absoluteRemote;
+		private IProgressMonitor monitor;
+		public CopyFileTask(File file, IPath absoluteRemote, IProgressMonitor monitor) {
+			this.file = file;
+			this.absoluteRemote = absoluteRemote;
+			this.monitor = monitor;
+		}
+		public IStatus call() throws Exception {
+			if( monitor.isCanceled())
+				return CANCEL_STATUS;
+			return copyFile(file, absoluteRemote, new CancelDelegatingMonitor(monitor));
+		}
+	}
+	
+	/*
+	 * Progress monitors are not thread-safe for reporting work, 
+	 * so workers receive a monitor that only shares cancellation state
+	 */
+	private static class CancelDelegatingMonitor extends NullProgressMonitor {
+		private IProgressMonitor parent;
+		public CancelDelegatingMonitor(IProgressMonitor parent) {
+			this.parent = parent;
+		}
+		public boolean isCanceled() {
+			return parent.isCanceled();
+		}
+		public void setCanceled(boolean cancelled) {
+			parent.setCanceled(cancelled);
+		}
+	}
+	
+	private static class PublishWorkerThreadFactory implements ThreadFactory {
+		private static final AtomicInteger COUNT = new AtomicInteger();
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "Publish Worker " + COUNT.incrementAndGet()); //$NON-NLS-1$
+			t.setDaemon(true);
+			return t;
+		}
+	}
+
 	/**
 	 * This method assumes the list is non-null
 	 * Simply add all elements of the array to the list
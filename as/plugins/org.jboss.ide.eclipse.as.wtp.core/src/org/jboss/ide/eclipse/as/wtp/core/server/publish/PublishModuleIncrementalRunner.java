@@ -65,6 +65,7 @@ public final class PublishModuleIncrementalRunner {
 	
 	private IFilesystemController fsController;
 	private IPath rootDirectory;
+	private PublishManifest manifest;
 	
 	
 	/**
@@ -89,6 +90,18 @@ public final class PublishModuleIncrementalRunner {
 		this.rootDirectory = rootDirectory;
 	}
 
+	/**
+	 * Set a manifest of previously deployed files. 
+	 * Changed files whose deployed copy is still byte-identical 
+	 * to the source will not be copied again.
+	 * 
+	 * @param manifest the manifest, or null to always copy every changed file
+	 * @since 3.6
+	 */
+	public void setPublishManifest(PublishManifest manifest) {
+		this.manifest = manifest;
+	}
+
 	/**
 	 * Handle a delta publish.
 	 * 
@@ -151,6 +164,10 @@ public final class PublishModuleIncrementalRunner {
 				IStatus stat = fsController.deleteResource(absolutePath, monitor);
 				if( stat != null )
 					status.add( stat);
+				if( manifest != null )
+					manifest.removed(absolutePath);
+			} else if( kind2 != IModuleResourceDelta.NO_CHANGE && manifest != null && manifest.isUnchanged(ioFile, absolutePath)) {
+				Trace.trace(Trace.STRING_FINER, "      Skipping unchanged resource: " + absolutePath); //$NON-NLS-1$
 			} else if( kind2 != IModuleResourceDelta.NO_CHANGE){
 				Trace.trace(Trace.STRING_FINER, "      Creating directory resource: " + absolutePath.removeLastSegments(1)); //$NON-NLS-1$
 				IStatus s1 = fsController.makeDirectoryIfRequired(absolutePath.removeLastSegments(1), new SubProgressMonitor(monitor, 10));
@@ -162,6 +179,8 @@ public final class PublishModuleIncrementalRunner {
 				IStatus s2 = fsController.copyFile(ioFile, absolutePath, new SubProgressMonitor(monitor, 90));
 				if( s2 != null )
 					status.add( s2);
+				if( manifest != null && (s2 == null || s2.isOK()))
+					manifest.published(ioFile, absolutePath, rootDirectory);
 			}
 			return status.toArray(new IStatus[status.size()]);
 		}
@@ -190,6 +209,8 @@ public final class PublishModuleIncrementalRunner {
 		
 		// Handle the case where a folder is removed
 		if (kind2 == IModuleResourceDelta.REMOVED) {
+			if( manifest != null )
+				manifest.removed(absolutePath);
 			IStatus stat = fsController.deleteResource(absolutePath, monitor);
 			if( stat != null && !stat.isOK()) {
 				String msg = NLS.bind(Messages.errorDeleting, absolutePath);
@@ -0,0 +1,282 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.ide.eclipse.as.wtp.core.server.publish;
+
+import java.io.FileInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.wst.server.core.IModule;
+import org.eclipse.wst.server.core.IServer;
+import org.eclipse.wst.server.core.model.IModuleFile;
+import org.eclipse.wst.server.core.model.IModuleFolder;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.jboss.ide.eclipse.as.core.server.IModulePathFilter;
+import org.jboss.ide.eclipse.as.core.server.IModulePathFilterProvider;
+import org.jboss.ide.eclipse.as.core.util.IEventCodes;
+import org.jboss.ide.eclipse.as.core.util.ModuleResourceUtil;
+import org.jboss.ide.eclipse.as.core.util.ProgressMonitorUtil;
+import org.jboss.ide.eclipse.as.wtp.core.ASWTPToolsPlugin;
+import org.jboss.ide.eclipse.as.wtp.core.Messages;
+import org.jboss.ide.eclipse.as.wtp.core.util.ServerModelUtilities;
+
+/**
+ * This class is a utility class meant to zip a given module
+ * and its child modules directly to an output stream,
+ * such as a management upload, without assembling the archive on disk.
+ *
+ * Child modules are written as nested archives in the same pass,
+ * so the content of the stream matches the archive created by a
+ * full publish of {@link LocalZippedModulePublishRunner}.
+ * Only full packaging is supported.
+ *
+ * A {@link IModulePathFilterProvider} may be given
+ * to assist in cleaning a module and its child modules.
+ *
+ * @since 3.6
+ */
+public class StreamingZippedModulePublishRunner extends ModuleResourceUtil {
+	private static final int BUFFER_SIZE = 65536;
+
+	private IServer server;
+	private IModule[] module;
+	private IModulePathFilterProvider filterProvider;
+	private long bytesRead = 0;
+
+	public StreamingZippedModulePublishRunner(IServer server, IModule module, IModulePathFilterProvider filterProvider) {
+		this(server, new IModule[]{module}, filterProvider);
+	}
+
+	public StreamingZippedModulePublishRunner(IServer server, IModule[] module, IModulePathFilterProvider filterProvider) {
+		this.server = server;
+		this.module = module;
+		this.filterProvider = filterProvider;
+	}
+
+	/**
+	 * Write the module and all its child modules as one archive.
+	 * The given stream is not closed.
+	 *
+	 * @param out
+	 * @param monitor
+	 * @return a status, which is not OK if any resource could not be written or the monitor was canceled
+	 */
+	public IStatus writeModule(OutputStream out, IProgressMonitor monitor) {
+		monitor = ProgressMonitorUtil.getMonitorFor(monitor);
+		ArrayList<IStatus> results = new ArrayList<IStatus>();
+		try {
+			ZipOutputStream zip = new ZipOutputStream(new UnclosableOutputStream(out));
+			writeModule(module, zip, results, monitor);
+			zip.close();
+		} catch(IOException ioe) {
+			results.add(new Status(IStatus.ERROR, ASWTPToolsPlugin.PLUGIN_ID,
+					"Unable to write module " + module[module.length-1].getName(), ioe)); //$NON-NLS-1$
+		}
+		return createModuleStatus(module, (IStatus[]) results.toArray(new IStatus[results.size()]));
+	}
+
+	/**
+	 * Get the number of bytes of module resources read so far
+	 * @return
+	 */
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
+	private void writeModule(IModule[] module, ZipOutputStream zip, List<IStatus> results, IProgressMonitor monitor) throws IOException {
+		monitor.beginTask("Packaging Module: " + module[module.length-1].getName(), 2000); //$NON-NLS-1$
+		Set<String> entries = new HashSet<String>();
+		try {
+			IModuleResource[] resources = getResources(module);
+			IModulePathFilter filter = filterProvider == null ? null : filterProvider.getFilter(server, module);
+			IModuleResource[] resources2 = filter == null ? resources : filter.getFilteredMembers();
+
+			int totalCount = countMembers(resources2, true);
+			IProgressMonitor copyMonitor = ProgressMonitorUtil.submon(monitor, 1000);
+			copyMonitor.beginTask("Copying Resources", totalCount*100); //$NON-NLS-1$
+			write(zip, entries, "", resources2, results, copyMonitor); //$NON-NLS-1$
+			copyMonitor.done();
+		} catch( CoreException ce) {
+			results.add(new Status(IStatus.ERROR, ASWTPToolsPlugin.PLUGIN_ID, ce.getMessage(), ce));
+		}
+
+		IModule[] children = getChildModules(module);
+		if( children != null )
+			writeChildren(module, children, zip, entries, results, ProgressMonitorUtil.submon(monitor, 1000));
+		monitor.done();
+	}
+
+	private void writeChildren(IModule[] module, IModule[] children, ZipOutputStream zip, Set<String> entries,
+			List<IStatus> results, IProgressMonitor monitor) throws IOException {
+		monitor.beginTask("Assembling child modules", children.length * 100); //$NON-NLS-1$
+		for( int i = 0; i < children.length; i++ ) {
+			if( monitor.isCanceled()) {
+				results.add(new Status(IStatus.CANCEL, ASWTPToolsPlugin.PLUGIN_ID, "Operation Canceled")); //$NON-NLS-1$
+				return;
+			}
+			IModule[] child = combine(module, children[i]);
+			String path = ServerModelUtilities.getModuleParentRelativePath(child, child.length-1);
+			if( ServerModelUtilities.isBinaryModule(children[i])) {
+				writeBinaryChild(child, path, zip, entries, results, ProgressMonitorUtil.submon(monitor, 100));
+			} else {
+				String name = new Path(path).makeRelative().removeTrailingSeparator().toString();
+				addParentFolders(zip, entries, name);
+				if( entries.add(name)) {
+					zip.putNextEntry(new ZipEntry(name));
+					ZipOutputStream nested = new ZipOutputStream(new UnclosableOutputStream(zip));
+					writeModule(child, nested, results, ProgressMonitorUtil.submon(monitor, 100));
+					nested.close();
+					zip.closeEntry();
+				}
+			}
+		}
+	}
+
+	/*
+	 * A binary module's single file is written at the module's own path,
+	 * rather than inside it. See {@link LocalZippedModulePublishRunner}
+	 */
+	private void writeBinaryChild(IModule[] child, String path, ZipOutputStream zip, Set<String> entries,
+			List<IStatus> results, IProgressMonitor monitor) throws IOException {
+		String name = new Path(path).makeRelative().removeTrailingSeparator().toString();
+		try {
+			IModuleResource[] resources = getResources(child[child.length-1], new NullProgressMonitor());
+			int total = countMembers(resources, true);
+			monitor.beginTask("Copying Resources", total*100); //$NON-NLS-1$
+			if( total == 1 && resources[0] instanceof IModuleFile ) {
+				java.io.File source = getFile((IModuleFile)resources[0]);
+				if( source != null )
+					writeFile(zip, entries, name, source, results);
+				monitor.worked(100);
+			} else {
+				write(zip, entries, name + "/", resources, results, monitor); //$NON-NLS-1$
+			}
+		} catch(CoreException ce) {
+			results.add(new Status(IStatus.ERROR, ASWTPToolsPlugin.PLUGIN_ID, ce.getMessage(), ce));
+		}
+		monitor.done();
+	}
+
+	private void write(ZipOutputStream zip, Set<String> entries, String prefix, IModuleResource[] children,
+			List<IStatus> results, IProgressMonitor monitor) throws IOException {
+		for( int i = 0; i < children.length; i++ ) {
+			if( monitor.isCanceled()) {
+				results.add(new Status(IStatus.CANCEL, ASWTPToolsPlugin.PLUGIN_ID, "Operation Canceled")); //$NON-NLS-1$
+				return;
+			}
+			IPath relative = children[i].getModuleRelativePath().append(children[i].getName()).makeRelative();
+			String name = prefix + relative.toString();
+			if( children[i] instanceof IModuleFile ) {
+				java.io.File source = getFile((IModuleFile)children[i]);
+				if( source != null )
+					writeFile(zip, entries, name, source, results);
+				monitor.worked(100);
+			} else if( children[i] instanceof IModuleFolder ) {
+				addFolder(zip, entries, name);
+				monitor.worked(100);
+				write(zip, entries, prefix, ((IModuleFolder)children[i]).members(), results, monitor);
+			}
+		}
+	}
+
+	private void writeFile(ZipOutputStream zip, Set<String> entries, String name, java.io.File source,
+			List<IStatus> results) throws IOException {
+		addParentFolders(zip, entries, name);
+		if( !entries.add(name))
+			return;
+		ZipEntry entry = new ZipEntry(name);
+		entry.setTime(source.lastModified());
+		zip.putNextEntry(entry);
+		try( InputStream is = new FileInputStream(source)) {
+			byte[] buf = new byte[BUFFER_SIZE];
+			int read = is.read(buf);
+			while( read != -1 ) {
+				zip.write(buf, 0, read);
+				bytesRead += read;
+				read = is.read(buf);
+			}
+		} catch(IOException ioe) {
+			// Distinguish a bad source file from a broken output stream
+			results.add(new Status(IStatus.ERROR, ASWTPToolsPlugin.PLUGIN_ID,
+					"Copy of " + source + " to " + name + " has failed", ioe)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		zip.closeEntry();
+	}
+
+	private void addParentFolders(ZipOutputStream zip, Set<String> entries, String name) throws IOException {
+		IPath parent = new Path(name).removeLastSegments(1);
+		for( int i = 1; i <= parent.segmentCount(); i++ ) {
+			addFolder(zip, entries, parent.uptoSegment(i).toString());
+		}
+	}
+
+	private void addFolder(ZipOutputStream zip, Set<String> entries, String name) throws IOException {
+		String folder = name.endsWith("/") ? name : name + "/"; //$NON-NLS-1$ //$NON-NLS-2$
+		if( entries.add(folder)) {
+			zip.putNextEntry(new ZipEntry(folder));
+			zip.closeEntry();
+		}
+	}
+
+	private IStatus createModuleStatus(IModule[] module, IStatus[] operationStatus) {
+		if( operationStatus.length > 0 ) {
+			MultiStatus ms = new MultiStatus(ASWTPToolsPlugin.PLUGIN_ID, IEventCodes.JST_PUB_FULL_FAIL,
+					"Publish Failed for module " + module[0].getName(), null); //$NON-NLS-1$
+			for( int i = 0; i < operationStatus.length; i++ )
+				ms.add(operationStatus[i]);
+			return ms;
+		}
+		return new Status(IStatus.OK, ASWTPToolsPlugin.PLUGIN_ID,
+				IEventCodes.JST_PUB_FULL_SUCCESS,
+				NLS.bind(Messages.ModulePublished, module[0].getName()), null);
+	}
+
+	/*
+	 * The following utility method is here simply for tests to override
+	 * when using mock modules that do not actually exist in the workspace.
+	 */
+	protected IModule[] getChildModules(IModule[] parent) {
+		return server.getChildModules(parent, new NullProgressMonitor());
+	}
+
+	/*
+	 * Nested archives, and the caller's stream, must stay open
+	 * after the zip stream writing into them is closed
+	 */
+	private static class UnclosableOutputStream extends FilterOutputStream {
+		public UnclosableOutputStream(OutputStream out) {
+			super(out);
+		}
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+		}
+		public void close() throws IOException {
+			flush();
+		}
+	}
+}
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.as.test.core.subsystems;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.wst.server.core.IModule;
+import org.jboss.ide.eclipse.as.wtp.core.server.behavior.ConcurrentModulePublisher;
+import org.jboss.ide.eclipse.as.wtp.core.server.behavior.ConcurrentModulePublisher.IModuleTreePublisher;
+import org.jboss.tools.as.test.core.internal.utils.MockModule;
+import org.junit.Test;
+
+/**
+ * Verifies that a {@link ConcurrentModulePublisher} keeps the module trees
+ * of one top-level module together, and reports the result of every group
+ */
+public class ConcurrentModulePublisherTest extends TestCase {
+
+	@Test
+	public void testGroupByTopLevelModule() {
+		IModule ear = createModule("ear");
+		IModule web1 = createModule("web1");
+		IModule web2 = createModule("web2");
+		List<IModule[]> modules = new ArrayList<IModule[]>();
+		modules.add(new IModule[]{ear});
+		modules.add(new IModule[]{web1});
+		modules.add(new IModule[]{ear, createModule("ejb")});
+		modules.add(new IModule[]{web2});
+		modules.add(new IModule[]{ear, createModule("war")});
+
+		List<List<Integer>> groups = ConcurrentModulePublisher.groupByTopLevelModule(modules);
+		assertEquals(3, groups.size());
+		assertEquals(asList(0, 2, 4), groups.get(0));
+		assertEquals(asList(1), groups.get(1));
+		assertEquals(asList(3), groups.get(2));
+	}
+
+	@Test
+	public void testChildrenPublishedInOrderOnOneThread() {
+		List<IModule[]> modules = new ArrayList<IModule[]>();
+		IModule ear = createModule("ear");
+		modules.add(new IModule[]{ear});
+		for( int i = 0; i < 5; i++ ) {
+			modules.add(new IModule[]{createModule("web" + i)});
+			modules.add(new IModule[]{ear, createModule("child" + i)});
+		}
+		final List<Integer> earOrder = Collections.synchronizedList(new ArrayList<Integer>());
+		final Map<Integer, Thread> threads = Collections.synchronizedMap(new HashMap<Integer, Thread>());
+		IStatus[] result = new ConcurrentModulePublisher("test", 4).publish(modules, new IModuleTreePublisher() {
+			public IStatus publish(int index, IModule[] module, IProgressMonitor monitor) {
+				threads.put(index, Thread.currentThread());
+				if( module[0].getName().equals("ear"))
+					earOrder.add(index);
+				return Status.OK_STATUS;
+			}
+		}, new NullProgressMonitor());
+
+		assertEquals(0, result.length);
+		assertEquals(modules.size(), threads.size());
+		assertEquals(asList(0, 2, 4, 6, 8, 10), earOrder);
+		Thread earThread = threads.get(0);
+		for( int i = 2; i < modules.size(); i += 2 ) {
+			assertSame(earThread, threads.get(i));
+		}
+	}
+
+	@Test
+	public void testEveryGroupStatusReported() {
+		List<IModule[]> modules = new ArrayList<IModule[]>();
+		for( int i = 0; i < 6; i++ ) {
+			modules.add(new IModule[]{createModule("web" + i)});
+		}
+		final List<Integer> published = Collections.synchronizedList(new ArrayList<Integer>());
+		IStatus[] result = new ConcurrentModulePublisher("test", 3).publish(modules, new IModuleTreePublisher() {
+			public IStatus publish(int index, IModule[] module, IProgressMonitor monitor) {
+				if( index == 0 )
+					throw new IllegalStateException("broken");
+				published.add(index);
+				if( index % 2 == 1 )
+					return new Status(IStatus.ERROR, "test", module[0].getName());
+				return Status.OK_STATUS;
+			}
+		}, new NullProgressMonitor());
+
+		// A group failing does not stop or hide the others
+		assertEquals(5, published.size());
+		assertEquals(4, result.length);
+		int errors = 0;
+		for( int i = 0; i < result.length; i++ ) {
+			assertEquals(IStatus.ERROR, result[i].getSeverity());
+			if( result[i].getException() instanceof IllegalStateException )
+				errors++;
+		}
+		assertEquals(1, errors);
+	}
+
+	@Test
+	public void testCancelStopsRemainingModules() throws Exception {
+		List<IModule[]> modules = new ArrayList<IModule[]>();
+		IModule ear = createModule("ear");
+		for( int i = 0; i < 20; i++ ) {
+			modules.add(new IModule[]{ear, createModule("child" + i)});
+			modules.add(new IModule[]{createModule("web" + i)});
+		}
+		final NullProgressMonitor monitor = new NullProgressMonitor();
+		final List<Integer> published = new ArrayList<Integer>();
+		IStatus[] result = new ConcurrentModulePublisher("test", 2).publish(modules, new IModuleTreePublisher() {
+			public IStatus publish(int index, IModule[] module, IProgressMonitor m) {
+				synchronized(published) {
+					published.add(index);
+					if( published.size() == 3 )
+						monitor.setCanceled(true);
+				}
+				return Status.OK_STATUS;
+			}
+		}, monitor);
+
+		assertEquals(0, result.length);
+		// The other thread may already have begun one more module
+		assertTrue(published.size() >= 3);
+		assertTrue(published.size() <= 4);
+	}
+
+	@Test
+	public void testProgressReportedPerModule() {
+		List<IModule[]> modules = new ArrayList<IModule[]>();
+		IModule ear = createModule("ear");
+		modules.add(new IModule[]{ear});
+		modules.add(new IModule[]{ear, createModule("child")});
+		modules.add(new IModule[]{createModule("web")});
+		final Thread caller = Thread.currentThread();
+		final int[] worked = new int[1];
+		NullProgressMonitor monitor = new NullProgressMonitor() {
+			public void worked(int work) {
+				assertSame(caller, Thread.currentThread());
+				worked[0] += work;
+			}
+		};
+		new ConcurrentModulePublisher("test", 2).publish(modules, new IModuleTreePublisher() {
+			public IStatus publish(int index, IModule[] module, IProgressMonitor m) {
+				m.worked(1);
+				return Status.OK_STATUS;
+			}
+		}, monitor);
+		assertEquals(3 * ConcurrentModulePublisher.WORK_PER_MODULE, worked[0]);
+	}
+
+	private static IModule createModule(String name) {
+		return new MockModule(name, name, "jst.web", "Web", "3.0");
+	}
+
+	private static List<Integer> asList(int... values) {
+		List<Integer> ret = new ArrayList<Integer>();
+		for( int i = 0; i < values.length; i++ ) {
+			ret.add(Integer.valueOf(values[i]));
+		}
+		return ret;
+	}
+}
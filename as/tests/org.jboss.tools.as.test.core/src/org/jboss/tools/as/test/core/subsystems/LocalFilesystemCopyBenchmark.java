@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.as.test.core.subsystems;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.jboss.ide.eclipse.as.core.util.FileUtil;
+import org.jboss.ide.eclipse.as.wtp.core.server.behavior.LocalFilesystemController;
+import org.jboss.tools.as.test.core.ASMatrixTests;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Compares the channel-based copy of {@link LocalFilesystemController}
+ * against the previous stream-through-the-heap copy into a temp file,
+ * and logs the throughput of each. Only the contents are asserted.
+ * It is not part of the {@link SubsystemSuite}, and is run on its own.
+ *
+ * The copies can be set with system properties:
+ * <ul>
+ * <li>as.copy.benchmark.megabytes - the size of the file copied</li>
+ * <li>as.copy.benchmark.iterations - the number of copies measured</li>
+ * </ul>
+ */
+public class LocalFilesystemCopyBenchmark extends TestCase {
+	private int megabytes = Integer.getInteger("as.copy.benchmark.megabytes", 64).intValue();
+	private int iterations = Integer.getInteger("as.copy.benchmark.iterations", 5).intValue();
+
+	@After
+	public void tearDown() throws Exception {
+		ASMatrixTests.cleanup();
+	}
+
+	@Test
+	public void testCopyLargeFileThroughput() throws Exception {
+		IPath source = getStateLocationPath("large.jar");
+		writeRandomFile(source.toFile(), megabytes);
+		BenchmarkController controller = new BenchmarkController();
+		controller.initialize(null, null, createEnvironment());
+		IPath streamDest = getStateLocationPath("dest/stream.jar");
+		IPath channelDest = getStateLocationPath("dest/channel.jar");
+		streamDest.toFile().getParentFile().mkdirs();
+
+		// warm up
+		streamCopy(source.toFile(), streamDest.toFile(), controller.getTempFolder());
+		controller.copyFile(source.toFile(), channelDest, new NullProgressMonitor());
+
+		long streamBest = Long.MAX_VALUE, channelBest = Long.MAX_VALUE;
+		for( int i = 0; i < iterations; i++ ) {
+			long start = System.nanoTime();
+			streamCopy(source.toFile(), streamDest.toFile(), controller.getTempFolder());
+			streamBest = Math.min(streamBest, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			controller.copyFile(source.toFile(), channelDest, new NullProgressMonitor());
+			channelBest = Math.min(channelBest, System.nanoTime() - start);
+		}
+		ASMatrixTests.getDefault().getLog().log(new Status(IStatus.INFO, ASMatrixTests.PLUGIN_ID,
+				getClass().getSimpleName() + " " + megabytes + "MB, best of " + iterations
+				+ ": stream " + throughput(streamBest) + " MB/s, channel " + throughput(channelBest) + " MB/s"));
+
+		byte[] expected = Files.readAllBytes(source.toFile().toPath());
+		assertTrue(Arrays.equals(expected, Files.readAllBytes(streamDest.toFile().toPath())));
+		assertTrue(Arrays.equals(expected, Files.readAllBytes(channelDest.toFile().toPath())));
+	}
+
+	/*
+	 * The copy before channels: through the heap into a temp file,
+	 * which then replaces the destination
+	 */
+	private void streamCopy(File source, File dest, File tempFolder) throws IOException {
+		File tmp = File.createTempFile("tmp", ".jar", tempFolder);
+		InputStream in = new FileInputStream(source);
+		try {
+			FileUtil.writeTo(in, tmp);
+		} finally {
+			in.close();
+		}
+		dest.delete();
+		assertTrue(tmp.renameTo(dest));
+	}
+
+	private long throughput(long nanos) {
+		return megabytes * 1000000000L / Math.max(1, nanos);
+	}
+
+	private void writeRandomFile(File f, int megabytes) throws IOException {
+		Random r = new Random(0);
+		byte[] buf = new byte[1024*1024];
+		OutputStream os = new FileOutputStream(f);
+		try {
+			for( int i = 0; i < megabytes; i++ ) {
+				r.nextBytes(buf);
+				os.write(buf);
+			}
+		} finally {
+			os.close();
+		}
+	}
+
+	private Map<String, Object> createEnvironment() {
+		HashMap<String, Object> env = new HashMap<String, Object>();
+		IPath loc = getStateLocationPath("tmpdir1");
+		loc.toFile().mkdirs();
+		env.put(LocalFilesystemController.ENV_TEMPORARY_DEPLOY_DIRECTORY, loc);
+		return env;
+	}
+
+	private IPath getStateLocationPath(String path) {
+		return ASMatrixTests.getDefault().getStateLocation().append(path);
+	}
+
+	private static class BenchmarkController extends LocalFilesystemController {
+		// the temp folder is internal, so it is exposed here for the stream copy
+		protected File getTempFolder() {
+			return super.getTempFolder();
+		}
+	}
+}
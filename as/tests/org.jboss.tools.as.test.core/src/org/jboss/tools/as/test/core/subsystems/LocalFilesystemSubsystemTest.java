@@ -11,7 +11,13 @@
 package org.jboss.tools.as.test.core.subsystems;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Random;
 import java.util.Map;
 
 import junit.framework.TestCase;
@@ -69,6 +75,63 @@ public class LocalFilesystemSubsystemTest extends TestCase {
 		assertEquals(copiedContents, "hello");
 	}
 	
+	@Test
+	public void  testCopyFileReplacesExisting() throws Exception {
+		IPath tmpfile = getStateLocationPath("tmpfile6.txt");
+		IPath destination = getStateLocationPath("dest/replacedFile.txt");
+		destination.toFile().getParentFile().mkdirs();
+		IOUtil.setContents(destination.toFile(), "old");
+		IOUtil.setContents(tmpfile.toFile(), "new");
+		TestLocalFilesystemController controller = new TestLocalFilesystemController();
+		controller.initialize(null, null, createEnvironmentTempFolder1());
+		controller.copyFile(tmpfile.toFile(), destination, new NullProgressMonitor());
+		assertEquals(IOUtil.getContents(destination.toFile()), "new");
+		assertEquals(tmpfile.toFile().lastModified(), destination.toFile().lastModified());
+	}
+	
+	@Test
+	public void  testCopyFileHardLink() throws Exception {
+		IPath tmpfile = getStateLocationPath("tmpfile7.txt");
+		IPath destination = getStateLocationPath("dest/linkedFile.txt");
+		IOUtil.setContents(tmpfile.toFile(), "hello");
+		TestLocalFilesystemController controller = new TestLocalFilesystemController();
+		Map<String, Object> env = createEnvironmentTempFolder1();
+		env.put(LocalFilesystemController.ENV_ALLOW_HARD_LINKS, Boolean.TRUE);
+		controller.initialize(null, null, env);
+		controller.copyFile(tmpfile.toFile(), destination, new NullProgressMonitor());
+		assertEquals(IOUtil.getContents(destination.toFile()), "hello");
+		// Deleting the deployed link must never affect the source
+		controller.deleteResource(destination, new NullProgressMonitor());
+		assertFalse(destination.toFile().exists());
+		assertEquals(IOUtil.getContents(tmpfile.toFile()), "hello");
+	}
+	
+	/*
+	 * A binary file spanning several copy buffers must arrive intact
+	 */
+	@Test
+	public void  testCopyBinaryFile() throws Exception {
+		IPath tmpfile = getStateLocationPath("binary.jar");
+		writeRandomFile(tmpfile.toFile(), 3 * 64 * 1024 + 17);
+		IPath destination = getStateLocationPath("dest/binary.jar");
+		TestLocalFilesystemController controller = new TestLocalFilesystemController();
+		controller.initialize(null, null, createEnvironmentTempFolder1());
+		controller.copyFile(tmpfile.toFile(), destination, new NullProgressMonitor());
+		assertTrue(Arrays.equals(Files.readAllBytes(tmpfile.toFile().toPath()), 
+				Files.readAllBytes(destination.toFile().toPath())));
+	}
+	
+	private void writeRandomFile(File f, int length) throws IOException {
+		byte[] buf = new byte[length];
+		new Random(0).nextBytes(buf);
+		OutputStream os = new FileOutputStream(f);
+		try {
+			os.write(buf);
+		} finally {
+			os.close();
+		}
+	}
+	
 	@Test
 	public void testDeleteResource() throws Exception {
 		IPath tmpfile = getStateLocationPath("tmpfile2.txt");
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ ******************************************************************************/
+package org.jboss.tools.as.test.core.subsystems;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.wst.server.core.model.IModuleResource;
+import org.eclipse.wst.server.core.util.ModuleFile;
+import org.jboss.ide.eclipse.as.wtp.core.server.behavior.LocalFilesystemController;
+import org.jboss.ide.eclipse.as.wtp.core.server.publish.PublishManifest;
+import org.jboss.ide.eclipse.as.wtp.core.server.publish.PublishModuleFullRunner;
+import org.jboss.tools.as.test.core.ASMatrixTests;
+import org.jboss.tools.as.test.core.internal.utils.IOUtil;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Verifies that a {@link PublishManifest} allows publishers
+ * to skip files whose deployed copy is byte-identical to the source
+ */
+public class PublishManifestTest extends TestCase {
+
+	@After
+	public void tearDown() throws Exception {
+		ASMatrixTests.cleanup();
+	}
+
+	@Test
+	public void testUnchangedDetection() throws Exception {
+		File source = getStateLocationPath("src/a.txt").toFile();
+		IPath deployed = getStateLocationPath("deploy/a.txt");
+		source.getParentFile().mkdirs();
+		IOUtil.setContents(source, "hello");
+		CountingController controller = createController();
+		PublishManifest manifest = new PublishManifest(getStateLocationPath("manifest.txt").toFile());
+
+		assertFalse(manifest.isUnchanged(source, deployed));
+		controller.copyFile(source, deployed, new NullProgressMonitor());
+		manifest.published(source, deployed, deployed.removeLastSegments(1));
+		assertTrue(manifest.isUnchanged(source, deployed));
+
+		// Rewritten with identical contents, such as after a clean build
+		IOUtil.setContents(source, "hello");
+		source.setLastModified(source.lastModified() + 5000);
+		assertTrue(manifest.isUnchanged(source, deployed));
+
+		// The new timestamp is remembered once the hash matches, so the source is not hashed again
+		long touched = source.lastModified();
+		IOUtil.setContents(source, "hallo");
+		source.setLastModified(touched);
+		assertTrue(manifest.isUnchanged(source, deployed));
+
+		// Same size, different contents
+		IOUtil.setContents(source, "world");
+		source.setLastModified(source.lastModified() + 10000);
+		assertFalse(manifest.isUnchanged(source, deployed));
+
+		// Deployed copy changed behind our back
+		controller.copyFile(source, deployed, new NullProgressMonitor());
+		manifest.published(source, deployed, deployed.removeLastSegments(1));
+		IOUtil.setContents(deployed.toFile(), "other contents");
+		assertFalse(manifest.isUnchanged(source, deployed));
+	}
+
+	@Test
+	public void testManifestPersistence() throws Exception {
+		File source = getStateLocationPath("src/b.txt").toFile();
+		IPath deployed = getStateLocationPath("deploy/b.txt");
+		source.getParentFile().mkdirs();
+		IOUtil.setContents(source, "hello");
+		createController().copyFile(source, deployed, new NullProgressMonitor());
+
+		File storage = getStateLocationPath("manifest2.txt").toFile();
+		PublishManifest manifest = new PublishManifest(storage);
+		manifest.published(source, deployed, deployed.removeLastSegments(1));
+		assertTrue(manifest.save().isOK());
+		assertTrue(storage.exists());
+
+		PublishManifest loaded = PublishManifest.getManifest(storage);
+		assertTrue(loaded.isUnchanged(source, deployed));
+		loaded.removed(deployed.removeLastSegments(1));
+		assertFalse(loaded.isUnchanged(source, deployed));
+	}
+
+	@Test
+	public void testFullPublishSkipsUnchanged() throws Exception {
+		IPath srcRoot = getStateLocationPath("src2");
+		srcRoot.append("inner").toFile().mkdirs();
+		File a = srcRoot.append("a.txt").toFile();
+		File b = srcRoot.append("inner/b.txt").toFile();
+		IOUtil.setContents(a, "a");
+		IOUtil.setContents(b, "b");
+		IModuleResource[] members = new IModuleResource[] {
+				new ModuleFile(a, "a.txt", new Path("/")),
+				new ModuleFile(b, "b.txt", new Path("inner"))
+		};
+		IPath root = getStateLocationPath("deploy2/module.war");
+		PublishManifest manifest = new PublishManifest(getStateLocationPath("manifest3.txt").toFile());
+
+		CountingController controller = createController();
+		PublishModuleFullRunner runner = new PublishModuleFullRunner(controller, root);
+		runner.setPublishManifest(manifest);
+		runner.fullPublish(members, null);
+		assertEquals(2, controller.copyCount);
+		assertTrue(root.append("inner/b.txt").toFile().exists());
+
+		// A second full publish with no changes should not copy anything
+		controller = createController();
+		runner = new PublishModuleFullRunner(controller, root);
+		runner.setPublishManifest(manifest);
+		runner.fullPublish(members, null);
+		assertEquals(0, controller.copyCount);
+		assertTrue(root.append("inner/b.txt").toFile().exists());
+
+		// A file no longer in the module must be removed
+		controller = createController();
+		runner = new PublishModuleFullRunner(controller, root);
+		runner.setPublishManifest(manifest);
+		runner.fullPublish(new IModuleResource[]{members[0]}, null);
+		assertEquals(0, controller.copyCount);
+		assertFalse(root.append("inner/b.txt").toFile().exists());
+		assertTrue(root.append("a.txt").toFile().exists());
+	}
+
+	@Test
+	public void testFullPublishKeepsChildModuleFiles() throws Exception {
+		IPath srcRoot = getStateLocationPath("src3");
+		srcRoot.toFile().mkdirs();
+		File a = srcRoot.append("a.txt").toFile();
+		File c = srcRoot.append("c.txt").toFile();
+		IOUtil.setContents(a, "a");
+		IOUtil.setContents(c, "c");
+		IModuleResource[] parentMembers = new IModuleResource[] {
+				new ModuleFile(a, "a.txt", new Path("/"))
+		};
+		IModuleResource[] childMembers = new IModuleResource[] {
+				new ModuleFile(c, "c.txt", new Path("/"))
+		};
+		IPath parentRoot = getStateLocationPath("deploy3/app.ear");
+		IPath childRoot = parentRoot.append("web.war");
+		PublishManifest manifest = new PublishManifest(getStateLocationPath("manifest4.txt").toFile());
+
+		// Publish the parent and then its nested child, as the server does
+		for( int i = 0; i < 2; i++ ) {
+			PublishModuleFullRunner runner = new PublishModuleFullRunner(createController(), parentRoot);
+			runner.setPublishManifest(manifest);
+			runner.fullPublish(parentMembers, null);
+			assertTrue(childRoot.append("c.txt").toFile().exists() == (i > 0));
+			
+			runner = new PublishModuleFullRunner(createController(), childRoot);
+			runner.setPublishManifest(manifest);
+			runner.fullPublish(childMembers, null);
+			assertTrue(childRoot.append("c.txt").toFile().exists());
+		}
+		assertTrue(manifest.getStale(parentRoot, new HashSet<IPath>()).contains(parentRoot.append("a.txt")));
+		assertFalse(manifest.getStale(parentRoot, new HashSet<IPath>()).contains(childRoot.append("c.txt")));
+	}
+
+	private CountingController createController() {
+		CountingController controller = new CountingController();
+		HashMap<String, Object> env = new HashMap<String, Object>();
+		IPath tmp = getStateLocationPath("tmpdir");
+		tmp.toFile().mkdirs();
+		env.put(LocalFilesystemController.ENV_TEMPORARY_DEPLOY_DIRECTORY, tmp);
+		controller.initialize(null, null, env);
+		return controller;
+	}
+
+	// Get any path inside our test plugin's state location
+	private IPath getStateLocationPath(String path) {
+		return ASMatrixTests.getDefault().getStateLocation().append(path);
+	}
+
+	private static class CountingController extends LocalFilesystemController {
+		private int copyCount = 0;
+		public IStatus copyFile(File file, IPath absoluteRemotePath, IProgressMonitor monitor) throws CoreException {
+			copyCount++;
+			return super.copyFile(file, absoluteRemotePath, monitor);
+		}
+	}
+}
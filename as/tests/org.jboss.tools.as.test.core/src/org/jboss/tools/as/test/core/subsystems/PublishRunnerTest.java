@@ -14,6 +14,8 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 import junit.framework.TestCase;
 
@@ -173,6 +175,48 @@ public class PublishRunnerTest extends TestCase {
 	}
 
 	
+	@Test
+	public void testStandardModuleParallelFullPublish() throws Exception {
+		TestController tc = new TestController();
+		IModule m = createTestMockModule();
+		ModuleDelegate md = (ModuleDelegate)m.loadAdapter(ModuleDelegate.class, new NullProgressMonitor());
+		IModuleResource[] asArr = md.members();
+		PublishModuleFullRunner runner = new PublishModuleFullRunner(tc, rootPath, 4);
+		try {
+			runner.fullPublish(asArr, null);
+		} catch(CoreException ce) {
+			ce.printStackTrace();
+			throw ce;
+		}
+		assertFileCopiedAndParentDirsMade(tc, rootPath, getLeafs1());
+		assertEquals(getLeafs1().length, tc.copied.size());
+	}
+
+	@Test
+	public void testStandardModuleParallelFullPublishWithCancel() throws Exception {
+		int workers = 4;
+		TestController tc = new TestController();
+		tc.cancelAfterCopies = 3;
+		
+		IModule m = createTestMockModule();
+		ModuleDelegate md = (ModuleDelegate)m.loadAdapter(ModuleDelegate.class, new NullProgressMonitor());
+		IModuleResource[] asArr = md.members();
+		PublishModuleFullRunner runner = new PublishModuleFullRunner(tc, rootPath, workers);
+		IStatus[] results = null;
+		try {
+			results = runner.fullPublish(asArr, null);
+		} catch(CoreException ce) {
+			ce.printStackTrace();
+			throw ce;
+		}
+		assertEquals(1, results.length);
+		assertEquals(IStatus.CANCEL, results[0].getSeverity());
+		// Only copies already underway on the other workers may finish after the cancel
+		assertTrue(tc.copied.size() >= tc.cancelAfterCopies);
+		assertTrue(tc.copied.size() <= tc.cancelAfterCopies + workers - 1);
+		assertTrue(tc.copied.size() < getLeafs1().length);
+	}
+
 	@Test
 	public void testStandardModuleIncrementalPublishNoChange() throws Exception {
 		TestController tc = new TestController();
@@ -282,7 +326,7 @@ public class PublishRunnerTest extends TestCase {
 
 	private static class TestController extends AbstractSubsystemController implements IFilesystemController {
 
-		private ArrayList<IPath> copied = new ArrayList<IPath>();
+		private List<IPath> copied = Collections.synchronizedList(new ArrayList<IPath>());
 		private ArrayList<IPath> deleted = new ArrayList<IPath>();
 		private ArrayList<IPath> checkedIsFile = new ArrayList<IPath>();
 		private ArrayList<IPath> mkdir = new ArrayList<IPath>();
@@ -290,6 +334,7 @@ public class PublishRunnerTest extends TestCase {
 		
 		private boolean canceled = false;
 		private boolean cancelAfterFirstAction = false;
+		private int cancelAfterCopies = 0;
 		private int callCount = 0;
 				
 		private int sumAllArrays() {
@@ -315,6 +360,15 @@ public class PublishRunnerTest extends TestCase {
 		@Override
 		public IStatus copyFile(File f, IPath path, IProgressMonitor monitor)
 				throws CoreException {
+			if( cancelAfterCopies > 0 ) {
+				// Copies may run on several workers at once, so only count them here
+				synchronized(copied) {
+					copied.add(path);
+					if( copied.size() == cancelAfterCopies )
+						monitor.setCanceled(true);
+				}
+				return null;
+			}
 			checkCancel(monitor);
 			copied.add(path);
 			return null;
@@ -190,7 +190,34 @@ public class RSEFilesystemSubsystemTest extends TestCase {
 		assertTrue(tmpfile.toFile().exists());
 	}
 
-	
+	@Test
+	public void testBatchedCopyFile() throws Exception {
+		IPath tmpfile1 = getStateLocationPath("tmpfile6.txt");
+		IPath tmpfile2 = getStateLocationPath("tmpfile7.txt");
+		IOUtil.setContents(tmpfile1.toFile(), "hello");
+		IOUtil.setContents(tmpfile2.toFile(), "world");
+		IPath dest1 = getStateLocationPath("batch/one/a.txt");
+		IPath dest2 = getStateLocationPath("batch/one/two/b.txt");
+		IPath removed = getStateLocationPath("batch/removed/c.txt");
+		TestRSEFilesystemController controller = new TestRSEFilesystemController();
+		controller.initialize(server, null, createEnvironmentTempFolder1());
+		controller.beginBatch();
+		controller.copyFile(tmpfile1.toFile(), dest1, new NullProgressMonitor());
+		controller.copyFile(tmpfile2.toFile(), dest2, new NullProgressMonitor());
+		controller.copyFile(tmpfile2.toFile(), removed, new NullProgressMonitor());
+		
+		// Nothing is transferred until the batch is flushed
+		assertFalse(dest1.toFile().exists());
+		assertTrue(controller.isFile(dest1, new NullProgressMonitor()));
+		
+		// Deleting a queued path discards the queued transfer
+		controller.deleteResource(removed.removeLastSegments(1), new NullProgressMonitor());
+		
+		assertTrue(controller.endBatch(new NullProgressMonitor()).isOK());
+		assertEquals("hello", IOUtil.getContents(dest1.toFile()));
+		assertEquals("world", IOUtil.getContents(dest2.toFile()));
+		assertFalse(removed.toFile().exists());
+	}
 	
 	private Map<String, Object> createEnvironmentTempFolder1() {
 		HashMap<String, Object> env = new HashMap<String, Object>();
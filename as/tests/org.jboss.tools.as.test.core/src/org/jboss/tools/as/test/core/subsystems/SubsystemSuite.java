@@ -31,6 +31,8 @@ import org.junit.runners.Suite.SuiteClasses;
 	ModuleDeployPathControllerTest.class,
 	RSEFilesystemSubsystemTest.class,
 	PublishRunnerTest.class,
+	PublishManifestTest.class,
+	ConcurrentModulePublisherTest.class,
 	ZippedPublishRunnerTest.class,
 	StandardFilesystemPublishControllerTest.class,
 	ServerProfileTest.class,
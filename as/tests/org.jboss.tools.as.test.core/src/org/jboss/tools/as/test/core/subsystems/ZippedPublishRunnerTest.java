@@ -10,6 +10,8 @@
  ******************************************************************************/
 package org.jboss.tools.as.test.core.subsystems;
 
+import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -22,6 +24,7 @@ import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.wst.server.core.IModule;
@@ -32,6 +35,7 @@ import org.jboss.ide.eclipse.archives.core.util.internal.TrueZipUtil;
 import org.jboss.ide.eclipse.as.core.util.FileUtil;
 import org.jboss.ide.eclipse.as.core.util.IJBossToolingConstants;
 import org.jboss.ide.eclipse.as.wtp.core.server.publish.LocalZippedModulePublishRunner;
+import org.jboss.ide.eclipse.as.wtp.core.server.publish.StreamingZippedModulePublishRunner;
 import org.jboss.tools.as.test.core.ASMatrixTests;
 import org.jboss.tools.as.test.core.internal.utils.IOUtil;
 import org.jboss.tools.as.test.core.internal.utils.MockModule;
@@ -55,6 +59,7 @@ import de.schlichtherle.io.ArchiveDetector;
  * This test verifies that full publish and incremental publish work properly
  * 
  * {@link LocalZippedModulePublishRunner}
+ * {@link StreamingZippedModulePublishRunner}
  */
 @RunWith(value = Parameterized.class)
 public class ZippedPublishRunnerTest extends TestCase {
@@ -227,6 +232,38 @@ public class ZippedPublishRunnerTest extends TestCase {
 		
 	}
 
+	@Test
+	public void testSimpleWebModuleAppendedIncremental() throws Exception {
+		// Update the archive in place rather than rewriting it
+		IPath dest = ASMatrixTests.getDefault().getStateLocation().append("testDeploy").append("out.war");
+		IModule web = createTestWebModule(1, false);
+		LocalZippedModulePublishRunner runner = new LocalZippedModulePublishRunner(server, web, dest, null);
+		runner.fullPublishModule(new NullProgressMonitor());
+		verifyList(dest, Arrays.asList(getWebLeafs1(false)), true);
+		
+		web = createTestWebModule(2, false);
+		runner = testRunnerForDelta(web, dest, new IPath[]{new Path("w.html"), new Path("d/F/f1.html")}, 
+				new int[]{IModuleResourceDelta.CHANGED, IModuleResourceDelta.REMOVED});
+		runner.setAppendUpdates(true);
+		IStatus result = runner.incrementalPublishModule(new NullProgressMonitor());
+		assertTrue(result.isOK());
+		TrueZipUtil.umount();
+		
+		// The result must match what the default incremental publish produces
+		List<IPath> remaining = new ArrayList<IPath>(Arrays.asList(getWebLeafs1(false)));
+		remaining.remove(new Path("d/F/f1.html"));
+		verifyList(dest, remaining, true);
+		verifyList(dest, Arrays.asList(new IPath[]{new Path("d/F/f1.html")}), false);
+		
+		IPath unzipFolder = ASMatrixTests.getDefault().getStateLocation().append("unzip");
+		unzipFolder.toFile().mkdirs();
+		IOUtil.unzipFile(dest, unzipFolder);
+		assertEquals("version2", IOUtil.getContents(unzipFolder.append("w.html").toFile()));
+		assertEquals("version1", IOUtil.getContents(unzipFolder.append("x.html").toFile()));
+		assertFalse(unzipFolder.append("d/F/f1.html").toFile().exists());
+		FileUtil.completeDelete(unzipFolder.toFile());
+	}
+
 	private LocalZippedModulePublishRunner testRunnerForDelta(IModule mod, IPath dest, final IPath[] paths, final int[] kind) {
 		LocalZippedModulePublishRunner runner = new LocalZippedModulePublishRunner(server, mod, dest, null){
 			// overriding this method because otherwise it requires integration tests
@@ -372,7 +409,39 @@ public class ZippedPublishRunnerTest extends TestCase {
 		verifyList(webDest, Arrays.asList(webFilesDeleted), false);
 	}
 
-	
+
+	@Test
+	public void testStreamedWebModule() throws Exception {
+		IPath dest = ASMatrixTests.getDefault().getStateLocation().append("testDeploy").append("out.war");
+		IModule web = createTestWebModule(1, false);
+		StreamingZippedModulePublishRunner runner = new StreamingZippedModulePublishRunner(server, web, null);
+		writeStreamed(runner, dest);
+		verifyList(dest, Arrays.asList(getWebLeafs1(false)), true);
+		assertTrue(runner.getBytesRead() > 0);
+	}
+
+	@Test
+	public void testStreamedWebInEarModule() throws Exception {
+		IPath dest = ASMatrixTests.getDefault().getStateLocation().append("testDeploy").append("MyEar.ear");
+		IModule ear = createTestWebInEarModule(1, false);
+		StreamingZippedModulePublishRunner runner = new StreamingZippedModulePublishRunner(server, ear, null);
+		writeStreamed(runner, dest);
+		// verify the streamed archive matches a full publish
+		verifyList(dest, Arrays.asList(getEarLeafs1(false)), true);
+		IPath webDest = dest.append("nested/inside/WebProj.war");
+		verifyList(webDest, Arrays.asList(getWebLeafs1(false)), true);
+	}
+
+	private void writeStreamed(StreamingZippedModulePublishRunner runner, IPath dest) throws Exception {
+		dest.toFile().getParentFile().mkdirs();
+		OutputStream out = new FileOutputStream(dest.toFile());
+		try {
+			IStatus result = runner.writeModule(out, new NullProgressMonitor());
+			assertTrue(result.isOK());
+		} finally {
+			out.close();
+		}
+	}
 	
 	// used to verify the files exist
 	protected void verifyList(IPath root, List<IPath> listOfRelativePaths, boolean exists) {
@@ -145,6 +145,8 @@ public class Agent {
         MBeanServer server = ManagementFactory.getPlatformMBeanServer();
         ObjectName profilerObjectName = new ObjectName(
                 CpuBciProfilerMXBean.PROFILER_MXBEAN_NAME);
+        ObjectName samplingProfilerObjectName = new ObjectName(
+                CpuSamplingProfilerMXBean.SAMPLING_PROFILER_MXBEAN_NAME);
         ObjectName dataTransferObjectName = new ObjectName(
                 DataTransferMXBean.DATA_TRANSFER_MXBEAN_NAME);
         ObjectName swtResourceMonitorObjectName = new ObjectName(
@@ -157,6 +159,12 @@ public class Agent {
             agentLoaded = true;
         }
 
+        if (!server.isRegistered(samplingProfilerObjectName)) {
+            CpuSamplingProfilerMXBeanImpl samplingProfiler = new CpuSamplingProfilerMXBeanImpl();
+            server.registerMBean(samplingProfiler, samplingProfilerObjectName);
+            agentLoaded = true;
+        }
+
         if (!server.isRegistered(dataTransferObjectName)) {
             DataTransferMXBeanImpl dataTransfer = new DataTransferMXBeanImpl();
             server.registerMBean(dataTransfer, dataTransferObjectName);
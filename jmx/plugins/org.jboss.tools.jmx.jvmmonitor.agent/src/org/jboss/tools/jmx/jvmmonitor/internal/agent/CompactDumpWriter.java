@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.jboss.tools.jmx.jvmmonitor.internal.agent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+/**
+ * The writer of the compact CPU dump format, that is written incrementally
+ * while walking the runtime model.
+ * <p>
+ * The dump starts with the magic number <tt>0x4A564D43</tt> and the format
+ * version, followed by the header strings (date, runtime, main class and
+ * arguments) and a stream of records, each starting with its tag:
+ * <ul>
+ * <li><tt>METHOD</tt> id name - defines the frame name of method id, before
+ * the first frame of the method</li>
+ * <li><tt>THREAD</tt> name - starts a thread</li>
+ * <li><tt>FRAME</tt> id count time - starts a frame, with time in
+ * milliseconds</li>
+ * <li><tt>END_FRAME</tt> - ends the current frame</li>
+ * <li><tt>END_THREAD</tt> - ends the current thread</li>
+ * <li><tt>END</tt> - ends the dump</li>
+ * </ul>
+ * Numbers are unsigned variable-length integers of 7 bits per byte, least
+ * significant group first, and strings are the length of their UTF-8 bytes
+ * followed by the bytes.
+ */
+public class CompactDumpWriter {
+
+    /** The magic number. */
+    static final int MAGIC = 0x4A564D43;
+
+    /** The format version. */
+    static final int FORMAT_VERSION = 1;
+
+    /** The tag ending the dump. */
+    static final int END = 0;
+
+    /** The tag defining a method. */
+    static final int METHOD = 1;
+
+    /** The tag starting a thread. */
+    static final int THREAD = 2;
+
+    /** The tag starting a frame. */
+    static final int FRAME = 3;
+
+    /** The tag ending a frame. */
+    static final int END_FRAME = 4;
+
+    /** The tag ending a thread. */
+    static final int END_THREAD = 5;
+
+    /** The output stream. */
+    private OutputStream out;
+
+    /** The methods already defined. */
+    private BitSet methods;
+
+    /**
+     * The constructor.
+     *
+     * @param out
+     *            The output stream, that should be buffered
+     */
+    protected CompactDumpWriter(OutputStream out) {
+        this.out = out;
+        methods = new BitSet();
+    }
+
+    /**
+     * Writes the header.
+     *
+     * @param date
+     *            The date
+     * @param runtime
+     *            The runtime
+     * @param mainClass
+     *            The main class
+     * @param arguments
+     *            The JVM arguments
+     * @throws IOException
+     */
+    protected void writeHeader(String date, String runtime, String mainClass,
+            String arguments) throws IOException {
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            out.write(MAGIC >>> shift);
+        }
+        writeNumber(FORMAT_VERSION);
+        writeString(date);
+        writeString(runtime);
+        writeString(mainClass);
+        writeString(arguments);
+    }
+
+    /**
+     * Starts a thread.
+     *
+     * @param name
+     *            The thread name
+     * @throws IOException
+     */
+    protected void startThread(String name) throws IOException {
+        out.write(THREAD);
+        writeString(name);
+    }
+
+    /**
+     * Ends the current thread.
+     *
+     * @throws IOException
+     */
+    protected void endThread() throws IOException {
+        out.write(END_THREAD);
+    }
+
+    /**
+     * Gets the state indicating if the given method has been defined.
+     *
+     * @param methodId
+     *            The method id
+     * @return True if defined
+     */
+    protected boolean isMethodDefined(int methodId) {
+        return methods.get(methodId);
+    }
+
+    /**
+     * Defines the frame name of method.
+     *
+     * @param methodId
+     *            The method id
+     * @param name
+     *            The frame name
+     * @throws IOException
+     */
+    protected void defineMethod(int methodId, String name) throws IOException {
+        out.write(METHOD);
+        writeNumber(methodId);
+        writeString(name);
+        methods.set(methodId);
+    }
+
+    /**
+     * Starts a frame.
+     *
+     * @param methodId
+     *            The method id, that has been defined
+     * @param count
+     *            The invocation count
+     * @param time
+     *            The time in milliseconds
+     * @throws IOException
+     */
+    protected void startFrame(int methodId, int count, long time)
+            throws IOException {
+        out.write(FRAME);
+        writeNumber(methodId);
+        writeNumber(count);
+        writeNumber(time);
+    }
+
+    /**
+     * Ends the current frame.
+     *
+     * @throws IOException
+     */
+    protected void endFrame() throws IOException {
+        out.write(END_FRAME);
+    }
+
+    /**
+     * Ends the dump and flushes the output stream.
+     *
+     * @throws IOException
+     */
+    protected void end() throws IOException {
+        out.write(END);
+        out.flush();
+    }
+
+    /**
+     * Writes the unsigned number.
+     *
+     * @param value
+     *            The number
+     * @throws IOException
+     */
+    private void writeNumber(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Writes the string.
+     *
+     * @param value
+     *            The string, or <tt>null</tt> for empty string
+     * @throws IOException
+     */
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value == null ? new byte[0] : value
+                .getBytes(StandardCharsets.UTF_8);
+        writeNumber(bytes.length);
+        out.write(bytes);
+    }
+}
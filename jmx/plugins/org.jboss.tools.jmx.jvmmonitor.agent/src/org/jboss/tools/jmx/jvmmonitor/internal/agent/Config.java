@@ -25,11 +25,14 @@ public class Config {
     private final static String SEPARATOR = ",";
 
     /** The flag for enabling profiler. */
-    private boolean profilerEnabled;
+    private volatile boolean profilerEnabled;
 
     /** The flag for enabling automatic dump. */
     private boolean autoDumpEnabled;
 
+    /** The flag for dumping into file in XML instead of compact format. */
+    private boolean xmlDumpEnabled;
+
     /** The output directory for dump file. */
     private String dumpDir;
 
@@ -126,6 +129,25 @@ public class Config {
         this.autoDumpEnabled = enabled;
     }
 
+    /**
+     * Gets the state indicating if dumping into file in XML.
+     * 
+     * @return true if dumping in XML, and false if in compact format
+     */
+    protected boolean isXmlDumpEnabled() {
+        return xmlDumpEnabled;
+    }
+
+    /**
+     * Sets the state indicating if dumping into file in XML.
+     * 
+     * @param enabled
+     *            true to dump in XML, and false to dump in compact format
+     */
+    protected void setXmlDumpEnabled(boolean enabled) {
+        xmlDumpEnabled = enabled;
+    }
+
     /**
      * Gets the directory for dump file.
      * 
@@ -161,6 +183,10 @@ public class Config {
         autoDumpEnabled = System
                 .getProperty(Constants.DUMP_PROP_KEY, Boolean.FALSE.toString())
                 .toLowerCase().trim().equals(Boolean.TRUE.toString());
+        xmlDumpEnabled = System
+                .getProperty(Constants.DUMP_FORMAT_PROP_KEY,
+                        Constants.DUMP_FORMAT_COMPACT).toLowerCase().trim()
+                .equals(Constants.DUMP_FORMAT_XML);
 
         String outputDirStr = System.getProperty(Constants.DUMP_DIR_PROP_KEY,
                 getDefaultDir());
@@ -21,6 +21,9 @@ public class Constants {
     /** The default package. */
     static final String DEFAULT_PACKAGE = "<default>";
 
+    /** The default sampling period in milliseconds. */
+    static final int DEFAULT_SAMPLING_PERIOD = 50;
+
     /** The key for CPU profiling properties file. */
     static final String CONFIG_FILE_PROP_KEY = "jvmmonitor.config";
 
@@ -33,6 +36,15 @@ public class Constants {
     /** The key for automatic dump file output.. */
     static final String DUMP_PROP_KEY = "jvmmonitor.dump";
 
+    /** The key for dump file format. */
+    static final String DUMP_FORMAT_PROP_KEY = "jvmmonitor.dump.format";
+
+    /** The compact dump file format. */
+    static final String DUMP_FORMAT_COMPACT = "compact";
+
+    /** The XML dump file format. */
+    static final String DUMP_FORMAT_XML = "xml";
+
     /** The key for dump file output directory. */
     static final String DUMP_DIR_PROP_KEY = "jvmmonitor.dump.dir";
 
@@ -66,11 +78,8 @@ public class Constants {
     /** The method name representing the class initialization method. */
     static final String METHOD_CLINIT = "<clinit>";
 
-    /** The descriptor for two strings. */
-    static final String DESC_STRING_STRING = "(Ljava/lang/String;Ljava/lang/String;)V";
-
-    /** The descriptor for three strings. */
-    static final String DESC_STRING_STRING_STRING = "(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;)V";
+    /** The descriptor for an int. */
+    static final String DESC_INT = "(I)V";
 
     /** The -javaagent option for JVM. */
     static final String JAVA_AGENT_OPTION = "-javaagent:";
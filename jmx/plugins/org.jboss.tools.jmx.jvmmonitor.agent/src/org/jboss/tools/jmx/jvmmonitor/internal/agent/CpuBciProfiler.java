@@ -8,126 +8,144 @@ package org.jboss.tools.jmx.jvmmonitor.internal.agent;
 
 /**
  * The CPU profiler.
+ * <p>
+ * The methods invoked from instrumented code are on the hot path of the
+ * profiled application, so they take the method id given by
+ * {@link MethodRegistry}, keep the thread node in a thread local, and measure
+ * time with {@link System#nanoTime()}.
  */
 public class CpuBciProfiler {
 
     /** The runtime model. */
     private static RuntimeModel model;
 
+    /** The profile configuration. */
+    private static Config config;
+
+    /** The thread node of the current thread. */
+    private static final ThreadLocal<ThreadNode> threadNode = new ThreadLocal<ThreadNode>();
+
     /**
      * The method to be invoked when stepping into frame.
      * 
-     * @param className
-     *            The class name
-     * @param methodName
-     *            The method name
+     * @param methodId
+     *            The method id
      */
-    public static void stepInto(String className, String methodName) {
-        if (!Config.getInstance().isProfilerEnabled()) {
+    public static void stepInto(int methodId) {
+        if (config == null || !config.isProfilerEnabled()) {
             return;
         }
 
-        long time = System.currentTimeMillis();
-        String thread = Thread.currentThread().getName();
+        long time = System.nanoTime();
 
         // get the current thread
-        ThreadNode threadNode = model.getThread(thread);
+        ThreadNode thread = getThreadNode();
 
         // update the current frame
         FrameNode frame;
-        FrameNode previousFrame = threadNode.getCurrentFrame();
+        FrameNode previousFrame = thread.getCurrentFrame();
         if (previousFrame == null) {
-            frame = threadNode.getRootFrame(className, methodName);
+            frame = thread.getRootFrame(methodId);
         } else {
-            frame = previousFrame.getChild(className, methodName);
+            frame = previousFrame.getChild(methodId);
         }
-        threadNode.setCurrentFrame(frame);
+        thread.setCurrentFrame(frame);
 
         // set the time
-        frame.setStepIntoTime(time, System.currentTimeMillis() - time);
+        frame.setStepIntoTime(time, System.nanoTime() - time);
     }
 
     /**
      * The method to be invoked when stepping out from frame.
      * 
-     * @param className
-     *            The class name
-     * @param methodName
-     *            The method name
+     * @param methodId
+     *            The method id
      */
-    public static void stepReturn(String className, String methodName) {
-        if (!Config.getInstance().isProfilerEnabled()) {
+    public static void stepReturn(int methodId) {
+        if (config == null || !config.isProfilerEnabled()) {
             return;
         }
 
-        long time = System.currentTimeMillis();
-        String thread = Thread.currentThread().getName();
+        long time = System.nanoTime();
 
         // get the current thread
-        ThreadNode threadNode = model.getThread(thread);
+        ThreadNode thread = getThreadNode();
 
         // update the current frame
-        FrameNode previousFrame = threadNode.getCurrentFrame();
+        FrameNode previousFrame = thread.getCurrentFrame();
         if (previousFrame == null) {
             return;
         }
-        threadNode.setCurrentFrame(previousFrame.getParent());
+        thread.setCurrentFrame(previousFrame.getParent());
 
         // set the time stepping return from this frame
-        long overhead = System.currentTimeMillis() - time;
+        long overhead = System.nanoTime() - time;
         previousFrame.setStepReturnTime(time + overhead, overhead);
     }
 
     /**
      * The method to be executed when dropping to frame due to exception.
      * 
-     * @param className
-     *            The class name
-     * @param methodName
-     *            The method name
-     * @param exception
-     *            The exception
+     * @param methodId
+     *            The method id
      */
-    public static void dropToFrame(String className, String methodName,
-            String exception) {
-        if (!Config.getInstance().isProfilerEnabled()) {
+    public static void dropToFrame(int methodId) {
+        if (config == null || !config.isProfilerEnabled()) {
             return;
         }
 
-        long time = System.currentTimeMillis();
-        String thread = Thread.currentThread().getName();
+        long time = System.nanoTime();
 
         // get the current thread
-        ThreadNode threadNode = model.getThread(thread);
+        ThreadNode thread = getThreadNode();
 
         // update the current frame
-        FrameNode previousFrame = threadNode.getCurrentFrame();
+        FrameNode previousFrame = thread.getCurrentFrame();
         if (previousFrame == null) {
             return;
         }
-        FrameNode frame = previousFrame.searchFrame(className, methodName);
-        threadNode.setCurrentFrame(frame);
+        FrameNode frame = previousFrame.searchFrame(methodId);
+        thread.setCurrentFrame(frame);
 
         // set the time dropping to this frame
-        long overhead = System.currentTimeMillis() - time;
-        if (frame.equals(previousFrame)) {
+        long overhead = System.nanoTime() - time;
+        if (frame == previousFrame) {
             // stay at frame
             previousFrame.incrementOverhead(overhead);
             return;
         }
 
         FrameNode iterator = previousFrame;
-        while (!frame.equals(iterator)) {
+        while (frame != iterator) {
             iterator.setStepReturnTime(time + overhead, overhead);
             iterator = iterator.getParent();
         }
     }
 
+    /**
+     * Gets the thread node of the current thread, looking it up in the
+     * runtime model only when the thread first steps into a frame or the model
+     * has been cleared since.
+     * 
+     * @return The thread node
+     */
+    private static ThreadNode getThreadNode() {
+        RuntimeModel runtimeModel = model;
+        ThreadNode thread = threadNode.get();
+        if (thread == null
+                || thread.getGeneration() != runtimeModel.getGeneration()) {
+            thread = runtimeModel.getThread(Thread.currentThread().getName());
+            threadNode.set(thread);
+        }
+        return thread;
+    }
+
     /**
      * Initialize the profiler.
      */
     protected static void initialize() {
         model = new RuntimeModel();
+        config = Config.getInstance();
     }
 
     /**
@@ -67,6 +67,31 @@ public interface CpuBciProfilerMXBean {
      */
     String dump();
 
+    /**
+     * Dumps the profile data in the compact dump format, that is much smaller
+     * than {@link #dump()}.
+     * 
+     * @return The profile data
+     */
+    byte[] dumpCompact();
+
+    /**
+     * Gets the state indicating if dump file is written in XML.
+     * 
+     * @return <tt>true</tt> if in XML, and <tt>false</tt> if in compact
+     *         format
+     */
+    boolean isXmlDump();
+
+    /**
+     * Sets the state indicating if dump file is written in XML.
+     * 
+     * @param xml
+     *            <tt>true</tt> to write in XML, and <tt>false</tt> to write
+     *            in compact format
+     */
+    void setXmlDump(boolean xml);
+
     /**
      * Gets the directory where dump file is created.
      * 
@@ -146,6 +146,35 @@ public class CpuBciProfilerMXBeanImpl implements CpuBciProfilerMXBean {
         }
     }
 
+    /*
+     * @see CpuBciProfilerMXBean#dumpCompact()
+     */
+    @Override
+    public byte[] dumpCompact() {
+        try {
+            return CpuBciProfiler.getModel().dumpCompact();
+        } catch (Throwable t) {
+            Agent.logError(t, Messages.CANNOT_GET_DUMP);
+            return new byte[0];
+        }
+    }
+
+    /*
+     * @see CpuBciProfilerMXBean#isXmlDump()
+     */
+    @Override
+    public boolean isXmlDump() {
+        return Config.getInstance().isXmlDumpEnabled();
+    }
+
+    /*
+     * @see CpuBciProfilerMXBean#setXmlDump(boolean)
+     */
+    @Override
+    public void setXmlDump(boolean xml) {
+        Config.getInstance().setXmlDumpEnabled(xml);
+    }
+
     /*
      * @see ProfilerMXBean#dumpToFile()
      */
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.jboss.tools.jmx.jvmmonitor.internal.agent;
+
+import javax.management.MXBean;
+
+/**
+ * The MXBean to control CPU sampling profiler, that samples the stack traces
+ * of threads in the target JVM and aggregates them there, so that only the
+ * aggregated profile data is transferred.
+ */
+@SuppressWarnings("nls")
+@MXBean
+public interface CpuSamplingProfilerMXBean {
+
+    /** The MXBean name. */
+    final static String SAMPLING_PROFILER_MXBEAN_NAME = "org.jboss.tools.jmx.jvmmonitor:type=CPU Sampling Profiler";
+
+    /**
+     * Sets the state indicating if profiler is running.
+     *
+     * @param run
+     *            True to run profiler
+     */
+    void setRunning(boolean run);
+
+    /**
+     * Gets the state indicating if profiler is running.
+     *
+     * @return <tt>true</tt> if profiler is running
+     */
+    boolean isRunning();
+
+    /**
+     * Sets the sampling period.
+     *
+     * @param period
+     *            The sampling period in milliseconds
+     */
+    void setSamplingPeriod(int period);
+
+    /**
+     * Gets the sampling period.
+     *
+     * @return The sampling period in milliseconds
+     */
+    int getSamplingPeriod();
+
+    /**
+     * Sets the profiled packages.
+     *
+     * @param packages
+     *            The profiled packages
+     */
+    void setProfiledPackages(String[] packages);
+
+    /**
+     * Gets the profiled packages.
+     *
+     * @return The profiled packages
+     */
+    String[] getProfiledPackages();
+
+    /**
+     * Gets the number of samples taken since cleared.
+     *
+     * @return The number of samples
+     */
+    long getSampleCount();
+
+    /**
+     * Clears the profile data.
+     */
+    void clear();
+
+    /**
+     * Dumps the profile data, in the same format as the CPU BCI profiler.
+     *
+     * @return The profile data
+     */
+    String dump();
+
+    /**
+     * Dumps the profile data in the compact dump format, that is much smaller
+     * than {@link #dump()}.
+     *
+     * @return The profile data
+     */
+    byte[] dumpCompact();
+}
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.jboss.tools.jmx.jvmmonitor.internal.agent;
+
+/**
+ * The sampling profiler controller.
+ */
+@SuppressWarnings("nls")
+public class CpuSamplingProfilerMXBeanImpl implements CpuSamplingProfilerMXBean {
+
+    /** The stack sampler. */
+    private StackSampler sampler;
+
+    /**
+     * The constructor.
+     */
+    public CpuSamplingProfilerMXBeanImpl() {
+        sampler = new StackSampler(Constants.DEFAULT_SAMPLING_PERIOD);
+    }
+
+    /*
+     * @see CpuSamplingProfilerMXBean#setRunning(boolean)
+     */
+    @Override
+    public void setRunning(boolean run) {
+        if (run) {
+            sampler.start();
+        } else {
+            sampler.stop();
+        }
+    }
+
+    /*
+     * @see CpuSamplingProfilerMXBean#isRunning()
+     */
+    @Override
+    public boolean isRunning() {
+        return sampler.isRunning();
+    }
+
+    /*
+     * @see CpuSamplingProfilerMXBean#setSamplingPeriod(int)
+     */
+    @Override
+    public void setSamplingPeriod(int period) {
+        sampler.setSamplingPeriod(period);
+    }
+
+    /*
+     * @see CpuSamplingProfilerMXBean#getSamplingPeriod()
+     */
+    @Override
+    public int getSamplingPeriod() {
+        return sampler.getSamplingPeriod();
+    }
+
+    /*
+     * @see CpuSamplingProfilerMXBean#setProfiledPackages(String[])
+     */
+    @Override
+    public void setProfiledPackages(String[] packages) {
+        sampler.setProfiledPackages(packages);
+    }
+
+    /*
+     * @see CpuSamplingProfilerMXBean#getProfiledPackages()
+     */
+    @Override
+    public String[] getProfiledPackages() {
+        return sampler.getProfiledPackages();
+    }
+
+    /*
+     * @see CpuSamplingProfilerMXBean#getSampleCount()
+     */
+    @Override
+    public long getSampleCount() {
+        return sampler.getSampleCount();
+    }
+
+    /*
+     * @see CpuSamplingProfilerMXBean#clear()
+     */
+    @Override
+    public void clear() {
+        try {
+            sampler.clear();
+        } catch (Throwable t) {
+            Agent.logError(t, Messages.CANNOT_CLEAR);
+        }
+    }
+
+    /*
+     * @see CpuSamplingProfilerMXBean#dump()
+     */
+    @Override
+    public String dump() {
+        try {
+            return sampler.getModel().dump();
+        } catch (Throwable t) {
+            Agent.logError(t, Messages.CANNOT_GET_DUMP);
+            return "";
+        }
+    }
+
+    /*
+     * @see CpuSamplingProfilerMXBean#dumpCompact()
+     */
+    @Override
+    public byte[] dumpCompact() {
+        try {
+            return sampler.getModel().dumpCompact();
+        } catch (Throwable t) {
+            Agent.logError(t, Messages.CANNOT_GET_DUMP);
+            return new byte[0];
+        }
+    }
+}
@@ -4,6 +4,11 @@ import javax.management.MXBean;
 
 /**
  * The MXBean to transfer data.
+ * <p>
+ * A file is transferred in a session opened with {@link #open(String)}, that
+ * keeps the file open until {@link #close(long)} is invoked. The chunks of
+ * session can be read in any order and concurrently, so that several chunk
+ * requests can be in flight.
  */
 @SuppressWarnings("nls")
 @MXBean
@@ -25,6 +30,46 @@ public interface DataTransferMXBean {
      */
     byte[] read(String fileName, int pos, int maxSize);
 
+    /**
+     * Opens the transfer session of file on host where target JVM is running.
+     * 
+     * @param fileName
+     *            The file name
+     * @return The session id, or <tt>-1</tt> if the file cannot be read
+     */
+    long open(String fileName);
+
+    /**
+     * Reads the chunk of data in the transfer session.
+     * 
+     * @param sessionId
+     *            The session id
+     * @param pos
+     *            The offset position of data in bytes to start reading data
+     * @param maxSize
+     *            The max size in bytes to read data, that is limited to
+     *            {@link #getMaxChunkSize()}
+     * @param compress
+     *            True to compress the data with deflate
+     * @return The file data, that is empty at the end of file
+     */
+    byte[] readChunk(long sessionId, long pos, int maxSize, boolean compress);
+
+    /**
+     * Closes the transfer session.
+     * 
+     * @param sessionId
+     *            The session id
+     */
+    void close(long sessionId);
+
+    /**
+     * Gets the max size of chunk that can be read at once.
+     * 
+     * @return The max chunk size in bytes
+     */
+    int getMaxChunkSize();
+
     /**
      * Gets the version.
      * 
@@ -1,9 +1,17 @@
 package org.jboss.tools.jmx.jvmmonitor.internal.agent;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
 
 /**
  * The MXBean to transfer data.
@@ -11,6 +19,29 @@ import java.util.Arrays;
 @SuppressWarnings("nls")
 public class DataTransferMXBeanImpl implements DataTransferMXBean {
 
+    /** The max chunk size in bytes. */
+    private static final int MAX_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * The time in milliseconds after which an idle session is closed, in case
+     * the client went away without closing it.
+     */
+    private static final long SESSION_TIMEOUT = 10 * 60 * 1000;
+
+    /** The open sessions by session id. */
+    private Map<Long, Session> sessions;
+
+    /** The last session id. */
+    private AtomicLong lastSessionId;
+
+    /**
+     * The constructor.
+     */
+    public DataTransferMXBeanImpl() {
+        sessions = new ConcurrentHashMap<Long, Session>();
+        lastSessionId = new AtomicLong();
+    }
+
     /*
      * @see DataTransferMXBean#read(String, int, int)
      */
@@ -50,6 +81,82 @@ public class DataTransferMXBeanImpl implements DataTransferMXBean {
         return results;
     }
 
+    /*
+     * @see DataTransferMXBean#open(String)
+     */
+    @Override
+    public long open(String fileName) {
+        closeIdleSessions();
+
+        File file = new File(fileName);
+        if (!file.exists() || !file.isFile() || !file.canRead()) {
+            Agent.logError(new Exception(), Messages.CANNOT_READ_FILE, fileName);
+            return -1;
+        }
+
+        try {
+            Session session = new Session(fileName, new RandomAccessFile(file,
+                    "r").getChannel());
+            long sessionId = lastSessionId.incrementAndGet();
+            sessions.put(sessionId, session);
+            return sessionId;
+        } catch (IOException e) {
+            Agent.logError(e, Messages.CANNOT_READ_FILE, fileName);
+            return -1;
+        }
+    }
+
+    /*
+     * @see DataTransferMXBean#readChunk(long, long, int, boolean)
+     */
+    @Override
+    public byte[] readChunk(long sessionId, long pos, int maxSize,
+            boolean compress) {
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            Agent.logError(new Exception(), Messages.UNKNOWN_TRANSFER_SESSION,
+                    sessionId);
+            return new byte[0];
+        }
+        session.lastAccessTime = System.currentTimeMillis();
+
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.max(
+                    Math.min(maxSize, MAX_CHUNK_SIZE), 0));
+            while (buffer.hasRemaining()) {
+                int size = session.channel.read(buffer,
+                        pos + buffer.position());
+                if (size == -1) {
+                    break;
+                }
+            }
+            byte[] bytes = Arrays.copyOf(buffer.array(), buffer.position());
+            return compress && bytes.length > 0 ? deflate(bytes) : bytes;
+        } catch (IOException e) {
+            Agent.logError(e, Messages.CANNOT_READ_FILE, session.fileName);
+            return new byte[0];
+        }
+    }
+
+    /*
+     * @see DataTransferMXBean#close(long)
+     */
+    @Override
+    public void close(long sessionId) {
+        Session session = sessions.remove(sessionId);
+        if (session != null) {
+            session.close();
+        }
+    }
+
+    /*
+     * @see DataTransferMXBean#getMaxChunkSize()
+     */
+    @Override
+    public int getMaxChunkSize() {
+        return MAX_CHUNK_SIZE;
+    }
+
     /*
      * @see DataTransferMXBean#getVersion()
      */
@@ -57,4 +164,83 @@ public class DataTransferMXBeanImpl implements DataTransferMXBean {
     public String getVersion() {
         return Constants.VERSION;
     }
+
+    /**
+     * Closes the sessions that have not been accessed for a while.
+     */
+    private void closeIdleSessions() {
+        long time = System.currentTimeMillis();
+        Iterator<Session> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            Session session = iterator.next();
+            if (time - session.lastAccessTime > SESSION_TIMEOUT) {
+                iterator.remove();
+                session.close();
+            }
+        }
+    }
+
+    /**
+     * Compresses the given data with deflate.
+     * 
+     * @param bytes
+     *            The data
+     * @return The compressed data
+     */
+    private static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(
+                    bytes.length / 2 + 64);
+            byte[] buffer = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * The transfer session.
+     */
+    private static class Session {
+
+        /** The file name. */
+        String fileName;
+
+        /** The file channel, that supports concurrent positional reads. */
+        FileChannel channel;
+
+        /** The time in milliseconds when the session was accessed last. */
+        volatile long lastAccessTime;
+
+        /**
+         * The constructor.
+         * 
+         * @param fileName
+         *            The file name
+         * @param channel
+         *            The file channel
+         */
+        Session(String fileName, FileChannel channel) {
+            this.fileName = fileName;
+            this.channel = channel;
+            lastAccessTime = System.currentTimeMillis();
+        }
+
+        /**
+         * Closes the file.
+         */
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // do nothing
+            }
+        }
+    }
 }
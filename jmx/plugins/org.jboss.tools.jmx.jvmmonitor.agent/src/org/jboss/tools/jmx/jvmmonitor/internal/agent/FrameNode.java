@@ -6,9 +6,9 @@
  *******************************************************************************/
 package org.jboss.tools.jmx.jvmmonitor.internal.agent;
 
+import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Arrays;
 
 import org.jboss.tools.jmx.jvmmonitor.internal.agent.asm.Type;
 
@@ -18,25 +18,34 @@ import org.jboss.tools.jmx.jvmmonitor.internal.agent.asm.Type;
 @SuppressWarnings("nls")
 public class FrameNode {
 
-    /** The class name. */
-    private String className;
+    /** The child frame nodes of a frame without children. */
+    protected static final FrameNode[] NO_FRAMES = new FrameNode[0];
 
-    /** The method name. */
-    private String methodName;
+    /** The step into time of a frame not stepped into. */
+    private static final long NOT_STEPPED_INTO = Long.MIN_VALUE;
 
-    /** The child frame nodes. */
-    private Map<String, FrameNode> childFrames;
+    /** The nanoseconds per millisecond. */
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    /** The method id. */
+    private int methodId;
+
+    /**
+     * The child frame nodes. The array is replaced rather than modified, so
+     * that it can be searched without locking.
+     */
+    private volatile FrameNode[] childFrames;
 
     /** The parent frame node. */
     private FrameNode parentFrame;
 
-    /** The time stepped into this frame. */
+    /** The time stepped into this frame in nanoseconds. */
     private long stepIntoTime;
 
-    /** The total invocation time. */
+    /** The total invocation time in nanoseconds. */
     private long totalTime;
 
-    /** The overhead time. */
+    /** The overhead time in nanoseconds. */
     private long overheadTime;
 
     /** The invocation count. */
@@ -47,47 +56,90 @@ public class FrameNode {
      * 
      * @param parent
      *            The parent frame node
-     * @param clazz
-     *            The class name
-     * @param method
-     *            The method name
+     * @param id
+     *            The method id
      */
-    protected FrameNode(FrameNode parent, String clazz, String method) {
+    protected FrameNode(FrameNode parent, int id) {
         parentFrame = parent;
-        className = clazz;
-        methodName = method;
-        childFrames = new ConcurrentHashMap<String, FrameNode>();
-        stepIntoTime = 0;
+        methodId = id;
+        childFrames = NO_FRAMES;
+        stepIntoTime = NOT_STEPPED_INTO;
         totalTime = 0;
         overheadTime = 0;
         count = 0;
     }
 
     /**
-     * Gets the child frame for the given class name and method name.
+     * Gets the child frame for the given method.
      * 
-     * @param clazz
-     *            The class name
-     * @param method
-     *            The method name
+     * @param id
+     *            The method id
      * @return The child frame
      */
-    protected FrameNode getChild(String clazz, String method) {
-        FrameNode frame = childFrames.get(clazz + '.' + method);
+    protected FrameNode getChild(int id) {
+        FrameNode frame = find(childFrames, id);
         if (frame == null) {
-            frame = new FrameNode(this, clazz, method);
-            childFrames.put(clazz + '.' + method, frame);
+            frame = addChild(id);
         }
         return frame;
     }
 
+    /**
+     * Adds the child frame for the given method, unless already added.
+     * 
+     * @param id
+     *            The method id
+     * @return The child frame
+     */
+    private synchronized FrameNode addChild(int id) {
+        FrameNode frame = find(childFrames, id);
+        if (frame == null) {
+            frame = new FrameNode(this, id);
+            childFrames = add(childFrames, frame);
+        }
+        return frame;
+    }
+
+    /**
+     * Finds the frame for the given method.
+     * 
+     * @param frames
+     *            The frames to search
+     * @param id
+     *            The method id
+     * @return The frame, or <tt>null</tt> if not found
+     */
+    protected static FrameNode find(FrameNode[] frames, int id) {
+        for (int i = 0; i < frames.length; i++) {
+            if (frames[i].methodId == id) {
+                return frames[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets a copy of the given frames with the given frame added.
+     * 
+     * @param frames
+     *            The frames
+     * @param frame
+     *            The frame to add
+     * @return The frames with the frame added
+     */
+    protected static FrameNode[] add(FrameNode[] frames, FrameNode frame) {
+        FrameNode[] newFrames = Arrays.copyOf(frames, frames.length + 1);
+        newFrames[frames.length] = frame;
+        return newFrames;
+    }
+
     /**
      * Sets the step into time.
      * 
      * @param time
-     *            The time stepping into this frame
+     *            The time stepping into this frame in nanoseconds
      * @param overhead
-     *            The overhead time
+     *            The overhead time in nanoseconds
      */
     protected void setStepIntoTime(long time, long overhead) {
         stepIntoTime = time;
@@ -99,21 +151,36 @@ public class FrameNode {
      * Sets the step return time.
      * 
      * @param time
-     *            The time stepping return from this frame
+     *            The time stepping return from this frame in nanoseconds
      * @param overhead
-     *            The overhead time
+     *            The overhead time in nanoseconds
      */
     protected void setStepReturnTime(long time, long overhead) {
         totalTime += time - stepIntoTime;
         overheadTime += overhead;
-        stepIntoTime = 0;
+        stepIntoTime = NOT_STEPPED_INTO;
+    }
+
+    /**
+     * Adds a sample in which this frame was on the stack.
+     * 
+     * @param time
+     *            The time since the previous sample in nanoseconds
+     * @param isNewInvocation
+     *            True if the frame was not on the stack at the previous sample
+     */
+    protected void addSample(long time, boolean isNewInvocation) {
+        totalTime += time;
+        if (isNewInvocation) {
+            count++;
+        }
     }
 
     /**
      * Increments the overhead.
      * 
      * @param overhead
-     *            The overhead time
+     *            The overhead time in nanoseconds
      */
     protected void incrementOverhead(long overhead) {
         overheadTime += overhead;
@@ -131,23 +198,16 @@ public class FrameNode {
     /**
      * Searches the frame.
      * 
-     * @param clazz
-     *            The class name
-     * @param method
-     *            The method name
+     * @param id
+     *            The method id
      * @return The frame
      */
-    protected FrameNode searchFrame(String clazz, String method) {
-
-        if (className.equals(clazz) && methodName.equals(method)) {
-            return this;
+    protected FrameNode searchFrame(int id) {
+        FrameNode frame = this;
+        while (frame.methodId != id && frame.parentFrame != null) {
+            frame = frame.parentFrame;
         }
-
-        if (parentFrame == null) {
-            return this;
-        }
-
-        return parentFrame.searchFrame(clazz, method);
+        return frame;
     }
 
     /**
@@ -156,25 +216,23 @@ public class FrameNode {
      * @param writer
      *            The writer
      * @param time
-     *            The time
+     *            The time in nanoseconds
      * @param nest
      *            The nest
      */
     protected void dump(PrintWriter writer, long time, int nest) {
-        String name = getFrameName();
-        long actualTotalTime = totalTime - overheadTime;
-        if (stepIntoTime != 0) {
-            actualTotalTime += time - stepIntoTime;
-        }
+        String name = escape(getFrameName());
+        long actualTotalTime = getActualTotalTime(time);
+        FrameNode[] frames = childFrames;
 
         for (int i = 0; i < nest; i++) {
             writer.print("\t");
         }
         writer.printf("<frame name=\"%s\" cnt=\"%d\" time=\"%d\"", name, count,
-                Math.max(actualTotalTime, 0));
-        if (childFrames.size() > 0) {
+                actualTotalTime);
+        if (frames.length > 0) {
             writer.println(">");
-            for (FrameNode frameNode : childFrames.values()) {
+            for (FrameNode frameNode : frames) {
                 frameNode.dump(writer, time, nest + 1);
             }
             for (int i = 0; i < nest; i++) {
@@ -192,26 +250,24 @@ public class FrameNode {
      * @param buffer
      *            The string buffer
      * @param time
-     *            The time
+     *            The time in nanoseconds
      * @param nest
      *            The nest count
      */
     protected void dump(StringBuffer buffer, long time, int nest) {
-        String name = getFrameName();
-        long actualTotalTime = totalTime - overheadTime;
-        if (stepIntoTime != 0) {
-            actualTotalTime += time - stepIntoTime;
-        }
+        String name = escape(getFrameName());
+        long actualTotalTime = getActualTotalTime(time);
+        FrameNode[] frames = childFrames;
 
         for (int i = 0; i < nest; i++) {
             buffer.append('\t');
         }
         buffer.append("<frame name=\"").append(name).append("\" cnt=\"")
                 .append(count).append("\" time=\"")
-                .append(Math.max(actualTotalTime, 0)).append("\"");
-        if (childFrames.size() > 0) {
+                .append(actualTotalTime).append("\"");
+        if (frames.length > 0) {
             buffer.append(">\n");
-            for (FrameNode frameNode : childFrames.values()) {
+            for (FrameNode frameNode : frames) {
                 frameNode.dump(buffer, time, nest + 1);
             }
             for (int i = 0; i < nest; i++) {
@@ -223,12 +279,50 @@ public class FrameNode {
         }
     }
 
+    /**
+     * Dumps in the compact dump format.
+     * 
+     * @param writer
+     *            The compact dump writer
+     * @param time
+     *            The time in nanoseconds
+     * @throws IOException
+     */
+    protected void dump(CompactDumpWriter writer, long time)
+            throws IOException {
+        if (!writer.isMethodDefined(methodId)) {
+            writer.defineMethod(methodId, getFrameName());
+        }
+        writer.startFrame(methodId, count, getActualTotalTime(time));
+        for (FrameNode frameNode : childFrames) {
+            frameNode.dump(writer, time);
+        }
+        writer.endFrame();
+    }
+
+    /**
+     * Gets the total invocation time excluding the overhead.
+     * 
+     * @param time
+     *            The time in nanoseconds
+     * @return The total invocation time in milliseconds
+     */
+    private long getActualTotalTime(long time) {
+        long actualTotalTime = totalTime - overheadTime;
+        if (stepIntoTime != NOT_STEPPED_INTO) {
+            actualTotalTime += time - stepIntoTime;
+        }
+        return Math.max(actualTotalTime, 0) / NANOS_PER_MILLI;
+    }
+
     /**
      * Gets the frame name.
      * 
      * @return The frame name
      */
     private String getFrameName() {
+        String className = MethodRegistry.getClassName(methodId);
+        String methodName = MethodRegistry.getMethodName(methodId);
 
         // replace '/' with '.'
         String clazz = className.replace('/', '.');
@@ -246,11 +340,18 @@ public class FrameNode {
                     .getClassName());
         }
         builder.append(')');
-        String method = builder.toString();
 
-        // convert into escaped characters
-        method = method.replaceAll("<", "&lt;").replaceAll(">", "&gt;");
+        return clazz + '.' + builder.toString();
+    }
 
-        return clazz + '.' + method;
+    /**
+     * Converts the frame name into escaped characters.
+     * 
+     * @param name
+     *            The frame name
+     * @return The escaped frame name
+     */
+    private static String escape(String name) {
+        return name.replaceAll("<", "&lt;").replaceAll(">", "&gt;");
     }
 }
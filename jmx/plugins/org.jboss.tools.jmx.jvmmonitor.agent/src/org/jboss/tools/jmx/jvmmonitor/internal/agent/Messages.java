@@ -43,12 +43,18 @@ public class Messages {
     static final String CANNOT_CREATE_DUMP_FILE = "Writing into a dump file failed.\n"
             + "Please check the output directory \"%s\" specified in configuration file.\n";
 
+    /** The error message that sampling stack traces failed. */
+    static final String CANNOT_SAMPLE = "Cannot sample the stack traces.";
+
     /** The error message that re-transforming class failed. */
     static final String CANNOT_RETRANSFORM_CLASS = "Cannot retransform class: %s";
 
     /** The error message that reading file failed. */
     static final String CANNOT_READ_FILE = "Cannot read file: %s";
 
+    /** The error message that the data transfer session is unknown. */
+    static final String UNKNOWN_TRANSFER_SESSION = "Unknown data transfer session: %d";
+
     /** The error message that setting SWT resource tracking state failed. */
     static final String CANNOT_SET_RESOURCE_TRACKING_STATE = "Cannot set SWT resource tracking state.";
 
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.jboss.tools.jmx.jvmmonitor.internal.agent;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The registry of instrumented methods. Each method is given an id when its
+ * class is transformed, and the profiler is invoked with the id rather than
+ * with the class and method names.
+ */
+public class MethodRegistry {
+
+    /** The method ids, by class name and method name. */
+    private static Map<String, Integer> ids = new HashMap<String, Integer>();
+
+    /** The class names, by method id. */
+    private static String[] classNames = new String[1024];
+
+    /** The method names, by method id. */
+    private static String[] methodNames = new String[1024];
+
+    /** The number of methods. */
+    private static int count;
+
+    /**
+     * The constructor.
+     */
+    private MethodRegistry() {
+        // not instantiated
+    }
+
+    /**
+     * Gets the id of the given method, registering it if not yet registered.
+     *
+     * @param className
+     *            The class name
+     * @param methodName
+     *            The method name with its parameter descriptor
+     * @return The method id
+     */
+    protected static synchronized int getId(String className, String methodName) {
+        String key = className + '.' + methodName;
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id.intValue();
+        }
+
+        if (count == classNames.length) {
+            classNames = Arrays.copyOf(classNames, count * 2);
+            methodNames = Arrays.copyOf(methodNames, count * 2);
+        }
+        classNames[count] = className;
+        methodNames[count] = methodName;
+        ids.put(key, Integer.valueOf(count));
+        return count++;
+    }
+
+    /**
+     * Gets the class name of the given method.
+     *
+     * @param id
+     *            The method id
+     * @return The class name
+     */
+    protected static synchronized String getClassName(int id) {
+        return classNames[id];
+    }
+
+    /**
+     * Gets the method name of the given method.
+     *
+     * @param id
+     *            The method id
+     * @return The method name with its parameter descriptor
+     */
+    protected static synchronized String getMethodName(int id) {
+        return methodNames[id];
+    }
+}
@@ -6,10 +6,14 @@
  *******************************************************************************/
 package org.jboss.tools.jmx.jvmmonitor.internal.agent;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.lang.management.ManagementFactory;
 import java.lang.management.RuntimeMXBean;
@@ -18,9 +22,10 @@ import java.lang.management.ThreadMXBean;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The runtime model.
@@ -28,17 +33,40 @@ import java.util.concurrent.ConcurrentHashMap;
 @SuppressWarnings("nls")
 public class RuntimeModel implements Runnable {
 
+    /** The generations handed out to runtime models */
+    private static final AtomicInteger generations = new AtomicInteger();
+
     /** The thread nodes */
-    private Map<String, ThreadNode> threadNodes;
+    private ConcurrentMap<String, ThreadNode> threadNodes;
+
+    /**
+     * The generation, changed whenever the thread nodes are discarded so that
+     * the profiler stops recording into them.
+     */
+    private volatile int generation;
 
     /**
      * The constructor.
      */
     protected RuntimeModel() {
+        this(true);
+    }
+
+    /**
+     * The constructor.
+     * 
+     * @param dumpOnShutdown
+     *            True to dump the model into file when shutting down
+     *            application
+     */
+    protected RuntimeModel(boolean dumpOnShutdown) {
         threadNodes = new ConcurrentHashMap<String, ThreadNode>();
+        generation = generations.incrementAndGet();
 
         // to dump the model into file when shutting down application
-        Runtime.getRuntime().addShutdownHook(new Thread(this));
+        if (dumpOnShutdown) {
+            Runtime.getRuntime().addShutdownHook(new Thread(this));
+        }
     }
 
     /*
@@ -60,18 +88,38 @@ public class RuntimeModel implements Runnable {
      * @return The thread node
      */
     protected ThreadNode getThread(String thread) {
+        int currentGeneration = generation;
         ThreadNode threadNode = threadNodes.get(thread);
-        if (threadNode == null) {
-            threadNode = new ThreadNode(thread);
-            threadNodes.put(thread, threadNode);
+        if (threadNode != null
+                && threadNode.getGeneration() == currentGeneration) {
+            return threadNode;
+        }
+
+        ThreadNode newThreadNode = new ThreadNode(thread, currentGeneration);
+        boolean added = threadNode == null ? threadNodes.putIfAbsent(thread,
+                newThreadNode) == null : threadNodes.replace(thread,
+                threadNode, newThreadNode);
+        if (!added) {
+            // another thread with the same name got there first
+            return getThread(thread);
         }
-        return threadNode;
+        return newThreadNode;
+    }
+
+    /**
+     * Gets the generation of the thread nodes.
+     * 
+     * @return The generation
+     */
+    protected int getGeneration() {
+        return generation;
     }
 
     /**
      * Clears the model.
      */
     protected void clear() {
+        generation = generations.incrementAndGet();
         threadNodes.clear();
     }
 
@@ -131,7 +179,7 @@ public class RuntimeModel implements Runnable {
         buffer.append("mainClass=\"").append(getMainClass()).append("\" ");
         buffer.append("arguments=\"").append(getJvmArguments()).append("\">\n");
 
-        long currentTime = System.currentTimeMillis();
+        long currentTime = System.nanoTime();
         for (ThreadNode threadNode : threadNodes.values()) {
             threadNode.dump(buffer, currentTime);
         }
@@ -140,9 +188,77 @@ public class RuntimeModel implements Runnable {
     }
 
     /**
-     * Dumps into a dump file.
+     * Dumps the profile data in the compact dump format.
+     * 
+     * @return The profile data
+     * @throws IOException
+     */
+    protected byte[] dumpCompact() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeCompactDump(out, new Date());
+        return out.toByteArray();
+    }
+
+    /**
+     * Dumps into a dump file, in the compact dump format unless XML is
+     * configured.
      */
     protected void doDumpToFile() {
+        if (Config.getInstance().isXmlDumpEnabled()) {
+            doDumpToXmlFile();
+            return;
+        }
+
+        Date currentDate = new Date();
+        OutputStream out = null;
+        try {
+            out = new BufferedOutputStream(new FileOutputStream(
+                    getFile(currentDate)));
+            writeCompactDump(out, currentDate);
+        } catch (IOException e) {
+            Agent.logError(e, Messages.CANNOT_CREATE_DUMP_FILE, Config
+                    .getInstance().getDumpDir());
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // do nothing
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the profile data in the compact dump format.
+     * 
+     * @param out
+     *            The output stream
+     * @param currentDate
+     *            The current date
+     * @throws IOException
+     */
+    private void writeCompactDump(OutputStream out, Date currentDate)
+            throws IOException {
+        String date = new SimpleDateFormat(Constants.DATE_FORMAT)
+                .format(currentDate);
+        String time = new SimpleDateFormat(Constants.TIME_FORMAT)
+                .format(currentDate);
+
+        CompactDumpWriter writer = new CompactDumpWriter(out);
+        writer.writeHeader(date + ' ' + time, getRuntime(), getMainClass(),
+                getJvmArguments());
+        long currentTime = System.nanoTime();
+        for (ThreadNode threadNode : threadNodes.values()) {
+            threadNode.dump(writer, currentTime);
+        }
+        writer.end();
+    }
+
+    /**
+     * Dumps into a dump file in XML.
+     */
+    private void doDumpToXmlFile() {
 
         // get date and time
         Date currentDate = new Date();
@@ -167,7 +283,7 @@ public class RuntimeModel implements Runnable {
             writer.printf("mainClass=\"%s\" ", getMainClass());
             writer.printf("arguments=\"%s\">\n", getJvmArguments());
             writer.println("");
-            long currentTime = System.currentTimeMillis();
+            long currentTime = System.nanoTime();
             for (ThreadNode threadNode : threadNodes.values()) {
                 threadNode.dump(writer, currentTime);
             }
@@ -0,0 +1,290 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.jboss.tools.jmx.jvmmonitor.internal.agent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * The stack sampler that periodically takes the stack traces of threads, and
+ * aggregates them into a runtime model.
+ */
+@SuppressWarnings("nls")
+public class StackSampler implements Runnable {
+
+    /** The thread name of the sampler. */
+    private static final String SAMPLER_THREAD_NAME = "JVM Monitor Stack Sampler";
+
+    /** The runtime model to aggregate samples into. */
+    private RuntimeModel model;
+
+    /** The sampling period in milliseconds. */
+    private volatile int samplingPeriod;
+
+    /** The profiled packages. */
+    private volatile String[] profiledPackages;
+
+    /** The number of samples taken. */
+    private volatile long sampleCount;
+
+    /** The sampler thread, or <tt>null</tt> if not running. */
+    private volatile Thread samplerThread;
+
+    /**
+     * The constructor.
+     *
+     * @param samplingPeriod
+     *            The sampling period in milliseconds
+     */
+    protected StackSampler(int samplingPeriod) {
+        this.samplingPeriod = samplingPeriod;
+        model = new RuntimeModel(false);
+        profiledPackages = new String[0];
+    }
+
+    /**
+     * Starts sampling, unless already started.
+     */
+    protected synchronized void start() {
+        if (samplerThread != null) {
+            return;
+        }
+        samplerThread = new Thread(this, SAMPLER_THREAD_NAME);
+        samplerThread.setDaemon(true);
+        samplerThread.start();
+    }
+
+    /**
+     * Stops sampling.
+     */
+    protected synchronized void stop() {
+        Thread thread = samplerThread;
+        samplerThread = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Gets the state indicating if sampling.
+     *
+     * @return <tt>true</tt> if sampling
+     */
+    protected boolean isRunning() {
+        return samplerThread != null;
+    }
+
+    /**
+     * Gets the sampling period.
+     *
+     * @return The sampling period in milliseconds
+     */
+    protected int getSamplingPeriod() {
+        return samplingPeriod;
+    }
+
+    /**
+     * Sets the sampling period.
+     *
+     * @param period
+     *            The sampling period in milliseconds
+     */
+    protected void setSamplingPeriod(int period) {
+        samplingPeriod = Math.max(period, 1);
+    }
+
+    /**
+     * Gets the profiled packages.
+     *
+     * @return The profiled packages
+     */
+    protected String[] getProfiledPackages() {
+        return profiledPackages.clone();
+    }
+
+    /**
+     * Sets the profiled packages.
+     *
+     * @param packages
+     *            The profiled packages
+     */
+    protected void setProfiledPackages(String[] packages) {
+        profiledPackages = packages == null ? new String[0] : packages.clone();
+    }
+
+    /**
+     * Gets the number of samples taken since cleared.
+     *
+     * @return The number of samples
+     */
+    protected long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Gets the runtime model.
+     *
+     * @return The runtime model
+     */
+    protected RuntimeModel getModel() {
+        return model;
+    }
+
+    /**
+     * Clears the samples.
+     */
+    protected void clear() {
+        model.clear();
+        sampleCount = 0;
+    }
+
+    /*
+     * @see Runnable#run()
+     */
+    @Override
+    public void run() {
+        Thread currentThread = Thread.currentThread();
+        Map<Long, StackTraceElement[]> previousStackTraces = new HashMap<Long, StackTraceElement[]>();
+        long previousTime = System.nanoTime();
+        while (samplerThread == currentThread) {
+            try {
+                Thread.sleep(samplingPeriod);
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            long time = System.nanoTime();
+            try {
+                previousStackTraces = sample(previousStackTraces, time
+                        - previousTime);
+            } catch (Throwable t) {
+                Agent.logError(t, Messages.CANNOT_SAMPLE);
+            }
+            previousTime = time;
+        }
+    }
+
+    /**
+     * Takes a sample of all threads.
+     *
+     * @param previousStackTraces
+     *            The stack traces of the previous sample, by thread id
+     * @param period
+     *            The time since the previous sample in nanoseconds
+     * @return The stack traces of this sample, by thread id
+     */
+    private Map<Long, StackTraceElement[]> sample(
+            Map<Long, StackTraceElement[]> previousStackTraces, long period) {
+        String[] packages = profiledPackages;
+        if (packages.length == 0) {
+            return previousStackTraces;
+        }
+
+        Map<Long, StackTraceElement[]> stackTraces = new HashMap<Long, StackTraceElement[]>();
+        for (Entry<Thread, StackTraceElement[]> entry : Thread
+                .getAllStackTraces().entrySet()) {
+            Thread thread = entry.getKey();
+            StackTraceElement[] stackTrace = entry.getValue();
+            String threadName = thread.getName();
+            if (thread == Thread.currentThread() || stackTrace.length == 0
+                    || threadName.startsWith("JMX ")
+                    || threadName.startsWith("RMI ")) {
+                continue;
+            }
+
+            Long threadId = Long.valueOf(thread.getId());
+            update(model.getThread(threadName), packages, stackTrace,
+                    previousStackTraces.get(threadId), period);
+            stackTraces.put(threadId, stackTrace);
+        }
+        sampleCount++;
+        return stackTraces;
+    }
+
+    /**
+     * Updates the thread node with the stack trace.
+     *
+     * @param threadNode
+     *            The thread node
+     * @param packages
+     *            The profiled packages
+     * @param stackTrace
+     *            The stack trace, with the innermost frame first
+     * @param previousStackTrace
+     *            The previous stack trace of the thread, or <tt>null</tt>
+     * @param period
+     *            The time since the previous sample in nanoseconds
+     */
+    private static void update(ThreadNode threadNode, String[] packages,
+            StackTraceElement[] stackTrace,
+            StackTraceElement[] previousStackTrace, long period) {
+        boolean isNewStack = false;
+        FrameNode frame = null;
+
+        // walk from the outermost frame
+        for (int i = stackTrace.length - 1; i >= 0; i--) {
+            StackTraceElement element = stackTrace[i];
+            if (!matches(element.getClassName(), packages)) {
+                continue;
+            }
+
+            int previous = previousStackTrace == null ? -1
+                    : previousStackTrace.length - stackTrace.length + i;
+            if (previous < 0 || !element.equals(previousStackTrace[previous])) {
+                isNewStack = true;
+            }
+
+            int methodId = MethodRegistry.getId(element.getClassName(),
+                    element.getMethodName() + "()");
+            if (frame == null) {
+                frame = threadNode.getRootFrame(methodId);
+            } else {
+                frame = frame.getChild(methodId);
+            }
+            frame.addSample(period, isNewStack);
+        }
+    }
+
+    /**
+     * Checks if the given class belongs to one of the packages list.
+     *
+     * @param className
+     *            the class name (e.g. java.lang.String)
+     * @param packages
+     *            the list of packages
+     * @return true if the given class belongs to one of the packages list
+     */
+    private static boolean matches(String className, String[] packages) {
+        String packageName;
+        if (className.contains(".")) {
+            packageName = className.substring(0, className.lastIndexOf('.'));
+        } else if (className.startsWith("$")) {
+            return false; // e.g. $Proxy0
+        } else {
+            packageName = Constants.DEFAULT_PACKAGE;
+        }
+
+        for (String pkg : packages) {
+            if (pkg.endsWith("*")) {
+                if (packageName.concat(".").startsWith(
+                        pkg.substring(0, pkg.length() - 1))) {
+                    return true;
+                }
+            } else {
+                if (packageName.equals(pkg)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -6,10 +6,8 @@
  *******************************************************************************/
 package org.jboss.tools.jmx.jvmmonitor.internal.agent;
 
+import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.Collection;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The thread node of runtime model.
@@ -20,37 +18,65 @@ public class ThreadNode {
     /** The thread name */
     private String thread;
 
+    /** The generation of runtime model this thread node belongs to */
+    private int generation;
+
     /** The current frame */
     private FrameNode currentFrame;
 
-    /** The root frame nodes */
-    private Map<String, FrameNode> rootFrames;
+    /** The root frame nodes, replaced rather than modified */
+    private volatile FrameNode[] rootFrames;
 
     /**
      * The constructor.
      * 
      * @param thread
      *            The thread name
+     * @param generation
+     *            The generation of runtime model
      */
-    protected ThreadNode(String thread) {
+    protected ThreadNode(String thread, int generation) {
         this.thread = thread;
-        rootFrames = new ConcurrentHashMap<String, FrameNode>();
+        this.generation = generation;
+        rootFrames = FrameNode.NO_FRAMES;
+    }
+
+    /**
+     * Gets the generation of runtime model this thread node belongs to.
+     * 
+     * @return The generation
+     */
+    protected int getGeneration() {
+        return generation;
     }
 
     /**
      * Gets the root frame.
      * 
-     * @param className
-     *            The class name
-     * @param methodName
-     *            The method name
+     * @param id
+     *            The method id
      * @return The root frame
      */
-    protected FrameNode getRootFrame(String className, String methodName) {
-        FrameNode frame = rootFrames.get(className + '.' + methodName);
+    protected FrameNode getRootFrame(int id) {
+        FrameNode frame = FrameNode.find(rootFrames, id);
         if (frame == null) {
-            frame = new FrameNode(null, className, methodName);
-            rootFrames.put(className + '.' + methodName, frame);
+            frame = addRootFrame(id);
+        }
+        return frame;
+    }
+
+    /**
+     * Adds the root frame, unless already added.
+     * 
+     * @param id
+     *            The method id
+     * @return The root frame
+     */
+    private synchronized FrameNode addRootFrame(int id) {
+        FrameNode frame = FrameNode.find(rootFrames, id);
+        if (frame == null) {
+            frame = new FrameNode(null, id);
+            rootFrames = FrameNode.add(rootFrames, frame);
         }
         return frame;
     }
@@ -80,11 +106,11 @@ public class ThreadNode {
      * @param writer
      *            The writer
      * @param time
-     *            The time
+     *            The time in nanoseconds
      */
     protected void dump(PrintWriter writer, long time) {
-        Collection<FrameNode> frameNodes = rootFrames.values();
-        if (frameNodes.size() == 0) {
+        FrameNode[] frameNodes = rootFrames;
+        if (frameNodes.length == 0) {
             return;
         }
         
@@ -96,17 +122,40 @@ public class ThreadNode {
         writer.println("\t</thread>");
     }
 
+    /**
+     * Dumps in the compact dump format.
+     * 
+     * @param writer
+     *            The compact dump writer
+     * @param time
+     *            The time in nanoseconds
+     * @throws IOException
+     */
+    protected void dump(CompactDumpWriter writer, long time)
+            throws IOException {
+        FrameNode[] frameNodes = rootFrames;
+        if (frameNodes.length == 0) {
+            return;
+        }
+
+        writer.startThread(thread);
+        for (FrameNode frameNode : frameNodes) {
+            frameNode.dump(writer, time);
+        }
+        writer.endThread();
+    }
+
     /**
      * Dumps the profile data.
      * 
      * @param buffer
      *            The string buffer
      * @param time
-     *            The time
+     *            The time in nanoseconds
      */
     protected void dump(StringBuffer buffer, long time) {
-        Collection<FrameNode> frameNodes = rootFrames.values();
-        if (frameNodes.size() == 0) {
+        FrameNode[] frameNodes = rootFrames;
+        if (frameNodes.length == 0) {
             return;
         }
 
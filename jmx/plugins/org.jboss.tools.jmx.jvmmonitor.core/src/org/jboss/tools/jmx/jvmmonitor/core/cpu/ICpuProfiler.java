@@ -81,7 +81,8 @@ public interface ICpuProfiler {
 
     /**
      * Refreshes the BCI profiling data cache in JVM model accessing to target
-     * JVM.
+     * JVM. The sampling profiling data is refreshed as well when the stack
+     * traces are sampled by the agent in target JVM.
      * 
      * @param monitor
      *            The progress monitor
@@ -6,7 +6,9 @@
  *******************************************************************************/
 package org.jboss.tools.jmx.jvmmonitor.core.dump;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -16,12 +18,14 @@ import javax.xml.parsers.SAXParserFactory;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.jboss.tools.jmx.jvmmonitor.core.cpu.ICpuModel;
+import org.jboss.tools.jmx.jvmmonitor.internal.core.cpu.CompactCpuDumpReader;
 import org.jboss.tools.jmx.jvmmonitor.internal.core.cpu.CpuDumpSaxEventHandler;
 import org.jboss.tools.jmx.jvmmonitor.internal.core.cpu.CpuModel;
 import org.xml.sax.SAXException;
 
 /**
- * The CPU dump parser.
+ * The CPU dump parser, that reads the dump either in XML or in the compact
+ * format written by the agent.
  */
 public class CpuDumpParser extends AbstractDumpParser {
 
@@ -98,19 +102,44 @@ public class CpuDumpParser extends AbstractDumpParser {
      */
     public void parse() throws ParserConfigurationException, SAXException,
             IOException {
-
-        parser = SAXParserFactory.newInstance().newSAXParser();
-        CpuDumpSaxEventHandler handler = new CpuDumpSaxEventHandler(cpuModel,
-                monitor);
-
         if (inputType == InputType.FILE) {
             if (file.exists() && file.canRead()) {
-                parser.parse(file, handler);
+                InputStream input = new BufferedInputStream(
+                        new FileInputStream(file));
+                try {
+                    parse(input);
+                } finally {
+                    input.close();
+                }
             }
         } else if (inputType == InputType.STREAM) {
-            parser.parse(inputStream, handler);
+            parse(new BufferedInputStream(inputStream));
+        }
+    }
+
+    /**
+     * Parses the CPU dump from the given input stream.
+     * 
+     * @param input
+     *            The input stream, that supports mark
+     * @throws SAXException
+     *             if creating parser fails
+     * @throws ParserConfigurationException
+     *             if creating parser fails
+     * @throws IOException
+     *             if parsing input fails
+     */
+    private void parse(InputStream input) throws ParserConfigurationException,
+            SAXException, IOException {
+        if (CompactCpuDumpReader.isCompactDump(input)) {
+            info = new CompactCpuDumpReader(cpuModel, monitor).read(input);
+            return;
         }
 
+        parser = SAXParserFactory.newInstance().newSAXParser();
+        CpuDumpSaxEventHandler handler = new CpuDumpSaxEventHandler(cpuModel,
+                monitor);
+        parser.parse(input, handler);
         info = handler.getProfileInfo();
     }
 
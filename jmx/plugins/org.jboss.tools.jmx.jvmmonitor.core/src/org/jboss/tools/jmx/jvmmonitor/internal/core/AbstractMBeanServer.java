@@ -28,6 +28,7 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Scanner;
 import java.util.Set;
 import java.util.Timer;
@@ -42,8 +43,6 @@ import javax.management.MBeanServerConnection;
 import javax.management.MalformedObjectNameException;
 import javax.management.NotificationListener;
 import javax.management.ObjectName;
-import javax.management.openmbean.CompositeData;
-import javax.management.openmbean.TabularData;
 
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
@@ -90,6 +89,42 @@ public abstract class AbstractMBeanServer implements IMBeanServer, IProfilingMBe
     /** The data transfer MXBean name. */
     private final static String DATA_TRANSFER_MXBEAN_NAME = "org.jboss.tools.jmx.jvmmonitor:type=Data Transfer"; //$NON-NLS-1$
 
+    /** The open method in DataTransferMXBean. */
+    private final static String OPEN = "open"; //$NON-NLS-1$
+
+    /** The readChunk method in DataTransferMXBean. */
+    private final static String READ_CHUNK = "readChunk"; //$NON-NLS-1$
+
+    /** The close method in DataTransferMXBean. */
+    private final static String CLOSE = "close"; //$NON-NLS-1$
+
+    /** The MaxChunkSize attribute in DataTransferMXBean. */
+    private final static String MAX_CHUNK_SIZE = "MaxChunkSize"; //$NON-NLS-1$
+
+    /** The preferred size of chunk transferred at once. */
+    private final static int CHUNK_SIZE = 1024 * 1024;
+
+    /** The number of chunk requests in flight. */
+    private final static int PIPELINE_DEPTH = 4;
+
+    /** The sampling profiler MXBean name. */
+    private final static String SAMPLING_PROFILER_MXBEAN_NAME = "org.jboss.tools.jmx.jvmmonitor:type=CPU Sampling Profiler"; //$NON-NLS-1$
+
+    /** The Running attribute in CpuSamplingProfilerMXBean. */
+    private final static String RUNNING = "Running"; //$NON-NLS-1$
+
+    /** The SamplingPeriod attribute in CpuSamplingProfilerMXBean. */
+    private final static String SAMPLING_PERIOD = "SamplingPeriod"; //$NON-NLS-1$
+
+    /** The ProfiledPackages attribute in CpuSamplingProfilerMXBean. */
+    private final static String PROFILED_PACKAGES = "ProfiledPackages"; //$NON-NLS-1$
+
+    /** The clear method in CpuSamplingProfilerMXBean. */
+    private final static String CLEAR = "clear"; //$NON-NLS-1$
+
+    /** The dumpCompact method in CpuSamplingProfilerMXBean. */
+    private final static String DUMP_COMPACT = "dumpCompact"; //$NON-NLS-1$
+
     /** The MBean server connection. */
     private MBeanServerConnection connection;
     
@@ -127,6 +162,9 @@ public abstract class AbstractMBeanServer implements IMBeanServer, IProfilingMBe
     /** The previous sampling time. */
     private long previousSamplingTime;
 
+    /** The state indicating if the agent in target JVM is sampling. */
+    private boolean isSamplingInAgent;
+
     /** The previous thread process CPU time. */
     private Map<Long, Long> previousThreadProcessCpuTime;
 
@@ -202,10 +240,8 @@ public abstract class AbstractMBeanServer implements IMBeanServer, IProfilingMBe
             return null;
         }
 
-        String attributeName = qualifiedAttributeName;
-        if (attributeName.contains(".")) { //$NON-NLS-1$
-            attributeName = attributeName.split("\\.")[0]; //$NON-NLS-1$
-        }
+        String attributeName = Util
+                .getTopLevelAttributeName(qualifiedAttributeName);
 
         try {
             return getConnection().getAttribute(objectName, attributeName);
@@ -632,11 +668,16 @@ public abstract class AbstractMBeanServer implements IMBeanServer, IProfilingMBe
     }
 
     /**
-     * Resumes the sampling.
+     * Resumes the sampling. The stack traces are sampled by the agent in
+     * target JVM if loaded, and otherwise fetched remotely on every sample.
      */
     public void resumeSampling() {
         if (samplingTimer != null) {
             samplingTimer.cancel();
+            samplingTimer = null;
+        }
+        if (resumeSamplingInAgent()) {
+            return;
         }
         samplingTimer = new Timer(true);
 
@@ -664,6 +705,52 @@ public abstract class AbstractMBeanServer implements IMBeanServer, IProfilingMBe
             samplingTimer.cancel();
             samplingTimer = null;
         }
+        if (isSamplingInAgent) {
+            isSamplingInAgent = false;
+            try {
+                ObjectName objectName = getObjectName(SAMPLING_PROFILER_MXBEAN_NAME);
+                setAttribute(objectName, new Attribute(RUNNING, false));
+            } catch (JvmCoreException e) {
+                Activator.log(IStatus.ERROR, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Gets the state indicating if the stack traces are sampled by the agent
+     * in target JVM.
+     * 
+     * @return True if the agent is sampling
+     */
+    public boolean isSamplingInAgent() {
+        return isSamplingInAgent;
+    }
+
+    /**
+     * Dumps the profile data aggregated by the agent in target JVM, in the
+     * compact dump format.
+     * 
+     * @return The profile data, or <tt>null</tt> if the agent is not sampling
+     * @throws JvmCoreException
+     */
+    public byte[] dumpSampledProfile() throws JvmCoreException {
+        if (!isSamplingInAgent) {
+            return null;
+        }
+        return (byte[]) invoke(getObjectName(SAMPLING_PROFILER_MXBEAN_NAME),
+                DUMP_COMPACT, null, null);
+    }
+
+    /**
+     * Clears the profile data aggregated by the agent in target JVM.
+     * 
+     * @throws JvmCoreException
+     */
+    public void clearSampledProfile() throws JvmCoreException {
+        ObjectName objectName = getObjectName(SAMPLING_PROFILER_MXBEAN_NAME);
+        if (isSamplingInAgent || isRegistered(objectName)) {
+            invoke(objectName, CLEAR, null, null);
+        }
     }
 
     /**
@@ -672,7 +759,7 @@ public abstract class AbstractMBeanServer implements IMBeanServer, IProfilingMBe
      * @return The profiler state
      */
     public ProfilerState getProfilerState() {
-        return samplingTimer == null ? ProfilerState.READY
+        return samplingTimer == null && !isSamplingInAgent ? ProfilerState.READY
                 : ProfilerState.RUNNING;
     }
 
@@ -699,6 +786,51 @@ public abstract class AbstractMBeanServer implements IMBeanServer, IProfilingMBe
         }
     }
 
+    /**
+     * Starts sampling with the agent in target JVM, if loaded.
+     * 
+     * @return True if the agent is sampling
+     */
+    private boolean resumeSamplingInAgent() {
+        try {
+            ObjectName objectName = getObjectName(SAMPLING_PROFILER_MXBEAN_NAME);
+            if (!isRegistered(objectName)) {
+                isSamplingInAgent = false;
+                return false;
+            }
+
+            Set<String> packages = jvm.getCpuProfiler().getProfiledPackages();
+            setAttribute(objectName, new Attribute(PROFILED_PACKAGES,
+                    packages.toArray(new String[packages.size()])));
+            setAttribute(objectName, new Attribute(SAMPLING_PERIOD,
+                    samplingPeriod));
+            setAttribute(objectName, new Attribute(RUNNING, true));
+            isSamplingInAgent = true;
+        } catch (JvmCoreException e) {
+            Activator.log(IStatus.WARNING, e.getMessage(), e);
+            isSamplingInAgent = false;
+        }
+        return isSamplingInAgent;
+    }
+
+    /**
+     * Gets the state indicating if the given MBean is registered.
+     * 
+     * @param objectName
+     *            The object name
+     * @return True if registered
+     */
+    private boolean isRegistered(ObjectName objectName) {
+        if (!checkReachability()) {
+            return false;
+        }
+        try {
+            return getConnection().isRegistered(objectName);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
     /**
      * Gets the JVM arguments.
      * 
@@ -839,6 +971,7 @@ public abstract class AbstractMBeanServer implements IMBeanServer, IProfilingMBe
         isJvmReachable = true;
         listeners.clear();
         previousSamplingTime = 0;
+        isSamplingInAgent = false;
         previousStackTraces.clear();
         monitoredAttributeGroups.clear();
 
@@ -846,7 +979,8 @@ public abstract class AbstractMBeanServer implements IMBeanServer, IProfilingMBe
     }
 
     /**
-     * Refreshes the MBean model.
+     * Refreshes the MBean model. The monitored attributes are grouped by MBean
+     * so that the attributes of each MBean are got at once.
      * 
      * @throws JvmCoreException
      */
@@ -854,13 +988,33 @@ public abstract class AbstractMBeanServer implements IMBeanServer, IProfilingMBe
         if (!checkReachability()) {
             return;
         }
+
+        List<IMonitoredMXBeanAttribute> attributes = new ArrayList<IMonitoredMXBeanAttribute>();
+        for (IMonitoredMXBeanGroup group : monitoredAttributeGroups) {
+            attributes.addAll(group.getAttributes());
+        }
+        Map<ObjectName, Set<String>> attributeNames = Util
+                .getAttributeNamesByMBean(attributes);
+
+        Map<ObjectName, Map<String, Object>> attributeObjects = new HashMap<ObjectName, Map<String, Object>>();
+        for (Entry<ObjectName, Set<String>> entry : attributeNames.entrySet()) {
+            attributeObjects.put(entry.getKey(),
+                    getAttributes(entry.getKey(), entry.getValue()));
+        }
+
         for (IMonitoredMXBeanGroup group : monitoredAttributeGroups) {
             for (IMonitoredMXBeanAttribute attribute : group.getAttributes()) {
+                Map<String, Object> objects = attributeObjects.get(attribute
+                        .getObjectName());
+                if (objects == null) {
+                    continue;
+                }
                 String attributeName = attribute.getAttributeName();
-                Object attributeObject = getAttribute(
-                        attribute.getObjectName(), attributeName);
+                Object attributeObject = objects.get(Util
+                        .getTopLevelAttributeName(attributeName));
 
-                Number value = getAttributeValue(attributeObject, attributeName);
+                Number value = Util.getAttributeValue(attributeObject,
+                        attributeName);
                 if (value == null) {
                     continue;
                 }
@@ -884,6 +1038,28 @@ public abstract class AbstractMBeanServer implements IMBeanServer, IProfilingMBe
                 new JvmModelEvent(State.JvmModified, jvm));
     }
 
+    /**
+     * Gets the attributes of MBean at once. The attributes that cannot be got
+     * are left out, so that they are just skipped in this refresh.
+     * 
+     * @param objectName
+     *            The object name
+     * @param attributeNames
+     *            The attribute names
+     * @return The attribute objects by attribute name
+     * @throws JvmCoreException
+     */
+    private Map<String, Object> getAttributes(ObjectName objectName,
+            Set<String> attributeNames) throws JvmCoreException {
+        try {
+            return Util.getAttributes(getConnection(), objectName,
+                    attributeNames);
+        } catch (IOException e) {
+            throw new JvmCoreException(IStatus.ERROR, NLS.bind(
+                    Messages.getAttributeFailedMsg, attributeNames), e);
+        }
+    }
+
     /**
      * Disposes the resources.
      */
@@ -897,44 +1073,6 @@ public abstract class AbstractMBeanServer implements IMBeanServer, IProfilingMBe
         ((MBeanNotification) mBeanNotification).dispose();
     }
 
-    /**
-     * Gets the attribute numerical value.
-     * 
-     * @param attributeObject
-     *            The attribute object
-     * @param attributeName
-     *            The qualified attribute name (e.g. HeapMemoryUsage.used)
-     * @return The attribute numerical value
-     */
-    private Number getAttributeValue(Object attributeObject,
-            String attributeName) {
-        if (attributeObject instanceof Number) {
-            return (Number) attributeObject;
-        }
-
-        if (attributeObject instanceof CompositeData) {
-            CompositeData compositeData = (CompositeData) attributeObject;
-            if (attributeName.contains(".")) { //$NON-NLS-1$
-                Object value = compositeData.get(attributeName.split("\\.")[1]); //$NON-NLS-1$
-                return getAttributeValue(value,
-                        attributeName.substring(attributeName.indexOf(".") + 1)); //$NON-NLS-1$
-            }
-        } else if (attributeObject instanceof TabularData) {
-            TabularData tabularData = (TabularData) attributeObject;
-            String key = attributeName.split("\\.")[1]; //$NON-NLS-1$
-            for (Object keyList : tabularData.keySet()) {
-                @SuppressWarnings("unchecked")
-                Object[] keys = ((List<Object>) keyList).toArray(new Object[0]);
-                if (String.valueOf(keys[0]).equals(key)) {
-                    return getAttributeValue(
-                            tabularData.get(keys),
-                            attributeName.substring(attributeName.indexOf(".") + 1)); //$NON-NLS-1$
-                }
-            }
-        }
-        return null;
-    }
-
     /**
      * Enables the thread contention monitoring.
      * 
@@ -1086,22 +1224,10 @@ public abstract class AbstractMBeanServer implements IMBeanServer, IProfilingMBe
                 os = fileStore.openOutputStream(EFS.NONE, null);
                 os.write(dump.getBytes());
             } else if (type == SnapshotType.Hprof && jvm.isRemote()) {
-                ObjectName objectName = getObjectName(DATA_TRANSFER_MXBEAN_NAME);
                 os = fileStore.openOutputStream(EFS.NONE, null);
-                byte[] bytes = new byte[0];
-                int offset = 0;
-                final int SIZE = 4096;
-                final String[] SIGNATURES = new String[] {
-                        String.class.getCanonicalName(), "int", "int" };//$NON-NLS-1$ //$NON-NLS-2$
-                do {
-                    bytes = (byte[]) invoke(objectName, "read", new Object[] { //$NON-NLS-1$
-                            dumpFileName, offset, SIZE }, SIGNATURES);
-                    os.write(bytes);
-                    offset += SIZE;
-                    if (monitor != null && monitor.isCanceled()) {
-                        return null;
-                    }
-                } while (bytes.length > 0);
+                if (!transfer(dumpFileName, os, monitor)) {
+                    return null;
+                }
             }
 
             Snapshot snapshot = new Snapshot(fileStore, abstractJvm);
@@ -1135,6 +1261,106 @@ public abstract class AbstractMBeanServer implements IMBeanServer, IProfilingMBe
         return fileStore;
     }
 
+    /**
+     * Transfers the file from host where target JVM is running. The file is
+     * read in large compressed chunks with several chunk requests in flight,
+     * or in small chunks one by one if the agent doesn't support transfer
+     * sessions.
+     * 
+     * @param fileName
+     *            The file name
+     * @param os
+     *            The output stream
+     * @param monitor
+     *            The progress monitor, or <tt>null</tt>
+     * @return False if canceled
+     * @throws JvmCoreException
+     * @throws IOException
+     */
+    private boolean transfer(String fileName, OutputStream os,
+            IProgressMonitor monitor) throws JvmCoreException, IOException {
+        final ObjectName objectName = getObjectName(DATA_TRANSFER_MXBEAN_NAME);
+
+        Long id;
+        try {
+            id = (Long) invoke(objectName, OPEN, new Object[] { fileName },
+                    new String[] { String.class.getCanonicalName() });
+        } catch (JvmCoreException e) {
+            return transferInSmallChunks(objectName, fileName, os, monitor);
+        }
+        if (id == null) {
+            throw new JvmCoreException(IStatus.WARNING,
+                    Messages.jvmNotReachableMsg, null);
+        }
+        if (id < 0) {
+            throw new JvmCoreException(IStatus.ERROR, NLS.bind(
+                    Messages.mBeanOperationFailedMsg, OPEN), null);
+        }
+
+        final long sessionId = id;
+        try {
+            Integer maxChunkSize = (Integer) getAttribute(objectName,
+                    MAX_CHUNK_SIZE);
+            int chunkSize = maxChunkSize == null ? CHUNK_SIZE : Math.min(
+                    CHUNK_SIZE, maxChunkSize);
+            return new ChunkTransfer(new ChunkTransfer.ChunkReader() {
+                @Override
+                public byte[] read(long position, int size)
+                        throws JvmCoreException {
+                    return (byte[]) invoke(objectName, READ_CHUNK,
+                            new Object[] { sessionId, position, size,
+                                    Boolean.TRUE }, new String[] { "long", //$NON-NLS-1$
+                                    "long", "int", "boolean" }); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                }
+            }, chunkSize, PIPELINE_DEPTH).transfer(os, monitor);
+        } finally {
+            // the chunk requests in flight have finished
+            try {
+                invoke(objectName, CLOSE, new Object[] { sessionId },
+                        new String[] { "long" }); //$NON-NLS-1$
+            } catch (JvmCoreException e) {
+                // do nothing
+            }
+        }
+    }
+
+    /**
+     * Transfers the file from host where target JVM is running in small
+     * chunks one by one, with the agent that doesn't support transfer
+     * sessions.
+     * 
+     * @param objectName
+     *            The object name of data transfer MXBean
+     * @param fileName
+     *            The file name
+     * @param os
+     *            The output stream
+     * @param monitor
+     *            The progress monitor, or <tt>null</tt>
+     * @return False if canceled
+     * @throws JvmCoreException
+     * @throws IOException
+     */
+    private boolean transferInSmallChunks(ObjectName objectName,
+            String fileName, OutputStream os, IProgressMonitor monitor)
+            throws JvmCoreException, IOException {
+        byte[] bytes = new byte[0];
+        int offset = 0;
+        final int SIZE = 4096;
+        final String[] SIGNATURES = new String[] {
+                String.class.getCanonicalName(), "int", "int" };//$NON-NLS-1$ //$NON-NLS-2$
+        do {
+            bytes = (byte[]) invoke(objectName, "read", new Object[] { //$NON-NLS-1$
+                    fileName, offset, SIZE }, SIGNATURES);
+            os.write(bytes);
+            offset += SIZE;
+            if (monitor != null && monitor.isCanceled()) {
+                return false;
+            }
+        } while (bytes.length > 0);
+        return true;
+    }
+
     /**
      * Gets the dump string.
      * 
@@ -1199,6 +1425,7 @@ public abstract class AbstractMBeanServer implements IMBeanServer, IProfilingMBe
                 samplingTimer.cancel();
                 samplingTimer = null;
             }
+            isSamplingInAgent = false;
             if (jvm.getHost().getActiveJvms().contains(jvm)) {
                 jvm.getHost().removeJvm(jvm.getPid());
             }
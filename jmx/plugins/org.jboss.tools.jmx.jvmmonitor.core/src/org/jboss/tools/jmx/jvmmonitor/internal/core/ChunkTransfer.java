@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.jboss.tools.jmx.jvmmonitor.internal.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.osgi.util.NLS;
+import org.jboss.tools.jmx.jvmmonitor.core.JvmCoreException;
+
+/**
+ * The transfer of a file in deflated chunks, with several chunk requests in
+ * flight. The chunks are written in order, and the transfer ends with the
+ * first chunk shorter than the chunk size.
+ */
+public class ChunkTransfer {
+
+    /** The reader of chunks. */
+    public interface ChunkReader {
+
+        /**
+         * Reads the chunk at the given position. It may be invoked from
+         * several threads at once.
+         *
+         * @param position
+         *            The position in the file
+         * @param size
+         *            The max size of the chunk before compression
+         * @return The chunk compressed with deflate, or an empty array at the
+         *         end of the file
+         * @throws JvmCoreException
+         */
+        byte[] read(long position, int size) throws JvmCoreException;
+    }
+
+    /** The operation name used in error messages. */
+    private final static String READ_CHUNK = "readChunk"; //$NON-NLS-1$
+
+    /** The reader. */
+    private ChunkReader reader;
+
+    /** The chunk size. */
+    private int chunkSize;
+
+    /** The number of chunk requests in flight. */
+    private int depth;
+
+    /**
+     * The constructor.
+     *
+     * @param reader
+     *            The chunk reader
+     * @param chunkSize
+     *            The max size of each chunk before compression
+     * @param depth
+     *            The number of chunk requests in flight
+     */
+    public ChunkTransfer(ChunkReader reader, int chunkSize, int depth) {
+        this.reader = reader;
+        this.chunkSize = chunkSize;
+        this.depth = depth;
+    }
+
+    /**
+     * Transfers the file. The chunk requests in flight are finished before
+     * returning.
+     *
+     * @param os
+     *            The output stream
+     * @param monitor
+     *            The progress monitor, or <tt>null</tt>
+     * @return False if canceled
+     * @throws JvmCoreException
+     *             if reading a chunk fails
+     * @throws IOException
+     *             if writing fails or a chunk is corrupted
+     */
+    public boolean transfer(OutputStream os, IProgressMonitor monitor)
+            throws JvmCoreException, IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(depth);
+        Deque<Future<byte[]>> chunks = new ArrayDeque<Future<byte[]>>();
+        try {
+            long offset = 0;
+            while (true) {
+                while (chunks.size() < depth) {
+                    final long position = offset;
+                    chunks.add(executor.submit(new Callable<byte[]>() {
+                        @Override
+                        public byte[] call() throws JvmCoreException {
+                            return reader.read(position, chunkSize);
+                        }
+                    }));
+                    offset += chunkSize;
+                }
+
+                byte[] bytes = inflate(getChunk(chunks.poll()), chunkSize);
+                os.write(bytes);
+                if (bytes.length < chunkSize) {
+                    return true;
+                }
+                if (monitor != null && monitor.isCanceled()) {
+                    return false;
+                }
+            }
+        } finally {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Gets the chunk read by the chunk request.
+     *
+     * @param chunk
+     *            The chunk request
+     * @return The chunk
+     * @throws JvmCoreException
+     */
+    private static byte[] getChunk(Future<byte[]> chunk)
+            throws JvmCoreException {
+        byte[] bytes;
+        try {
+            bytes = chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JvmCoreException(IStatus.CANCEL, NLS.bind(
+                    Messages.mBeanOperationFailedMsg, READ_CHUNK), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof JvmCoreException) {
+                throw (JvmCoreException) e.getCause();
+            }
+            throw new JvmCoreException(IStatus.ERROR, NLS.bind(
+                    Messages.mBeanOperationFailedMsg, READ_CHUNK), e.getCause());
+        }
+        if (bytes == null) {
+            throw new JvmCoreException(IStatus.WARNING,
+                    Messages.jvmNotReachableMsg, null);
+        }
+        return bytes;
+    }
+
+    /**
+     * Decompresses the chunk compressed with deflate.
+     *
+     * @param bytes
+     *            The compressed chunk
+     * @param maxSize
+     *            The max size of decompressed chunk
+     * @return The decompressed chunk
+     * @throws IOException
+     *             if the chunk is corrupted
+     */
+    public static byte[] inflate(byte[] bytes, int maxSize)
+            throws IOException {
+        if (bytes.length == 0) {
+            return bytes;
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes);
+            byte[] results = new byte[maxSize];
+            int size = 0;
+            while (!inflater.finished() && size < maxSize) {
+                int inflated = inflater.inflate(results, size, maxSize - size);
+                if (inflated == 0
+                        && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new EOFException();
+                }
+                size += inflated;
+            }
+            return Arrays.copyOf(results, size);
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
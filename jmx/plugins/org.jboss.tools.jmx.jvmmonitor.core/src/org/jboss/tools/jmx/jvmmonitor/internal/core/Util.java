@@ -3,7 +3,22 @@ package org.jboss.tools.jmx.jvmmonitor.internal.core;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.JMException;
+import javax.management.MBeanServerConnection;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
 
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
@@ -13,6 +28,7 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.osgi.util.NLS;
 import org.jboss.tools.jmx.jvmmonitor.core.Activator;
 import org.jboss.tools.jmx.jvmmonitor.core.Messages;
+import org.jboss.tools.jmx.jvmmonitor.core.mbean.IMonitoredMXBeanAttribute;
 
 /**
  * The utility class.
@@ -97,4 +113,110 @@ public class Util {
         IPath filePath = baseDir.append(File.separator + fileName);
         return EFS.getLocalFileSystem().getStore(filePath);
     }
+
+    /**
+     * Gets the top level attribute names grouped by MBean, so that the
+     * attributes of each MBean can be got at once.
+     * 
+     * @param attributes
+     *            The monitored attributes
+     * @return The top level attribute names by object name
+     */
+    public static Map<ObjectName, Set<String>> getAttributeNamesByMBean(
+            Collection<IMonitoredMXBeanAttribute> attributes) {
+        Map<ObjectName, Set<String>> attributeNames = new LinkedHashMap<ObjectName, Set<String>>();
+        for (IMonitoredMXBeanAttribute attribute : attributes) {
+            Set<String> names = attributeNames.get(attribute.getObjectName());
+            if (names == null) {
+                names = new LinkedHashSet<String>();
+                attributeNames.put(attribute.getObjectName(), names);
+            }
+            names.add(getTopLevelAttributeName(attribute.getAttributeName()));
+        }
+        return attributeNames;
+    }
+
+    /**
+     * Gets the attributes of MBean at once. The attributes that cannot be got
+     * are left out, so that they are just skipped by the caller.
+     * 
+     * @param connection
+     *            The MBean server connection
+     * @param objectName
+     *            The object name
+     * @param attributeNames
+     *            The attribute names
+     * @return The attribute objects by attribute name
+     * @throws IOException
+     *             if the connection fails
+     */
+    public static Map<String, Object> getAttributes(
+            MBeanServerConnection connection, ObjectName objectName,
+            Set<String> attributeNames) throws IOException {
+        Map<String, Object> attributes = new HashMap<String, Object>();
+        try {
+            AttributeList attributeList = connection.getAttributes(
+                    objectName,
+                    attributeNames.toArray(new String[attributeNames.size()]));
+            for (Attribute attribute : attributeList.asList()) {
+                attributes.put(attribute.getName(), attribute.getValue());
+            }
+        } catch (JMException e) {
+            // e.g. MBean has been unregistered
+        }
+        return attributes;
+    }
+
+    /**
+     * Gets the top level attribute name.
+     * 
+     * @param qualifiedAttributeName
+     *            The qualified attribute name (e.g. HeapMemoryUsage.used)
+     * @return The top level attribute name (e.g. HeapMemoryUsage)
+     */
+    public static String getTopLevelAttributeName(
+            String qualifiedAttributeName) {
+        if (qualifiedAttributeName.contains(".")) { //$NON-NLS-1$
+            return qualifiedAttributeName.split("\\.")[0]; //$NON-NLS-1$
+        }
+        return qualifiedAttributeName;
+    }
+
+    /**
+     * Gets the attribute numerical value.
+     * 
+     * @param attributeObject
+     *            The attribute object
+     * @param attributeName
+     *            The qualified attribute name (e.g. HeapMemoryUsage.used)
+     * @return The attribute numerical value
+     */
+    public static Number getAttributeValue(Object attributeObject,
+            String attributeName) {
+        if (attributeObject instanceof Number) {
+            return (Number) attributeObject;
+        }
+
+        if (attributeObject instanceof CompositeData) {
+            CompositeData compositeData = (CompositeData) attributeObject;
+            if (attributeName.contains(".")) { //$NON-NLS-1$
+                Object value = compositeData.get(attributeName.split("\\.")[1]); //$NON-NLS-1$
+                return getAttributeValue(value,
+                        attributeName.substring(attributeName.indexOf(".") + 1)); //$NON-NLS-1$
+            }
+        } else if (attributeObject instanceof TabularData) {
+            TabularData tabularData = (TabularData) attributeObject;
+            String key = attributeName.split("\\.")[1]; //$NON-NLS-1$
+            for (Object keyList : tabularData.keySet()) {
+                @SuppressWarnings("unchecked")
+                Object[] keys = ((List<Object>) keyList).toArray(new Object[0]);
+                if (String.valueOf(keys[0]).equals(key)) {
+                    return getAttributeValue(
+                            tabularData.get(keys),
+                            attributeName.substring(attributeName.indexOf(".") + 1)); //$NON-NLS-1$
+                }
+            }
+        }
+        return null;
+    }
 }
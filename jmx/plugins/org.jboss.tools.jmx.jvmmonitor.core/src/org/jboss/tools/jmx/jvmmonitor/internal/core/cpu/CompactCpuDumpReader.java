@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.jboss.tools.jmx.jvmmonitor.internal.core.cpu;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.jboss.tools.jmx.jvmmonitor.core.dump.IProfileInfo;
+import org.jboss.tools.jmx.jvmmonitor.internal.core.ProfileInfo;
+import org.xml.sax.SAXException;
+
+/**
+ * The streaming reader of CPU dump in the compact format written by the agent,
+ * that builds the CPU model the same way as {@link CpuDumpSaxEventHandler}.
+ * See <tt>CompactDumpWriter</tt> in the agent for the format.
+ */
+public class CompactCpuDumpReader {
+
+    /** The magic number. */
+    private static final int MAGIC = 0x4A564D43;
+
+    /** The format version. */
+    private static final int FORMAT_VERSION = 1;
+
+    /** The tag ending the dump. */
+    private static final int END = 0;
+
+    /** The tag defining a method. */
+    private static final int METHOD = 1;
+
+    /** The tag starting a thread. */
+    private static final int THREAD = 2;
+
+    /** The tag starting a frame. */
+    private static final int FRAME = 3;
+
+    /** The tag ending a frame. */
+    private static final int END_FRAME = 4;
+
+    /** The tag ending a thread. */
+    private static final int END_THREAD = 5;
+
+    /** The handler building the CPU model. */
+    private CpuDumpSaxEventHandler handler;
+
+    /** The progress monitor. */
+    private IProgressMonitor monitor;
+
+    /** The input stream. */
+    private InputStream input;
+
+    /**
+     * The constructor.
+     *
+     * @param cpuModel
+     *            The CPU model
+     * @param monitor
+     *            The progress monitor
+     */
+    public CompactCpuDumpReader(CpuModel cpuModel, IProgressMonitor monitor) {
+        this.monitor = monitor;
+        handler = new CpuDumpSaxEventHandler(cpuModel, monitor);
+    }
+
+    /**
+     * Gets the state indicating if the given input stream starts with a dump
+     * in the compact format. The stream is reset to where it was.
+     *
+     * @param input
+     *            The input stream, that supports mark
+     * @return True if the dump is in the compact format
+     * @throws IOException
+     */
+    public static boolean isCompactDump(InputStream input) throws IOException {
+        input.mark(4);
+        try {
+            int magic = 0;
+            for (int i = 0; i < 4; i++) {
+                int b = input.read();
+                if (b < 0) {
+                    return false;
+                }
+                magic = magic << 8 | b;
+            }
+            return magic == MAGIC;
+        } finally {
+            input.reset();
+        }
+    }
+
+    /**
+     * Reads the dump into the CPU model.
+     *
+     * @param inputStream
+     *            The input stream, that should be buffered
+     * @return The profile info
+     * @throws IOException
+     *             if reading input fails or input is not a dump in the
+     *             compact format
+     * @throws SAXException
+     */
+    public IProfileInfo read(InputStream inputStream) throws IOException,
+            SAXException {
+        input = inputStream;
+        for (int i = 0; i < 4; i++) {
+            readByte(); // magic number
+        }
+        int version = (int) readNumber();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported CPU dump format version: " //$NON-NLS-1$
+                    + version);
+        }
+        String date = readString();
+        String runtime = readString();
+        String mainClass = readString();
+        String arguments = readString();
+        IProfileInfo info = new ProfileInfo(date, runtime, mainClass,
+                arguments, null);
+        handler.setProfileInfo(info);
+
+        Map<Integer, String> methods = new HashMap<Integer, String>();
+        handler.startDocument();
+        while (true) {
+            int tag = readByte();
+            switch (tag) {
+            case METHOD:
+                Integer methodId = Integer.valueOf((int) readNumber());
+                methods.put(methodId, readString());
+                break;
+            case THREAD:
+                if (monitor.isCanceled()) {
+                    throw new OperationCanceledException();
+                }
+                handler.startThread(readString());
+                break;
+            case FRAME:
+                String methodName = methods.get(Integer
+                        .valueOf((int) readNumber()));
+                int count = (int) readNumber();
+                long time = readNumber();
+                if (methodName == null) {
+                    throw new IOException("Undefined method in CPU dump"); //$NON-NLS-1$
+                }
+                handler.startFrame(methodName, count, time);
+                break;
+            case END_FRAME:
+                handler.endFrame();
+                break;
+            case END_THREAD:
+                handler.endThread();
+                break;
+            case END:
+                handler.endDocument();
+                return info;
+            default:
+                throw new IOException("Illegal tag in CPU dump: " + tag); //$NON-NLS-1$
+            }
+        }
+    }
+
+    /**
+     * Reads a byte.
+     *
+     * @return The byte
+     * @throws IOException
+     */
+    private int readByte() throws IOException {
+        int b = input.read();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    /**
+     * Reads an unsigned number.
+     *
+     * @return The number
+     * @throws IOException
+     */
+    private long readNumber() throws IOException {
+        long value = 0;
+        for (int shift = 0;; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Reads a string.
+     *
+     * @return The string
+     * @throws IOException
+     */
+    private String readString() throws IOException {
+        byte[] bytes = new byte[(int) readNumber()];
+        int offset = 0;
+        while (offset < bytes.length) {
+            int read = input.read(bytes, offset, bytes.length - offset);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            offset += read;
+        }
+        return new String(bytes, "UTF-8"); //$NON-NLS-1$
+    }
+}
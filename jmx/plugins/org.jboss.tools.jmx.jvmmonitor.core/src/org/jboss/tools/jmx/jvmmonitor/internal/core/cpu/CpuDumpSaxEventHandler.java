@@ -111,25 +111,16 @@ public class CpuDumpSaxEventHandler extends DefaultHandler {
 
         // thread
         if ("thread".equals(name)) { //$NON-NLS-1$
-            String threadName = attributes.getValue("name"); //$NON-NLS-1$
-            currentCallTreeThreadNode = cpuModel
-                    .getCallTreeThread(threadName);
-            if (currentCallTreeThreadNode == null) {
-                currentCallTreeThreadNode = new ThreadNode<CallTreeNode>(threadName);
-                cpuModel.addCallTreeThread(currentCallTreeThreadNode);
-            }
-            currentHotSpotThreadNode = cpuModel
-                    .getHotSpotThread(threadName);
-            if (currentHotSpotThreadNode == null) {
-                currentHotSpotThreadNode = new ThreadNode<MethodNode>(threadName);
-                cpuModel.addHotSpotThread(currentHotSpotThreadNode);
-            }
+            startThread(attributes.getValue("name")); //$NON-NLS-1$
             return;
         }
 
         // frame
         if ("frame".equals(name)) { //$NON-NLS-1$
-            parseFrame(attributes);
+            String methodName = attributes.getValue("name"); //$NON-NLS-1$
+            int count = Integer.parseInt(attributes.getValue("cnt")); //$NON-NLS-1$
+            long time = Long.parseLong(attributes.getValue("time")); //$NON-NLS-1$
+            startFrame(methodName, count, time);
         }
     }
 
@@ -142,35 +133,78 @@ public class CpuDumpSaxEventHandler extends DefaultHandler {
 
         // thread
         if ("thread".equals(name)) { //$NON-NLS-1$
-            currentCallTreeThreadNode.setTotalTime(threadTotalTime);
-            currentCallTreeThreadNode = null;
-            currentHotSpotThreadNode.setTotalTime(threadTotalTime);
-            currentHotSpotThreadNode = null;
-            currentRootFrameNode = null;
-            currentFrameNode = null;
-            threadTotalTime = 0;
+            endThread();
             return;
         }
 
         // frame
         if ("frame".equals(name)) { //$NON-NLS-1$
-            ITreeNode parrentNode = currentFrameNode.getParent();
-            if (parrentNode instanceof CallTreeNode) {
-                CallTreeNode parentFrameNode = (CallTreeNode) parrentNode;
-                long selfTime = parentFrameNode.getSelfTime()
-                        - currentFrameNode.getTotalTime();
-                parentFrameNode.setSelfTime(selfTime);
-                storeMethods(currentFrameNode);
-                currentFrameNode = parentFrameNode;
-            } else {
-                storeMethods(currentFrameNode);
+            endFrame();
+        }
+    }
 
-                currentRootFrameNode.setTotalTime(frameTotalTime);
-                currentRootFrameNode = null;
-                currentFrameNode = null;
-                threadTotalTime += frameTotalTime;
-                frameTotalTime = 0;
-            }
+    /**
+     * Sets the profile info.
+     * 
+     * @param info
+     *            The profile info
+     */
+    void setProfileInfo(IProfileInfo info) {
+        this.info = info;
+    }
+
+    /**
+     * Starts a thread.
+     * 
+     * @param threadName
+     *            The thread name
+     */
+    void startThread(String threadName) {
+        currentCallTreeThreadNode = cpuModel.getCallTreeThread(threadName);
+        if (currentCallTreeThreadNode == null) {
+            currentCallTreeThreadNode = new ThreadNode<CallTreeNode>(threadName);
+            cpuModel.addCallTreeThread(currentCallTreeThreadNode);
+        }
+        currentHotSpotThreadNode = cpuModel.getHotSpotThread(threadName);
+        if (currentHotSpotThreadNode == null) {
+            currentHotSpotThreadNode = new ThreadNode<MethodNode>(threadName);
+            cpuModel.addHotSpotThread(currentHotSpotThreadNode);
+        }
+    }
+
+    /**
+     * Ends the current thread.
+     */
+    void endThread() {
+        currentCallTreeThreadNode.setTotalTime(threadTotalTime);
+        currentCallTreeThreadNode = null;
+        currentHotSpotThreadNode.setTotalTime(threadTotalTime);
+        currentHotSpotThreadNode = null;
+        currentRootFrameNode = null;
+        currentFrameNode = null;
+        threadTotalTime = 0;
+    }
+
+    /**
+     * Ends the current frame.
+     */
+    void endFrame() {
+        ITreeNode parrentNode = currentFrameNode.getParent();
+        if (parrentNode instanceof CallTreeNode) {
+            CallTreeNode parentFrameNode = (CallTreeNode) parrentNode;
+            long selfTime = parentFrameNode.getSelfTime()
+                    - currentFrameNode.getTotalTime();
+            parentFrameNode.setSelfTime(selfTime);
+            storeMethods(currentFrameNode);
+            currentFrameNode = parentFrameNode;
+        } else {
+            storeMethods(currentFrameNode);
+
+            currentRootFrameNode.setTotalTime(frameTotalTime);
+            currentRootFrameNode = null;
+            currentFrameNode = null;
+            threadTotalTime += frameTotalTime;
+            frameTotalTime = 0;
         }
     }
 
@@ -184,16 +218,16 @@ public class CpuDumpSaxEventHandler extends DefaultHandler {
     }
 
     /**
-     * Parses the frame attribute.
+     * Starts a frame.
      * 
-     * @param attributes
-     *            The frame attribute
+     * @param methodName
+     *            The method name
+     * @param count
+     *            The invocation count
+     * @param time
+     *            The time
      */
-    private void parseFrame(Attributes attributes) {
-        String methodName = attributes.getValue("name"); //$NON-NLS-1$
-        int count = Integer.parseInt(attributes.getValue("cnt")); //$NON-NLS-1$
-        long time = Long.parseLong(attributes.getValue("time")); //$NON-NLS-1$
-
+    void startFrame(String methodName, int count, long time) {
         if (currentRootFrameNode == null) {
             currentRootFrameNode = (CallTreeNode) currentCallTreeThreadNode
                     .getChild(methodName);
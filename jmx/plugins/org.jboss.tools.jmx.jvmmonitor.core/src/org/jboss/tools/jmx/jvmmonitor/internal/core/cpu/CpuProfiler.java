@@ -66,6 +66,9 @@ public class CpuProfiler implements ICpuProfiler {
     /** The dump method in CpuProfilerMXBean. */
     private static final String DUMP = "dump"; //$NON-NLS-1$
 
+    /** The dumpCompact method in CpuProfilerMXBean. */
+    private static final String DUMP_COMPACT = "dumpCompact"; //$NON-NLS-1$
+
     /** The setFilter method in CpuProfilerMXBean. */
     private static final String SET_FILTER = "setFilter"; //$NON-NLS-1$
 
@@ -219,6 +222,8 @@ public class CpuProfiler implements ICpuProfiler {
         if (type == ProfilerType.BCI) {
             validateAgent();
             invokeCpuProfilerMXBeanMethod(CLEAR, null, null);
+        } else if (jvm.getMBeanServer() instanceof AbstractMBeanServer) {
+            ((AbstractMBeanServer) jvm.getMBeanServer()).clearSampledProfile();
         }
         cpuModel.removeAll();
 
@@ -301,6 +306,7 @@ public class CpuProfiler implements ICpuProfiler {
     public void refreshBciProfileCache(IProgressMonitor monitor)
             throws JvmCoreException {
         if (type != ProfilerType.BCI) {
+            refreshSampledProfileCache(monitor);
             return;
         }
 
@@ -310,15 +316,57 @@ public class CpuProfiler implements ICpuProfiler {
             return;
         }
 
-        String dumpString = (String) invokeCpuProfilerMXBeanMethod(DUMP, null,
-                null);
-        if (dumpString == null) {
+        byte[] dump;
+        try {
+            dump = (byte[]) invokeCpuProfilerMXBeanMethod(DUMP_COMPACT, null,
+                    null);
+        } catch (JvmCoreException e) {
+            // the agent is older than the compact dump format
+            String dumpString = (String) invokeCpuProfilerMXBeanMethod(DUMP,
+                    null, null);
+            dump = dumpString == null ? null : dumpString.getBytes();
+        }
+        parseDump(dump, monitor);
+    }
+
+    /**
+     * Refreshes the CPU model with the profiling data aggregated by the agent
+     * in target JVM, if the agent is sampling.
+     * 
+     * @param monitor
+     *            The progress monitor
+     * @throws JvmCoreException
+     */
+    private void refreshSampledProfileCache(IProgressMonitor monitor)
+            throws JvmCoreException {
+        if (!(jvm.getMBeanServer() instanceof AbstractMBeanServer)) {
+            return;
+        }
+        AbstractMBeanServer server = (AbstractMBeanServer) jvm.getMBeanServer();
+        if (server.isSamplingInAgent()) {
+            parseDump(server.dumpSampledProfile(), monitor);
+        }
+    }
+
+    /**
+     * Parses the CPU dump into the CPU model.
+     * 
+     * @param dump
+     *            The CPU dump in XML or in the compact format, or
+     *            <tt>null</tt>
+     * @param monitor
+     *            The progress monitor
+     * @throws JvmCoreException
+     */
+    private void parseDump(byte[] dump, IProgressMonitor monitor)
+            throws JvmCoreException {
+        if (dump == null || dump.length == 0) {
             return;
         }
 
         ByteArrayInputStream input = null;
         try {
-            input = new ByteArrayInputStream(dumpString.getBytes());
+            input = new ByteArrayInputStream(dump);
             CpuDumpParser parser = new CpuDumpParser(input, cpuModel, monitor);
             parser.parse();
         } catch (ParserConfigurationException e) {
@@ -372,6 +420,13 @@ public class CpuProfiler implements ICpuProfiler {
                             String.class.getName() });
         } else {
             this.profiledPackages = packages;
+
+            // let the agent sample the new packages
+            IMBeanServer server = jvm.getMBeanServer();
+            if (server instanceof AbstractMBeanServer
+                    && ((AbstractMBeanServer) server).isSamplingInAgent()) {
+                ((AbstractMBeanServer) server).resumeSampling();
+            }
         }
 
         JvmModel.getInstance().fireJvmModelChangeEvent(
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.jboss.tools.jmx.jvmmonitor.core.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.jboss.tools.jmx.jvmmonitor.core.JvmCoreException;
+import org.jboss.tools.jmx.jvmmonitor.internal.core.ChunkTransfer;
+
+/**
+ * The chunk handling of the file transfer from the agent, in
+ * {@link ChunkTransfer}.
+ */
+public class ChunkTransferTest extends TestCase {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    private static final int DEPTH = 4;
+
+    /** Reads the chunks of a byte array, as the agent reads its file. */
+    private static class ArrayReader implements ChunkTransfer.ChunkReader {
+        private byte[] data;
+        private AtomicInteger reads = new AtomicInteger();
+        private Random random = new Random(0);
+
+        ArrayReader(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public byte[] read(long position, int size) throws JvmCoreException {
+            reads.incrementAndGet();
+            try {
+                // so that the chunks complete out of order
+                Thread.sleep(nextDelay());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (position >= data.length) {
+                return new byte[0];
+            }
+            int end = (int) Math.min(data.length, position + size);
+            return deflate(Arrays.copyOfRange(data, (int) position, end));
+        }
+
+        private synchronized int nextDelay() {
+            return random.nextInt(5);
+        }
+    }
+
+    public void testPartialFinalChunk() throws Exception {
+        assertTransferred(data(CHUNK_SIZE * 5 + 100));
+    }
+
+    public void testExactMultiple() throws Exception {
+        assertTransferred(data(CHUNK_SIZE * 5));
+    }
+
+    public void testSmallerThanChunk() throws Exception {
+        assertTransferred(data(10));
+    }
+
+    public void testEmpty() throws Exception {
+        assertTransferred(new byte[0]);
+    }
+
+    public void testReaderError() throws Exception {
+        final JvmCoreException error = new JvmCoreException(IStatus.ERROR,
+                "read failed", null); //$NON-NLS-1$
+        final byte[] data = data(CHUNK_SIZE * 3);
+        ChunkTransfer transfer = new ChunkTransfer(new ArrayReader(data) {
+            @Override
+            public byte[] read(long position, int size)
+                    throws JvmCoreException {
+                if (position == CHUNK_SIZE * 2) {
+                    throw error;
+                }
+                return super.read(position, size);
+            }
+        }, CHUNK_SIZE, DEPTH);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            transfer.transfer(out, new NullProgressMonitor());
+            fail();
+        } catch (JvmCoreException e) {
+            assertSame(error, e);
+        }
+        // the chunks before the failed one are written
+        assertTrue(Arrays.equals(Arrays.copyOf(data, CHUNK_SIZE * 2),
+                out.toByteArray()));
+    }
+
+    public void testUnreachable() throws Exception {
+        ChunkTransfer transfer = new ChunkTransfer(
+                new ChunkTransfer.ChunkReader() {
+                    @Override
+                    public byte[] read(long position, int size) {
+                        return null;
+                    }
+                }, CHUNK_SIZE, DEPTH);
+        try {
+            transfer.transfer(new ByteArrayOutputStream(), null);
+            fail();
+        } catch (JvmCoreException e) {
+            assertEquals(IStatus.WARNING, e.getStatus().getSeverity());
+        }
+    }
+
+    public void testCanceled() throws Exception {
+        byte[] data = data(CHUNK_SIZE * 20);
+        ArrayReader reader = new ArrayReader(data);
+        NullProgressMonitor monitor = new NullProgressMonitor();
+        monitor.setCanceled(true);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertFalse(new ChunkTransfer(reader, CHUNK_SIZE, DEPTH).transfer(out,
+                monitor));
+        assertTrue(Arrays.equals(Arrays.copyOf(data, CHUNK_SIZE),
+                out.toByteArray()));
+        // no more than the requests in flight are made
+        assertTrue(reader.reads.get() <= DEPTH + 1);
+    }
+
+    public void testInflate() throws Exception {
+        byte[] data = data(CHUNK_SIZE);
+        assertTrue(Arrays.equals(data,
+                ChunkTransfer.inflate(deflate(data), CHUNK_SIZE)));
+        assertEquals(0, ChunkTransfer.inflate(new byte[0], CHUNK_SIZE).length);
+        // no more than the max size
+        assertEquals(100, ChunkTransfer.inflate(deflate(data), 100).length);
+    }
+
+    public void testInflateTruncated() throws Exception {
+        byte[] deflated = deflate(data(CHUNK_SIZE));
+        try {
+            ChunkTransfer.inflate(
+                    Arrays.copyOf(deflated, deflated.length / 2), CHUNK_SIZE);
+            fail();
+        } catch (EOFException e) {
+            // expected
+        }
+    }
+
+    public void testInflateCorrupted() throws Exception {
+        byte[] garbage = new byte[100];
+        Arrays.fill(garbage, (byte) 0xFF);
+        try {
+            ChunkTransfer.inflate(garbage, CHUNK_SIZE);
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private static void assertTransferred(byte[] data) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(new ChunkTransfer(new ArrayReader(data), CHUNK_SIZE, DEPTH)
+                .transfer(out, new NullProgressMonitor()));
+        assertTrue(Arrays.equals(data, out.toByteArray()));
+    }
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        Random random = new Random(length);
+        for (int i = 0; i < length; i++) {
+            // compressible, like a dump
+            data[i] = (byte) ('a' + random.nextInt(4));
+        }
+        return data;
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.jboss.tools.jmx.jvmmonitor.core.tests;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.jboss.tools.jmx.jvmmonitor.internal.agent.CompactDumpTest;
+import org.jboss.tools.jmx.jvmmonitor.internal.agent.MethodRegistryTest;
+
+public class JvmMonitorCoreAllTests {
+    public static Test suite() {
+        TestSuite suite = new TestSuite();
+        suite.addTestSuite(MethodRegistryTest.class);
+        suite.addTestSuite(CompactDumpTest.class);
+        suite.addTestSuite(ChunkTransferTest.class);
+        suite.addTestSuite(MonitoredAttributesTest.class);
+        return suite;
+    }
+}
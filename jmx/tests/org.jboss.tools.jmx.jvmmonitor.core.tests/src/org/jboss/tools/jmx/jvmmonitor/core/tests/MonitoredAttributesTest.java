@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.jboss.tools.jmx.jvmmonitor.core.tests;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
+import junit.framework.TestCase;
+
+import org.jboss.tools.jmx.jvmmonitor.core.mbean.IMonitoredMXBeanAttribute;
+import org.jboss.tools.jmx.jvmmonitor.internal.core.MonitoredMXBeanAttribute;
+import org.jboss.tools.jmx.jvmmonitor.internal.core.Util;
+
+/**
+ * The getting of the monitored attributes of each MBean at once, in
+ * {@link Util}.
+ */
+public class MonitoredAttributesTest extends TestCase {
+
+    private static final String MEMORY = "java.lang:type=Memory"; //$NON-NLS-1$
+
+    private static final String THREADING = "java.lang:type=Threading"; //$NON-NLS-1$
+
+    private MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    public void testTopLevelAttributeName() {
+        assertEquals("HeapMemoryUsage", //$NON-NLS-1$
+                Util.getTopLevelAttributeName("HeapMemoryUsage.used")); //$NON-NLS-1$
+        assertEquals("ThreadCount", //$NON-NLS-1$
+                Util.getTopLevelAttributeName("ThreadCount")); //$NON-NLS-1$
+    }
+
+    public void testAttributeNamesByMBean() throws Exception {
+        List<IMonitoredMXBeanAttribute> attributes = new ArrayList<IMonitoredMXBeanAttribute>();
+        attributes.add(attribute(MEMORY, "HeapMemoryUsage.used")); //$NON-NLS-1$
+        attributes.add(attribute(THREADING, "ThreadCount")); //$NON-NLS-1$
+        attributes.add(attribute(MEMORY, "HeapMemoryUsage.committed")); //$NON-NLS-1$
+        attributes.add(attribute(MEMORY, "NonHeapMemoryUsage.used")); //$NON-NLS-1$
+
+        Map<ObjectName, Set<String>> names = Util
+                .getAttributeNamesByMBean(attributes);
+        assertEquals(Arrays.asList(new ObjectName(MEMORY), new ObjectName(
+                THREADING)), new ArrayList<ObjectName>(names.keySet()));
+        assertEquals(Arrays.asList("HeapMemoryUsage", "NonHeapMemoryUsage"), //$NON-NLS-1$ //$NON-NLS-2$
+                new ArrayList<String>(names.get(new ObjectName(MEMORY))));
+        assertEquals(Arrays.asList("ThreadCount"), //$NON-NLS-1$
+                new ArrayList<String>(names.get(new ObjectName(THREADING))));
+    }
+
+    public void testGetAttributes() throws Exception {
+        Map<String, Object> values = Util.getAttributes(server,
+                new ObjectName(MEMORY), names("HeapMemoryUsage", //$NON-NLS-1$
+                        "NonHeapMemoryUsage")); //$NON-NLS-1$
+        assertEquals(2, values.size());
+
+        Number used = Util.getAttributeValue(values.get("HeapMemoryUsage"), //$NON-NLS-1$
+                "HeapMemoryUsage.used"); //$NON-NLS-1$
+        assertTrue(used instanceof Long);
+        assertTrue(used.longValue() > 0);
+    }
+
+    public void testUnknownAttributeLeftOut() throws Exception {
+        Map<String, Object> values = Util.getAttributes(server,
+                new ObjectName(THREADING), names("ThreadCount", "Unknown")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(1, values.size());
+        assertTrue(values.get("ThreadCount") instanceof Number); //$NON-NLS-1$
+    }
+
+    public void testUnregisteredMBean() throws Exception {
+        Map<String, Object> values = Util.getAttributes(server,
+                new ObjectName("test:type=Unregistered"), names("Value")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(values.isEmpty());
+    }
+
+    public void testTabularValue() throws Exception {
+        CompositeType rowType = new CompositeType("Row", "Row", //$NON-NLS-1$ //$NON-NLS-2$
+                new String[] { "key", "value" }, new String[] { "key", "value" }, //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+                new OpenType<?>[] { SimpleType.STRING, SimpleType.LONG });
+        TabularDataSupport table = new TabularDataSupport(new TabularType(
+                "Table", "Table", rowType, new String[] { "key" })); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        table.put(new CompositeDataSupport(rowType, new String[] { "key", //$NON-NLS-1$
+                "value" }, new Object[] { "a", Long.valueOf(1) })); //$NON-NLS-1$ //$NON-NLS-2$
+        table.put(new CompositeDataSupport(rowType, new String[] { "key", //$NON-NLS-1$
+                "value" }, new Object[] { "b", Long.valueOf(2) })); //$NON-NLS-1$ //$NON-NLS-2$
+
+        assertEquals(Long.valueOf(2), Util.getAttributeValue(table, "Table.b.value")); //$NON-NLS-1$
+        assertNull(Util.getAttributeValue(table, "Table.c.value")); //$NON-NLS-1$
+    }
+
+    public void testNumberValue() {
+        assertEquals(Integer.valueOf(3), Util.getAttributeValue(
+                Integer.valueOf(3), "ThreadCount")); //$NON-NLS-1$
+        assertNull(Util.getAttributeValue("text", "Text")); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    private static IMonitoredMXBeanAttribute attribute(String objectName,
+            String attributeName) throws Exception {
+        return new MonitoredMXBeanAttribute(new ObjectName(objectName),
+                attributeName, new int[] { 0, 0, 0 });
+    }
+
+    private static Set<String> names(String... names) {
+        return new LinkedHashSet<String>(Arrays.asList(names));
+    }
+}
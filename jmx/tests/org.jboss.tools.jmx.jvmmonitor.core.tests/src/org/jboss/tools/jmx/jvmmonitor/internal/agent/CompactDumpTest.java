@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.jboss.tools.jmx.jvmmonitor.internal.agent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.jboss.tools.jmx.jvmmonitor.core.cpu.ICallTreeNode;
+import org.jboss.tools.jmx.jvmmonitor.core.cpu.IMethodNode;
+import org.jboss.tools.jmx.jvmmonitor.core.cpu.ITreeNode;
+import org.jboss.tools.jmx.jvmmonitor.core.dump.CpuDumpParser;
+import org.jboss.tools.jmx.jvmmonitor.internal.core.cpu.CpuModel;
+
+/**
+ * The dump written by {@link CompactDumpWriter} read back by
+ * {@link CpuDumpParser}, compared with the XML dump of the same model.
+ */
+public class CompactDumpTest extends TestCase {
+
+    private static final long MILLI = 1000000;
+
+    private RuntimeModel model;
+
+    @Override
+    protected void setUp() throws Exception {
+        model = new RuntimeModel(false);
+
+        int run = MethodRegistry.getId("p/Main", "run()V"); //$NON-NLS-1$ //$NON-NLS-2$
+        int init = MethodRegistry.getId("p/Worker", "<init>(Ljava/lang/String;)V"); //$NON-NLS-1$ //$NON-NLS-2$
+        int work = MethodRegistry.getId("p/Worker", "work([IJ)I"); //$NON-NLS-1$ //$NON-NLS-2$
+
+        FrameNode main = model.getThread("main-test").getRootFrame(run); //$NON-NLS-1$
+        main.setStepIntoTime(0, 0);
+        step(main.getChild(init), 1, 3);
+        FrameNode worker = main.getChild(work);
+        step(worker, 4, 10);
+        step(worker, 12, 15);
+        // recursion
+        step(worker.getChild(work), 5, 7);
+        main.setStepReturnTime(20 * MILLI, 0);
+
+        FrameNode other = model.getThread("other-test").getRootFrame(work); //$NON-NLS-1$
+        for (int i = 0; i < 3; i++) {
+            other.addSample(2 * MILLI, true);
+        }
+    }
+
+    public void testSameAsXml() throws Exception {
+        CpuModel xml = parse(model.doDump().getBytes("UTF-8")); //$NON-NLS-1$
+        CpuModel compact = parse(model.dumpCompact());
+
+        assertEquals(2, compact.getCallTreeRoots().length);
+        assertSameTrees(xml.getCallTreeRoots(), compact.getCallTreeRoots());
+        assertSameTrees(xml.getHotSpotRoots(), compact.getHotSpotRoots());
+    }
+
+    public void testFrames() throws Exception {
+        CpuModel compact = parse(model.dumpCompact());
+
+        ITreeNode thread = find(compact.getCallTreeRoots(), "main-test"); //$NON-NLS-1$
+        ICallTreeNode run = (ICallTreeNode) find(thread.getChildren(), "p.Main.run()"); //$NON-NLS-1$
+        assertEquals(1, run.getInvocationCount());
+        assertEquals(20, run.getTotalTime());
+        ICallTreeNode init = (ICallTreeNode) find(run.getChildren(), "p.Worker.<init>(java.lang.String)"); //$NON-NLS-1$
+        assertEquals(2, init.getTotalTime());
+        ICallTreeNode work = (ICallTreeNode) find(run.getChildren(), "p.Worker.work(int[], long)"); //$NON-NLS-1$
+        assertEquals(2, work.getInvocationCount());
+        assertEquals(9, work.getTotalTime());
+        assertNotNull(find(work.getChildren(), "p.Worker.work(int[], long)")); //$NON-NLS-1$
+
+        ICallTreeNode sampled = (ICallTreeNode) find(find(compact.getCallTreeRoots(),
+                "other-test").getChildren(), "p.Worker.work(int[], long)"); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(3, sampled.getInvocationCount());
+        assertEquals(6, sampled.getTotalTime());
+    }
+
+    public void testHeader() throws Exception {
+        CpuDumpParser parser = new CpuDumpParser(new ByteArrayInputStream(
+                model.dumpCompact()), new CpuModel(), new NullProgressMonitor());
+        parser.parse();
+        assertNotNull(parser.getProfileInfo());
+        assertEquals(ManagementFactory.getRuntimeMXBean().getName(), parser
+                .getProfileInfo().getRuntime());
+    }
+
+    public void testEmptyModel() throws Exception {
+        CpuModel compact = parse(new RuntimeModel(false).dumpCompact());
+        assertEquals(0, compact.getCallTreeRoots().length);
+    }
+
+    public void testTruncated() throws Exception {
+        byte[] dump = model.dumpCompact();
+        for (int length : new int[] { 5, dump.length / 2, dump.length - 1 }) {
+            try {
+                parse(Arrays.copyOf(dump, length));
+                fail("Truncated at " + length); //$NON-NLS-1$
+            } catch (EOFException e) {
+                // expected
+            }
+        }
+    }
+
+    public void testUnknownVersion() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompactDumpWriter writer = new CompactDumpWriter(out);
+        writer.writeHeader("", "", "", ""); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        writer.end();
+        byte[] dump = out.toByteArray();
+        parse(dump);
+
+        // the version follows the magic number
+        assertEquals(CompactDumpWriter.FORMAT_VERSION, dump[4]);
+        dump[4] = CompactDumpWriter.FORMAT_VERSION + 1;
+        try {
+            parse(dump);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("version")); //$NON-NLS-1$
+        }
+    }
+
+    private static void step(FrameNode frame, long into, long ret) {
+        frame.setStepIntoTime(into * MILLI, 0);
+        frame.setStepReturnTime(ret * MILLI, 0);
+    }
+
+    private static CpuModel parse(byte[] dump) throws Exception {
+        CpuModel cpuModel = new CpuModel();
+        new CpuDumpParser(new ByteArrayInputStream(dump), cpuModel,
+                new NullProgressMonitor()).parse();
+        return cpuModel;
+    }
+
+    private static ITreeNode find(ITreeNode[] nodes, String name) {
+        return find(Arrays.asList(nodes), name);
+    }
+
+    private static ITreeNode find(List<? extends ITreeNode> nodes, String name) {
+        for (ITreeNode node : nodes) {
+            if (node.getName().equals(name)) {
+                return node;
+            }
+        }
+        fail(name + " not found in " + nodes); //$NON-NLS-1$
+        return null;
+    }
+
+    private static void assertSameTrees(ITreeNode[] expected, ITreeNode[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (ITreeNode node : expected) {
+            assertSameTree(node, find(actual, node.getName()));
+        }
+    }
+
+    private static void assertSameTree(ITreeNode expected, ITreeNode actual) {
+        assertEquals(expected.getName(), actual.getName());
+        if (expected instanceof IMethodNode) {
+            IMethodNode method = (IMethodNode) actual;
+            assertEquals(((IMethodNode) expected).getInvocationCount(),
+                    method.getInvocationCount());
+            assertEquals(((IMethodNode) expected).getSelfTime(),
+                    method.getSelfTime());
+        }
+        if (expected instanceof ICallTreeNode) {
+            assertEquals(((ICallTreeNode) expected).getTotalTime(),
+                    ((ICallTreeNode) actual).getTotalTime());
+        }
+        assertEquals(expected.hasChildren(), actual.hasChildren());
+        if (!expected.hasChildren()) {
+            return;
+        }
+        List<? extends ITreeNode> children = expected.getChildren();
+        assertEquals(children.size(), actual.getChildren().size());
+        for (ITreeNode child : children) {
+            assertSameTree(child, find(actual.getChildren(), child.getName()));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2018 Red Hat, Inc.
+ * Distributed under license by Red Hat, Inc. All rights reserved.
+ * This program is made available under the terms of the
+ * Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Red Hat, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.jboss.tools.jmx.jvmmonitor.internal.agent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+/**
+ * The method ids of {@link MethodRegistry}, and the lookup of frames by
+ * method id in {@link FrameNode} and {@link ThreadNode}.
+ */
+public class MethodRegistryTest extends TestCase {
+
+    public void testSameMethodSameId() {
+        int id = MethodRegistry.getId("p/Same", "m(I)V"); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals(id, MethodRegistry.getId("p/Same", "m(I)V")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals("p/Same", MethodRegistry.getClassName(id)); //$NON-NLS-1$
+        assertEquals("m(I)V", MethodRegistry.getMethodName(id)); //$NON-NLS-1$
+    }
+
+    public void testOverloadsAndClassesDiffer() {
+        int id = MethodRegistry.getId("p/Differ", "m(I)V"); //$NON-NLS-1$ //$NON-NLS-2$
+        int overload = MethodRegistry.getId("p/Differ", "m(J)V"); //$NON-NLS-1$ //$NON-NLS-2$
+        int otherClass = MethodRegistry.getId("p/Differ2", "m(I)V"); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue(id != overload);
+        assertTrue(id != otherClass);
+        assertTrue(overload != otherClass);
+    }
+
+    public void testManyMethods() {
+        // more than the initial capacity of the registry
+        int[] ids = new int[3000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = MethodRegistry.getId("p/Many", "m" + i + "()V"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(ids[i], MethodRegistry.getId("p/Many", "m" + i + "()V")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            assertEquals("p/Many", MethodRegistry.getClassName(ids[i])); //$NON-NLS-1$
+            assertEquals("m" + i + "()V", MethodRegistry.getMethodName(ids[i])); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    public void testConcurrentRegistration() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<int[]>> results = new ArrayList<Future<int[]>>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(new Callable<int[]>() {
+                    @Override
+                    public int[] call() {
+                        int[] ids = new int[500];
+                        for (int i = 0; i < ids.length; i++) {
+                            ids[i] = MethodRegistry.getId("p/Concurrent", //$NON-NLS-1$
+                                    "m" + i + "()V"); //$NON-NLS-1$ //$NON-NLS-2$
+                        }
+                        return ids;
+                    }
+                }));
+            }
+            int[] expected = results.get(0).get();
+            for (Future<int[]> result : results) {
+                int[] ids = result.get();
+                for (int i = 0; i < ids.length; i++) {
+                    assertEquals(expected[i], ids[i]);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testChildLookup() {
+        int a = MethodRegistry.getId("p/Child", "a()V"); //$NON-NLS-1$ //$NON-NLS-2$
+        int b = MethodRegistry.getId("p/Child", "b()V"); //$NON-NLS-1$ //$NON-NLS-2$
+        FrameNode root = new FrameNode(null, a);
+
+        FrameNode child = root.getChild(b);
+        assertSame(root, child.getParent());
+        assertSame(child, root.getChild(b));
+        assertSame(child, FrameNode.find(new FrameNode[] { child }, b));
+        assertNull(FrameNode.find(new FrameNode[] { child }, a));
+        assertNull(FrameNode.find(FrameNode.NO_FRAMES, a));
+
+        // recursion adds a new frame rather than finding the ancestor
+        FrameNode recursive = child.getChild(a);
+        assertNotSame(root, recursive);
+        assertSame(recursive, child.getChild(a));
+    }
+
+    public void testSearchFrame() {
+        int a = MethodRegistry.getId("p/Search", "a()V"); //$NON-NLS-1$ //$NON-NLS-2$
+        int b = MethodRegistry.getId("p/Search", "b()V"); //$NON-NLS-1$ //$NON-NLS-2$
+        int c = MethodRegistry.getId("p/Search", "c()V"); //$NON-NLS-1$ //$NON-NLS-2$
+        int d = MethodRegistry.getId("p/Search", "d()V"); //$NON-NLS-1$ //$NON-NLS-2$
+        FrameNode root = new FrameNode(null, a);
+        FrameNode middle = root.getChild(b);
+        FrameNode leaf = middle.getChild(c);
+
+        assertSame(leaf, leaf.searchFrame(c));
+        assertSame(middle, leaf.searchFrame(b));
+        assertSame(root, leaf.searchFrame(a));
+        // not on the stack, so the search stops at the root
+        assertSame(root, leaf.searchFrame(d));
+    }
+
+    public void testRootFrameLookup() {
+        int a = MethodRegistry.getId("p/Root", "a()V"); //$NON-NLS-1$ //$NON-NLS-2$
+        int b = MethodRegistry.getId("p/Root", "b()V"); //$NON-NLS-1$ //$NON-NLS-2$
+        ThreadNode thread = new ThreadNode("t", 0); //$NON-NLS-1$
+
+        FrameNode root = thread.getRootFrame(a);
+        assertNull(root.getParent());
+        assertSame(root, thread.getRootFrame(a));
+        assertNotSame(root, thread.getRootFrame(b));
+    }
+
+    public void testConcurrentChildLookup() throws Exception {
+        int a = MethodRegistry.getId("p/ConcurrentChild", "a()V"); //$NON-NLS-1$ //$NON-NLS-2$
+        final int[] ids = new int[100];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = MethodRegistry.getId("p/ConcurrentChild", "m" + i + "()V"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+        final FrameNode root = new FrameNode(null, a);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<FrameNode[]>> results = new ArrayList<Future<FrameNode[]>>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(new Callable<FrameNode[]>() {
+                    @Override
+                    public FrameNode[] call() {
+                        FrameNode[] children = new FrameNode[ids.length];
+                        for (int i = 0; i < ids.length; i++) {
+                            children[i] = root.getChild(ids[i]);
+                        }
+                        return children;
+                    }
+                }));
+            }
+            FrameNode[] expected = results.get(0).get();
+            for (Future<FrameNode[]> result : results) {
+                FrameNode[] children = result.get();
+                for (int i = 0; i < children.length; i++) {
+                    assertSame(expected[i], children[i]);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testFrameDump() {
+        int a = MethodRegistry.getId("p/Dump", "a(ILjava/lang/String;)V"); //$NON-NLS-1$ //$NON-NLS-2$
+        FrameNode frame = new FrameNode(null, a);
+        frame.setStepIntoTime(0, 0);
+        frame.setStepReturnTime(3000000, 0);
+        frame.setStepIntoTime(10000000, 0);
+        frame.setStepReturnTime(12000000, 0);
+
+        StringBuffer buffer = new StringBuffer();
+        frame.dump(buffer, 20000000, 0);
+        assertEquals(
+                "<frame name=\"p.Dump.a(int, java.lang.String)\" cnt=\"2\" time=\"5\"/>\n", //$NON-NLS-1$
+                buffer.toString());
+    }
+}